@@ -53,16 +53,23 @@ __TEST_THE_WORLD__ = [
 	"uk.ac.manchester.tornado.unittests.loops.TestLoops",
 	"uk.ac.manchester.tornado.unittests.loops.TestParallelDimensions",
 	"uk.ac.manchester.tornado.unittests.matrices.TestMatrices",
+	"uk.ac.manchester.tornado.unittests.matrices.TestBlas",
 	"uk.ac.manchester.tornado.unittests.reductions.TestReductionsIntegers",
 	"uk.ac.manchester.tornado.unittests.reductions.TestReductionsFloats",
 	"uk.ac.manchester.tornado.unittests.reductions.TestReductionsDoubles",
 	"uk.ac.manchester.tornado.unittests.reductions.TestReductionsLong",
+	"uk.ac.manchester.tornado.unittests.reductions.TestReductionsSinglePass",
 	"uk.ac.manchester.tornado.unittests.reductions.InstanceReduction",
 	"uk.ac.manchester.tornado.unittests.instances.TestInstances",
 	"uk.ac.manchester.tornado.unittests.matrices.TestMatrixTypes",
+	"uk.ac.manchester.tornado.unittests.matrices.TestSparseMatrices",
+	"uk.ac.manchester.tornado.unittests.matrices.TestMatrixMarket",
 	"uk.ac.manchester.tornado.unittests.api.TestAPI",
 	"uk.ac.manchester.tornado.unittests.math.TestMath",
+	"uk.ac.manchester.tornado.unittests.math.TestFFT",
+	"uk.ac.manchester.tornado.unittests.math.TestPhilox",
 	"uk.ac.manchester.tornado.unittests.batches.TestBatches",
+	"uk.ac.manchester.tornado.unittests.batches.TestOutOfCore",
 	"uk.ac.manchester.tornado.unittests.lambdas.TestLambdas",
 	"uk.ac.manchester.tornado.unittests.flatmap.TestFlatMap",
 	"uk.ac.manchester.tornado.unittests.logic.TestLogic",
@@ -70,14 +77,29 @@ __TEST_THE_WORLD__ = [
 	"uk.ac.manchester.tornado.unittests.fields.TestFields",
 	"uk.ac.manchester.tornado.unittests.profiler.TestProfiler",
 	"uk.ac.manchester.tornado.unittests.reductions.MultipleReductions",
+	"uk.ac.manchester.tornado.unittests.reductions.TestKeyedReductions",
+	"uk.ac.manchester.tornado.unittests.algorithms.TestScan",
+	"uk.ac.manchester.tornado.unittests.algorithms.TestRadixSort",
 	"uk.ac.manchester.tornado.unittests.bitsets.BitSetTests",
 	"uk.ac.manchester.tornado.unittests.fails.TestFails",
     "uk.ac.manchester.tornado.unittests.math.TestTornadoMathCollection",
 	"uk.ac.manchester.tornado.unittests.dynamic.TestDynamic",
 	"uk.ac.manchester.tornado.unittests.numpromotion.TestNumericPromotion",
+	"uk.ac.manchester.tornado.unittests.kernelcontext.TestKernelContext",
 	"uk.ac.manchester.tornado.unittests.fails.CodeFail",
 ]
 
+## List of tests that need extra JVM options. Format: [class, options]
+__TEST_THE_WORLD_WITH_OPTIONS__ = [
+	["uk.ac.manchester.tornado.unittests.batches.TestHeapSpill", "-Dtornado.opencl.heap.spill=True -Dtornado.heap.allocation=64MB "],
+	["uk.ac.manchester.tornado.unittests.batches.TestGrowableHeap", "-Dtornado.opencl.heap.growable=True -Dtornado.opencl.heap.region.size=32MB "],
+	["uk.ac.manchester.tornado.unittests.reductions.TestReductionsSinglePass", "-Dtornado.reduce.singlepass=True "],
+	["uk.ac.manchester.tornado.unittests.loops.TestAutoVectorisation", "-Dtornado.opencl.vectorise=True -Dtornado.opencl.vectorise.width=8 -Dtornado.opencl.source.print=True "],
+	["uk.ac.manchester.tornado.unittests.loops.TestLocalMemoryTiling", "-Dtornado.opencl.tiling=True "],
+	["uk.ac.manchester.tornado.unittests.batches.TestAutoBatches", "-Dtornado.batch.auto=True -Dtornado.heap.allocation=64MB "],
+	["uk.ac.manchester.tornado.unittests.tasks.TestMultipleTasksSingleDevice", "-Dtornado.fusion=True "],
+]
+
 ## List of tests that can be ignored. Format: class#testMethod
 __TORNADO_TESTS_WHITE_LIST__ = [
 	"",
@@ -233,16 +255,19 @@ def runTests(args):
 	stats = {"[PASS]" : 0, "[FAILED]": 0}
 
 	## Run test
-	cmd = ""
+	tornado = ""
 	if (args.useOptirun):
-		cmd = "optirun tornado " + __IGNORE_INTEL_PLATFORM__ + options
+		tornado = "optirun tornado " + __IGNORE_INTEL_PLATFORM__ + options
 	else:
-		cmd = "tornado " + options
+		tornado = "tornado " + options
 
+	runner = ""
 	if (javaVersion == JDK_11_VERSION):
-		cmd += " -m " + __MAIN_TORNADO_TEST_RUNNER_MODULE__ + __MAIN_TORNADO_TEST_RUNNER__
+		runner = " -m " + __MAIN_TORNADO_TEST_RUNNER_MODULE__ + __MAIN_TORNADO_TEST_RUNNER__
 	else:
-		cmd += " " + __MAIN_TORNADO_TEST_RUNNER__
+		runner = " " + __MAIN_TORNADO_TEST_RUNNER__
+
+	cmd = tornado + runner
 
 	if (args.testClass != None):
 		if (args.fast):
@@ -252,8 +277,9 @@ def runTests(args):
 			runSingleCommand(cmd, args)
 	else:
 		start = time.time()
-		for t in __TEST_THE_WORLD__:
-			command = cmd + t
+		commands = [cmd + t for t in __TEST_THE_WORLD__]
+		commands += [tornado + " " + t[1] + runner + t[0] for t in __TEST_THE_WORLD_WITH_OPTIONS__]
+		for command in commands:
 			if (args.fast):
 				os.system(command)
 			else:
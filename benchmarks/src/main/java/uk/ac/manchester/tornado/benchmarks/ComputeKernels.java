@@ -20,6 +20,7 @@ package uk.ac.manchester.tornado.benchmarks;
 import org.apache.lucene.util.LongBitSet;
 
 import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.collections.math.Philox;
 import uk.ac.manchester.tornado.api.collections.math.TornadoMath;
 import uk.ac.manchester.tornado.api.collections.types.Byte3;
 import uk.ac.manchester.tornado.api.collections.types.ImageByte3;
@@ -79,6 +80,30 @@ public class ComputeKernels {
         }
     }
 
+    /**
+     * MonteCarlo computation with the points drawn from the counter-based
+     * {@link Philox} generator: the coordinates of point {@code j} of thread
+     * {@code idx} are words 0 and 1 of the block {@code (seed, idx, j)}, so the
+     * Java and the device versions compute the same values.
+     */
+    public static void monteCarloPhilox(float[] result, int size) {
+        final int iter = 25000;
+        final long seed = 0x5DEECE66DL;
+        for (@Parallel int idx = 0; idx < size; idx++) {
+            float sum = 0.0f;
+            for (int j = 0; j < iter; ++j) {
+                float x = Philox.uniform(seed, idx, j, 0);
+                float y = Philox.uniform(seed, idx, j, 1);
+                float dist = TornadoMath.sqrt(x * x + y * y);
+                if (dist <= 1.0f) {
+                    sum += 1.0f;
+                }
+            }
+            sum = sum * 4;
+            result[idx] = sum / (float) iter;
+        }
+    }
+
     public static void nBody(int numBodies, float[] refPos, float[] refVel, float delT, float espSqr) {
         for (@Parallel int i = 0; i < numBodies; i++) {
             int body = 4 * i;
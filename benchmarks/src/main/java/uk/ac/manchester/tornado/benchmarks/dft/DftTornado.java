@@ -20,17 +20,28 @@ package uk.ac.manchester.tornado.benchmarks.dft;
 import static uk.ac.manchester.tornado.api.collections.math.TornadoMath.abs;
 
 import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.collections.math.FFT;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
 import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
 import uk.ac.manchester.tornado.benchmarks.ComputeKernels;
 
 public class DftTornado extends BenchmarkDriver {
 
+    /**
+     * Computes the transform with {@link FFT} instead of the O(n^2) DFT. Use
+     * {@code -Dbenchmark.fft=True}.
+     */
+    private static final boolean USE_FFT = Boolean.parseBoolean(TornadoRuntime.getProperty("benchmark.fft", "False"));
+
     private int size;
     private TaskSchedule graph;
     private double[] inReal;
     private double[] inImag;
     private double[] outReal;
     private double[] outImag;
+    private float[] input;
+    private float[] data;
+    private float[] buffer;
 
     public DftTornado(int iterations, int size) {
         super(iterations);
@@ -46,15 +57,33 @@ public class DftTornado extends BenchmarkDriver {
             inReal[i] = 1 / (double) (i + 2);
             inImag[i] = 1 / (double) (i + 2);
         }
+        if (USE_FFT) {
+            input = new float[2 * size];
+            data = new float[2 * size];
+            buffer = new float[2 * size];
+            for (int i = 0; i < size; i++) {
+                input[2 * i] = (float) inReal[i];
+                input[2 * i + 1] = (float) inImag[i];
+            }
+        }
     }
 
     @Override
     public void setUp() {
         initData();
-        graph = new TaskSchedule("benchmark") //
-                .streamIn(inReal, inImag) //
-                .task("t0", ComputeKernels::computeDft, inReal, inImag, outReal, outImag) //
-                .streamOut(outReal, outImag);
+        if (USE_FFT) {
+            // The transform is in place, so every execution starts from a copy
+            // of the input
+            graph = new TaskSchedule("benchmark") //
+                    .task("copy", FFT::copy, input, data, 2 * size);
+            FFT.fft(graph, "t0", data, buffer, size, FFT.Direction.FORWARD) //
+                    .streamOut(data);
+        } else {
+            graph = new TaskSchedule("benchmark") //
+                    .streamIn(inReal, inImag) //
+                    .task("t0", ComputeKernels::computeDft, inReal, inImag, outReal, outImag) //
+                    .streamOut(outReal, outImag);
+        }
         graph.warmup();
     }
 
@@ -66,7 +95,14 @@ public class DftTornado extends BenchmarkDriver {
 
         graph.warmup();
         graph.execute();
-        graph.streamOut(outReal, outImag);
+        if (USE_FFT) {
+            for (int i = 0; i < size; i++) {
+                outReal[i] = data[2 * i];
+                outImag[i] = data[2 * i + 1];
+            }
+        } else {
+            graph.streamOut(outReal, outImag);
+        }
 
         ComputeKernels.computeDft(inReal, inImag, outRealTor, outImagTor);
 
@@ -22,10 +22,12 @@ import static uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays.dgemm;
 
 import java.util.Random;
 
+import uk.ac.manchester.tornado.api.KernelContext;
 import uk.ac.manchester.tornado.api.TaskSchedule;
 import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
 import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
 import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+import uk.ac.manchester.tornado.matrix.Blas;
 
 public class DgemmTornado extends BenchmarkDriver {
 
@@ -36,6 +38,11 @@ public class DgemmTornado extends BenchmarkDriver {
     private double[] b;
     private double[] c;
 
+    /**
+     * Use {@link Blas#dgemm} with {@code -Dbenchmark.blas=True}.
+     */
+    private static final boolean USE_BLAS = Boolean.parseBoolean(TornadoRuntime.getProperty("benchmark.blas", "False"));
+
     private TaskSchedule graph;
 
     public DgemmTornado(int iterations, int m, int n) {
@@ -60,10 +67,13 @@ public class DgemmTornado extends BenchmarkDriver {
             b[i] = random.nextFloat();
         }
 
-        graph = new TaskSchedule("benchmark")//
-                .streamIn(a, b) //
-                .task("dgemm", LinearAlgebraArrays::dgemm, m, n, n, a, b, c) //
-                .streamOut(c);
+        graph = new TaskSchedule("benchmark").streamIn(a, b);
+        if (USE_BLAS) {
+            Blas.dgemm(graph, "dgemm", new KernelContext(), n, n, n, 1.0, a, b, 0.0, c);
+        } else {
+            graph.task("dgemm", LinearAlgebraArrays::dgemm, m, n, n, a, b, c);
+        }
+        graph.streamOut(c);
         graph.warmup();
     }
 
@@ -101,6 +111,8 @@ public class DgemmTornado extends BenchmarkDriver {
     public void printSummary() {
         if (isValid()) {
             System.out.printf("id=%s, elapsed=%f, per iteration=%f\n", TornadoRuntime.getProperty("benchmark.device"), getElapsed(), getElapsedPerIteration());
+            // 2 * n^3 operations, and the median is in nanoseconds
+            System.out.printf("GFLOP/s=%f\n", (2.0 * n * n * n) / getMedian());
         } else {
             System.out.printf("id=%s produced invalid result\n", TornadoRuntime.getProperty("benchmark.device"));
         }
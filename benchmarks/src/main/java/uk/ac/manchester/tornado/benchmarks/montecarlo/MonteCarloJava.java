@@ -18,6 +18,7 @@
 package uk.ac.manchester.tornado.benchmarks.montecarlo;
 
 import static uk.ac.manchester.tornado.benchmarks.ComputeKernels.monteCarlo;
+import static uk.ac.manchester.tornado.benchmarks.ComputeKernels.monteCarloPhilox;
 
 import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
 
@@ -45,7 +46,11 @@ public class MonteCarloJava extends BenchmarkDriver {
 
     @Override
     public void benchmarkMethod() {
-        monteCarlo(seq, size);
+        if (MonteCarloTornado.USE_PHILOX) {
+            monteCarloPhilox(seq, size);
+        } else {
+            monteCarlo(seq, size);
+        }
     }
 
     @Override
@@ -27,6 +27,12 @@ import uk.ac.manchester.tornado.benchmarks.ComputeKernels;
 
 public class MonteCarloTornado extends BenchmarkDriver {
 
+    /**
+     * Draws the points with the {@code Philox} generator. Use
+     * {@code -Dbenchmark.philox=True}.
+     */
+    static final boolean USE_PHILOX = Boolean.parseBoolean(TornadoRuntime.getProperty("benchmark.philox", "False"));
+
     private float[] output;
     private int size;
     private TaskSchedule graph;
@@ -39,9 +45,13 @@ public class MonteCarloTornado extends BenchmarkDriver {
     @Override
     public void setUp() {
         output = new float[size];
-        graph = new TaskSchedule("benchmark") //
-                .task("montecarlo", ComputeKernels::monteCarlo, output, size) //
-                .streamOut(output);
+        graph = new TaskSchedule("benchmark");
+        if (USE_PHILOX) {
+            graph.task("montecarlo", ComputeKernels::monteCarloPhilox, output, size);
+        } else {
+            graph.task("montecarlo", ComputeKernels::monteCarlo, output, size);
+        }
+        graph.streamOut(output);
         graph.warmup();
     }
 
@@ -65,7 +75,11 @@ public class MonteCarloTornado extends BenchmarkDriver {
 
         result = new float[size];
 
-        ComputeKernels.monteCarlo(result, size);
+        if (USE_PHILOX) {
+            ComputeKernels.monteCarloPhilox(result, size);
+        } else {
+            ComputeKernels.monteCarlo(result, size);
+        }
         graph.warmup();
         for (int i = 0; i < 3; i++) {
             graph.execute();
@@ -22,10 +22,12 @@ import static uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays.sgemm;
 
 import java.util.Random;
 
+import uk.ac.manchester.tornado.api.KernelContext;
 import uk.ac.manchester.tornado.api.TaskSchedule;
 import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
 import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
 import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+import uk.ac.manchester.tornado.matrix.Blas;
 
 public class SgemmTornado extends BenchmarkDriver {
 
@@ -34,6 +36,12 @@ public class SgemmTornado extends BenchmarkDriver {
     private float[] a;
     private float[] b;
     private float[] c;
+    /**
+     * Runs the tiled kernel of {@link Blas} instead of the naive one, with
+     * {@code -Dbenchmark.blas=True}.
+     */
+    private static final boolean USE_BLAS = Boolean.parseBoolean(TornadoRuntime.getProperty("benchmark.blas", "False"));
+
     private TaskSchedule graph;
 
     public SgemmTornado(int iterations, int m, int n) {
@@ -60,7 +68,11 @@ public class SgemmTornado extends BenchmarkDriver {
 
         graph = new TaskSchedule("benchmark");
         graph.streamIn(a, b);
-        graph.task("sgemm", LinearAlgebraArrays::sgemm, m, n, n, a, b, c);
+        if (USE_BLAS) {
+            Blas.sgemm(graph, "sgemm", new KernelContext(), n, n, n, 1.0f, a, b, 0.0f, c);
+        } else {
+            graph.task("sgemm", LinearAlgebraArrays::sgemm, m, n, n, a, b, c);
+        }
         graph.streamOut(c);
         graph.warmup();
     }
@@ -109,6 +121,8 @@ public class SgemmTornado extends BenchmarkDriver {
     public void printSummary() {
         if (isValid()) {
             System.out.printf("id=%s, elapsed=%f, per iteration=%f\n", TornadoRuntime.getProperty("benchmark.device"), getElapsed(), getElapsedPerIteration());
+            // 2 * n^3 operations, and the median is in nanoseconds
+            System.out.printf("GFLOP/s=%f\n", (2.0 * n * n * n) / getMedian());
         } else {
             System.out.printf("id=%s produced invalid result\n", TornadoRuntime.getProperty("benchmark.device"));
         }
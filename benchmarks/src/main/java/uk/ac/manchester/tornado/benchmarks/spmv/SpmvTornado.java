@@ -22,8 +22,10 @@ import static uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays.spmv;
 import static uk.ac.manchester.tornado.benchmarks.spmv.Benchmark.initData;
 
 import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.collections.math.SparseMath;
 import uk.ac.manchester.tornado.benchmarks.BenchmarkDriver;
 import uk.ac.manchester.tornado.benchmarks.LinearAlgebraArrays;
+import uk.ac.manchester.tornado.matrix.SparseMatrixUtils;
 import uk.ac.manchester.tornado.matrix.SparseMatrixUtils.CSRMatrix;
 
 public class SpmvTornado extends BenchmarkDriver {
@@ -44,9 +46,16 @@ public class SpmvTornado extends BenchmarkDriver {
         v = new float[matrix.size];
         y = new float[matrix.size];
         initData(v);
-        graph = new TaskSchedule("benchmark") //
-                .task("spmv", LinearAlgebraArrays::spmv, matrix.vals, matrix.cols, matrix.rows, v, matrix.size, y) //
-                .streamOut(y);
+        graph = new TaskSchedule("benchmark");
+        String strategy = getProperty("benchmark.spmv.strategy", "naive");
+        if (strategy.equalsIgnoreCase("naive")) {
+            graph.task("spmv", LinearAlgebraArrays::spmv, matrix.vals, matrix.cols, matrix.rows, v, matrix.size, y);
+        } else if (strategy.equalsIgnoreCase("auto")) {
+            SparseMath.spmv(graph, "spmv", SparseMatrixUtils.toCSRMatrixFloat(matrix), v, y);
+        } else {
+            SparseMath.spmv(graph, "spmv", SparseMatrixUtils.toCSRMatrixFloat(matrix), v, y, SparseMath.Strategy.valueOf(strategy.toUpperCase()));
+        }
+        graph.streamOut(y);
         graph.warmup();
     }
 
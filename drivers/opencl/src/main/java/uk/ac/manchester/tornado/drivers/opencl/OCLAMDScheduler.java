@@ -23,6 +23,8 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl;
 
+import java.util.Arrays;
+
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public class OCLAMDScheduler extends OCLKernelScheduler {
@@ -40,7 +42,7 @@ public class OCLAMDScheduler extends OCLKernelScheduler {
 
     @Override
     public int launch(OCLKernel kernel, TaskMetaData meta, int[] waitEvents, long batchThreads) {
-        return deviceContext.enqueueNDRangeKernel(kernel, meta.getDims(), meta.getGlobalOffset(), meta.getGlobalWork(), null, waitEvents);
+        return deviceContext.enqueueNDRangeKernel(kernel, meta.getDims(), meta.getGlobalOffset(), meta.getGlobalWork(), (meta.isTiled() ? meta.getLocalWork() : null), waitEvents);
     }
 
     @Override
@@ -48,6 +50,7 @@ public class OCLAMDScheduler extends OCLKernelScheduler {
         final long[] globalWork = meta.getGlobalWork();
         for (int i = 0; i < meta.getDims(); i++) {
             long value = (batchThreads <= 0) ? (long) (meta.getDomain().get(i).cardinality()) : batchThreads;
+            value = tile(meta, coarsen(meta, i, value));
             // adjust for irregular problem sizes
             if (ADJUST_IRREGULAR && (value % WARP_SIZE != 0)) {
                 value = ((value / WARP_SIZE) + 1) * WARP_SIZE;
@@ -59,6 +62,10 @@ public class OCLAMDScheduler extends OCLKernelScheduler {
     @Override
     public void calculateLocalWork(final TaskMetaData meta) {
         final long[] localWork = meta.getLocalWork();
+        if (meta.isTiled()) {
+            Arrays.fill(localWork, 0, meta.getDims(), meta.getTileSize());
+            return;
+        }
         switch (meta.getDims()) {
             case 3:
                 /// XXX: Support 3D
@@ -41,6 +41,10 @@ public class OCLCPUScheduler extends OCLKernelScheduler {
         for (int i = 0; i < meta.getDims(); i++) {
             if (meta.enableThreadCoarsener()) {
                 globalWork[i] = maxItems[i] > 1 ? (long) (meta.getDomain().get(i).cardinality()) : 1;
+            } else if (meta.isCoarsened() && meta.getCoarseningFactor(i) > 0 && maxItems[i] > 1) {
+                // Blocks of iterations generated by the TornadoThreadCoarsener
+                long value = (batchThreads <= 0) ? (long) (meta.getDomain().get(i).cardinality()) : batchThreads;
+                globalWork[i] = coarsen(meta, i, value);
             } else {
                 globalWork[i] = i == 0 ? (long) (deviceContext.getDevice().getDeviceMaxComputeUnits()) : 1;
             }
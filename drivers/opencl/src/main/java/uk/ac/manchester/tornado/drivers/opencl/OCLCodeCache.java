@@ -620,4 +620,12 @@ public class OCLCodeCache {
     public OCLInstalledCode getInstalledCode(String id, String entryPoint) {
         return cache.get(id + "-" + entryPoint);
     }
+
+    /**
+     * Removes the code of a task from the cache. The code is not invalidated,
+     * since other task-schedules may still hold it.
+     */
+    public void remove(String id, String entryPoint) {
+        cache.remove(id + "-" + entryPoint);
+    }
 }
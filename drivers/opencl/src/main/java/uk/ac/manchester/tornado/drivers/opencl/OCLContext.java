@@ -308,6 +308,30 @@ public class OCLContext extends TornadoLogger {
         return devicePtr;
     }
 
+    /**
+     * Releases a buffer created through {@link #createBuffer(long, long)} before
+     * the context is cleaned up.
+     *
+     * @param buffer
+     *            OpenCL buffer to release.
+     */
+    public void releaseBuffer(long buffer) {
+        for (int i = 0; i < allocatedRegionCount; i++) {
+            if (allocatedRegions[i] == buffer) {
+                try {
+                    clReleaseMemObject(buffer);
+                    info("buffer released @ 0x%x", buffer);
+                } catch (OCLException e) {
+                    error(e.getMessage());
+                }
+                allocatedRegionCount--;
+                allocatedRegions[i] = allocatedRegions[allocatedRegionCount];
+                allocatedRegions[allocatedRegionCount] = -1;
+                return;
+            }
+        }
+    }
+
     int getPlatformIndex() {
         return platform.getIndex();
     }
@@ -62,6 +62,8 @@ public class OCLDevice extends TornadoLogger implements TornadoTargetDevice {
     private long maxConstantBufferSize;
     private long doubleFPConfig;
     private long singleFPConfig;
+    private int preferredVectorWidthInt;
+    private int preferredVectorWidthFloat;
     private String version;
     private OCLDeviceType deviceType;
 
@@ -83,6 +85,8 @@ public class OCLDevice extends TornadoLogger implements TornadoTargetDevice {
         this.maxConstantBufferSize = INIT_VALUE;
         this.doubleFPConfig = INIT_VALUE;
         this.singleFPConfig = INIT_VALUE;
+        this.preferredVectorWidthInt = INIT_VALUE;
+        this.preferredVectorWidthFloat = INIT_VALUE;
         this.maxWorkItemSizes = null;
         this.name = null;
         this.version = null;
@@ -288,6 +292,32 @@ public class OCLDevice extends TornadoLogger implements TornadoTargetDevice {
         return localMemorySize;
     }
 
+    public int getDevicePreferredVectorWidthInt() {
+        if (preferredVectorWidthInt != -1) {
+            return preferredVectorWidthInt;
+        }
+
+        Arrays.fill(buffer.array(), (byte) 0);
+        buffer.clear();
+        clGetDeviceInfo(id, OCLDeviceInfo.CL_DEVICE_PREFERRED_VECTOR_WIDTH_INT.getValue(), buffer.array());
+
+        preferredVectorWidthInt = buffer.getInt();
+        return preferredVectorWidthInt;
+    }
+
+    public int getDevicePreferredVectorWidthFloat() {
+        if (preferredVectorWidthFloat != -1) {
+            return preferredVectorWidthFloat;
+        }
+
+        Arrays.fill(buffer.array(), (byte) 0);
+        buffer.clear();
+        clGetDeviceInfo(id, OCLDeviceInfo.CL_DEVICE_PREFERRED_VECTOR_WIDTH_FLOAT.getValue(), buffer.array());
+
+        preferredVectorWidthFloat = buffer.getInt();
+        return preferredVectorWidthFloat;
+    }
+
     public int getDeviceMaxWorkItemDimensions() {
         if (maxWorkItemDimensions != -1) {
             return maxWorkItemDimensions;
@@ -25,6 +25,8 @@
  */
 package uk.ac.manchester.tornado.drivers.opencl;
 
+import java.util.Arrays;
+
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public class OCLGPUScheduler extends OCLKernelScheduler {
@@ -52,6 +54,7 @@ public class OCLGPUScheduler extends OCLKernelScheduler {
 
         for (int i = 0; i < meta.getDims(); i++) {
             long value = (batchThreads <= 0) ? (long) (meta.getDomain().get(i).cardinality()) : batchThreads;
+            value = tile(meta, coarsen(meta, i, value));
             if (ADJUST_IRREGULAR && (value % WARP_SIZE != 0)) {
                 value = ((value / WARP_SIZE) + 1) * WARP_SIZE;
             }
@@ -63,6 +66,11 @@ public class OCLGPUScheduler extends OCLKernelScheduler {
     public void calculateLocalWork(final TaskMetaData meta) {
         final long[] localWork = meta.getLocalWork();
 
+        if (meta.isTiled()) {
+            Arrays.fill(localWork, 0, meta.getDims(), meta.getTileSize());
+            return;
+        }
+
         switch (meta.getDims()) {
             case 3:
                 localWork[2] = 1;
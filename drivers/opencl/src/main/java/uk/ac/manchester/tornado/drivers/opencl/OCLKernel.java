@@ -41,6 +41,7 @@ public class OCLKernel extends TornadoLogger {
     private final OCLDeviceContext deviceContext;
     private final ByteBuffer buffer;
     private String kernelName;
+    private int numArgs;
 
     public OCLKernel(long id, OCLDeviceContext deviceContext) {
         this.id = id;
@@ -50,7 +51,7 @@ public class OCLKernel extends TornadoLogger {
         this.kernelName = "unknown";
 
         queryName();
-
+        queryNumArgs();
     }
 
     native static void clReleaseKernel(long kernelId) throws OCLException;
@@ -114,6 +115,20 @@ public class OCLKernel extends TornadoLogger {
         }
     }
 
+    private void queryNumArgs() {
+        buffer.clear();
+        try {
+            clGetKernelInfo(id, OCLKernelInfo.CL_KERNEL_NUM_ARGS.getValue(), buffer.array());
+            numArgs = buffer.getInt(0);
+        } catch (OCLException e) {
+            e.printStackTrace();
+        }
+    }
+
+    public int getNumArgs() {
+        return numArgs;
+    }
+
     public long getId() {
         return id;
     }
@@ -44,6 +44,26 @@ public abstract class OCLKernelScheduler {
 
     public abstract void calculateLocalWork(final TaskMetaData meta);
 
+    /**
+     * Number of work-items needed for a dimension of a kernel that has been
+     * coarsened by the {@code TornadoThreadCoarsener} or widened by the
+     * {@code TornadoAutoVectoriser}.
+     */
+    protected static long coarsen(final TaskMetaData meta, int index, long value) {
+        final int factor = meta.getCoarseningFactor(index);
+        return (factor > 1) ? (value + factor - 1) / factor : value;
+    }
+
+    /**
+     * Number of work-items of a dimension of a kernel tiled by the
+     * {@code TornadoLocalMemoryTiling}, rounded up to a multiple of the tile
+     * size. The extra work-items only help to load the tiles.
+     */
+    protected static long tile(final TaskMetaData meta, long value) {
+        final int size = meta.getTileSize();
+        return (size > 0) ? ((value + size - 1) / size) * size : value;
+    }
+
     public int submit(final OCLKernel kernel, final TaskMetaData meta, long batchThreads) {
         return submit(kernel, meta, null, batchThreads);
     }
@@ -37,6 +37,7 @@ import uk.ac.manchester.tornado.drivers.opencl.graal.OCLInstalledCode;
 import uk.ac.manchester.tornado.drivers.opencl.runtime.OCLTornadoDevice;
 import uk.ac.manchester.tornado.runtime.common.CallStack;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
+import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.tasks.GlobalObjectState;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
@@ -53,6 +54,72 @@ public class OpenCL {
 
     public final static int OCL_CALL_STACK_LIMIT = Integer.parseInt(getProperty("tornado.opencl.callstack.limit", "8192"));
 
+    /**
+     * Allows the device heap to grow on demand with additional OpenCL buffers
+     * instead of reserving the whole heap upfront.
+     */
+    public final static boolean OCL_HEAP_GROWABLE = Boolean.parseBoolean(getProperty("tornado.opencl.heap.growable", "False"));
+
+    /**
+     * Size of each heap region when the device heap is growable.
+     */
+    public final static long OCL_HEAP_REGION_SIZE = RuntimeUtilities.parseSize(getProperty("tornado.opencl.heap.region.size", "256MB"));
+
+    /**
+     * Maximum number of regions of a growable device heap. Every region is bound
+     * as an argument of the generated kernels.
+     */
+    public final static int OCL_HEAP_MAX_REGIONS = Integer.parseInt(getProperty("tornado.opencl.heap.max.regions", "8"));
+
+    /**
+     * Evicts the least-recently-used device buffers when the device heap runs
+     * out of memory instead of failing with an out-of-memory error.
+     */
+    public final static boolean OCL_HEAP_SPILL = Boolean.parseBoolean(getProperty("tornado.opencl.heap.spill", "False"));
+
+    /**
+     * Number of iterations of a parallel loop executed by each work-item on
+     * GPUs and accelerators. A value of 1 launches one work-item per iteration.
+     */
+    public final static int OCL_COARSENING_GPU = Integer.parseInt(getProperty("tornado.opencl.coarsening.gpu", "1"));
+
+    /**
+     * Number of iterations of a parallel loop executed by each work-item on
+     * CPUs. A value of 0 launches one work-item per compute unit.
+     */
+    public final static int OCL_COARSENING_CPU = Integer.parseInt(getProperty("tornado.opencl.coarsening.cpu", "0"));
+
+    /**
+     * How the iterations are assigned to the work-items of a coarsened kernel:
+     * {@code contiguous}, {@code strided}, or {@code auto} (contiguous on CPUs and
+     * strided on GPUs, which keeps the memory accesses coalesced).
+     */
+    public final static String OCL_COARSENING_MODE = getProperty("tornado.opencl.coarsening.mode", "auto");
+
+    /**
+     * Option to widen the unit-stride array accesses of 1D parallel loops into
+     * OpenCL vector loads and stores.
+     */
+    public final static boolean OCL_VECTORISE = Boolean.parseBoolean(getProperty("tornado.opencl.vectorise", "False"));
+
+    /**
+     * Number of elements processed by each vector operation when vectorising
+     * parallel loops. A value of 0 uses the preferred vector width reported by
+     * the device.
+     */
+    public final static int OCL_VECTOR_WIDTH = Integer.parseInt(getProperty("tornado.opencl.vectorise.width", "0"));
+
+    /**
+     * Option to load the tiles of the arrays read by 2D stencils into local
+     * memory, shared by the work-items of a work-group.
+     */
+    public final static boolean OCL_LOCAL_TILING = Boolean.parseBoolean(getProperty("tornado.opencl.tiling", "False"));
+
+    /**
+     * Maximum size of the square work-groups of a kernel tiled in local memory.
+     */
+    public final static int OCL_TILE_SIZE = Integer.parseInt(getProperty("tornado.opencl.tiling.size", "16"));
+
     public static final ByteOrder BYTE_ORDER = ByteOrder.LITTLE_ENDIAN;
 
     public static final int CL_TRUE = 1;
@@ -103,7 +103,7 @@ public class OCLHotSpotBackendFactory {
         Plugins plugins;
 
         try (InitTimer t = timer("create providers")) {
-            lowerer = new OCLLoweringProvider(metaAccess, foreignCalls, constantReflection, config, target);
+            lowerer = new OCLLoweringProvider(metaAccess, foreignCalls, constantReflection, config, target, device.getDeviceType());
             Providers p = new Providers(metaAccess, codeCache, constantReflection, constantFieldProvider, foreignCalls, lowerer, null, stampProvider, hotSpotGCProvider);
             ClassfileBytecodeProvider bytecodeProvider = new ClassfileBytecodeProvider(metaAccess, snippetReflection);
             GraalDebugHandlersFactory graalDebugHandlersFactory = new GraalDebugHandlersFactory(snippetReflection);
@@ -63,6 +63,7 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
 
     private final OCLKernelScheduler scheduler;
     private final int[] internalEvents = new int[1];
+    private int heapRegionArgIndex;
 
     private final long[] singleThreadGlobalWorkSize = new long[] { 1 };
     private final long[] singleThreadLocalWorkSize = new long[] { 1 };
@@ -127,6 +128,8 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
                 } else {
                     task = scheduler.submit(kernel, meta, null, 0);
                 }
+            } else if (meta.isWorkerGridDefined()) {
+                task = submitWorkerGrid(meta, null);
             } else {
                 task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, singleThreadGlobalWorkSize, singleThreadLocalWorkSize, null);
             }
@@ -134,6 +137,17 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         return task;
     }
 
+    /**
+     * Launches a task without parallel loops, e.g., a task written with a
+     * {@code KernelContext}, with the sizes of its worker grid. The OpenCL driver
+     * chooses the size of the work-groups when it is not set.
+     */
+    private int submitWorkerGrid(final TaskMetaData meta, final int[] waitEvents) {
+        final long[] globalWork = meta.getGlobalWork();
+        final long[] localWork = meta.isLocalWorkDefined() ? meta.getLocalWork() : null;
+        return deviceContext.enqueueNDRangeKernel(kernel, globalWork.length, null, globalWork, localWork, waitEvents);
+    }
+
     /**
      * stack needs to be read so that the return value is transfered back to the
      * host.- As this is blocking then no clFinish() is needed
@@ -226,6 +240,31 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
         buffer.clear();
         buffer.putLong(stack.toPrivateAddress());
         kernel.setArg(index, buffer);
+        index++;
+
+        heapRegionArgIndex = index;
+        setHeapRegionArgs(index);
+    }
+
+    /**
+     * Binds the secondary regions of a growable heap to the extra arguments of
+     * the kernel. Kernels that do not declare them, e.g. pre-built kernels, only
+     * access the primary region.
+     *
+     * @param index
+     *            index of the first heap region argument.
+     */
+    private void setHeapRegionArgs(int index) {
+        final int slots = kernel.getNumArgs() - index;
+        if (slots <= 0) {
+            return;
+        }
+        for (long regionBuffer : deviceContext.getMemoryManager().toSecondaryBuffers(slots)) {
+            buffer.clear();
+            buffer.putLong(regionBuffer);
+            kernel.setArg(index, buffer);
+            index++;
+        }
     }
 
     public int submitWithEvents(final OCLCallStack stack, final TaskMetaData meta, final int[] events, long batchThreads) {
@@ -245,6 +284,10 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
             internalEvents[0] = stack.enqueueWrite(events);
             waitEvents = internalEvents;
         } else {
+            // The heap may have grown or shrunk since the arguments were set
+            if (heapRegionArgIndex > 0) {
+                setHeapRegionArgs(heapRegionArgIndex);
+            }
             waitEvents = events;
         }
 
@@ -266,7 +309,9 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
                         System.out.println("\tDevice  : " + ((OCLTornadoDevice) meta.getDevice()).getDevice().getDeviceName());
                     }
                 }
-                if (meta.getGlobalWork() == null) {
+                if (meta.isWorkerGridDefined()) {
+                    task = submitWorkerGrid(meta, waitEvents);
+                } else if (meta.getGlobalWork() == null) {
                     task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, singleThreadGlobalWorkSize, singleThreadLocalWorkSize, waitEvents);
                 } else {
                     task = deviceContext.enqueueNDRangeKernel(kernel, 1, null, meta.getGlobalWork(), meta.getLocalWork(), waitEvents);
@@ -381,12 +426,15 @@ public class OCLInstalledCode extends InstalledCode implements TornadoInstalledC
 
     @Override
     public int launchWithDependencies(CallStack stack, TaskMetaData meta, long batchThreads, int[] waitEvents) {
-        return submitWithEvents((OCLCallStack) stack, meta, waitEvents, batchThreads);
+        final int event = submitWithEvents((OCLCallStack) stack, meta, waitEvents, batchThreads);
+        deviceContext.getMemoryManager().markLaunch();
+        return event;
     }
 
     @Override
     public int launchWithoutDependencies(CallStack stack, TaskMetaData meta, long batchThreads) {
         submitWithoutEvents((OCLCallStack) stack, meta, batchThreads);
+        deviceContext.getMemoryManager().markLaunch();
         return -1;
     }
 
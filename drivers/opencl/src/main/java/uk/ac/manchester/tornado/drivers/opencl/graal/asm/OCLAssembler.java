@@ -253,6 +253,8 @@ public final class OCLAssembler extends Assembler {
 
         public static final OCLUnaryIntrinsic AS_FLOAT = new OCLUnaryIntrinsic("as_float");
         public static final OCLUnaryIntrinsic AS_INT = new OCLUnaryIntrinsic("as_int");
+        public static final OCLUnaryIntrinsic AS_LONG = new OCLUnaryIntrinsic("as_long");
+        public static final OCLUnaryIntrinsic AS_DOUBLE = new OCLUnaryIntrinsic("as_double");
 
         public static final OCLUnaryIntrinsic IS_FINITE = new OCLUnaryIntrinsic("isfinite");
         public static final OCLUnaryIntrinsic IS_INF = new OCLUnaryIntrinsic("isinf");
@@ -43,6 +43,7 @@ public class OCLAssemblerConstants {
     public static final String CONSTANT_REGION_NAME = "_constant_region";
 
     public static final String HEAP_REF_NAME = "_heap_base";
+    public static final String HEAP_REGION_NAME = "_heap_region";
     public static final String FRAME_BASE_NAME = "_frame_base";
     public static final String FRAME_REF_NAME = "_frame";
 
@@ -89,6 +89,7 @@ import uk.ac.manchester.tornado.drivers.opencl.OCLContext;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDevice;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
 import uk.ac.manchester.tornado.drivers.opencl.OCLTargetDescription;
+import uk.ac.manchester.tornado.drivers.opencl.OpenCL;
 import uk.ac.manchester.tornado.drivers.opencl.enums.OCLDeviceType;
 import uk.ac.manchester.tornado.drivers.opencl.graal.OCLArchitecture;
 import uk.ac.manchester.tornado.drivers.opencl.graal.OCLCodeProvider;
@@ -221,14 +222,35 @@ public class OCLBackend extends TornadoBackend<OCLProviders> implements FrameMap
         return address;
     }
 
+    /**
+     * Returns the device address of the heap region that starts at the given heap
+     * offset.
+     */
+    public long readRegionBaseAddress(long regionStart) {
+        final OCLByteBuffer parameters = deviceContext.getMemoryManager().getSubBuffer(regionStart, 16);
+        final TaskMetaData meta = new TaskMetaData(scheduleMeta, OCLCodeCache.LOOKUP_BUFFER_KERNEL_NAME, 0);
+
+        parameters.putLong(0);
+        parameters.putLong(0);
+
+        int task = lookupCode.executeTask(parameters, meta);
+        lookupCode.readValue(parameters, meta, task);
+        lookupCode.resolveEvent(parameters, meta, task);
+
+        final long address = parameters.getLong(0);
+        Tornado.info("Heap region 0x%x @ 0x%x on %s ", regionStart, address, deviceContext.getDevice().getDeviceName());
+        return address;
+    }
+
     /**
      * It allocates the smallest of the requested heap size or the max global memory
-     * size.
+     * size. When the heap is growable, only the first region is allocated.
      */
     public void allocateHeapMemoryOnDevice() {
-        long memorySize = Math.min(DEFAULT_HEAP_ALLOCATION, deviceContext.getDevice().getDeviceMaxAllocationSize());
-        if (memorySize < DEFAULT_HEAP_ALLOCATION) {
-            Tornado.info("Unable to allocate %s of heap space - resized to %s", humanReadableByteCount(DEFAULT_HEAP_ALLOCATION, false), humanReadableByteCount(memorySize, false));
+        final long requestedSize = (OpenCL.OCL_HEAP_GROWABLE && !deviceContext.useRelativeAddresses()) ? Math.min(OpenCL.OCL_HEAP_REGION_SIZE, DEFAULT_HEAP_ALLOCATION) : DEFAULT_HEAP_ALLOCATION;
+        long memorySize = Math.min(requestedSize, deviceContext.getDevice().getDeviceMaxAllocationSize());
+        if (memorySize < requestedSize) {
+            Tornado.info("Unable to allocate %s of heap space - resized to %s", humanReadableByteCount(requestedSize, false), humanReadableByteCount(memorySize, false));
         }
         Tornado.info("%s: allocating %s of heap space", deviceContext.getDevice().getDeviceName(), humanReadableByteCount(memorySize, false));
         deviceContext.getMemoryManager().allocateRegion(memorySize);
@@ -481,6 +503,22 @@ public class OCLBackend extends TornadoBackend<OCLProviders> implements FrameMap
         asm.emitLine("}");
     }
 
+    /**
+     * Declares one kernel argument per secondary region of a growable heap.
+     * Objects are still accessed through their absolute addresses, the arguments
+     * only make the OpenCL driver map every region for the kernel.
+     */
+    private String getHeapRegionArgs() {
+        if (!OpenCL.OCL_HEAP_GROWABLE || deviceContext.useRelativeAddresses()) {
+            return "";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 1; i < OpenCL.OCL_HEAP_MAX_REGIONS; i++) {
+            sb.append(String.format(", %s uchar *%s%d", OCLAssemblerConstants.GLOBAL_MEM_MODIFIER, OCLAssemblerConstants.HEAP_REGION_NAME, i));
+        }
+        return sb.toString();
+    }
+
     private void emitPrologue(OCLCompilationResultBuilder crb, OCLAssembler asm, ResolvedJavaMethod method, LIR lir) {
 
         String methodName = crb.compilationResult.getName();
@@ -500,7 +538,7 @@ public class OCLBackend extends TornadoBackend<OCLProviders> implements FrameMap
 
             final String bumpBuffer = (deviceContext.needsBump()) ? String.format("%s void *dummy, ", OCLAssemblerConstants.GLOBAL_MEM_MODIFIER) : "";
 
-            asm.emitLine("%s void %s(%s%s)", OCLAssemblerConstants.KERNEL_MODIFIER, methodName, bumpBuffer, architecture.getABI());
+            asm.emitLine("%s void %s(%s%s%s)", OCLAssemblerConstants.KERNEL_MODIFIER, methodName, bumpBuffer, architecture.getABI(), getHeapRegionArgs());
             asm.beginScope();
             emitVariableDefs(crb, asm, lir);
             asm.eol();
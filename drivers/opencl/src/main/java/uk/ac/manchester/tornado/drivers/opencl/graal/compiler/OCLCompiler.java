@@ -475,7 +475,8 @@ public class OCLCompiler {
         OptimisticOptimizations optimisticOpts = OptimisticOptimizations.ALL;
         ProfilingInfo profilingInfo = resolvedMethod.getProfilingInfo();
 
-        OCLCompilationResult kernelCompResult = new OCLCompilationResult(task.getId(), resolvedMethod.getName(), taskMeta, backend);
+        // The kernel is named after the task, since a fused task shares its method with the producer
+        OCLCompilationResult kernelCompResult = new OCLCompilationResult(taskMeta.getCompilationId(), task.getTaskName(), taskMeta, backend);
         CompilationResultBuilderFactory factory = CompilationResultBuilderFactory.Default;
 
         Set<ResolvedJavaMethod> methods = new HashSet<>();
@@ -0,0 +1,143 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.graal.compiler.plugins;
+
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.graphbuilderconf.GraphBuilderContext;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugin.Receiver;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins;
+import org.graalvm.compiler.nodes.graphbuilderconf.InvocationPlugins.Registration;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaMethod;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.exceptions.TornadoCompilationException;
+import uk.ac.manchester.tornado.drivers.opencl.graal.OCLArchitecture;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadSizeNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GroupIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalArrayNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalGroupSizeNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalThreadIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLBarrierNode;
+
+/**
+ * Compiles the calls to the {@link KernelContext} into OpenCL built-ins. The
+ * context itself is never read by the kernel.
+ */
+public class KernelContextPlugins {
+
+    public static void registerPlugins(InvocationPlugins plugins) {
+        Registration r = new Registration(plugins, KernelContext.class);
+
+        registerIndexPlugins(r);
+        registerBarrierPlugins(r);
+        registerLocalArrayPlugin(r, "allocateIntLocalArray", JavaKind.Int);
+        registerLocalArrayPlugin(r, "allocateLongLocalArray", JavaKind.Long);
+        registerLocalArrayPlugin(r, "allocateFloatLocalArray", JavaKind.Float);
+        registerLocalArrayPlugin(r, "allocateDoubleLocalArray", JavaKind.Double);
+    }
+
+    private static ConstantNode asConstant(ValueNode value, ResolvedJavaMethod targetMethod) {
+        if (!(value instanceof ConstantNode)) {
+            throw new TornadoCompilationException("The argument of KernelContext." + targetMethod.getName() + "() must be a constant");
+        }
+        return (ConstantNode) value;
+    }
+
+    private static void registerIndexPlugins(Registration r) {
+        r.register2("globalId", Receiver.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode dimension) {
+                b.addPush(JavaKind.Int, new GlobalThreadIdNode(asConstant(dimension, targetMethod)));
+                return true;
+            }
+        });
+
+        r.register2("localId", Receiver.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode dimension) {
+                b.addPush(JavaKind.Int, new LocalThreadIdNode(asConstant(dimension, targetMethod)));
+                return true;
+            }
+        });
+
+        r.register2("groupId", Receiver.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode dimension) {
+                b.addPush(JavaKind.Int, new GroupIdNode(asConstant(dimension, targetMethod)));
+                return true;
+            }
+        });
+
+        r.register2("globalSize", Receiver.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode dimension) {
+                b.addPush(JavaKind.Int, new GlobalThreadSizeNode(asConstant(dimension, targetMethod)));
+                return true;
+            }
+        });
+
+        r.register2("localSize", Receiver.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode dimension) {
+                b.addPush(JavaKind.Int, new LocalGroupSizeNode(asConstant(dimension, targetMethod)));
+                return true;
+            }
+        });
+    }
+
+    private static void registerBarrierPlugins(Registration r) {
+        r.register1("localBarrier", Receiver.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver) {
+                b.add(new OCLBarrierNode(OCLBarrierNode.OCLMemFenceFlags.LOCAL));
+                return true;
+            }
+        });
+
+        r.register1("globalBarrier", Receiver.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver) {
+                b.add(new OCLBarrierNode(OCLBarrierNode.OCLMemFenceFlags.GLOBAL));
+                return true;
+            }
+        });
+    }
+
+    private static void registerLocalArrayPlugin(Registration r, String method, JavaKind elementKind) {
+        r.register2(method, Receiver.class, int.class, new InvocationPlugin() {
+            @Override
+            public boolean apply(GraphBuilderContext b, ResolvedJavaMethod targetMethod, Receiver receiver, ValueNode size) {
+                final ResolvedJavaType elementType = b.getMetaAccess().lookupJavaType(elementKind.toJavaClass());
+                final LocalArrayNode localArray = b.getGraph().addWithoutUnique(new LocalArrayNode(OCLArchitecture.localSpace, elementType, asConstant(size, targetMethod)));
+                b.push(JavaKind.Object, localArray);
+                return true;
+            }
+        });
+    }
+}
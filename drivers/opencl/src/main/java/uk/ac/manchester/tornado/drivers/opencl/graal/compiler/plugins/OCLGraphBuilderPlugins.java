@@ -73,6 +73,7 @@ public class OCLGraphBuilderPlugins {
 
         TornadoMathPlugins.registerTornadoMathPlugins(plugins);
         VectorPlugins.registerPlugins(ps, plugins);
+        KernelContextPlugins.registerPlugins(plugins);
     }
 
     private static void registerCompilerInstrinsicsPlugins(InvocationPlugins plugins) {
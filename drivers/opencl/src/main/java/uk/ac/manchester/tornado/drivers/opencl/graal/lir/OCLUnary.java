@@ -124,6 +124,32 @@ public class OCLUnary {
 
     }
 
+    public static class AtomicIncrement extends UnaryConsumer {
+
+        @Use
+        protected OCLAddressCast cast;
+
+        public AtomicIncrement(OCLUnaryOp opcode, LIRKind lirKind, MemoryAccess address) {
+            super(opcode, lirKind, address);
+            this.cast = new OCLAddressCast(address.getBase(), lirKind);
+        }
+
+        @Override
+        public void emit(OCLCompilationResultBuilder crb, OCLAssembler asm) {
+            asm.emit(opcode.toString());
+            asm.emit("(");
+            cast.emit(crb, asm);
+            asm.space();
+            ((MemoryAccess) value).emit(crb, asm);
+            asm.emit(")");
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s(%s %s)", opcode.toString(), cast, value);
+        }
+    }
+
     public static class FloatCast extends UnaryConsumer {
 
         public FloatCast(OCLUnaryOp opcode, LIRKind lirKind, Value value) {
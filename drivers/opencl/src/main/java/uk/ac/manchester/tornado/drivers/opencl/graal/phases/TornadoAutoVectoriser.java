@@ -0,0 +1,581 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.graal.phases;
+
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getDebugContext;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.Equivalence;
+import org.graalvm.collections.UnmodifiableEconomicMap;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.AbstractBeginNode;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.EndNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.IfNode;
+import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.LoopEndNode;
+import org.graalvm.compiler.nodes.LoopExitNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.PhiNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.BinaryNode;
+import org.graalvm.compiler.nodes.calc.FloatDivNode;
+import org.graalvm.compiler.nodes.calc.FloatingNode;
+import org.graalvm.compiler.nodes.calc.IntegerLessThanNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.java.AccessIndexedNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.util.GraphUtil;
+import org.graalvm.compiler.phases.BasePhase;
+
+import jdk.vm.ci.meta.JavaKind;
+import uk.ac.manchester.tornado.drivers.opencl.OCLDevice;
+import uk.ac.manchester.tornado.drivers.opencl.OpenCL;
+import uk.ac.manchester.tornado.drivers.opencl.graal.lir.OCLKind;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadSizeNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLIntBinaryIntrinsicNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.calc.DivNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.vector.VectorAddNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.vector.VectorDivNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.vector.VectorLoadNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.vector.VectorMulNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.vector.VectorStoreNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.vector.VectorSubNode;
+import uk.ac.manchester.tornado.drivers.opencl.runtime.OCLTornadoDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelOffsetNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelStrideNode;
+import uk.ac.manchester.tornado.runtime.graal.phases.TornadoHighTierContext;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * Widens the body of a 1D parallel loop so that each iteration processes
+ * {@code W} consecutive elements with OpenCL vector loads, stores and
+ * arithmetic (e.g., {@code vload4}/{@code vstore4} or {@code float8}). The
+ * width is the preferred vector width reported by the device for the element
+ * type.
+ * <p>
+ * Only simple loops are widened: unit stride, a body without control flow,
+ * accesses to {@code float[]} or {@code int[]} parameters at the index of the
+ * loop, and additions, subtractions, multiplications and floating-point
+ * divisions of those elements and loop-invariant scalars.
+ * </p>
+ * <p>
+ * The widened loop runs over the first {@code floor(n / W) * W} iterations.
+ * Unless the number of iterations is known at compile time to be a multiple
+ * of the width, a copy of the original scalar loop runs the remaining ones, so
+ * the generic kernel of a task is widened as well as its specialised versions.
+ * </p>
+ * <p>
+ * It runs before the {@link TornadoParallelScheduler} and schedules both loops
+ * itself, in a way that is valid for any number of work-items.
+ * </p>
+ */
+public class TornadoAutoVectoriser extends BasePhase<TornadoHighTierContext> {
+
+    private static final int[] WIDTHS = { 8, 4, 2 };
+
+    private static class VectorLoop {
+        private final ParallelRangeNode range;
+        private final ValuePhiNode phi;
+        private final LoopBeginNode loopBegin;
+        private final LoopExitNode loopExit;
+        private final Set<FixedNode> body;
+        private final List<LoadIndexedNode> loads;
+        private final List<StoreIndexedNode> stores;
+        private final JavaKind elementKind;
+
+        /**
+         * Number of iterations, or -1 if it is only known at runtime.
+         */
+        private final int iterations;
+
+        /**
+         * Nodes reached from the values stored by the loop: {@code true} if
+         * they have to be widened, {@code false} if they are loop-invariant
+         * scalars. Inputs are inserted before their usages.
+         */
+        private final Map<ValueNode, Boolean> varying;
+
+        VectorLoop(ParallelRangeNode range, ValuePhiNode phi, LoopExitNode loopExit, Set<FixedNode> body, List<LoadIndexedNode> loads, List<StoreIndexedNode> stores, JavaKind elementKind,
+                int iterations) {
+            this.range = range;
+            this.phi = phi;
+            this.loopBegin = (LoopBeginNode) phi.merge();
+            this.loopExit = loopExit;
+            this.body = body;
+            this.loads = loads;
+            this.stores = stores;
+            this.elementKind = elementKind;
+            this.iterations = iterations;
+            this.varying = new LinkedHashMap<>();
+        }
+    }
+
+    private static OCLKind getVectorKind(JavaKind elementKind, int width) {
+        if (elementKind == JavaKind.Float) {
+            switch (width) {
+                case 2:
+                    return OCLKind.FLOAT2;
+                case 4:
+                    return OCLKind.FLOAT4;
+                case 8:
+                    return OCLKind.FLOAT8;
+            }
+        } else if (elementKind == JavaKind.Int) {
+            switch (width) {
+                case 2:
+                    return OCLKind.INT2;
+                case 4:
+                    return OCLKind.INT4;
+                case 8:
+                    return OCLKind.INT8;
+            }
+        }
+        return OCLKind.ILLEGAL;
+    }
+
+    private static int getPreferredWidth(OCLDevice device, JavaKind elementKind) {
+        if (OpenCL.OCL_VECTOR_WIDTH > 0) {
+            return OpenCL.OCL_VECTOR_WIDTH;
+        }
+        return (elementKind == JavaKind.Float) ? device.getDevicePreferredVectorWidthFloat() : device.getDevicePreferredVectorWidthInt();
+    }
+
+    private static int selectWidth(int preferredWidth, int iterations) {
+        for (int width : WIDTHS) {
+            if (width <= preferredWidth && (iterations < 0 || width <= iterations)) {
+                return width;
+            }
+        }
+        return 1;
+    }
+
+    private static boolean isConstantInt(ValueNode node) {
+        return node.isConstant() && node.asJavaConstant().getJavaKind() == JavaKind.Int;
+    }
+
+    private static boolean needsTail(VectorLoop loop, int width) {
+        return loop.iterations < 0 || loop.iterations % width != 0;
+    }
+
+    private static boolean isWidenable(ValueNode node) {
+        return node instanceof AddNode || node instanceof SubNode || node instanceof MulNode || node instanceof FloatDivNode;
+    }
+
+    private static JavaKind kindOf(ValueNode node) {
+        return node.stamp(NodeView.DEFAULT).getStackKind();
+    }
+
+    private static VectorLoop analyse(ParallelRangeNode range) {
+        final ParallelOffsetNode offset = range.offset();
+        final ParallelStrideNode stride = range.stride();
+        if (!isConstantInt(stride.value()) || stride.value().asJavaConstant().asInt() != 1 || kindOf(range.value()) != JavaKind.Int || kindOf(offset.value()) != JavaKind.Int) {
+            return null;
+        }
+        int iterations = -1;
+        if (isConstantInt(range.value()) && isConstantInt(offset.value())) {
+            iterations = range.value().asJavaConstant().asInt() - offset.value().asJavaConstant().asInt();
+            if (iterations <= 0) {
+                return null;
+            }
+        }
+
+        final ValuePhiNode phi = offset.usages().filter(ValuePhiNode.class).first();
+        if (phi == null || !(phi.merge() instanceof LoopBeginNode)) {
+            return null;
+        }
+        final LoopBeginNode loopBegin = (LoopBeginNode) phi.merge();
+        if (loopBegin.phis().count() != 1 || loopBegin.loopEnds().count() != 1 || !(loopBegin.next() instanceof IfNode)) {
+            return null;
+        }
+
+        final IfNode ifNode = (IfNode) loopBegin.next();
+        if (!(ifNode.condition() instanceof IntegerLessThanNode) || !(ifNode.falseSuccessor() instanceof LoopExitNode)) {
+            return null;
+        }
+        final IntegerLessThanNode condition = (IntegerLessThanNode) ifNode.condition();
+        if (condition.getX() != phi || condition.getY() != range) {
+            return null;
+        }
+        final LoopExitNode loopExit = (LoopExitNode) ifNode.falseSuccessor();
+        if (loopExit.loopBegin() != loopBegin) {
+            return null;
+        }
+
+        // the body has to be a single basic block of array accesses
+        final Set<FixedNode> body = new HashSet<>();
+        final List<LoadIndexedNode> loads = new ArrayList<>();
+        final List<StoreIndexedNode> stores = new ArrayList<>();
+        FixedNode current = ifNode.trueSuccessor();
+        while (current instanceof FixedWithNextNode && !(current instanceof LoopExitNode)) {
+            if (current instanceof LoadIndexedNode) {
+                loads.add((LoadIndexedNode) current);
+            } else if (current instanceof StoreIndexedNode) {
+                stores.add((StoreIndexedNode) current);
+            } else if (!(current instanceof AbstractBeginNode)) {
+                return null;
+            }
+            body.add(current);
+            current = ((FixedWithNextNode) current).next();
+        }
+        if (!(current instanceof LoopEndNode) || ((LoopEndNode) current).loopBegin() != loopBegin || stores.isEmpty()) {
+            return null;
+        }
+
+        JavaKind elementKind = null;
+        final List<AccessIndexedNode> accesses = new ArrayList<>(loads);
+        accesses.addAll(stores);
+        for (AccessIndexedNode access : accesses) {
+            final JavaKind kind = access.elementKind();
+            if (access.index() != phi || !(access.array() instanceof ParameterNode) || (kind != JavaKind.Float && kind != JavaKind.Int)) {
+                return null;
+            }
+            if (elementKind != null && kind != elementKind) {
+                return null;
+            }
+            elementKind = kind;
+        }
+
+        // the index of the loop can only be used to access the arrays
+        final ValueNode increment = phi.singleBackValueOrThis();
+        for (Node usage : phi.usages()) {
+            if (usage != condition && usage != increment && !(usage instanceof FrameState) && !accesses.contains(usage)) {
+                return null;
+            }
+        }
+        if (!(increment instanceof AddNode) || !increment.inputs().contains(stride)) {
+            return null;
+        }
+
+        final VectorLoop loop = new VectorLoop(range, phi, loopExit, body, loads, stores, elementKind, iterations);
+        for (StoreIndexedNode store : stores) {
+            if (isVarying(store.value(), loop) != Boolean.TRUE) {
+                return null;
+            }
+        }
+        return hasWidenableUsages(loop) ? loop : null;
+    }
+
+    /**
+     * Classifies a node reached from a stored value.
+     *
+     * @return {@code true} if the node has to be widened, {@code false} if it is
+     *         a loop-invariant scalar, and {@code null} if the loop cannot be
+     *         vectorised.
+     */
+    private static Boolean isVarying(ValueNode node, VectorLoop loop) {
+        if (loop.varying.containsKey(node)) {
+            return loop.varying.get(node);
+        }
+
+        Boolean result;
+        if (node == loop.phi) {
+            result = null;
+        } else if (node instanceof FixedNode) {
+            if (loop.body.contains(node)) {
+                result = loop.loads.contains(node) ? Boolean.TRUE : null;
+            } else {
+                result = Boolean.FALSE;
+            }
+        } else if (node instanceof PhiNode) {
+            result = (((PhiNode) node).merge() == loop.phi.merge()) ? null : Boolean.FALSE;
+        } else if (isWidenable(node)) {
+            final BinaryNode binary = (BinaryNode) node;
+            final Boolean x = isVarying(binary.getX(), loop);
+            final Boolean y = isVarying(binary.getY(), loop);
+            if (x == null || y == null) {
+                result = null;
+            } else if (x || y) {
+                // scalar operands are promoted by the OpenCL vector operators
+                final boolean sameKind = kindOf(node) == loop.elementKind && kindOf(binary.getX()) == loop.elementKind && kindOf(binary.getY()) == loop.elementKind;
+                result = sameKind ? Boolean.TRUE : null;
+            } else {
+                result = Boolean.FALSE;
+            }
+        } else if (node instanceof FloatingNode) {
+            result = Boolean.FALSE;
+            for (Node input : node.inputs()) {
+                if (input instanceof ValueNode && isVarying((ValueNode) input, loop) != Boolean.FALSE) {
+                    result = null;
+                    break;
+                }
+            }
+        } else {
+            result = null;
+        }
+
+        loop.varying.put(node, result);
+        return result;
+    }
+
+    /**
+     * Every usage of a widened node has to be widened as well, except for frame
+     * states.
+     */
+    private static boolean hasWidenableUsages(VectorLoop loop) {
+        for (Map.Entry<ValueNode, Boolean> entry : loop.varying.entrySet()) {
+            if (entry.getValue() != Boolean.TRUE) {
+                continue;
+            }
+            for (Node usage : entry.getKey().usages()) {
+                if (usage instanceof FrameState || loop.varying.get(usage) == Boolean.TRUE) {
+                    continue;
+                }
+                if (!(loop.stores.contains(usage) && ((StoreIndexedNode) usage).value() == entry.getKey())) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Nodes of the loop copied into the scalar tail: its control flow, the
+     * index of the loop and everything computed from them. It returns
+     * {@code null} if a value of the loop is used after it.
+     */
+    private static List<Node> collectLoopNodes(VectorLoop loop) {
+        final Set<Node> nodes = new LinkedHashSet<>();
+        nodes.add(loop.loopBegin);
+        nodes.add(loop.loopBegin.next());
+        nodes.addAll(loop.body);
+        nodes.add(loop.loopBegin.loopEnds().first());
+        nodes.add(loop.loopExit);
+        nodes.add(loop.phi);
+
+        final Deque<Node> worklist = new ArrayDeque<>(nodes);
+        while (!worklist.isEmpty()) {
+            for (Node usage : worklist.pop().usages()) {
+                if (nodes.contains(usage)) {
+                    continue;
+                }
+                if (usage instanceof FixedNode) {
+                    return null;
+                }
+                nodes.add(usage);
+                worklist.push(usage);
+            }
+        }
+        return new ArrayList<>(nodes);
+    }
+
+    /**
+     * Inserts a copy of the scalar loop after the loop exit. Its iterations
+     * start at {@code tailStart} and are distributed among the work-items in a
+     * round-robin way.
+     */
+    private static void insertTail(StructuredGraph graph, VectorLoop loop, List<Node> nodes, ValueNode tailStart, ValueNode threadId, ValueNode threadCount) {
+        final ParallelRangeNode range = loop.range;
+        final EndNode tailEntry = graph.add(new EndNode());
+
+        final EconomicMap<Node, Node> replacements = EconomicMap.create(Equivalence.IDENTITY);
+        replacements.put(loop.loopBegin.forwardEnd(), tailEntry);
+        final UnmodifiableEconomicMap<Node, Node> duplicates = graph.addDuplicates(nodes, graph, nodes.size(), replacements);
+
+        final LoopExitNode tailExit = (LoopExitNode) duplicates.get(loop.loopExit);
+        final FixedNode next = loop.loopExit.next();
+        loop.loopExit.setNext(tailEntry);
+        tailExit.setNext(next);
+
+        final AddNode tailOffset = graph.addOrUnique(new AddNode(tailStart, threadId));
+        for (Node node : duplicates.getValues()) {
+            node.replaceAllInputs(range.offset(), tailOffset);
+            node.replaceAllInputs(range.stride(), threadCount);
+            node.replaceAllInputs(range, range.value());
+        }
+    }
+
+    private static ValueNode createVectorOp(BinaryNode node, OCLKind kind, ValueNode x, ValueNode y) {
+        if (node instanceof AddNode) {
+            return new VectorAddNode(kind, x, y);
+        } else if (node instanceof SubNode) {
+            return new VectorSubNode(kind, x, y);
+        } else if (node instanceof MulNode) {
+            return new VectorMulNode(kind, x, y);
+        }
+        return new VectorDivNode(kind, x, y);
+    }
+
+    private static void widen(StructuredGraph graph, VectorLoop loop, OCLKind kind) {
+        final Map<ValueNode, ValueNode> vectors = new HashMap<>();
+        final List<ValueNode> operations = new ArrayList<>();
+
+        for (LoadIndexedNode load : loop.loads) {
+            vectors.put(load, graph.add(new VectorLoadNode(kind, load.array(), loop.phi)));
+        }
+        for (Map.Entry<ValueNode, Boolean> entry : loop.varying.entrySet()) {
+            final ValueNode node = entry.getKey();
+            if (entry.getValue() == Boolean.TRUE && isWidenable(node)) {
+                final BinaryNode binary = (BinaryNode) node;
+                final ValueNode x = vectors.getOrDefault(binary.getX(), binary.getX());
+                final ValueNode y = vectors.getOrDefault(binary.getY(), binary.getY());
+                vectors.put(node, graph.addWithoutUnique(createVectorOp(binary, kind, x, y)));
+                operations.add(node);
+            }
+        }
+
+        final List<FrameState> states = new ArrayList<>();
+        for (StoreIndexedNode store : loop.stores) {
+            final VectorStoreNode vectorStore = graph.add(new VectorStoreNode(kind, store.array(), loop.phi, vectors.get(store.value())));
+            if (store.stateAfter() != null) {
+                states.add(store.stateAfter());
+            }
+            graph.replaceFixedWithFixed(store, vectorStore);
+        }
+        for (ValueNode operation : operations) {
+            operation.replaceAtMatchingUsages(vectors.get(operation), usage -> usage instanceof FrameState);
+        }
+        for (LoadIndexedNode load : loop.loads) {
+            graph.replaceFixedWithFixed(load, (VectorLoadNode) vectors.get(load));
+        }
+
+        Collections.reverse(operations);
+        for (ValueNode operation : operations) {
+            if (operation.isAlive() && operation.hasNoUsages()) {
+                GraphUtil.killWithUnusedFloatingInputs(operation);
+            }
+        }
+        for (FrameState state : states) {
+            if (state.isAlive() && state.hasNoUsages()) {
+                GraphUtil.killWithUnusedFloatingInputs(state);
+            }
+        }
+    }
+
+    /**
+     * Each iteration of the widened loop processes {@code width} elements, up
+     * to {@code end}. On CPUs every work-item processes a contiguous block of
+     * vectors, and on GPUs consecutive work-items access consecutive vectors
+     * and the kernel is launched with one work-item per vector.
+     */
+    private static void schedule(StructuredGraph graph, VectorLoop loop, int width, ValueNode vectors, ValueNode end, ValueNode threadId, ValueNode threadCount, TaskMetaData meta,
+            TornadoSchedulingStrategy strategy) {
+        final ParallelRangeNode range = loop.range;
+        final ParallelOffsetNode offset = range.offset();
+        final ParallelStrideNode stride = range.stride();
+        final ConstantNode vectorWidth = ConstantNode.forInt(width, graph);
+
+        if (strategy == TornadoSchedulingStrategy.PER_BLOCK) {
+            final AddNode adjustedVectors = graph.addOrUnique(new AddNode(vectors, graph.addOrUnique(new SubNode(threadCount, ConstantNode.forInt(1, graph)))));
+            final ValueNode vectorsPerThread = graph.addOrUnique(DivNode.create(adjustedVectors, threadCount));
+            final MulNode blockSize = graph.addOrUnique(new MulNode(vectorsPerThread, vectorWidth));
+            final AddNode start = graph.addOrUnique(new AddNode(offset.value(), graph.addOrUnique(new MulNode(threadId, blockSize))));
+            final AddNode blockEnd = graph.addOrUnique(new AddNode(start, blockSize));
+            final ValueNode adjustedRange = graph.addOrUnique(OCLIntBinaryIntrinsicNode.create(blockEnd, end, OCLIntBinaryIntrinsicNode.Operation.MIN, JavaKind.Int));
+
+            range.replaceAtUsages(adjustedRange);
+            offset.replaceAtUsages(start);
+            stride.replaceAtUsages(vectorWidth);
+        } else {
+            final AddNode start = graph.addOrUnique(new AddNode(offset.value(), graph.addOrUnique(new MulNode(threadId, vectorWidth))));
+            final MulNode newStride = graph.addOrUnique(new MulNode(threadCount, vectorWidth));
+
+            range.replaceAtUsages(end);
+            offset.replaceAtUsages(start);
+            stride.replaceAtUsages(newStride);
+            meta.setCoarseningFactors(new int[] { width });
+        }
+
+        TornadoThreadCoarsener.killNode(range);
+        TornadoThreadCoarsener.killNode(offset);
+        TornadoThreadCoarsener.killNode(stride);
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, TornadoHighTierContext context) {
+        final TaskMetaData meta = context.getMeta();
+        if (!OpenCL.OCL_VECTORISE || meta == null || meta.enableThreadCoarsener() || !meta.hasDomain() || meta.getDims() != 1 || !meta.enableParallelization()) {
+            return;
+        }
+
+        final OCLTornadoDevice device = (OCLTornadoDevice) context.getDeviceMapping();
+        final List<ParallelRangeNode> ranges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
+        if (ranges.size() != 1 || device.getDevice().getDeviceMaxWorkItemSizes()[0] <= 1) {
+            return;
+        }
+
+        final VectorLoop loop = analyse(ranges.get(0));
+        if (loop == null) {
+            return;
+        }
+        final int width = selectWidth(getPreferredWidth(device.getDevice(), loop.elementKind), loop.iterations);
+        if (width < 2) {
+            return;
+        }
+        List<Node> tail = null;
+        if (needsTail(loop, width)) {
+            tail = collectLoopNodes(loop);
+            if (tail == null) {
+                return;
+            }
+        }
+
+        final ParallelRangeNode range = loop.range;
+        final ConstantNode index = ConstantNode.forInt(range.index(), graph);
+        final GlobalThreadIdNode threadId = graph.addOrUnique(new GlobalThreadIdNode(index));
+        final GlobalThreadSizeNode threadCount = graph.addOrUnique(new GlobalThreadSizeNode(index));
+
+        final ValueNode vectors;
+        final ValueNode end;
+        if (tail == null) {
+            vectors = ConstantNode.forInt(loop.iterations / width, graph);
+            end = range.value();
+        } else {
+            final ValueNode iterations = graph.addOrUnique(new SubNode(range.value(), range.offset().value()));
+            final ValueNode count = graph.addOrUnique(OCLIntBinaryIntrinsicNode.create(iterations, ConstantNode.forInt(0, graph), OCLIntBinaryIntrinsicNode.Operation.MAX, JavaKind.Int));
+            vectors = graph.addOrUnique(DivNode.create(count, ConstantNode.forInt(width, graph)));
+            end = graph.addOrUnique(new AddNode(range.offset().value(), graph.addOrUnique(new MulNode(vectors, ConstantNode.forInt(width, graph)))));
+            insertTail(graph, loop, tail, end, threadId, threadCount);
+        }
+
+        widen(graph, loop, getVectorKind(loop.elementKind, width));
+        schedule(graph, loop, width, vectors, end, threadId, threadCount, meta, device.getPreferredSchedule());
+        getDebugContext().dump(DebugContext.BASIC_LEVEL, graph, "after vectorising loop with width=" + width);
+    }
+}
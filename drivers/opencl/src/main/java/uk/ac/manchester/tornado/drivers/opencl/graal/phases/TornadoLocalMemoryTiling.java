@@ -0,0 +1,505 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.graal.phases;
+
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getDebugContext;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.FixedWithNextNode;
+import org.graalvm.compiler.nodes.InvokeNode;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.LeftShiftNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.nodes.calc.NegateNode;
+import org.graalvm.compiler.nodes.calc.SubNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.phases.BasePhase;
+
+import jdk.vm.ci.meta.JavaKind;
+import jdk.vm.ci.meta.ResolvedJavaType;
+import uk.ac.manchester.tornado.drivers.opencl.OCLDevice;
+import uk.ac.manchester.tornado.drivers.opencl.OpenCL;
+import uk.ac.manchester.tornado.drivers.opencl.graal.OCLArchitecture;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GroupIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalArrayNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalThreadIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLBarrierNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLIntBinaryIntrinsicNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.calc.DivNode;
+import uk.ac.manchester.tornado.drivers.opencl.runtime.OCLTornadoDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelOffsetNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.StoreAtomicIndexedNode;
+import uk.ac.manchester.tornado.runtime.graal.phases.TornadoHighTierContext;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * Loads the neighbourhood read by the work-items of a work-group from the
+ * arrays of a 2D stencil into local memory once, so that the overlapping reads
+ * of neighbouring work-items hit local memory instead of global memory.
+ * <p>
+ * An array is tiled when it is a read-only {@code float[]} or {@code int[]}
+ * parameter and every read of it is at {@code (i + dr) * w + (j + dc)}, where
+ * {@code i} and {@code j} are the indices of the two parallel loops, {@code w}
+ * is a constant or an {@code int} parameter, and {@code dr} and {@code dc} are
+ * constants. The work-groups are {@code T x T} work-items and each of them
+ * loads a {@code (T + rows of halo) x (T + columns of halo)} tile of every
+ * tiled array cooperatively, followed by a local barrier.
+ * </p>
+ * <p>
+ * It runs before the {@link TornadoParallelScheduler}. The kernel scheduler
+ * launches {@code T x T} work-groups and pads the number of work-items of each
+ * dimension to a multiple of {@code T}, so every work-item executes at most
+ * one iteration of each loop and all of them reach the barrier.
+ * </p>
+ */
+public class TornadoLocalMemoryTiling extends BasePhase<TornadoHighTierContext> {
+
+    private static final int MIN_TILE_SIZE = 4;
+
+    // Terms of an index: i, j, w * i, w * j, w and 1
+    private static final int TERMS = 6;
+    private static final int W_TERM = 4;
+    private static final int CONSTANT_TERM = 5;
+
+    /**
+     * The row length {@code w} of the arrays, either a constant or a parameter.
+     */
+    private static class RowLength {
+        private ParameterNode parameter;
+        private long constant;
+    }
+
+    private static class TiledArray {
+        private final ParameterNode array;
+        private final JavaKind elementKind;
+        private final List<LoadIndexedNode> loads;
+        private final List<long[]> offsets;
+        private long minRow = Long.MAX_VALUE;
+        private long maxRow = Long.MIN_VALUE;
+        private long minColumn = Long.MAX_VALUE;
+        private long maxColumn = Long.MIN_VALUE;
+
+        TiledArray(ParameterNode array, JavaKind elementKind) {
+            this.array = array;
+            this.elementKind = elementKind;
+            this.loads = new ArrayList<>();
+            this.offsets = new ArrayList<>();
+        }
+
+        void add(LoadIndexedNode load, long row, long column) {
+            loads.add(load);
+            offsets.add(new long[] { row, column });
+            minRow = Math.min(minRow, row);
+            maxRow = Math.max(maxRow, row);
+            minColumn = Math.min(minColumn, column);
+            maxColumn = Math.max(maxColumn, column);
+        }
+
+        int haloRows() {
+            return (int) (maxRow - minRow);
+        }
+
+        int haloColumns() {
+            return (int) (maxColumn - minColumn);
+        }
+
+        boolean hasNeighbours() {
+            return minRow != maxRow || minColumn != maxColumn;
+        }
+    }
+
+    private static boolean isConstantInt(ValueNode node) {
+        return node.isConstant() && node.asJavaConstant().getJavaKind() == JavaKind.Int;
+    }
+
+    private static long[] scale(long[] terms, long factor) {
+        final long[] result = new long[TERMS];
+        for (int i = 0; i < TERMS; i++) {
+            result[i] = terms[i] * factor;
+        }
+        return result;
+    }
+
+    private static long[] combine(long[] x, long[] y, long sign) {
+        if (x == null || y == null) {
+            return null;
+        }
+        final long[] result = new long[TERMS];
+        for (int i = 0; i < TERMS; i++) {
+            result[i] = x[i] + sign * y[i];
+        }
+        return result;
+    }
+
+    /**
+     * Multiplies an index that does not depend on {@code w} by the row length
+     * parameter.
+     */
+    private static long[] multiplyByRowLength(long[] terms, ParameterNode parameter, RowLength rowLength) {
+        if (terms == null || terms[2] != 0 || terms[3] != 0 || terms[W_TERM] != 0) {
+            return null;
+        }
+        if (rowLength.parameter != null && rowLength.parameter != parameter) {
+            return null;
+        }
+        rowLength.parameter = parameter;
+        final long[] result = new long[TERMS];
+        result[2] = terms[0];
+        result[3] = terms[1];
+        result[W_TERM] = terms[CONSTANT_TERM];
+        return result;
+    }
+
+    private static boolean isRowLengthCandidate(ValueNode node) {
+        return node instanceof ParameterNode && node.stamp(NodeView.DEFAULT).getStackKind() == JavaKind.Int;
+    }
+
+    /**
+     * Decomposes an array index into a linear combination of the indices of the
+     * parallel loops, the row length and a constant.
+     *
+     * @return the coefficients of the terms, or {@code null} if the index is not
+     *         affine.
+     */
+    private static long[] decompose(ValueNode node, ValuePhiNode[] indices, RowLength rowLength) {
+        final long[] terms = new long[TERMS];
+        if (node == indices[0]) {
+            terms[0] = 1;
+        } else if (node == indices[1]) {
+            terms[1] = 1;
+        } else if (isConstantInt(node)) {
+            terms[CONSTANT_TERM] = node.asJavaConstant().asInt();
+        } else if (node == rowLength.parameter) {
+            terms[W_TERM] = 1;
+        } else if (node instanceof AddNode) {
+            return combine(decompose(((AddNode) node).getX(), indices, rowLength), decompose(((AddNode) node).getY(), indices, rowLength), 1);
+        } else if (node instanceof SubNode) {
+            return combine(decompose(((SubNode) node).getX(), indices, rowLength), decompose(((SubNode) node).getY(), indices, rowLength), -1);
+        } else if (node instanceof NegateNode) {
+            final long[] value = decompose(((NegateNode) node).getValue(), indices, rowLength);
+            return (value == null) ? null : scale(value, -1);
+        } else if (node instanceof LeftShiftNode && isConstantInt(((LeftShiftNode) node).getY())) {
+            final long[] value = decompose(((LeftShiftNode) node).getX(), indices, rowLength);
+            final int shift = ((LeftShiftNode) node).getY().asJavaConstant().asInt();
+            return (value == null || shift < 0 || shift > 30) ? null : scale(value, 1L << shift);
+        } else if (node instanceof MulNode) {
+            final ValueNode x = ((MulNode) node).getX();
+            final ValueNode y = ((MulNode) node).getY();
+            if (isConstantInt(y)) {
+                final long[] value = decompose(x, indices, rowLength);
+                return (value == null) ? null : scale(value, y.asJavaConstant().asInt());
+            } else if (isConstantInt(x)) {
+                final long[] value = decompose(y, indices, rowLength);
+                return (value == null) ? null : scale(value, x.asJavaConstant().asInt());
+            } else if (isRowLengthCandidate(y)) {
+                return multiplyByRowLength(decompose(x, indices, rowLength), (ParameterNode) y, rowLength);
+            } else if (isRowLengthCandidate(x)) {
+                return multiplyByRowLength(decompose(y, indices, rowLength), (ParameterNode) x, rowLength);
+            }
+            return null;
+        } else {
+            return null;
+        }
+        return terms;
+    }
+
+    /**
+     * Splits an index of the form {@code (i + dr) * w + (j + dc)} into the row
+     * dimension and the offsets {@code dr} and {@code dc}.
+     *
+     * @return {@code {row dimension, dr, dc}}, or {@code null}.
+     */
+    private static long[] toOffsets(long[] terms, RowLength rowLength) {
+        if (terms[2] != 0 || terms[3] != 0) {
+            // w * i + j + dr * w + dc
+            if (rowLength.constant != 0) {
+                return null;
+            }
+            for (int row = 0; row < 2; row++) {
+                final int column = 1 - row;
+                if (terms[2 + row] == 1 && terms[2 + column] == 0 && terms[row] == 0 && terms[column] == 1) {
+                    return new long[] { row, terms[W_TERM], terms[CONSTANT_TERM] };
+                }
+            }
+            return null;
+        }
+        if (terms[W_TERM] != 0) {
+            return null;
+        }
+        // a constant w folded into the index: w * i + j + k
+        for (int row = 0; row < 2; row++) {
+            final long width = terms[row];
+            if (width > 1 && terms[1 - row] == 1 && rowLength.parameter == null && (rowLength.constant == 0 || rowLength.constant == width)) {
+                final long constant = terms[CONSTANT_TERM];
+                final long dr = Math.round((double) constant / width);
+                final long dc = constant - dr * width;
+                if (Math.abs(dc) * 2 < width) {
+                    rowLength.constant = width;
+                    return new long[] { row, dr, dc };
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Kernels with reductions or that use work-item functions or barriers are
+     * not tiled.
+     */
+    private static boolean canTile(StructuredGraph graph) {
+        if (graph.getNodes().filter(StoreAtomicIndexedNode.class).isNotEmpty() || graph.getNodes().filter(OCLBarrierNode.class).isNotEmpty()) {
+            return false;
+        }
+        for (InvokeNode invoke : graph.getNodes().filter(InvokeNode.class)) {
+            if (invoke.callTarget().targetName().contains("OpenCLIntrinsics")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The arrays can only be read, e.g., not stored or passed to other nodes
+     * through which they could be written.
+     */
+    private static boolean isReadOnly(ParameterNode array) {
+        for (Node usage : array.usages()) {
+            if (usage instanceof LoadIndexedNode && ((LoadIndexedNode) usage).array() == array) {
+                continue;
+            }
+            if (!(usage instanceof ArrayLengthNode) && !(usage instanceof FrameState)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static List<TiledArray> analyse(StructuredGraph graph, ValuePhiNode[] indices, RowLength rowLength, int[] rowDimension) {
+        final Map<ParameterNode, TiledArray> arrays = new LinkedHashMap<>();
+        final List<ParameterNode> rejected = new ArrayList<>();
+
+        for (LoadIndexedNode load : graph.getNodes().filter(LoadIndexedNode.class)) {
+            if (!(load.array() instanceof ParameterNode)) {
+                continue;
+            }
+            final ParameterNode array = (ParameterNode) load.array();
+            final JavaKind kind = load.elementKind();
+            if (rejected.contains(array)) {
+                continue;
+            }
+            if ((kind != JavaKind.Float && kind != JavaKind.Int) || !isReadOnly(array)) {
+                rejected.add(array);
+                continue;
+            }
+
+            final long[] terms = decompose(load.index(), indices, rowLength);
+            final long[] offsets = (terms == null) ? null : toOffsets(terms, rowLength);
+            if (offsets == null || (rowDimension[0] >= 0 && rowDimension[0] != offsets[0])) {
+                rejected.add(array);
+                continue;
+            }
+            rowDimension[0] = (int) offsets[0];
+            arrays.computeIfAbsent(array, a -> new TiledArray(a, kind)).add(load, offsets[1], offsets[2]);
+        }
+
+        final List<TiledArray> tiled = new ArrayList<>();
+        for (TiledArray array : arrays.values()) {
+            if (!rejected.contains(array.array) && array.hasNeighbours()) {
+                tiled.add(array);
+            }
+        }
+        return tiled;
+    }
+
+    /**
+     * Largest power of two that fits the work-group limits of the device, the
+     * halos of the arrays and half of the local memory.
+     */
+    private static int selectTileSize(OCLDevice device, List<TiledArray> arrays) {
+        final long[] maxWorkItemSizes = device.getDeviceMaxWorkItemSizes();
+        long limit = Math.min(OpenCL.OCL_TILE_SIZE, Math.min(maxWorkItemSizes[0], maxWorkItemSizes[1]));
+        limit = Math.min(limit, (long) Math.sqrt(device.getDeviceMaxWorkGroupSize()));
+
+        int size = 1;
+        while (size * 2L <= limit) {
+            size *= 2;
+        }
+
+        for (; size >= MIN_TILE_SIZE; size /= 2) {
+            long bytes = 0;
+            boolean fits = true;
+            for (TiledArray array : arrays) {
+                fits &= array.haloRows() <= size && array.haloColumns() <= size;
+                bytes += (long) (size + array.haloRows()) * (size + array.haloColumns()) * array.elementKind.getByteCount();
+            }
+            if (fits && bytes <= device.getDeviceLocalMemorySize() / 2) {
+                return size;
+            }
+        }
+        return 0;
+    }
+
+    private static ValueNode rowLengthNode(StructuredGraph graph, RowLength rowLength) {
+        return (rowLength.parameter != null) ? rowLength.parameter : ConstantNode.forInt((int) rowLength.constant, graph);
+    }
+
+    private static ValueNode min(StructuredGraph graph, ValueNode x, ValueNode y) {
+        return graph.addOrUnique(OCLIntBinaryIntrinsicNode.create(x, y, OCLIntBinaryIntrinsicNode.Operation.MIN, JavaKind.Int));
+    }
+
+    private static ValueNode max(StructuredGraph graph, ValueNode x, ValueNode y) {
+        return graph.addOrUnique(OCLIntBinaryIntrinsicNode.create(x, y, OCLIntBinaryIntrinsicNode.Operation.MAX, JavaKind.Int));
+    }
+
+    private static void tile(StructuredGraph graph, TornadoHighTierContext context, List<TiledArray> arrays, ParallelRangeNode[] ranges, RowLength rowLength, int rowDimension, int size) {
+        final int columnDimension = 1 - rowDimension;
+        final ConstantNode tileSize = ConstantNode.forInt(size, graph);
+        final ValueNode localRow = graph.addOrUnique(new LocalThreadIdNode(ConstantNode.forInt(rowDimension, graph)));
+        final ValueNode localColumn = graph.addOrUnique(new LocalThreadIdNode(ConstantNode.forInt(columnDimension, graph)));
+        final ValueNode groupRow = graph.addOrUnique(new GroupIdNode(ConstantNode.forInt(rowDimension, graph)));
+        final ValueNode groupColumn = graph.addOrUnique(new GroupIdNode(ConstantNode.forInt(columnDimension, graph)));
+        final ValueNode localIndex = graph.addOrUnique(new AddNode(graph.addOrUnique(new MulNode(localRow, tileSize)), localColumn));
+
+        // first element of the block of iterations of the work-group
+        final ValueNode firstRow = graph.addOrUnique(new AddNode(ranges[rowDimension].offset().value(), graph.addOrUnique(new MulNode(groupRow, tileSize))));
+        final ValueNode firstColumn = graph.addOrUnique(new AddNode(ranges[columnDimension].offset().value(), graph.addOrUnique(new MulNode(groupColumn, tileSize))));
+        final ValueNode width = rowLengthNode(graph, rowLength);
+
+        FixedWithNextNode last = graph.start();
+        for (TiledArray array : arrays) {
+            final int tileRows = size + array.haloRows();
+            final int tileColumns = size + array.haloColumns();
+            final int elements = tileRows * tileColumns;
+            final ResolvedJavaType elementType = context.getMetaAccess().lookupJavaType(array.elementKind.toJavaClass());
+            final LocalArrayNode localArray = graph.addWithoutUnique(new LocalArrayNode(OCLArchitecture.localSpace, elementType, ConstantNode.forInt(elements, graph)));
+
+            final ArrayLengthNode length = graph.add(new ArrayLengthNode(array.array));
+            graph.addAfterFixed(last, length);
+            last = length;
+            final ValueNode lastElement = graph.addOrUnique(new SubNode(length, ConstantNode.forInt(1, graph)));
+            final ValueNode baseRow = graph.addOrUnique(new AddNode(firstRow, ConstantNode.forInt((int) array.minRow, graph)));
+            final ValueNode baseColumn = graph.addOrUnique(new AddNode(firstColumn, ConstantNode.forInt((int) array.minColumn, graph)));
+
+            // each work-item loads ceil(elements / (T * T)) elements of the tile
+            final int loadsPerItem = (elements + size * size - 1) / (size * size);
+            for (int k = 0; k < loadsPerItem; k++) {
+                final ValueNode position = graph.addOrUnique(new AddNode(localIndex, ConstantNode.forInt(k * size * size, graph)));
+                final ValueNode tileIndex = min(graph, position, ConstantNode.forInt(elements - 1, graph));
+                final ValueNode row = graph.addOrUnique(DivNode.create(tileIndex, ConstantNode.forInt(tileColumns, graph)));
+                final ValueNode column = graph.addOrUnique(new SubNode(tileIndex, graph.addOrUnique(new MulNode(row, ConstantNode.forInt(tileColumns, graph)))));
+                final ValueNode globalRow = graph.addOrUnique(new AddNode(baseRow, row));
+                final ValueNode globalColumn = graph.addOrUnique(new AddNode(baseColumn, column));
+                final ValueNode flatIndex = graph.addOrUnique(new AddNode(graph.addOrUnique(new MulNode(globalRow, width)), globalColumn));
+                final ValueNode index = max(graph, min(graph, flatIndex, lastElement), ConstantNode.forInt(0, graph));
+
+                final LoadIndexedNode load = graph.add(new LoadIndexedNode(graph.getAssumptions(), array.array, index, null, array.elementKind));
+                graph.addAfterFixed(last, load);
+                final StoreIndexedNode store = graph.add(new StoreIndexedNode(localArray, tileIndex, null, null, array.elementKind, load));
+                store.setStateAfter(graph.start().stateAfter());
+                graph.addAfterFixed(load, store);
+                last = store;
+            }
+
+            for (int i = 0; i < array.loads.size(); i++) {
+                final LoadIndexedNode load = array.loads.get(i);
+                final long[] offset = array.offsets.get(i);
+                final int displacement = (int) ((offset[0] - array.minRow) * tileColumns + offset[1] - array.minColumn);
+                final ValueNode position = graph.addOrUnique(new AddNode(graph.addOrUnique(new MulNode(localRow, ConstantNode.forInt(tileColumns, graph))), localColumn));
+                final ValueNode tileIndex = graph.addOrUnique(new AddNode(position, ConstantNode.forInt(displacement, graph)));
+                final LoadIndexedNode localLoad = graph.add(new LoadIndexedNode(graph.getAssumptions(), localArray, tileIndex, null, array.elementKind));
+                graph.replaceFixedWithFixed(load, localLoad);
+            }
+        }
+
+        final OCLBarrierNode barrier = graph.add(new OCLBarrierNode(OCLBarrierNode.OCLMemFenceFlags.LOCAL));
+        graph.addAfterFixed(last, barrier);
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, TornadoHighTierContext context) {
+        final TaskMetaData meta = context.getMeta();
+        if (!OpenCL.OCL_LOCAL_TILING || meta == null || !meta.hasDomain() || meta.getDims() != 2 || !meta.enableParallelization() || meta.enableThreadCoarsener() || meta.isCoarsened()) {
+            return;
+        }
+        if ((meta.isLocalWorkDefined() && !meta.isTiled()) || meta.isGlobalWorkDefined() || meta.shouldUseOpenCLDriverScheduling() || context.getBatchThreads() > 0) {
+            return;
+        }
+
+        final OCLTornadoDevice device = (OCLTornadoDevice) context.getDeviceMapping();
+        if (device.getPreferredSchedule() == TornadoSchedulingStrategy.PER_BLOCK || !canTile(graph)) {
+            return;
+        }
+
+        final List<ParallelRangeNode> rangeNodes = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
+        if (rangeNodes.size() != 2) {
+            return;
+        }
+        final ParallelRangeNode[] ranges = new ParallelRangeNode[2];
+        final ValuePhiNode[] indices = new ValuePhiNode[2];
+        for (ParallelRangeNode range : rangeNodes) {
+            final ParallelOffsetNode offset = range.offset();
+            final int dimension = range.index();
+            if (dimension > 1 || ranges[dimension] != null || !isConstantInt(range.stride().value()) || range.stride().value().asJavaConstant().asInt() != 1) {
+                return;
+            }
+            ranges[dimension] = range;
+            indices[dimension] = offset.usages().filter(ValuePhiNode.class).first();
+            if (indices[dimension] == null) {
+                return;
+            }
+        }
+
+        final RowLength rowLength = new RowLength();
+        final int[] rowDimension = { -1 };
+        final List<TiledArray> arrays = analyse(graph, indices, rowLength, rowDimension);
+        if (arrays.isEmpty()) {
+            return;
+        }
+        final int size = selectTileSize(device.getDevice(), arrays);
+        if (size == 0) {
+            return;
+        }
+
+        tile(graph, context, arrays, ranges, rowLength, rowDimension[0], size);
+        meta.setTileSize(size);
+        getDebugContext().dump(DebugContext.BASIC_LEVEL, graph, "after tiling " + arrays.size() + " arrays in local memory with size=" + size);
+    }
+}
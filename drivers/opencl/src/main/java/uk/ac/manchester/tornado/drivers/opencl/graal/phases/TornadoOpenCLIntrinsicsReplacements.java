@@ -35,6 +35,8 @@ import org.graalvm.compiler.nodes.ConstantNode;
 import org.graalvm.compiler.nodes.InvokeNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.memory.address.AddressNode;
+import org.graalvm.compiler.nodes.type.StampTool;
 import org.graalvm.compiler.nodes.util.GraphUtil;
 import org.graalvm.compiler.phases.BasePhase;
 
@@ -51,7 +53,9 @@ import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GroupIdNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalArrayNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalGroupSizeNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.LocalThreadIDFixedNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLAtomicIncrementNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLBarrierNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLMemFenceNode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OpenCLPrintf;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoHighTierContext;
 
@@ -91,6 +95,11 @@ public class TornadoOpenCLIntrinsicsReplacements extends BasePhase<TornadoHighTi
                     graph.replaceFixed(invoke, barrier);
                     break;
                 }
+                case "Direct#OpenCLIntrinsics.globalMemFence": {
+                    OCLMemFenceNode fence = graph.addOrUnique(new OCLMemFenceNode(OCLBarrierNode.OCLMemFenceFlags.GLOBAL));
+                    graph.replaceFixed(invoke, fence);
+                    break;
+                }
                 case "Direct#OpenCLIntrinsics.get_local_id": {
                     ConstantNode dimension = getConstantNodeFromArguments(invoke, 0);
                     LocalThreadIDFixedNode localIDNode = graph.addOrUnique(new LocalThreadIDFixedNode(dimension));
@@ -121,6 +130,10 @@ public class TornadoOpenCLIntrinsicsReplacements extends BasePhase<TornadoHighTi
                     graph.replaceFixed(invoke, groupIdNode);
                     break;
                 }
+                case "Direct#OpenCLIntrinsics.atomic_inc": {
+                    lowerAtomicIncrement(graph, invoke, context);
+                    break;
+                }
                 case "Direct#OpenCLIntrinsics.printEmpty":
                     OpenCLPrintf printfNode = graph.addOrUnique(new OpenCLPrintf("\"\""));
                     graph.replaceFixed(invoke, printfNode);
@@ -129,6 +142,16 @@ public class TornadoOpenCLIntrinsicsReplacements extends BasePhase<TornadoHighTi
         }
     }
 
+    private void lowerAtomicIncrement(StructuredGraph graph, InvokeNode invoke, TornadoHighTierContext context) {
+        NodeInputList<ValueNode> arguments = invoke.callTarget().arguments();
+        ValueNode array = arguments.get(0);
+        ValueNode index = arguments.get(1);
+        JavaKind elementKind = StampTool.typeOrNull(array).getComponentType().getJavaKind();
+        AddressNode address = ((OCLLoweringProvider) context.getLowerer()).createArrayAddress(graph, array, elementKind, index);
+        OCLAtomicIncrementNode atomicIncrement = graph.add(new OCLAtomicIncrementNode(address));
+        graph.replaceFixed(invoke, atomicIncrement);
+    }
+
     private void lowerLocalInvokeNodeNewArray(StructuredGraph graph, int length, JavaKind elementKind, InvokeNode newArray) {
         LocalArrayNode localArrayNode;
         ConstantNode newLengthNode = ConstantNode.forInt(length, graph);
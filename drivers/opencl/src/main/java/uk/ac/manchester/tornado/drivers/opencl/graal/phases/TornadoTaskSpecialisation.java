@@ -31,18 +31,25 @@ import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getDebugContex
 import java.lang.reflect.Array;
 import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
+import java.util.ArrayDeque;
+import java.util.Deque;
 
 import org.graalvm.compiler.core.common.type.ObjectStamp;
 import org.graalvm.compiler.debug.DebugContext;
 import org.graalvm.compiler.graph.Graph.Mark;
 import org.graalvm.compiler.graph.Node;
+import org.graalvm.compiler.graph.NodeBitMap;
 import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FrameState;
 import org.graalvm.compiler.nodes.LogicConstantNode;
 import org.graalvm.compiler.nodes.NodeView;
 import org.graalvm.compiler.nodes.ParameterNode;
 import org.graalvm.compiler.nodes.PiNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.calc.CompareNode;
 import org.graalvm.compiler.nodes.calc.IsNullNode;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.java.AbstractNewArrayNode;
 import org.graalvm.compiler.nodes.java.ArrayLengthNode;
 import org.graalvm.compiler.nodes.java.LoadFieldNode;
 import org.graalvm.compiler.nodes.util.GraphUtil;
@@ -54,9 +61,11 @@ import jdk.vm.ci.meta.JavaKind;
 import jdk.vm.ci.meta.ResolvedJavaField;
 import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoHighTierContext;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoLoopUnroller;
 import uk.ac.manchester.tornado.runtime.graal.phases.TornadoValueTypeReplacement;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext> {
 
@@ -67,6 +76,8 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
     private final DeadCodeEliminationPhase deadCodeElimination;
     private final TornadoLoopUnroller loopUnroll;
     private long batchThreads;
+    private TaskMetaData meta;
+    private boolean isFPGA;
 
     public TornadoTaskSpecialisation(CanonicalizerPhase canonicalizer) {
         this.canonicalizer = canonicalizer;
@@ -172,7 +183,10 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
             if (batchThreads <= 0) {
                 constant = ConstantNode.forInt(length);
             } else {
-                constant = ConstantNode.forInt((int) batchThreads);
+                // Every array holds a whole number of elements per iteration of the batch
+                final long batchElements = (meta != null) ? meta.getBatchElements() : 0;
+                final long elementsPerIteration = (batchElements > 0) ? length / batchElements : 1;
+                constant = ConstantNode.forInt((int) (elementsPerIteration * batchThreads));
             }
             node.replaceAtUsages(graph.addOrUnique(constant));
             arrayLength.clearInputs();
@@ -220,13 +234,73 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
         return result;
     }
 
+    /**
+     * The length of an array parameter is kept as a runtime value when it is only
+     * used to bound loops, so the kernel can be reused for arrays of any size.
+     */
+    private boolean isShapePolymorphic(ArrayLengthNode arrayLength) {
+        if (meta == null || meta.shouldSpecialiseLengths() || batchThreads > 0 || isFPGA) {
+            return false;
+        }
+        for (Node usage : arrayLength.usages()) {
+            if (!(usage instanceof ParallelRangeNode || usage instanceof CompareNode || usage instanceof FrameState)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The value of a scalar parameter is read at runtime unless it is needed as a
+     * constant, e.g., as the size of an array allocated by the kernel. Every value
+     * derived from the parameter is followed, including fixed nodes such as
+     * integer divisions, since they can also reach an allocation.
+     */
+    private boolean isScalarPolymorphic(StructuredGraph graph, ParameterNode parameterNode, Object value) {
+        if (meta == null || meta.shouldSpecialiseScalars() || isFPGA) {
+            return false;
+        }
+        if (!(value instanceof Integer || value instanceof Long || value instanceof Float || value instanceof Double)) {
+            return false;
+        }
+        final NodeBitMap visited = graph.createNodeBitMap();
+        final Deque<Node> worklist = new ArrayDeque<>();
+        worklist.push(parameterNode);
+        while (!worklist.isEmpty()) {
+            for (Node usage : worklist.pop().usages()) {
+                if (usage instanceof AbstractNewArrayNode) {
+                    return false;
+                } else if (usage instanceof ValueNode && !visited.isMarked(usage)) {
+                    visited.mark(usage);
+                    worklist.push(usage);
+                }
+            }
+        }
+        return true;
+    }
+
     private void propagateParameters(StructuredGraph graph, ParameterNode parameterNode, Object[] args) {
         if (args[parameterNode.index()] != null && RuntimeUtilities.isBoxedPrimitiveClass(args[parameterNode.index()].getClass())) {
+            if (isScalarPolymorphic(graph, parameterNode, args[parameterNode.index()])) {
+                meta.setRuntimeScalar(parameterNode.index());
+                return;
+            } else if (meta != null && meta.getSpecialisation() == null) {
+                meta.setArgumentSpecialised(parameterNode.index());
+            }
             ConstantNode constant = createConstantFromObject(args[parameterNode.index()]);
             graph.addWithoutUnique(constant);
             parameterNode.replaceAtUsages(constant);
         } else {
-            parameterNode.usages().snapshot().forEach(n -> evaluate(graph, n, args[parameterNode.index()]));
+            for (Node usage : parameterNode.usages().snapshot()) {
+                if (usage instanceof ArrayLengthNode) {
+                    if (isShapePolymorphic((ArrayLengthNode) usage)) {
+                        continue;
+                    } else if (meta != null && meta.getSpecialisation() == null) {
+                        meta.setArgumentSpecialised(parameterNode.index());
+                    }
+                }
+                evaluate(graph, usage, args[parameterNode.index()]);
+            }
         }
     }
 
@@ -236,6 +310,11 @@ public class TornadoTaskSpecialisation extends BasePhase<TornadoHighTierContext>
         int lastNodeCount = graph.getNodeCount();
         boolean hasWork = true;
         this.batchThreads = context.getBatchThreads();
+        this.meta = context.hasMeta() ? context.getMeta() : null;
+        this.isFPGA = meta != null && meta.getDevice().getDeviceContext().isPlatformFPGA();
+        if (meta != null && meta.getSpecialisation() == null) {
+            meta.clearSpecialisation();
+        }
 
         while (hasWork) {
             final Mark mark = graph.getMark();
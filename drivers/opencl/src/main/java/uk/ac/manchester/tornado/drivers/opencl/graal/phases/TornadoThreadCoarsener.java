@@ -0,0 +1,196 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.graal.phases;
+
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getDebugContext;
+
+import java.util.List;
+
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.InvokeNode;
+import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.calc.AddNode;
+import org.graalvm.compiler.nodes.calc.MulNode;
+import org.graalvm.compiler.phases.BasePhase;
+
+import jdk.vm.ci.meta.JavaKind;
+import uk.ac.manchester.tornado.drivers.opencl.OpenCL;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadIdNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.GlobalThreadSizeNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLBarrierNode;
+import uk.ac.manchester.tornado.drivers.opencl.graal.nodes.OCLIntBinaryIntrinsicNode;
+import uk.ac.manchester.tornado.drivers.opencl.runtime.OCLTornadoDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
+import uk.ac.manchester.tornado.runtime.graal.nodes.AbstractParallelNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelOffsetNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelStrideNode;
+import uk.ac.manchester.tornado.runtime.graal.nodes.StoreAtomicIndexedNode;
+import uk.ac.manchester.tornado.runtime.graal.phases.TornadoHighTierContext;
+import uk.ac.manchester.tornado.runtime.tasks.meta.Coarseness;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * Rewrites the parallel loops of a kernel so that each work-item executes a
+ * block of iterations instead of a single one. It runs before the
+ * {@link TornadoParallelScheduler}, which schedules the loops that are not
+ * coarsened.
+ * <p>
+ * With a factor {@code C}, the iterations are assigned to the work-items
+ * either in contiguous blocks of {@code C} iterations, which suits CPUs, or
+ * with a stride of the global size, which keeps the memory accesses of
+ * neighbouring work-items coalesced on GPUs. The kernel scheduler launches
+ * {@code ceil(n / C)} work-items for a loop of {@code n} iterations.
+ * </p>
+ */
+public class TornadoThreadCoarsener extends BasePhase<TornadoHighTierContext> {
+
+    private static final String CONTIGUOUS = "contiguous";
+    private static final String STRIDED = "strided";
+
+    private static boolean isContiguous(TornadoSchedulingStrategy strategy) {
+        if (CONTIGUOUS.equalsIgnoreCase(OpenCL.OCL_COARSENING_MODE)) {
+            return true;
+        } else if (STRIDED.equalsIgnoreCase(OpenCL.OCL_COARSENING_MODE)) {
+            return false;
+        }
+        return strategy == TornadoSchedulingStrategy.PER_BLOCK;
+    }
+
+    private static int getFactor(TaskMetaData meta, TornadoSchedulingStrategy strategy, int index) {
+        final Coarseness coarseness = meta.getCoarseness();
+        if (coarseness != null) {
+            return coarseness.getCoarseness(index);
+        }
+        return (strategy == TornadoSchedulingStrategy.PER_BLOCK) ? OpenCL.OCL_COARSENING_CPU : OpenCL.OCL_COARSENING_GPU;
+    }
+
+    /**
+     * Reductions and kernels that use work-item functions or barriers rely on
+     * one work-item per iteration.
+     */
+    private static boolean canCoarsen(StructuredGraph graph) {
+        if (graph.getNodes().filter(StoreAtomicIndexedNode.class).isNotEmpty() || graph.getNodes().filter(OCLBarrierNode.class).isNotEmpty()) {
+            return false;
+        }
+        for (InvokeNode invoke : graph.getNodes().filter(InvokeNode.class)) {
+            if (invoke.callTarget().targetName().contains("OpenCLIntrinsics")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static void killNode(AbstractParallelNode node) {
+        if (node.inputs().isNotEmpty()) {
+            node.clearInputs();
+        }
+        if (!node.isDeleted()) {
+            node.safeDelete();
+        }
+    }
+
+    private static void coarsenContiguous(StructuredGraph graph, ParallelRangeNode range, int factor) {
+        final ParallelOffsetNode offset = range.offset();
+        final ParallelStrideNode stride = range.stride();
+
+        final GlobalThreadIdNode threadId = graph.addOrUnique(new GlobalThreadIdNode(ConstantNode.forInt(range.index(), graph)));
+        final MulNode blockSize = graph.addOrUnique(new MulNode(ConstantNode.forInt(factor, graph), stride.value()));
+        final MulNode blockOffset = graph.addOrUnique(new MulNode(threadId, blockSize));
+        final AddNode start = graph.addOrUnique(new AddNode(offset.value(), blockOffset));
+        final AddNode end = graph.addOrUnique(new AddNode(start, blockSize));
+        final ValueNode adjustedRange = graph.addOrUnique(OCLIntBinaryIntrinsicNode.create(end, range.value(), OCLIntBinaryIntrinsicNode.Operation.MIN, JavaKind.Int));
+
+        range.replaceAtUsages(adjustedRange);
+        offset.replaceAtUsages(start);
+        stride.replaceAtUsages(stride.value());
+
+        killNode(range);
+        killNode(offset);
+        killNode(stride);
+    }
+
+    private static void coarsenStrided(StructuredGraph graph, ParallelRangeNode range) {
+        final ParallelOffsetNode offset = range.offset();
+        final ParallelStrideNode stride = range.stride();
+
+        final ConstantNode index = ConstantNode.forInt(range.index(), graph);
+        final GlobalThreadIdNode threadId = graph.addOrUnique(new GlobalThreadIdNode(index));
+        final GlobalThreadSizeNode threadCount = graph.addOrUnique(new GlobalThreadSizeNode(index));
+        final MulNode threadOffset = graph.addOrUnique(new MulNode(threadId, stride.value()));
+        final AddNode start = graph.addOrUnique(new AddNode(offset.value(), threadOffset));
+        final MulNode newStride = graph.addOrUnique(new MulNode(threadCount, stride.value()));
+
+        range.replaceAtUsages(range.value());
+        offset.replaceAtUsages(start);
+        stride.replaceAtUsages(newStride);
+
+        killNode(range);
+        killNode(offset);
+        killNode(stride);
+    }
+
+    @Override
+    protected void run(StructuredGraph graph, TornadoHighTierContext context) {
+        final TaskMetaData meta = context.getMeta();
+        if (meta == null || meta.enableThreadCoarsener() || !meta.hasDomain() || !meta.enableParallelization() || !canCoarsen(graph)) {
+            return;
+        }
+
+        final OCLTornadoDevice device = (OCLTornadoDevice) context.getDeviceMapping();
+        final TornadoSchedulingStrategy strategy = device.getPreferredSchedule();
+        final long[] maxWorkItemSizes = device.getDevice().getDeviceMaxWorkItemSizes();
+        final boolean contiguous = isContiguous(strategy);
+
+        final int[] factors = new int[meta.getDims()];
+        boolean coarsened = false;
+
+        final List<ParallelRangeNode> ranges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
+        for (ParallelRangeNode range : ranges) {
+            final int index = range.index();
+            if (index >= factors.length || maxWorkItemSizes[index] <= 1) {
+                continue;
+            }
+            final int factor = getFactor(meta, strategy, index);
+            // CPUs keep one work-item per compute unit when no factor is given
+            if (factor <= 0 || (factor == 1 && strategy != TornadoSchedulingStrategy.PER_BLOCK)) {
+                continue;
+            }
+            if (contiguous) {
+                coarsenContiguous(graph, range, factor);
+            } else {
+                coarsenStrided(graph, range);
+            }
+            factors[index] = factor;
+            coarsened = true;
+            getDebugContext().dump(DebugContext.BASIC_LEVEL, graph, "after coarsening loop index=" + index);
+        }
+
+        if (coarsened) {
+            meta.setCoarseningFactors(factors);
+        }
+    }
+}
@@ -26,6 +26,7 @@
 package uk.ac.manchester.tornado.drivers.opencl.graal.snippets;
 
 import org.graalvm.compiler.api.replacements.Snippet;
+import org.graalvm.compiler.api.replacements.Snippet.ConstantParameter;
 import org.graalvm.compiler.api.replacements.SnippetReflectionProvider;
 import org.graalvm.compiler.debug.DebugHandlersFactory;
 import org.graalvm.compiler.nodes.StructuredGraph;
@@ -63,7 +64,7 @@ public class ReduceGPUSnippets implements Snippets {
     private static int LOCAL_WORK_GROUP_SIZE = 223;
 
     @Snippet
-    public static void partialReduceIntAdd(int[] inputArray, int[] outputArray, int gidx) {
+    public static void partialReduceIntAdd(int[] inputArray, int[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
         int[] localArray = (int[]) NewArrayNode.newUninitializedArray(int.class, LOCAL_WORK_GROUP_SIZE);
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
@@ -83,10 +84,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsIntAdd(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceIntAddCarrierValue(int[] inputArray, int[] outputArray, int gidx, int value) {
+    public static void partialReduceIntAddCarrierValue(int[] inputArray, int[] outputArray, int gidx, int value, @ConstantParameter boolean singlePass) {
 
         int[] localArray = (int[]) NewArrayNode.newUninitializedArray(int.class, LOCAL_WORK_GROUP_SIZE);
 
@@ -106,10 +111,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsIntAdd(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceLongAdd(long[] inputArray, long[] outputArray, int gidx) {
+    public static void partialReduceLongAdd(long[] inputArray, long[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
         long[] localArray = (long[]) NewArrayNode.newUninitializedArray(long.class, LOCAL_WORK_GROUP_SIZE);
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
@@ -129,34 +138,42 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsLongAdd(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceLongAddCarrierValue(long[] inputArray, long[] outputArray, int gidx, long value) {
+    public static void partialReduceLongAddCarrierValue(long[] inputArray, long[] outputArray, int gidx, long value, @ConstantParameter boolean singlePass) {
+
+        long[] localArray = (long[]) NewArrayNode.newUninitializedArray(long.class, LOCAL_WORK_GROUP_SIZE);
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
         int groupID = OpenCLIntrinsics.get_group_id(0);
 
-        int myID = localIdx + (localGroupSize * groupID);
-
-        inputArray[myID] = value;
+        localArray[localIdx] = value;
 
         for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
             OpenCLIntrinsics.localBarrier();
             if (localIdx < stride) {
-                inputArray[myID] += inputArray[myID + stride];
-
+                localArray[localIdx] += localArray[localIdx + stride];
             }
         }
+
         OpenCLIntrinsics.globalBarrier();
         if (localIdx == 0) {
-            outputArray[groupID + 1] = inputArray[myID];
+            outputArray[groupID + 1] = localArray[0];
+        }
+
+        if (singlePass) {
+            combineGroupsLongAdd(outputArray, localIdx, localGroupSize);
         }
     }
 
     @Snippet
-    public static void partialReduceFloatAdd(float[] inputArray, float[] outputArray, int gidx) {
+    public static void partialReduceFloatAdd(float[] inputArray, float[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
         float[] localArray = (float[]) NewArrayNode.newUninitializedArray(float.class, LOCAL_WORK_GROUP_SIZE);
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
@@ -176,10 +193,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsFloatAdd(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceFloatAddCarrierValue(float[] inputArray, float[] outputArray, int gidx, float value) {
+    public static void partialReduceFloatAddCarrierValue(float[] inputArray, float[] outputArray, int gidx, float value, @ConstantParameter boolean singlePass) {
 
         float[] localArray = (float[]) NewArrayNode.newUninitializedArray(float.class, LOCAL_WORK_GROUP_SIZE);
 
@@ -200,10 +221,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsFloatAdd(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceDoubleAdd(double[] inputArray, double[] outputArray, int gidx) {
+    public static void partialReduceDoubleAdd(double[] inputArray, double[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -224,10 +249,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsDoubleAdd(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceDoubleAddCarrierValue(double[] inputArray, double[] outputArray, int gidx, double value) {
+    public static void partialReduceDoubleAddCarrierValue(double[] inputArray, double[] outputArray, int gidx, double value, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -247,10 +276,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsDoubleAdd(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceIntMult(int[] inputArray, int[] outputArray, int gidx) {
+    public static void partialReduceIntMult(int[] inputArray, int[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -271,10 +304,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsIntMult(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceIntMultCarrierValue(int[] inputArray, int[] outputArray, int gidx, int value) {
+    public static void partialReduceIntMultCarrierValue(int[] inputArray, int[] outputArray, int gidx, int value, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -294,10 +331,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsIntMult(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceLongMult(long[] inputArray, long[] outputArray, int gidx) {
+    public static void partialReduceLongMult(long[] inputArray, long[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -318,33 +359,42 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsLongMult(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceLongMultCarrierValue(long[] inputArray, long[] outputArray, int gidx, long value) {
+    public static void partialReduceLongMultCarrierValue(long[] inputArray, long[] outputArray, int gidx, long value, @ConstantParameter boolean singlePass) {
+
+        long[] localArray = (long[]) NewArrayNode.newUninitializedArray(long.class, LOCAL_WORK_GROUP_SIZE);
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
         int groupID = OpenCLIntrinsics.get_group_id(0);
 
-        int myID = localIdx + (localGroupSize * groupID);
+        localArray[localIdx] = value;
 
-        inputArray[myID] = value;
         for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
             OpenCLIntrinsics.localBarrier();
             if (localIdx < stride) {
-                inputArray[myID] *= inputArray[myID + stride];
+                localArray[localIdx] *= localArray[localIdx + stride];
             }
         }
 
         OpenCLIntrinsics.globalBarrier();
         if (localIdx == 0) {
-            outputArray[groupID + 1] = inputArray[myID];
+            outputArray[groupID + 1] = localArray[0];
+        }
+
+        if (singlePass) {
+            combineGroupsLongMult(outputArray, localIdx, localGroupSize);
         }
     }
 
     @Snippet
-    public static void partialReduceFloatMult(float[] inputArray, float[] outputArray, int gidx) {
+    public static void partialReduceFloatMult(float[] inputArray, float[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -365,10 +415,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsFloatMult(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceFloatMultCarrierValue(float[] inputArray, float[] outputArray, int gidx, float value) {
+    public static void partialReduceFloatMultCarrierValue(float[] inputArray, float[] outputArray, int gidx, float value, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -389,10 +443,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsFloatMult(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceDoubleMult(double[] inputArray, double[] outputArray, int gidx) {
+    public static void partialReduceDoubleMult(double[] inputArray, double[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -413,10 +471,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsDoubleMult(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceDoubleMultCarrierValue(double[] inputArray, double[] outputArray, int gidx, double value) {
+    public static void partialReduceDoubleMultCarrierValue(double[] inputArray, double[] outputArray, int gidx, double value, @ConstantParameter boolean singlePass) {
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
         int groupID = OpenCLIntrinsics.get_group_id(0);
@@ -436,10 +498,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsDoubleMult(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceIntMax(int[] inputArray, int[] outputArray, int gidx) {
+    public static void partialReduceIntMax(int[] inputArray, int[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
         int groupID = OpenCLIntrinsics.get_group_id(0);
@@ -458,10 +524,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsIntMax(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceIntMaxCarrierValue(int[] inputArray, int[] outputArray, int gidx, int extra) {
+    public static void partialReduceIntMaxCarrierValue(int[] inputArray, int[] outputArray, int gidx, int extra, @ConstantParameter boolean singlePass) {
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
         int groupID = OpenCLIntrinsics.get_group_id(0);
@@ -480,10 +550,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsIntMax(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceLongMax(long[] inputArray, long[] outputArray, int gidx) {
+    public static void partialReduceLongMax(long[] inputArray, long[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -504,10 +578,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsLongMax(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceLongMaxCarrierValue(long[] inputArray, long[] outputArray, int gidx, long extra) {
+    public static void partialReduceLongMaxCarrierValue(long[] inputArray, long[] outputArray, int gidx, long extra, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -528,10 +606,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsLongMax(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceFloatMax(float[] inputArray, float[] outputArray, int gidx) {
+    public static void partialReduceFloatMax(float[] inputArray, float[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -551,10 +633,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsFloatMax(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceFloatMaxCarrierValue(float[] inputArray, float[] outputArray, int gidx, float extra) {
+    public static void partialReduceFloatMaxCarrierValue(float[] inputArray, float[] outputArray, int gidx, float extra, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -574,10 +660,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsFloatMax(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceDoubleMax(double[] inputArray, double[] outputArray, int gidx) {
+    public static void partialReduceDoubleMax(double[] inputArray, double[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
         int groupID = OpenCLIntrinsics.get_group_id(0);
@@ -596,10 +686,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsDoubleMax(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceDoubleMaxCarrierValue(double[] inputArray, double[] outputArray, int gidx, double extra) {
+    public static void partialReduceDoubleMaxCarrierValue(double[] inputArray, double[] outputArray, int gidx, double extra, @ConstantParameter boolean singlePass) {
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
         int groupID = OpenCLIntrinsics.get_group_id(0);
@@ -618,10 +712,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsDoubleMax(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceIntMin(int[] inputArray, int[] outputArray, int gidx) {
+    public static void partialReduceIntMin(int[] inputArray, int[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -641,10 +739,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsIntMin(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceIntMinCarrierValue(int[] inputArray, int[] outputArray, int gidx, int extra) {
+    public static void partialReduceIntMinCarrierValue(int[] inputArray, int[] outputArray, int gidx, int extra, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -664,10 +766,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsIntMin(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceLongMin(long[] inputArray, long[] outputArray, int gidx) {
+    public static void partialReduceLongMin(long[] inputArray, long[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -688,10 +794,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsLongMin(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceLongMinCarrierValue(long[] inputArray, long[] outputArray, int gidx, long extra) {
+    public static void partialReduceLongMinCarrierValue(long[] inputArray, long[] outputArray, int gidx, long extra, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -712,10 +822,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsLongMin(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceFloatMin(float[] inputArray, float[] outputArray, int gidx) {
+    public static void partialReduceFloatMin(float[] inputArray, float[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -735,10 +849,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsFloatMin(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceFloatMinCarrierValue(float[] inputArray, float[] outputArray, int gidx, float extra) {
+    public static void partialReduceFloatMinCarrierValue(float[] inputArray, float[] outputArray, int gidx, float extra, @ConstantParameter boolean singlePass) {
 
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
@@ -758,10 +876,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsFloatMin(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceDoubleMin(double[] inputArray, double[] outputArray, int gidx) {
+    public static void partialReduceDoubleMin(double[] inputArray, double[] outputArray, int gidx, @ConstantParameter boolean singlePass) {
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
         int groupID = OpenCLIntrinsics.get_group_id(0);
@@ -780,10 +902,14 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsDoubleMin(outputArray, localIdx, localGroupSize);
+        }
     }
 
     @Snippet
-    public static void partialReduceDoubleMinCarrierValue(double[] inputArray, double[] outputArray, int gidx, double extra) {
+    public static void partialReduceDoubleMinCarrierValue(double[] inputArray, double[] outputArray, int gidx, double extra, @ConstantParameter boolean singlePass) {
         int localIdx = OpenCLIntrinsics.get_local_id(0);
         int localGroupSize = OpenCLIntrinsics.get_local_size(0);
         int groupID = OpenCLIntrinsics.get_group_id(0);
@@ -802,6 +928,484 @@ public class ReduceGPUSnippets implements Snippets {
         if (localIdx == 0) {
             outputArray[groupID + 1] = localArray[0];
         }
+
+        if (singlePass) {
+            combineGroupsDoubleMin(outputArray, localIdx, localGroupSize);
+        }
+    }
+
+    /**
+     * Returns true for the last work-group to finish the partial reduction. The
+     * work-groups take a ticket from a counter stored in the slot that follows the
+     * partial results, which the runtime initialises to zero.
+     *
+     * The work-item that wrote the partial result of the group fences global
+     * memory before the atomic increment, so the partial result is visible
+     * once the ticket is taken. The last work-group then reads the partial
+     * results without a cached copy: it has not accessed those elements before
+     * in this launch, and the caches of the work-groups are not kept across
+     * kernel launches.
+     */
+    private static boolean isLastGroup(int[] outputArray, int localIdx, int numGroups) {
+        int[] ticket = (int[]) NewArrayNode.newUninitializedArray(int.class, LOCAL_WORK_GROUP_SIZE);
+
+        // Make the partial result of this work-group visible to the other
+        // work-groups before taking a ticket
+        OpenCLIntrinsics.globalBarrier();
+        if (localIdx == 0) {
+            OpenCLIntrinsics.globalMemFence();
+            ticket[0] = OpenCLIntrinsics.atomic_inc(outputArray, numGroups + 1);
+        }
+        OpenCLIntrinsics.localBarrier();
+        return ticket[0] == (numGroups - 1);
+    }
+
+    private static boolean isLastGroup(long[] outputArray, int localIdx, int numGroups) {
+        int[] ticket = (int[]) NewArrayNode.newUninitializedArray(int.class, LOCAL_WORK_GROUP_SIZE);
+
+        // Make the partial result of this work-group visible to the other
+        // work-groups before taking a ticket
+        OpenCLIntrinsics.globalBarrier();
+        if (localIdx == 0) {
+            OpenCLIntrinsics.globalMemFence();
+            ticket[0] = OpenCLIntrinsics.atomic_inc(outputArray, numGroups + 1);
+        }
+        OpenCLIntrinsics.localBarrier();
+        return ticket[0] == (numGroups - 1);
+    }
+
+    private static boolean isLastGroup(float[] outputArray, int localIdx, int numGroups) {
+        int[] ticket = (int[]) NewArrayNode.newUninitializedArray(int.class, LOCAL_WORK_GROUP_SIZE);
+
+        // Make the partial result of this work-group visible to the other
+        // work-groups before taking a ticket
+        OpenCLIntrinsics.globalBarrier();
+        if (localIdx == 0) {
+            OpenCLIntrinsics.globalMemFence();
+            ticket[0] = OpenCLIntrinsics.atomic_inc(outputArray, numGroups + 1);
+        }
+        OpenCLIntrinsics.localBarrier();
+        return ticket[0] == (numGroups - 1);
+    }
+
+    private static boolean isLastGroup(double[] outputArray, int localIdx, int numGroups) {
+        int[] ticket = (int[]) NewArrayNode.newUninitializedArray(int.class, LOCAL_WORK_GROUP_SIZE);
+
+        // Make the partial result of this work-group visible to the other
+        // work-groups before taking a ticket
+        OpenCLIntrinsics.globalBarrier();
+        if (localIdx == 0) {
+            OpenCLIntrinsics.globalMemFence();
+            ticket[0] = OpenCLIntrinsics.atomic_inc(outputArray, numGroups + 1);
+        }
+        OpenCLIntrinsics.localBarrier();
+        return ticket[0] == (numGroups - 1);
+    }
+
+    /**
+     * Final reduction of a single-pass reduction. The last work-group combines
+     * the partial results of all work-groups, and the initial value stored in the
+     * first position, into the first position of the output array. It also resets
+     * the counter for the next launch.
+     */
+    private static void combineGroupsIntAdd(int[] outputArray, int localIdx, int localGroupSize) {
+        int[] localArray = (int[]) NewArrayNode.newUninitializedArray(int.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                int acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc += outputArray[i];
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] += localArray[localIdx + stride];
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsLongAdd(long[] outputArray, int localIdx, int localGroupSize) {
+        long[] localArray = (long[]) NewArrayNode.newUninitializedArray(long.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                long acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc += outputArray[i];
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] += localArray[localIdx + stride];
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsFloatAdd(float[] outputArray, int localIdx, int localGroupSize) {
+        float[] localArray = (float[]) NewArrayNode.newUninitializedArray(float.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                float acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc += outputArray[i];
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] += localArray[localIdx + stride];
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsDoubleAdd(double[] outputArray, int localIdx, int localGroupSize) {
+        double[] localArray = (double[]) NewArrayNode.newUninitializedArray(double.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                double acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc += outputArray[i];
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] += localArray[localIdx + stride];
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsIntMult(int[] outputArray, int localIdx, int localGroupSize) {
+        int[] localArray = (int[]) NewArrayNode.newUninitializedArray(int.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                int acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc *= outputArray[i];
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] *= localArray[localIdx + stride];
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsLongMult(long[] outputArray, int localIdx, int localGroupSize) {
+        long[] localArray = (long[]) NewArrayNode.newUninitializedArray(long.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                long acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc *= outputArray[i];
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] *= localArray[localIdx + stride];
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsFloatMult(float[] outputArray, int localIdx, int localGroupSize) {
+        float[] localArray = (float[]) NewArrayNode.newUninitializedArray(float.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                float acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc *= outputArray[i];
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] *= localArray[localIdx + stride];
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsDoubleMult(double[] outputArray, int localIdx, int localGroupSize) {
+        double[] localArray = (double[]) NewArrayNode.newUninitializedArray(double.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                double acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc *= outputArray[i];
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] *= localArray[localIdx + stride];
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsIntMax(int[] outputArray, int localIdx, int localGroupSize) {
+        int[] localArray = (int[]) NewArrayNode.newUninitializedArray(int.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                int acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc = TornadoMath.max(acc, outputArray[i]);
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] = TornadoMath.max(localArray[localIdx], localArray[localIdx + stride]);
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsLongMax(long[] outputArray, int localIdx, int localGroupSize) {
+        long[] localArray = (long[]) NewArrayNode.newUninitializedArray(long.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                long acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc = TornadoMath.max(acc, outputArray[i]);
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] = TornadoMath.max(localArray[localIdx], localArray[localIdx + stride]);
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsFloatMax(float[] outputArray, int localIdx, int localGroupSize) {
+        float[] localArray = (float[]) NewArrayNode.newUninitializedArray(float.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                float acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc = TornadoMath.max(acc, outputArray[i]);
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] = TornadoMath.max(localArray[localIdx], localArray[localIdx + stride]);
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsDoubleMax(double[] outputArray, int localIdx, int localGroupSize) {
+        double[] localArray = (double[]) NewArrayNode.newUninitializedArray(double.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                double acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc = TornadoMath.max(acc, outputArray[i]);
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] = TornadoMath.max(localArray[localIdx], localArray[localIdx + stride]);
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsIntMin(int[] outputArray, int localIdx, int localGroupSize) {
+        int[] localArray = (int[]) NewArrayNode.newUninitializedArray(int.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                int acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc = TornadoMath.min(acc, outputArray[i]);
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] = TornadoMath.min(localArray[localIdx], localArray[localIdx + stride]);
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsLongMin(long[] outputArray, int localIdx, int localGroupSize) {
+        long[] localArray = (long[]) NewArrayNode.newUninitializedArray(long.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                long acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc = TornadoMath.min(acc, outputArray[i]);
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] = TornadoMath.min(localArray[localIdx], localArray[localIdx + stride]);
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsFloatMin(float[] outputArray, int localIdx, int localGroupSize) {
+        float[] localArray = (float[]) NewArrayNode.newUninitializedArray(float.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                float acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc = TornadoMath.min(acc, outputArray[i]);
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] = TornadoMath.min(localArray[localIdx], localArray[localIdx + stride]);
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
+    }
+
+    private static void combineGroupsDoubleMin(double[] outputArray, int localIdx, int localGroupSize) {
+        double[] localArray = (double[]) NewArrayNode.newUninitializedArray(double.class, LOCAL_WORK_GROUP_SIZE);
+        int numGroups = OpenCLIntrinsics.get_global_size(0) / localGroupSize;
+
+        if (isLastGroup(outputArray, localIdx, numGroups)) {
+            if (localIdx <= numGroups) {
+                double acc = outputArray[localIdx];
+                for (int i = localIdx + localGroupSize; i <= numGroups; i += localGroupSize) {
+                    acc = TornadoMath.min(acc, outputArray[i]);
+                }
+                localArray[localIdx] = acc;
+            }
+            for (int stride = (localGroupSize / 2); stride > 0; stride /= 2) {
+                OpenCLIntrinsics.localBarrier();
+                if (localIdx < stride && (localIdx + stride) <= numGroups) {
+                    localArray[localIdx] = TornadoMath.min(localArray[localIdx], localArray[localIdx + stride]);
+                }
+            }
+            if (localIdx == 0) {
+                outputArray[0] = localArray[0];
+                outputArray[numGroups + 1] = 0;
+            }
+        }
     }
 
     public static class Templates extends AbstractTemplates implements TornadoSnippetTypeInference {
@@ -846,8 +1450,18 @@ public class ReduceGPUSnippets implements Snippets {
         private final SnippetInfo partialReduceMinDoubleSnippet = snippet(ReduceGPUSnippets.class, "partialReduceDoubleMin");
         private final SnippetInfo partialReduceMinDoubleSnippetCarrierValue = snippet(ReduceGPUSnippets.class, "partialReduceDoubleMinCarrierValue");
 
-        public Templates(OptionValues options, Iterable<DebugHandlersFactory> debugHandlersFactories, Providers providers, SnippetReflectionProvider snippetReflection, TargetDescription target) {
+        private final boolean singlePass;
+
+        /**
+         * @param singlePass
+         *            true if the last work-group combines the partial results. It
+         *            must match {@code ReduceTaskSchedule}, which sizes the output
+         *            array and skips the final sequential task accordingly.
+         */
+        public Templates(OptionValues options, Iterable<DebugHandlersFactory> debugHandlersFactories, Providers providers, SnippetReflectionProvider snippetReflection, TargetDescription target,
+                boolean singlePass) {
             super(options, debugHandlersFactories, providers, snippetReflection, target);
+            this.singlePass = singlePass;
         }
 
         private SnippetInfo getSnippetFromOCLBinaryNodeInteger(OCLIntBinaryIntrinsicNode value, ValueNode extra) {
@@ -988,6 +1602,7 @@ public class ReduceGPUSnippets implements Snippets {
             if (extra != null) {
                 args.add("value", extra);
             }
+            args.addConst("singlePass", singlePass);
 
             template(storeAtomicIndexed, args).instantiate(providers.getMetaAccess(), storeAtomicIndexed, SnippetTemplate.DEFAULT_REPLACER, args);
         }
@@ -58,6 +58,10 @@ public class FieldBuffer {
         objectBuffer.allocate(getFieldValue(ref), batchSize);
     }
 
+    public void deallocate() {
+        objectBuffer.deallocate();
+    }
+
     public int enqueueRead(final Object ref, final int[] events, boolean useDeps) {
         if (DEBUG) {
             trace("fieldBuffer: enqueueRead* - field=%s, parent=0x%x, child=0x%x", field, ref.hashCode(), getFieldValue(ref).hashCode());
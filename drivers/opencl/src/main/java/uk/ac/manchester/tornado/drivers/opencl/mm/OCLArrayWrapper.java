@@ -93,6 +93,15 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
         return null;
     }
 
+    @Override
+    public void deallocate() {
+        if (bufferOffset != -1) {
+            deviceContext.getMemoryManager().deallocate(bufferOffset);
+            bufferOffset = -1;
+        }
+        onDevice = false;
+    }
+
     @Override
     public void allocate(Object value, long batchSize) {
 
@@ -166,9 +175,9 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
         }
         final int returnEvent;
         if (isFinal) {
-            returnEvent = enqueueReadArrayData(toBuffer(), bufferOffset + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
+            returnEvent = enqueueReadArrayData(toBuffer(), toRegionOffset() + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
         } else {
-            returnEvent = enqueueReadArrayData(toBuffer(), bufferOffset + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
+            returnEvent = enqueueReadArrayData(toBuffer(), toRegionOffset() + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
         }
         return useDeps ? returnEvent : -1;
     }
@@ -200,7 +209,7 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
         }
         final int returnEvent;
         if (isFinal && onDevice) {
-            returnEvent = enqueueWriteArrayData(toBuffer(), bufferOffset + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
+            returnEvent = enqueueWriteArrayData(toBuffer(), toRegionOffset() + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
         } else {
             // We first write the header for the object and then we write actual
             // buffer
@@ -210,7 +219,7 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
             } else {
                 headerEvent = buildArrayHeaderBatch(batchSize).enqueueWrite((useDeps) ? events : null);
             }
-            returnEvent = enqueueWriteArrayData(toBuffer(), bufferOffset + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
+            returnEvent = enqueueWriteArrayData(toBuffer(), toRegionOffset() + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
             onDevice = true;
             // returnEvent = deviceContext.enqueueMarker(internalEvents);
 
@@ -244,7 +253,7 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
     }
 
     private OCLByteBuffer getArrayHeader() {
-        final OCLByteBuffer header = deviceContext.getMemoryManager().getSubBuffer((int) bufferOffset, arrayHeaderSize);
+        final OCLByteBuffer header = deviceContext.getMemoryManager().getSubBuffer(bufferOffset, arrayHeaderSize);
         header.buffer.clear();
         return header;
     }
@@ -303,12 +312,12 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
 
         if (VALIDATE_ARRAY_HEADERS) {
             if (validateArrayHeader(array)) {
-                return readArrayData(toBuffer(), bufferOffset + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
+                return readArrayData(toBuffer(), toRegionOffset() + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
             } else {
                 shouldNotReachHere("Array header is invalid");
             }
         } else {
-            return readArrayData(toBuffer(), bufferOffset + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
+            return readArrayData(toBuffer(), toRegionOffset() + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, hostOffset, (useDeps) ? events : null);
         }
         return -1;
     }
@@ -330,7 +339,11 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
 
     @Override
     public long toBuffer() {
-        return deviceContext.getMemoryManager().toBuffer();
+        return deviceContext.getMemoryManager().toBuffer(bufferOffset);
+    }
+
+    private long toRegionOffset() {
+        return deviceContext.getMemoryManager().toRegionOffset(bufferOffset);
     }
 
     @Override
@@ -373,7 +386,7 @@ public abstract class OCLArrayWrapper<T> implements ObjectBuffer {
         }
         buildArrayHeader(Array.getLength(array)).write();
         // TODO: Writing with offset != 0
-        writeArrayData(toBuffer(), bufferOffset + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, 0, null);
+        writeArrayData(toBuffer(), toRegionOffset() + arrayHeaderSize, bytesToAllocate - arrayHeaderSize, array, 0, null);
         onDevice = true;
     }
 
@@ -77,7 +77,7 @@ public class OCLByteBuffer {
     }
 
     public void read(final int[] events) {
-        deviceContext.readBuffer(toBuffer(), offset, bytes, buffer.array(), 0, events);
+        deviceContext.readBuffer(toBuffer(), toRegionOffset(), bytes, buffer.array(), 0, events);
     }
 
     public int enqueueRead() {
@@ -85,7 +85,7 @@ public class OCLByteBuffer {
     }
 
     public int enqueueRead(final int[] events) {
-        return deviceContext.enqueueReadBuffer(toBuffer(), offset, bytes, buffer.array(), 0, events);
+        return deviceContext.enqueueReadBuffer(toBuffer(), toRegionOffset(), bytes, buffer.array(), 0, events);
     }
 
     public void write() {
@@ -94,7 +94,7 @@ public class OCLByteBuffer {
 
     public void write(final int[] events) {
         // XXX: offset 0
-        deviceContext.writeBuffer(toBuffer(), offset, bytes, buffer.array(), 0, events);
+        deviceContext.writeBuffer(toBuffer(), toRegionOffset(), bytes, buffer.array(), 0, events);
     }
 
     public int enqueueWrite() {
@@ -103,7 +103,7 @@ public class OCLByteBuffer {
 
     public int enqueueWrite(final int[] events) {
         // XXX: offset 0
-        return deviceContext.enqueueWriteBuffer(toBuffer(), offset, bytes, buffer.array(), 0, events);
+        return deviceContext.enqueueWriteBuffer(toBuffer(), toRegionOffset(), bytes, buffer.array(), 0, events);
     }
 
     public void dump() {
@@ -279,7 +279,15 @@ public class OCLByteBuffer {
     }
 
     public long toBuffer() {
-        return deviceContext.getMemoryManager().toBuffer();
+        return deviceContext.getMemoryManager().toBuffer(offset);
+    }
+
+    /**
+     * Returns the offset of this buffer within the OpenCL buffer returned by
+     * {@link #toBuffer()}.
+     */
+    public long toRegionOffset() {
+        return deviceContext.getMemoryManager().toRegionOffset(offset);
     }
 
     public long toConstantAddress() {
@@ -291,7 +299,7 @@ public class OCLByteBuffer {
     }
 
     public long toRelativeAddress() {
-        return deviceContext.getMemoryManager().toRelativeDeviceAddress(offset);
+        return deviceContext.getMemoryManager().toRelativeDeviceAddress(toRegionOffset());
     }
 
     public Object value() {
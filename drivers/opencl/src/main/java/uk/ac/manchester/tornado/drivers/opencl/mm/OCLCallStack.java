@@ -31,6 +31,7 @@ import static uk.ac.manchester.tornado.runtime.common.RuntimeUtilities.isBoxedPr
 import static uk.ac.manchester.tornado.runtime.common.Tornado.DEBUG;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.debug;
 
+import uk.ac.manchester.tornado.api.KernelContext;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
 import uk.ac.manchester.tornado.runtime.common.CallStack;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
@@ -44,6 +45,7 @@ public class OCLCallStack extends OCLByteBuffer implements CallStack {
     private OCLDeviceContext deviceContext;
 
     private boolean onDevice;
+    private int spillEpoch;
 
     OCLCallStack(long offset, int numArgs, OCLDeviceContext device) {
         super(device, offset, (numArgs + RESERVED_SLOTS) << 3);
@@ -66,7 +68,8 @@ public class OCLCallStack extends OCLByteBuffer implements CallStack {
 
     @Override
     public boolean isOnDevice() {
-        return onDevice;
+        // buffers referenced by the stack may have been moved by a spill
+        return onDevice && spillEpoch == deviceContext.getMemoryManager().getSpillEpoch();
     }
 
     @Override
@@ -78,6 +81,7 @@ public class OCLCallStack extends OCLByteBuffer implements CallStack {
     public void write() {
         super.write();
         onDevice = true;
+        spillEpoch = deviceContext.getMemoryManager().getSpillEpoch();
     }
 
     @Override
@@ -88,6 +92,7 @@ public class OCLCallStack extends OCLByteBuffer implements CallStack {
     @Override
     public int enqueueWrite(int[] events) {
         onDevice = true;
+        spillEpoch = deviceContext.getMemoryManager().getSpillEpoch();
         return super.enqueueWrite(events);
     }
 
@@ -148,6 +153,10 @@ public class OCLCallStack extends OCLByteBuffer implements CallStack {
                 debug("arg : type=%s, value=%s", arg.getClass().getName(), arg.toString());
             }
             PrimitiveSerialiser.put(buffer, arg, 8);
+        } else if (arg instanceof KernelContext) {
+            // The kernel never reads the context, its calls are compiled into
+            // OpenCL built-ins
+            buffer.putLong(0);
         } else {
             shouldNotReachHere();
         }
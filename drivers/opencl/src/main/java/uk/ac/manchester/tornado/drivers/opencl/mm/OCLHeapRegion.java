@@ -0,0 +1,178 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.drivers.opencl.mm;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A contiguous region of the device heap that is backed by a single OpenCL
+ * buffer (cl_mem). Buffers are bump-allocated at the end of the region; once
+ * buffers have been released, the gaps they leave behind are reused with a
+ * first-fit search before the region is reported as full.
+ */
+class OCLHeapRegion {
+
+    private final long start;
+    private final long size;
+    private final long reserved;
+    private final long oclBuffer;
+    private long deviceBaseAddress;
+
+    /**
+     * Live buffers in the region: header offset (within the region) -> end
+     * offset (within the region).
+     */
+    private final TreeMap<Long, Long> allocations;
+    private long allocated;
+
+    /**
+     * @param start
+     *            offset of the region within the heap address space.
+     * @param size
+     *            size in bytes of the region.
+     * @param reserved
+     *            bytes at the beginning of the region that are not used for
+     *            allocations (e.g., the call-stack area).
+     * @param oclBuffer
+     *            OpenCL buffer that backs the region.
+     */
+    OCLHeapRegion(long start, long size, long reserved, long oclBuffer) {
+        this.start = start;
+        this.size = size;
+        this.reserved = reserved;
+        this.oclBuffer = oclBuffer;
+        this.allocations = new TreeMap<>();
+        this.allocated = 0;
+    }
+
+    private static long align(final long address, final long alignment) {
+        return (address % alignment == 0) ? address : address + (alignment - address % alignment);
+    }
+
+    /**
+     * Returns the header offset, within the region, of a buffer placed at the
+     * first free position after {@code from} or -1 if it does not fit before
+     * {@code limit}.
+     */
+    private long fit(final long from, final long limit, final long bytes, final int headerSize, final int alignment) {
+        final long alignedDataStart = align(start + from + headerSize, alignment);
+        final long headerStart = alignedDataStart - headerSize - start;
+        return (headerStart + bytes < limit) ? headerStart : -1;
+    }
+
+    /**
+     * Allocates a buffer within the region.
+     *
+     * @return the offset of the buffer header within the heap address space, or
+     *         -1 if the region does not have enough space.
+     */
+    long tryAllocate(final long bytes, final int headerSize, final int alignment) {
+        long headerStart = fit(getPosition(), size, bytes, headerSize, alignment);
+
+        if (headerStart == -1) {
+            // first-fit over the gaps left by released buffers
+            long previousEnd = reserved;
+            for (Map.Entry<Long, Long> entry : allocations.entrySet()) {
+                headerStart = fit(previousEnd, entry.getKey(), bytes, headerSize, alignment);
+                if (headerStart != -1) {
+                    break;
+                }
+                previousEnd = entry.getValue();
+            }
+        }
+
+        if (headerStart == -1) {
+            return -1;
+        }
+
+        allocations.put(headerStart, headerStart + bytes);
+        allocated += bytes;
+        return start + headerStart;
+    }
+
+    /**
+     * Releases the buffer whose header starts at the given heap offset.
+     */
+    void release(final long offset) {
+        final Long end = allocations.remove(offset - start);
+        if (end != null) {
+            allocated -= end - (offset - start);
+        }
+    }
+
+    void rewind() {
+        allocations.clear();
+        allocated = 0;
+    }
+
+    boolean isEmpty() {
+        return allocations.isEmpty();
+    }
+
+    boolean contains(long offset) {
+        return offset >= start && offset < start + size;
+    }
+
+    private long getPosition() {
+        return allocations.isEmpty() ? reserved : allocations.lastEntry().getValue();
+    }
+
+    long getStart() {
+        return start;
+    }
+
+    long getSize() {
+        return size;
+    }
+
+    long getOclBuffer() {
+        return oclBuffer;
+    }
+
+    long getAllocated() {
+        return allocated;
+    }
+
+    long getRemaining() {
+        return size - reserved - allocated;
+    }
+
+    long getDeviceBaseAddress() {
+        return deviceBaseAddress;
+    }
+
+    void setDeviceBaseAddress(long address) {
+        this.deviceBaseAddress = address;
+    }
+
+    long toRegionOffset(long offset) {
+        return offset - start;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("region [0x%x, 0x%x) buffer=0x%x, base=0x%x, live=%d", start, start + size, oclBuffer, deviceBaseAddress, allocations.size());
+    }
+}
@@ -25,7 +25,15 @@ package uk.ac.manchester.tornado.drivers.opencl.mm;
 
 import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.guarantee;
 
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
 import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
+import uk.ac.manchester.tornado.api.mm.ObjectBuffer;
+import uk.ac.manchester.tornado.api.mm.TornadoDeviceObjectState;
 import uk.ac.manchester.tornado.api.mm.TornadoMemoryProvider;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
 import uk.ac.manchester.tornado.drivers.opencl.OpenCL;
@@ -36,27 +44,62 @@ import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoLogger;
 import uk.ac.manchester.tornado.runtime.tasks.meta.ScheduleMetaData;
 
+/**
+ * Device heap manager. The heap is made of one or more {@link OCLHeapRegion}s,
+ * each one backed by its own OpenCL buffer. All offsets handed out by the
+ * memory manager belong to a single heap address space in which every region
+ * occupies a disjoint range. The first region (the primary region) also hosts
+ * the call stacks.
+ *
+ * <p>
+ * When the heap is growable (-Dtornado.opencl.heap.growable=True) the primary
+ * region is sized by -Dtornado.opencl.heap.region.size and new regions are
+ * allocated on demand, up to the maximum allocation size of the device per
+ * region and the global memory size of the device in total, and to
+ * -Dtornado.opencl.heap.max.regions regions. Regions other than the primary one
+ * are released back to the driver once empty. The generated kernels receive the
+ * buffer of every region as an argument, so the driver makes all of them
+ * resident before a kernel dereferences an address in a secondary region.
+ * </p>
+ *
+ * <p>
+ * When spilling is enabled (-Dtornado.opencl.heap.spill=True) the memory
+ * manager keeps track of the last use of every device buffer. If an allocation
+ * cannot be satisfied, the least-recently-used buffers that are not needed by
+ * the kernel being prepared are copied back to the host (if modified) and
+ * released, so that only the working set has to fit on the device.
+ * </p>
+ */
 public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProvider {
 
     private final ScheduleMetaData scheduleMeta;
     private final long callStackLimit;
     private long callStackPosition;
-    private long deviceBufferAddress;
     private final OCLDeviceContext deviceContext;
-    private long deviceHeapPointer;
     private long constantPointer;
     private long privatePointer;
-    private long heapLimit;
-    private long heapPosition;
     private boolean initialised;
 
+    private final TreeMap<Long, OCLHeapRegion> regions;
+    private OCLHeapRegion primaryRegion;
+    private long nextRegionStart;
+    private OCLBackend backend;
+
+    private final Map<TornadoDeviceObjectState, WeakReference<Object>> residents;
+    private long useClock;
+    private long launchMark;
+    private int spillEpoch;
+
     private static final int STACK_ALIGNMENT_SIZE = 128;
+    private static final long REGION_ALIGNMENT = 1 << 20;
 
     public OCLMemoryManager(final OCLDeviceContext device) {
         deviceContext = device;
         callStackLimit = OpenCL.OCL_CALL_STACK_LIMIT;
         initialised = false;
         scheduleMeta = new ScheduleMetaData("mm-" + device.getDeviceId());
+        regions = new TreeMap<>();
+        residents = new HashMap<>();
         reset();
     }
 
@@ -77,40 +120,230 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
 
     @Override
     public long getHeapAllocated() {
-        return heapPosition - callStackLimit;
+        long allocated = 0;
+        for (OCLHeapRegion region : regions.values()) {
+            allocated += region.getAllocated();
+        }
+        return allocated;
     }
 
     @Override
     public long getHeapRemaining() {
-        return heapLimit - heapPosition;
+        long remaining = 0;
+        for (OCLHeapRegion region : regions.values()) {
+            remaining += region.getRemaining();
+        }
+        if (isGrowable()) {
+            remaining += Math.max(0, getMaxHeapSize() - getRegionsSize());
+        }
+        return remaining;
     }
 
     public final void reset() {
         callStackPosition = 0;
-        heapPosition = callStackLimit;
-        Tornado.info("Reset heap @ 0x%x (%s) on %s", deviceBufferAddress, RuntimeUtilities.humanReadableByteCount(heapLimit, true), deviceContext.getDevice().getDeviceName());
+        residents.clear();
+        useClock = 0;
+        launchMark = 0;
+        if (primaryRegion != null) {
+            releaseSecondaryRegions();
+            primaryRegion.rewind();
+            Tornado.info("Reset heap @ 0x%x (%s) on %s", primaryRegion.getDeviceBaseAddress(), RuntimeUtilities.humanReadableByteCount(primaryRegion.getSize(), true),
+                    deviceContext.getDevice().getDeviceName());
+        }
     }
 
     @Override
     public long getHeapSize() {
-        return heapLimit - callStackLimit;
+        return getRegionsSize() - callStackLimit;
+    }
+
+    public int getNumRegions() {
+        return regions.size();
+    }
+
+    private long getRegionsSize() {
+        long size = 0;
+        for (OCLHeapRegion region : regions.values()) {
+            size += region.getSize();
+        }
+        return size;
+    }
+
+    private long getMaxHeapSize() {
+        return deviceContext.getDevice().getDeviceGlobalMemorySize();
+    }
+
+    private boolean isGrowable() {
+        return OpenCL.OCL_HEAP_GROWABLE && !deviceContext.useRelativeAddresses();
     }
 
     private static long align(final long address, final long alignment) {
         return (address % alignment == 0) ? address : address + (alignment - address % alignment);
     }
 
+    private OCLHeapRegion findRegion(final long offset) {
+        final Map.Entry<Long, OCLHeapRegion> entry = regions.floorEntry(offset);
+        guarantee(entry != null && entry.getValue().contains(offset), "offset 0x%x does not belong to any heap region", offset);
+        return entry.getValue();
+    }
+
+    private long allocateFromHeap(final long bytes, final int headerSize, int alignment) {
+        for (OCLHeapRegion region : regions.values()) {
+            final long headerStart = region.tryAllocate(bytes, headerSize, alignment);
+            if (headerStart != -1) {
+                return headerStart;
+            }
+        }
+
+        if (isGrowable()) {
+            final OCLHeapRegion region = growHeap(bytes + headerSize + alignment);
+            if (region != null) {
+                return region.tryAllocate(bytes, headerSize, alignment);
+            }
+        }
+        return -1;
+    }
+
     long tryAllocate(final long bytes, final int headerSize, int alignment) {
-        final long alignedDataStart = align(heapPosition + headerSize, alignment);
-        final long headerStart = alignedDataStart - headerSize;
-        if (headerStart + bytes < heapLimit) {
-            heapPosition = headerStart + bytes;
-        } else {
-            throw new TornadoOutOfMemoryException("Out of memory on the target device -> " + deviceContext.getDevice().getDeviceName() + ". [Heap Limit is: "
-                    + RuntimeUtilities.humanReadableByteCount(heapLimit, true) + " and the application requires: " + RuntimeUtilities.humanReadableByteCount(headerStart + bytes, true)
-                    + "]\nUse flag -Dtornado.heap.allocation=<XGB> to tune the device heap. E.g., -Dtornado.heap.allocation=2GB\n");
+        long headerStart = allocateFromHeap(bytes, headerSize, alignment);
+        if (headerStart != -1) {
+            return headerStart;
+        }
+
+        while (OpenCL.OCL_HEAP_SPILL && spillLeastRecentlyUsed()) {
+            headerStart = allocateFromHeap(bytes, headerSize, alignment);
+            if (headerStart != -1) {
+                return headerStart;
+            }
+        }
+
+        throw new TornadoOutOfMemoryException("Out of memory on the target device -> " + deviceContext.getDevice().getDeviceName() + ". [Heap Limit is: "
+                + RuntimeUtilities.humanReadableByteCount(getRegionsSize(), true) + " and the application requires: " + RuntimeUtilities.humanReadableByteCount(getHeapAllocated() + bytes, true)
+                + "]\nUse flag -Dtornado.heap.allocation=<XGB> to tune the device heap. E.g., -Dtornado.heap.allocation=2GB\n");
+    }
+
+    /**
+     * Allocates a new heap region that can hold at least the requested number of
+     * bytes.
+     *
+     * @param minBytes
+     *            minimum size in bytes of the new region.
+     * @return the new region, or null if the device cannot provide more memory.
+     */
+    private OCLHeapRegion growHeap(long minBytes) {
+        if (regions.size() >= OpenCL.OCL_HEAP_MAX_REGIONS) {
+            return null;
+        }
+        final long maxAllocation = deviceContext.getDevice().getDeviceMaxAllocationSize();
+        final long available = getMaxHeapSize() - getRegionsSize();
+        final long regionSize = Math.min(Math.min(Math.max(OpenCL.OCL_HEAP_REGION_SIZE, minBytes), maxAllocation), available);
+        if (regionSize < minBytes) {
+            return null;
         }
-        return headerStart;
+
+        final long oclBuffer = deviceContext.getPlatformContext().createBuffer(OCLMemFlags.CL_MEM_READ_WRITE | OCLMemFlags.CL_MEM_ALLOC_HOST_PTR, regionSize);
+        if (oclBuffer == 0) {
+            return null;
+        }
+
+        final OCLHeapRegion region = new OCLHeapRegion(nextRegionStart, regionSize, 0, oclBuffer);
+        regions.put(region.getStart(), region);
+        nextRegionStart = align(region.getStart() + regionSize, REGION_ALIGNMENT);
+        if (backend != null) {
+            region.setDeviceBaseAddress(backend.readRegionBaseAddress(region.getStart()));
+        }
+        info("Heap grown: %s (%s) on %s", region, RuntimeUtilities.humanReadableByteCount(regionSize, true), deviceContext.getDevice().getDeviceName());
+        return region;
+    }
+
+    /**
+     * Releases a buffer previously obtained through
+     * {@link #tryAllocate(long, int, int)}. Empty regions, other than the primary
+     * region, are returned to the OpenCL driver.
+     *
+     * @param offset
+     *            heap offset returned by the allocation.
+     */
+    void deallocate(final long offset) {
+        final OCLHeapRegion region = findRegion(offset);
+        region.release(offset);
+        if (region.isEmpty() && region != primaryRegion) {
+            releaseRegion(region);
+        }
+    }
+
+    private void releaseRegion(OCLHeapRegion region) {
+        regions.remove(region.getStart());
+        deviceContext.getPlatformContext().releaseBuffer(region.getOclBuffer());
+        info("Heap region released: %s on %s", region, deviceContext.getDevice().getDeviceName());
+    }
+
+    private void releaseSecondaryRegions() {
+        for (OCLHeapRegion region : regions.values().toArray(new OCLHeapRegion[0])) {
+            if (region != primaryRegion) {
+                releaseRegion(region);
+            }
+        }
+        nextRegionStart = align(primaryRegion.getSize(), REGION_ALIGNMENT);
+    }
+
+    /**
+     * Records a use of a device buffer. Only buffers recorded through this method
+     * are candidates for spilling.
+     *
+     * @param object
+     *            host object backed by the device buffer.
+     * @param state
+     *            device state of the object.
+     */
+    public void touch(Object object, TornadoDeviceObjectState state) {
+        if (OpenCL.OCL_HEAP_SPILL && state.hasBuffer()) {
+            state.setLastUse(++useClock);
+            residents.put(state, new WeakReference<>(object));
+        }
+    }
+
+    /**
+     * Marks that a kernel has been launched. Buffers used after this point belong
+     * to the next kernel and cannot be spilled until it is launched.
+     */
+    public void markLaunch() {
+        launchMark = useClock;
+    }
+
+    /**
+     * Returns a counter that is incremented every time a buffer is spilled. Device
+     * addresses cached before a spill may no longer be valid.
+     */
+    public int getSpillEpoch() {
+        return spillEpoch;
+    }
+
+    private boolean spillLeastRecentlyUsed() {
+        TornadoDeviceObjectState victim = null;
+        for (TornadoDeviceObjectState state : residents.keySet()) {
+            if (state.getLastUse() <= launchMark && state.isValid() && state.hasBuffer() && (victim == null || state.getLastUse() < victim.getLastUse())) {
+                victim = state;
+            }
+        }
+
+        if (victim == null) {
+            return false;
+        }
+
+        final Object object = residents.remove(victim).get();
+        final ObjectBuffer buffer = victim.getBuffer();
+        if (object != null && victim.isModified()) {
+            deviceContext.sync();
+            buffer.read(object);
+        }
+        info("Spilling buffer %s (%s) on %s", victim, RuntimeUtilities.humanReadableByteCount(buffer.size(), true), deviceContext.getDevice().getDeviceName());
+        buffer.deallocate();
+        victim.setValid(false);
+        victim.setContents(false);
+        victim.setModified(false);
+        spillEpoch++;
+        return true;
     }
 
     public OCLCallStack createCallStack(final int maxArgs) {
@@ -129,7 +362,7 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
     }
 
     public long getBytesRemaining() {
-        return heapLimit - heapPosition;
+        return getHeapRemaining();
     }
 
     /**
@@ -143,7 +376,7 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
      *
      * @return
      */
-    public OCLByteBuffer getSubBuffer(final int offset, final int length) {
+    public OCLByteBuffer getSubBuffer(final long offset, final int length) {
         return new OCLByteBuffer(deviceContext, offset, length);
     }
 
@@ -153,34 +386,73 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
      * @param numBytes
      */
     public void allocateRegion(long numBytes) {
-        this.heapLimit = numBytes;
-        this.deviceHeapPointer = deviceContext.getPlatformContext().createBuffer(OCLMemFlags.CL_MEM_READ_WRITE | OCLMemFlags.CL_MEM_ALLOC_HOST_PTR, numBytes);
+        final long deviceHeapPointer = deviceContext.getPlatformContext().createBuffer(OCLMemFlags.CL_MEM_READ_WRITE | OCLMemFlags.CL_MEM_ALLOC_HOST_PTR, numBytes);
+        this.primaryRegion = new OCLHeapRegion(0, numBytes, callStackLimit, deviceHeapPointer);
+        this.regions.clear();
+        this.regions.put(0L, primaryRegion);
+        this.nextRegionStart = align(numBytes, REGION_ALIGNMENT);
         this.constantPointer = deviceContext.getPlatformContext().createBuffer(OCLMemFlags.CL_MEM_READ_WRITE | OCLMemFlags.CL_MEM_ALLOC_HOST_PTR, 4);
         this.privatePointer = deviceContext.getPlatformContext().createBuffer(OCLMemFlags.CL_MEM_READ_WRITE | OCLMemFlags.CL_MEM_ALLOC_HOST_PTR, 4);
     }
 
     public void init(OCLBackend backend, long address) {
-        deviceBufferAddress = address;
+        this.backend = backend;
+        primaryRegion.setDeviceBaseAddress(address);
         initialised = true;
-        info("Located heap @ 0x%x (%s) on %s", deviceBufferAddress, RuntimeUtilities.humanReadableByteCount(heapLimit, false), deviceContext.getDevice().getDeviceName());
+        info("Located heap @ 0x%x (%s) on %s", address, RuntimeUtilities.humanReadableByteCount(primaryRegion.getSize(), false), deviceContext.getDevice().getDeviceName());
         scheduleMeta.setDevice(backend.getDeviceContext().asMapping());
     }
 
     public long toAbsoluteAddress() {
-        return deviceBufferAddress;
+        return primaryRegion.getDeviceBaseAddress();
     }
 
     long toAbsoluteDeviceAddress(final long address) {
-        long result = address;
+        final OCLHeapRegion region = findRegion(address);
+        final long base = region.getDeviceBaseAddress();
+        final long result = base + region.toRegionOffset(address);
 
-        guarantee(address + deviceBufferAddress >= 0, "absolute address may have wrapped arround: %d + %d = %d", address, deviceBufferAddress, address + deviceBufferAddress);
-        result += deviceBufferAddress;
+        guarantee(result >= 0, "absolute address may have wrapped arround: %d + %d = %d", region.toRegionOffset(address), base, result);
 
         return result;
     }
 
+    /**
+     * Returns the OpenCL buffer that backs the heap offset.
+     */
+    long toBuffer(final long offset) {
+        return findRegion(offset).getOclBuffer();
+    }
+
+    /**
+     * Returns the offset within its OpenCL buffer for the given heap offset.
+     */
+    long toRegionOffset(final long offset) {
+        return findRegion(offset).toRegionOffset(offset);
+    }
+
     long toBuffer() {
-        return deviceHeapPointer;
+        return primaryRegion.getOclBuffer();
+    }
+
+    /**
+     * Returns the OpenCL buffers of the regions other than the primary one, in
+     * heap order. The slots without a region get the buffer of the primary
+     * region.
+     *
+     * @param slots
+     *            number of buffers to return.
+     */
+    public long[] toSecondaryBuffers(int slots) {
+        final long[] buffers = new long[slots];
+        Arrays.fill(buffers, primaryRegion.getOclBuffer());
+        int index = 0;
+        for (OCLHeapRegion region : regions.values()) {
+            if (region != primaryRegion && index < slots) {
+                buffers[index++] = region.getOclBuffer();
+            }
+        }
+        return buffers;
     }
 
     long toConstantAddress() {
@@ -197,7 +469,8 @@ public class OCLMemoryManager extends TornadoLogger implements TornadoMemoryProv
 
     long toRelativeDeviceAddress(final long address) {
         long result = address;
-        if (!(Long.compareUnsigned(address, deviceBufferAddress) < 0 || Long.compareUnsigned(address, (deviceBufferAddress + heapLimit)) > 0)) {
+        final long deviceBufferAddress = primaryRegion.getDeviceBaseAddress();
+        if (!(Long.compareUnsigned(address, deviceBufferAddress) < 0 || Long.compareUnsigned(address, (deviceBufferAddress + primaryRegion.getSize())) > 0)) {
             result -= deviceBufferAddress;
         }
         return result;
@@ -89,6 +89,18 @@ public class OCLMultiDimArrayWrapper<T, E> extends OCLArrayWrapper<T> {
         return tableWrapper.size();
     }
 
+    @Override
+    public void deallocate() {
+        if (wrappers != null) {
+            for (OCLArrayWrapper<E> wrapper : wrappers) {
+                if (wrapper != null) {
+                    wrapper.deallocate();
+                }
+            }
+        }
+        tableWrapper.deallocate();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public void allocate(Object value, long batchSize) throws TornadoOutOfMemoryException, TornadoMemoryException {
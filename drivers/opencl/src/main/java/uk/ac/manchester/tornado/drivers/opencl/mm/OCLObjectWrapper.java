@@ -312,7 +312,11 @@ public class OCLObjectWrapper implements ObjectBuffer {
 
     @Override
     public long toBuffer() {
-        return deviceContext.getMemoryManager().toBuffer();
+        return deviceContext.getMemoryManager().toBuffer(bufferOffset);
+    }
+
+    private long toRegionOffset() {
+        return deviceContext.getMemoryManager().toRegionOffset(bufferOffset);
     }
 
     @Override
@@ -329,7 +333,7 @@ public class OCLObjectWrapper implements ObjectBuffer {
             if (!valid) {
                 serialise(object);
                 // XXX: Offset 0
-                deviceContext.writeBuffer(toBuffer(), bufferOffset, bytesToAllocate, buffer.array(), 0, null);
+                deviceContext.writeBuffer(toBuffer(), toRegionOffset(), bytesToAllocate, buffer.array(), 0, null);
             }
             for (int i = 0; i < fields.length; i++) {
                 if (wrappedFields[i] != null) {
@@ -354,7 +358,7 @@ public class OCLObjectWrapper implements ObjectBuffer {
             event = fieldBuffer.read(object, events, useDeps);
         } else {
             buffer.position(buffer.capacity());
-            event = deviceContext.readBuffer(toBuffer(), bufferOffset, bytesToAllocate, buffer.array(), hostOffset, (useDeps) ? events : null);
+            event = deviceContext.readBuffer(toBuffer(), toRegionOffset(), bytesToAllocate, buffer.array(), hostOffset, (useDeps) ? events : null);
             for (int i = 0; i < fields.length; i++) {
                 if (wrappedFields[i] != null) {
                     wrappedFields[i].read(object);
@@ -434,7 +438,7 @@ public class OCLObjectWrapper implements ObjectBuffer {
             }
 
             if (!isFinal) {
-                internalEvents[index] = deviceContext.enqueueReadBuffer(toBuffer(), bufferOffset, bytesToAllocate, buffer.array(), hostOffset, (useDeps) ? events : null);
+                internalEvents[index] = deviceContext.enqueueReadBuffer(toBuffer(), toRegionOffset(), bytesToAllocate, buffer.array(), hostOffset, (useDeps) ? events : null);
                 index++;
 
                 // TODO this needs to run asynchronously
@@ -473,7 +477,7 @@ public class OCLObjectWrapper implements ObjectBuffer {
             // TODO this needs to run asynchronously
             if (!valid || (valid && !isFinal)) {
                 serialise(ref);
-                eventList.add(deviceContext.enqueueWriteBuffer(toBuffer(), bufferOffset, bytesToAllocate, buffer.array(), hostOffset, (useDeps) ? events : null));
+                eventList.add(deviceContext.enqueueWriteBuffer(toBuffer(), toRegionOffset(), bytesToAllocate, buffer.array(), hostOffset, (useDeps) ? events : null));
                 valid = true;
             }
             for (final FieldBuffer field : wrappedFields) {
@@ -501,6 +505,20 @@ public class OCLObjectWrapper implements ObjectBuffer {
         return null;
     }
 
+    @Override
+    public void deallocate() {
+        for (FieldBuffer fieldBuffer : wrappedFields) {
+            if (fieldBuffer != null) {
+                fieldBuffer.deallocate();
+            }
+        }
+        if (bufferOffset != -1) {
+            deviceContext.getMemoryManager().deallocate(bufferOffset);
+            bufferOffset = -1;
+        }
+        valid = false;
+    }
+
     @Override
     public boolean isValid() {
         return valid;
@@ -33,7 +33,6 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.List;
 
-import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
@@ -53,6 +52,7 @@ import uk.ac.manchester.tornado.drivers.opencl.OCLCodeCache;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDevice;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDeviceContext;
 import uk.ac.manchester.tornado.drivers.opencl.OCLDriver;
+import uk.ac.manchester.tornado.drivers.opencl.OpenCL;
 import uk.ac.manchester.tornado.drivers.opencl.enums.OCLDeviceType;
 import uk.ac.manchester.tornado.drivers.opencl.graal.OCLInstalledCode;
 import uk.ac.manchester.tornado.drivers.opencl.graal.OCLProviders;
@@ -79,7 +79,6 @@ import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
 import uk.ac.manchester.tornado.runtime.common.TornadoSchedulingStrategy;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
-import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
 import uk.ac.manchester.tornado.runtime.tasks.PrebuiltTask;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
@@ -217,8 +216,7 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         final OCLDeviceContext deviceContext = getDeviceContext();
 
         final CompilableTask executable = (CompilableTask) task;
-        final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(executable.getMethod());
-        final Sketch sketch = TornadoSketcher.lookup(resolvedMethod);
+        final Sketch sketch = executable.getSketch();
 
         // copy meta data into task
         final TaskMetaData sketchMeta = sketch.getMeta();
@@ -235,9 +233,9 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
             profiler.stop(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId());
             profiler.sum(ProfilerType.TOTAL_GRAAL_COMPILE_TIME, profiler.getTaskTimer(ProfilerType.TASK_COMPILE_GRAAL_TIME, taskMeta.getId()));
 
-            if (deviceContext.isCached(task.getId(), resolvedMethod.getName())) {
+            if (deviceContext.isCached(taskMeta.getCompilationId(), executable.getTaskName())) {
                 // Return the code from the cache
-                return deviceContext.getInstalledCode(task.getId(), resolvedMethod.getName());
+                return deviceContext.getInstalledCode(taskMeta.getCompilationId(), executable.getTaskName());
             }
 
             profiler.start(ProfilerType.TASK_COMPILE_DRIVER_TIME, taskMeta.getId());
@@ -332,6 +330,11 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         return getDeviceContext().getInstalledCode(task.getId(), entry);
     }
 
+    @Override
+    public void invalidateCode(SchedulableTask task) {
+        getDeviceContext().getCodeCache().remove(task.getId(), getTaskEntryName(task));
+    }
+
     private boolean isJITTaskForFGPA(SchedulableTask task) {
         final OCLDeviceContext deviceContext = getDeviceContext();
         final String deviceFullName = getFullTaskIdDevice(task);
@@ -476,6 +479,14 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         }
     }
 
+    /**
+     * A spilled buffer has already been copied back to the host, so the host copy
+     * is the most recent one.
+     */
+    private boolean isSpilled(TornadoDeviceObjectState state) {
+        return OpenCL.OCL_HEAP_SPILL && state.hasBuffer() && !state.isValid();
+    }
+
     @Override
     public int ensureAllocated(Object object, long batchSize, TornadoDeviceObjectState state) {
         if (!state.hasBuffer()) {
@@ -487,6 +498,7 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         if (!state.isValid()) {
             reAllocateInvalidBuffer(object, batchSize, state);
         }
+        getDeviceContext().getMemoryManager().touch(object, state);
         return -1;
     }
 
@@ -496,6 +508,8 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
             ensureAllocated(object, batchSize, state);
         }
 
+        getDeviceContext().getMemoryManager().touch(object, state);
+
         if (BENCHMARKING_MODE || !state.hasContents()) {
             state.setContents(true);
             return state.getBuffer().enqueueWrite(object, batchSize, offset, events, events == null);
@@ -508,12 +522,16 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
         if (batchSize > 0 || !state.isValid()) {
             ensureAllocated(object, batchSize, state);
         }
+        getDeviceContext().getMemoryManager().touch(object, state);
         state.setContents(true);
         return state.getBuffer().enqueueWrite(object, batchSize, offset, events, events == null);
     }
 
     @Override
     public int streamOut(Object object, long offset, TornadoDeviceObjectState state, int[] events) {
+        if (isSpilled(state)) {
+            return -1;
+        }
         TornadoInternalError.guarantee(state.isValid(), "invalid variable");
         int event = state.getBuffer().enqueueRead(object, offset, events, events == null);
         if (events != null) {
@@ -524,6 +542,9 @@ public class OCLTornadoDevice implements TornadoAcceleratorDevice {
 
     @Override
     public int streamOutBlocking(Object object, long hostOffset, TornadoDeviceObjectState state, int[] events) {
+        if (isSpilled(state)) {
+            return -1;
+        }
         TornadoInternalError.guarantee(state.isValid(), "invalid variable");
         return state.getBuffer().read(object, hostOffset, events, events == null);
     }
@@ -0,0 +1,551 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package uk.ac.manchester.tornado.matrix;
+
+import static java.lang.System.err;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ejml.simple.SimpleMatrix;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.WorkerGrid;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.annotations.Reduce;
+import uk.ac.manchester.tornado.api.collections.types.Matrix2DDouble;
+import uk.ac.manchester.tornado.api.collections.types.Matrix2DFloat;
+import uk.ac.manchester.tornado.api.collections.types.VectorFloat;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+
+/**
+ * BLAS-style kernels over flat row-major arrays, {@link Matrix2DFloat} and
+ * {@link VectorFloat}.
+ *
+ * <p>
+ * Level 1 and level 2 routines are {@code @Parallel} tasks. GEMM is written
+ * with the {@link KernelContext} API: every work-group loads square tiles of A
+ * and B into local memory, and every work-item accumulates
+ * {@link #WORK_PER_THREAD} rows of C in registers. The tile size is chosen per
+ * device by {@link #tileSize(TornadoDevice)}, which times every tile size once
+ * and caches the fastest one, unless it is set with
+ * {@code -Dtornado.blas.tile=SIZE}. GEMM tasks need a device; on the host, the
+ * {@code *Host} methods compute the same operations with EJML, which is also
+ * the reference for correctness.
+ * </p>
+ */
+public final class Blas {
+
+    public static final int WORK_PER_THREAD = 4;
+    public static final int[] TILE_SIZES = { 16, 32 };
+
+    private static final int SMALL_TILE = 16;
+    private static final int LARGE_TILE = 32;
+    private static final int TUNING_SIZE = 512;
+
+    private static final Map<String, Integer> TUNED_TILE_SIZES = new ConcurrentHashMap<>();
+
+    private static final Map<Integer, Reduction> SDOT_SCHEDULES = new ConcurrentHashMap<>();
+    private static final Map<Integer, Reduction> SNRM2_SCHEDULES = new ConcurrentHashMap<>();
+    private static final Map<Integer, Reduction> DNRM2_SCHEDULES = new ConcurrentHashMap<>();
+
+    /**
+     * Task-schedule of a level 1 reduction over its own input arrays. It is built
+     * once per routine and input length, and every call copies its inputs into
+     * the arrays of the schedule, so the task is only compiled once.
+     */
+    private static final class Reduction {
+
+        private final TaskSchedule schedule;
+        private final Object result;
+        private final Object[] inputs;
+
+        private Reduction(TaskSchedule schedule, Object result, Object... inputs) {
+            this.schedule = schedule;
+            this.result = result;
+            this.inputs = inputs;
+        }
+
+        private synchronized float execute(float[]... values) {
+            for (int i = 0; i < values.length; i++) {
+                System.arraycopy(values[i], 0, inputs[i], 0, values[i].length);
+            }
+            schedule.execute();
+            return ((float[]) result)[0];
+        }
+
+        private synchronized double execute(double[]... values) {
+            for (int i = 0; i < values.length; i++) {
+                System.arraycopy(values[i], 0, inputs[i], 0, values[i].length);
+            }
+            schedule.execute();
+            return ((double[]) result)[0];
+        }
+    }
+
+    private Blas() {
+    }
+
+    // Level 1
+
+    /**
+     * y = alpha * x + y
+     */
+    public static void saxpy(float alpha, float[] x, float[] y) {
+        for (@Parallel int i = 0; i < y.length; i++) {
+            y[i] += alpha * x[i];
+        }
+    }
+
+    public static void daxpy(double alpha, double[] x, double[] y) {
+        for (@Parallel int i = 0; i < y.length; i++) {
+            y[i] += alpha * x[i];
+        }
+    }
+
+    public static void sdot(float[] x, float[] y, @Reduce float[] result) {
+        result[0] = 0.0f;
+        for (@Parallel int i = 0; i < x.length; i++) {
+            result[0] += x[i] * y[i];
+        }
+    }
+
+    public static void ddot(double[] x, double[] y, @Reduce double[] result) {
+        result[0] = 0.0;
+        for (@Parallel int i = 0; i < x.length; i++) {
+            result[0] += x[i] * y[i];
+        }
+    }
+
+    /**
+     * Sum of the squares of x. NRM2 is its square root, see
+     * {@link #snrm2(float[])}.
+     */
+    public static void ssumsq(float[] x, @Reduce float[] result) {
+        result[0] = 0.0f;
+        for (@Parallel int i = 0; i < x.length; i++) {
+            result[0] += x[i] * x[i];
+        }
+    }
+
+    public static void dsumsq(double[] x, @Reduce double[] result) {
+        result[0] = 0.0;
+        for (@Parallel int i = 0; i < x.length; i++) {
+            result[0] += x[i] * x[i];
+        }
+    }
+
+    public static float sdot(float[] x, float[] y) {
+        if (x.length != y.length) {
+            throw new IllegalArgumentException("Vectors of different lengths: " + x.length + " and " + y.length);
+        }
+        Reduction reduction = SDOT_SCHEDULES.computeIfAbsent(x.length, length -> {
+            float[] xs = new float[length];
+            float[] ys = new float[length];
+            float[] result = new float[1];
+            TaskSchedule schedule = new TaskSchedule("blasDot" + length) //
+                    .streamIn(xs, ys) //
+                    .task("sdot", Blas::sdot, xs, ys, result) //
+                    .streamOut(result);
+            return new Reduction(schedule, result, xs, ys);
+        });
+        return reduction.execute(x, y);
+    }
+
+    public static float snrm2(float[] x) {
+        Reduction reduction = SNRM2_SCHEDULES.computeIfAbsent(x.length, length -> {
+            float[] xs = new float[length];
+            float[] result = new float[1];
+            TaskSchedule schedule = new TaskSchedule("blasNrm2" + length) //
+                    .streamIn(xs) //
+                    .task("ssumsq", Blas::ssumsq, xs, result) //
+                    .streamOut(result);
+            return new Reduction(schedule, result, xs);
+        });
+        return (float) Math.sqrt(reduction.execute(x));
+    }
+
+    public static double dnrm2(double[] x) {
+        Reduction reduction = DNRM2_SCHEDULES.computeIfAbsent(x.length, length -> {
+            double[] xs = new double[length];
+            double[] result = new double[1];
+            TaskSchedule schedule = new TaskSchedule("blasDNrm2" + length) //
+                    .streamIn(xs) //
+                    .task("dsumsq", Blas::dsumsq, xs, result) //
+                    .streamOut(result);
+            return new Reduction(schedule, result, xs);
+        });
+        return Math.sqrt(reduction.execute(x));
+    }
+
+    // Level 2
+
+    /**
+     * y = alpha * A * x + beta * y, with A an m x n row-major matrix. Every
+     * thread computes one element of y, with the inner loop unrolled by four.
+     */
+    public static void sgemv(int m, int n, float alpha, float[] a, float[] x, float beta, float[] y) {
+        for (@Parallel int i = 0; i < m; i++) {
+            int row = i * n;
+            float sum0 = 0.0f;
+            float sum1 = 0.0f;
+            float sum2 = 0.0f;
+            float sum3 = 0.0f;
+            int j = 0;
+            for (; j + 3 < n; j += 4) {
+                sum0 += a[row + j] * x[j];
+                sum1 += a[row + j + 1] * x[j + 1];
+                sum2 += a[row + j + 2] * x[j + 2];
+                sum3 += a[row + j + 3] * x[j + 3];
+            }
+            for (; j < n; j++) {
+                sum0 += a[row + j] * x[j];
+            }
+            y[i] = alpha * ((sum0 + sum1) + (sum2 + sum3)) + beta * y[i];
+        }
+    }
+
+    public static void dgemv(int m, int n, double alpha, double[] a, double[] x, double beta, double[] y) {
+        for (@Parallel int i = 0; i < m; i++) {
+            int row = i * n;
+            double sum0 = 0.0;
+            double sum1 = 0.0;
+            double sum2 = 0.0;
+            double sum3 = 0.0;
+            int j = 0;
+            for (; j + 3 < n; j += 4) {
+                sum0 += a[row + j] * x[j];
+                sum1 += a[row + j + 1] * x[j + 1];
+                sum2 += a[row + j + 2] * x[j + 2];
+                sum3 += a[row + j + 3] * x[j + 3];
+            }
+            for (; j < n; j++) {
+                sum0 += a[row + j] * x[j];
+            }
+            y[i] = alpha * ((sum0 + sum1) + (sum2 + sum3)) + beta * y[i];
+        }
+    }
+
+    // Level 3
+
+    /**
+     * Tiled GEMM body, C = alpha * A * B + beta * C with A (m x k), B (k x n) and
+     * C (m x n) row-major. On a device, work-item (tx, ty) of a work-group of
+     * (tile, tile / WORK_PER_THREAD) work-items computes the rows ty, ty + tile /
+     * WORK_PER_THREAD, ... of column tx of the tile of C. The loops over the
+     * tiles of C, and over the columns and rows of a tile, are strided by the
+     * sizes of the grid, so they run once per work-item on a device, and a
+     * single work-item computes the whole matrix when the task runs in Java.
+     */
+    private static void sgemmTile(KernelContext context, int tile, float[] aTile, float[] bTile, int m, int n, int k, float alpha, float[] a, float[] b, float beta, float[] c) {
+        int tx = context.localId(0);
+        int ty = context.localId(1);
+        int localX = context.localSize(0);
+        int localY = context.localSize(1);
+        int groupsX = context.globalSize(0) / localX;
+        int groupsY = context.globalSize(1) / localY;
+        int tilesX = (n + tile - 1) / tile;
+        int tilesY = (m + tile - 1) / tile;
+        int numTiles = (k + tile - 1) / tile;
+
+        for (int gy = context.groupId(1); gy < tilesY; gy += groupsY) {
+            for (int gx = context.groupId(0); gx < tilesX; gx += groupsX) {
+                for (int x = tx; x < tile; x += localX) {
+                    for (int y = ty; y < tile; y += WORK_PER_THREAD * localY) {
+                        int col = gx * tile + x;
+                        int row = gy * tile + y;
+                        float acc0 = 0.0f;
+                        float acc1 = 0.0f;
+                        float acc2 = 0.0f;
+                        float acc3 = 0.0f;
+
+                        for (int t = 0; t < numTiles; t++) {
+                            for (int r = ty; r < tile; r += localY) {
+                                for (int l = tx; l < tile; l += localX) {
+                                    int aRow = gy * tile + r;
+                                    int aCol = t * tile + l;
+                                    aTile[r * tile + l] = (aRow < m && aCol < k) ? a[aRow * k + aCol] : 0.0f;
+                                    int bRow = t * tile + r;
+                                    int bCol = gx * tile + l;
+                                    bTile[r * tile + l] = (bRow < k && bCol < n) ? b[bRow * n + bCol] : 0.0f;
+                                }
+                            }
+                            context.localBarrier();
+
+                            for (int kk = 0; kk < tile; kk++) {
+                                float value = bTile[kk * tile + x];
+                                acc0 += aTile[y * tile + kk] * value;
+                                acc1 += aTile[(y + localY) * tile + kk] * value;
+                                acc2 += aTile[(y + 2 * localY) * tile + kk] * value;
+                                acc3 += aTile[(y + 3 * localY) * tile + kk] * value;
+                            }
+                            context.localBarrier();
+                        }
+
+                        if (col < n) {
+                            if (row < m) {
+                                c[row * n + col] = alpha * acc0 + beta * c[row * n + col];
+                            }
+                            if (row + localY < m) {
+                                c[(row + localY) * n + col] = alpha * acc1 + beta * c[(row + localY) * n + col];
+                            }
+                            if (row + 2 * localY < m) {
+                                c[(row + 2 * localY) * n + col] = alpha * acc2 + beta * c[(row + 2 * localY) * n + col];
+                            }
+                            if (row + 3 * localY < m) {
+                                c[(row + 3 * localY) * n + col] = alpha * acc3 + beta * c[(row + 3 * localY) * n + col];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static void dgemmTile(KernelContext context, int tile, double[] aTile, double[] bTile, int m, int n, int k, double alpha, double[] a, double[] b, double beta, double[] c) {
+        int tx = context.localId(0);
+        int ty = context.localId(1);
+        int localX = context.localSize(0);
+        int localY = context.localSize(1);
+        int groupsX = context.globalSize(0) / localX;
+        int groupsY = context.globalSize(1) / localY;
+        int tilesX = (n + tile - 1) / tile;
+        int tilesY = (m + tile - 1) / tile;
+        int numTiles = (k + tile - 1) / tile;
+
+        for (int gy = context.groupId(1); gy < tilesY; gy += groupsY) {
+            for (int gx = context.groupId(0); gx < tilesX; gx += groupsX) {
+                for (int x = tx; x < tile; x += localX) {
+                    for (int y = ty; y < tile; y += WORK_PER_THREAD * localY) {
+                        int col = gx * tile + x;
+                        int row = gy * tile + y;
+                        double acc0 = 0.0;
+                        double acc1 = 0.0;
+                        double acc2 = 0.0;
+                        double acc3 = 0.0;
+
+                        for (int t = 0; t < numTiles; t++) {
+                            for (int r = ty; r < tile; r += localY) {
+                                for (int l = tx; l < tile; l += localX) {
+                                    int aRow = gy * tile + r;
+                                    int aCol = t * tile + l;
+                                    aTile[r * tile + l] = (aRow < m && aCol < k) ? a[aRow * k + aCol] : 0.0;
+                                    int bRow = t * tile + r;
+                                    int bCol = gx * tile + l;
+                                    bTile[r * tile + l] = (bRow < k && bCol < n) ? b[bRow * n + bCol] : 0.0;
+                                }
+                            }
+                            context.localBarrier();
+
+                            for (int kk = 0; kk < tile; kk++) {
+                                double value = bTile[kk * tile + x];
+                                acc0 += aTile[y * tile + kk] * value;
+                                acc1 += aTile[(y + localY) * tile + kk] * value;
+                                acc2 += aTile[(y + 2 * localY) * tile + kk] * value;
+                                acc3 += aTile[(y + 3 * localY) * tile + kk] * value;
+                            }
+                            context.localBarrier();
+                        }
+
+                        if (col < n) {
+                            if (row < m) {
+                                c[row * n + col] = alpha * acc0 + beta * c[row * n + col];
+                            }
+                            if (row + localY < m) {
+                                c[(row + localY) * n + col] = alpha * acc1 + beta * c[(row + localY) * n + col];
+                            }
+                            if (row + 2 * localY < m) {
+                                c[(row + 2 * localY) * n + col] = alpha * acc2 + beta * c[(row + 2 * localY) * n + col];
+                            }
+                            if (row + 3 * localY < m) {
+                                c[(row + 3 * localY) * n + col] = alpha * acc3 + beta * c[(row + 3 * localY) * n + col];
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    public static void sgemm16(KernelContext context, int m, int n, int k, float alpha, float[] a, float[] b, float beta, float[] c) {
+        float[] aTile = context.allocateFloatLocalArray(SMALL_TILE * SMALL_TILE);
+        float[] bTile = context.allocateFloatLocalArray(SMALL_TILE * SMALL_TILE);
+        sgemmTile(context, SMALL_TILE, aTile, bTile, m, n, k, alpha, a, b, beta, c);
+    }
+
+    public static void sgemm32(KernelContext context, int m, int n, int k, float alpha, float[] a, float[] b, float beta, float[] c) {
+        float[] aTile = context.allocateFloatLocalArray(LARGE_TILE * LARGE_TILE);
+        float[] bTile = context.allocateFloatLocalArray(LARGE_TILE * LARGE_TILE);
+        sgemmTile(context, LARGE_TILE, aTile, bTile, m, n, k, alpha, a, b, beta, c);
+    }
+
+    public static void dgemm16(KernelContext context, int m, int n, int k, double alpha, double[] a, double[] b, double beta, double[] c) {
+        double[] aTile = context.allocateDoubleLocalArray(SMALL_TILE * SMALL_TILE);
+        double[] bTile = context.allocateDoubleLocalArray(SMALL_TILE * SMALL_TILE);
+        dgemmTile(context, SMALL_TILE, aTile, bTile, m, n, k, alpha, a, b, beta, c);
+    }
+
+    public static void dgemm32(KernelContext context, int m, int n, int k, double alpha, double[] a, double[] b, double beta, double[] c) {
+        double[] aTile = context.allocateDoubleLocalArray(LARGE_TILE * LARGE_TILE);
+        double[] bTile = context.allocateDoubleLocalArray(LARGE_TILE * LARGE_TILE);
+        dgemmTile(context, LARGE_TILE, aTile, bTile, m, n, k, alpha, a, b, beta, c);
+    }
+
+    private static WorkerGrid gemmGrid(int m, int n, int tile) {
+        long columns = (long) ((n + tile - 1) / tile) * tile;
+        long rows = (long) ((m + tile - 1) / tile) * (tile / WORK_PER_THREAD);
+        return new WorkerGrid(columns, rows).setLocalWork(tile, tile / WORK_PER_THREAD);
+    }
+
+    private static void checkTileSize(int tile) {
+        if (tile != SMALL_TILE && tile != LARGE_TILE) {
+            throw new IllegalArgumentException("Unsupported GEMM tile size: " + tile);
+        }
+    }
+
+    /**
+     * Adds a task that computes C = alpha * A * B + beta * C, with A (m x k), B
+     * (k x n) and C (m x n) row-major, using tiles of {@code tile} x
+     * {@code tile} elements.
+     */
+    public static TaskSchedule sgemm(TaskSchedule schedule, String taskName, KernelContext context, int m, int n, int k, float alpha, float[] a, float[] b, float beta, float[] c, int tile) {
+        checkTileSize(tile);
+        if (tile == SMALL_TILE) {
+            schedule.task(taskName, Blas::sgemm16, context, m, n, k, alpha, a, b, beta, c);
+        } else {
+            schedule.task(taskName, Blas::sgemm32, context, m, n, k, alpha, a, b, beta, c);
+        }
+        return schedule.setWorkerGrid(taskName, gemmGrid(m, n, tile));
+    }
+
+    /**
+     * Same as {@link #sgemm(TaskSchedule, String, KernelContext, int, int, int, float, float[], float[], float, float[], int)}
+     * with the tile size tuned for the default device.
+     */
+    public static TaskSchedule sgemm(TaskSchedule schedule, String taskName, KernelContext context, int m, int n, int k, float alpha, float[] a, float[] b, float beta, float[] c) {
+        return sgemm(schedule, taskName, context, m, n, k, alpha, a, b, beta, c, tileSize(TornadoRuntime.getTornadoRuntime().getDefaultDevice()));
+    }
+
+    public static TaskSchedule sgemm(TaskSchedule schedule, String taskName, KernelContext context, float alpha, Matrix2DFloat a, Matrix2DFloat b, float beta, Matrix2DFloat c) {
+        return sgemm(schedule, taskName, context, c.M(), c.N(), a.N(), alpha, a.asBuffer().array(), b.asBuffer().array(), beta, c.asBuffer().array());
+    }
+
+    public static TaskSchedule dgemm(TaskSchedule schedule, String taskName, KernelContext context, int m, int n, int k, double alpha, double[] a, double[] b, double beta, double[] c, int tile) {
+        checkTileSize(tile);
+        if (tile == SMALL_TILE) {
+            schedule.task(taskName, Blas::dgemm16, context, m, n, k, alpha, a, b, beta, c);
+        } else {
+            schedule.task(taskName, Blas::dgemm32, context, m, n, k, alpha, a, b, beta, c);
+        }
+        return schedule.setWorkerGrid(taskName, gemmGrid(m, n, tile));
+    }
+
+    public static TaskSchedule dgemm(TaskSchedule schedule, String taskName, KernelContext context, int m, int n, int k, double alpha, double[] a, double[] b, double beta, double[] c) {
+        return dgemm(schedule, taskName, context, m, n, k, alpha, a, b, beta, c, tileSize(TornadoRuntime.getTornadoRuntime().getDefaultDevice()));
+    }
+
+    public static TaskSchedule dgemm(TaskSchedule schedule, String taskName, KernelContext context, double alpha, Matrix2DDouble a, Matrix2DDouble b, double beta, Matrix2DDouble c) {
+        return dgemm(schedule, taskName, context, c.M(), c.N(), a.N(), alpha, a.asBuffer().array(), b.asBuffer().array(), beta, c.asBuffer().array());
+    }
+
+    public static TaskSchedule sgemv(TaskSchedule schedule, String taskName, float alpha, Matrix2DFloat a, VectorFloat x, float beta, VectorFloat y) {
+        return schedule.task(taskName, Blas::sgemv, a.M(), a.N(), alpha, a.asBuffer().array(), x.asBuffer().array(), beta, y.asBuffer().array());
+    }
+
+    // Tuning
+
+    /**
+     * @return the GEMM tile size for the device: the value of
+     *         {@code -Dtornado.blas.tile} if it is set, or the fastest size of
+     *         {@link #TILE_SIZES} for the device, measured the first time.
+     */
+    public static int tileSize(TornadoDevice device) {
+        String tile = TornadoRuntime.getProperty("tornado.blas.tile", null);
+        if (tile != null) {
+            return Integer.parseInt(tile);
+        }
+        return TUNED_TILE_SIZES.computeIfAbsent(device.getPlatformName() + ":" + device.getDeviceName(), key -> autotune(device));
+    }
+
+    private static int autotune(TornadoDevice device) {
+        final int size = TUNING_SIZE;
+        float[] a = new float[size * size];
+        float[] b = new float[size * size];
+        float[] c = new float[size * size];
+        Random random = new Random();
+        for (int i = 0; i < a.length; i++) {
+            a[i] = random.nextFloat();
+            b[i] = random.nextFloat();
+        }
+
+        int bestTile = TILE_SIZES[0];
+        long bestTime = Long.MAX_VALUE;
+        RuntimeException failure = null;
+        for (int tile : TILE_SIZES) {
+            TaskSchedule schedule = new TaskSchedule("blasTuning" + tile).streamIn(a, b);
+            sgemm(schedule, "sgemm", new KernelContext(), size, size, size, 1.0f, a, b, 0.0f, c, tile).streamOut(c);
+            schedule.mapAllTo(device);
+            try {
+                // The first execution includes the compilation
+                schedule.execute();
+                long start = System.nanoTime();
+                for (int i = 0; i < 3; i++) {
+                    schedule.execute();
+                }
+                long time = System.nanoTime() - start;
+                if (time < bestTime) {
+                    bestTime = time;
+                    bestTile = tile;
+                }
+            } catch (RuntimeException e) {
+                // The tile does not fit in the local memory or the work-group
+                // limits of the device
+                err.printf("blas: tile %d is not supported on %s (%s)\n", tile, device.getDeviceName(), e.getMessage());
+                failure = e;
+            }
+        }
+        if (bestTime == Long.MAX_VALUE && failure != null) {
+            // No tile size runs on the device
+            throw failure;
+        }
+        return bestTile;
+    }
+
+    // Host versions with EJML
+
+    public static void sgemmHost(float alpha, Matrix2DFloat a, Matrix2DFloat b, float beta, Matrix2DFloat c) {
+        SimpleMatrix result = EjmlUtil.toMatrix(a).mult(EjmlUtil.toMatrix(b)).scale(alpha).plus(beta, EjmlUtil.toMatrix(c));
+        c.set(EjmlUtil.toMatrix2DFloat(result));
+    }
+
+    public static void dgemmHost(double alpha, Matrix2DDouble a, Matrix2DDouble b, double beta, Matrix2DDouble c) {
+        SimpleMatrix result = EjmlUtil.toMatrix(a).mult(EjmlUtil.toMatrix(b)).scale(alpha).plus(beta, EjmlUtil.toMatrix(c));
+        c.set(EjmlUtil.toMatrix2DDouble(result));
+    }
+
+    public static void sgemvHost(float alpha, Matrix2DFloat a, VectorFloat x, float beta, VectorFloat y) {
+        SimpleMatrix result = EjmlUtil.toMatrix(a).mult(EjmlUtil.toMatrix(x)).scale(alpha).plus(beta, EjmlUtil.toMatrix(y));
+        for (int i = 0; i < y.size(); i++) {
+            y.set(i, (float) result.get(i, 0));
+        }
+    }
+}
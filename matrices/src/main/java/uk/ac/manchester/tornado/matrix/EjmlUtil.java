@@ -22,6 +22,8 @@ import org.ejml.simple.SimpleMatrix;
 
 import uk.ac.manchester.tornado.api.collections.types.Matrix4x4Float;
 import uk.ac.manchester.tornado.api.collections.types.Matrix2DDouble;
+import uk.ac.manchester.tornado.api.collections.types.Matrix2DFloat;
+import uk.ac.manchester.tornado.api.collections.types.VectorFloat;
 
 public class EjmlUtil {
 
@@ -54,4 +56,45 @@ public class EjmlUtil {
         }
         return result;
     }
+
+    public static SimpleMatrix toMatrix(Matrix2DFloat m) {
+        SimpleMatrix result = new SimpleMatrix(m.M(), m.N());
+        for (int i = 0; i < m.M(); i++) {
+            for (int j = 0; j < m.N(); j++) {
+                result.set(i, j, m.get(i, j));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return a column vector with the elements of v.
+     */
+    public static SimpleMatrix toMatrix(VectorFloat v) {
+        SimpleMatrix result = new SimpleMatrix(v.size(), 1);
+        for (int i = 0; i < v.size(); i++) {
+            result.set(i, 0, v.get(i));
+        }
+        return result;
+    }
+
+    public static Matrix2DFloat toMatrix2DFloat(SimpleMatrix m) {
+        Matrix2DFloat result = new Matrix2DFloat(m.numRows(), m.numCols());
+        for (int i = 0; i < m.numRows(); i++) {
+            for (int j = 0; j < m.numCols(); j++) {
+                result.set(i, j, (float) m.get(i, j));
+            }
+        }
+        return result;
+    }
+
+    public static Matrix2DDouble toMatrix2DDouble(SimpleMatrix m) {
+        Matrix2DDouble result = new Matrix2DDouble(m.numRows(), m.numCols());
+        for (int i = 0; i < m.numRows(); i++) {
+            for (int j = 0; j < m.numCols(); j++) {
+                result.set(i, j, m.get(i, j));
+            }
+        }
+        return result;
+    }
 }
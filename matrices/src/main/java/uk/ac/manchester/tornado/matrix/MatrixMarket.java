@@ -0,0 +1,638 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * 
+ */
+
+package uk.ac.manchester.tornado.matrix;
+
+import static java.lang.System.err;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import uk.ac.manchester.tornado.api.collections.types.COOMatrixFloat;
+import uk.ac.manchester.tornado.api.collections.types.CSRMatrixFloat;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+
+/**
+ * Loader of sparse matrices in Matrix Market coordinate format.
+ *
+ * <p>
+ * The text is parsed in parallel: the file is memory-mapped and split by byte
+ * range into chunks of whole lines, one per task, and the elements of every
+ * chunk are concatenated in file order before the conversion to CSR.
+ * </p>
+ *
+ * <p>
+ * The CSR arrays are then written to a binary cache file next to the source
+ * ({@code <file>.csr}). Later loads of the same file read the arrays from the
+ * cache with bulk copies from a memory mapping, without parsing or sorting. The
+ * cache records the length and modification time of the source, and it is
+ * written again when they do not match. Use {@code -Dtornado.matrix.cache=False}
+ * to disable it.
+ * </p>
+ */
+public class MatrixMarket {
+
+    public static final String CACHE_EXTENSION = ".csr";
+
+    private static final int CACHE_MAGIC = 0x54435352;
+    private static final int CACHE_VERSION = 2;
+    private static final int CACHE_HEADER_SIZE = 64;
+
+    /**
+     * Maximum number of bytes copied from one mapping of the cache.
+     */
+    private static final long MAX_MAPPING_SIZE = 1L << 30;
+
+    /**
+     * Minimum number of bytes parsed by every task.
+     */
+    private static final long MIN_CHUNK_SIZE = 1L << 20;
+
+    private enum Symmetry {
+        GENERAL, SYMMETRIC, SKEW_SYMMETRIC
+    }
+
+    private static class Header {
+        boolean pattern;
+        Symmetry symmetry;
+        int numRows;
+        int numColumns;
+        long numEntries;
+        long dataOffset;
+    }
+
+    /**
+     * Elements parsed from one chunk of the file.
+     */
+    private static class Chunk {
+        int size;
+        int[] rows;
+        int[] columns;
+        float[] values;
+
+        Chunk(int capacity) {
+            rows = new int[capacity];
+            columns = new int[capacity];
+            values = new float[capacity];
+        }
+
+        void add(int row, int column, float value) {
+            if (size == rows.length) {
+                int capacity = Math.max(2 * size, 16);
+                rows = Arrays.copyOf(rows, capacity);
+                columns = Arrays.copyOf(columns, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            rows[size] = row;
+            columns[size] = column;
+            values[size] = value;
+            size++;
+        }
+    }
+
+    /**
+     * Loads a matrix, from its cache if there is a valid one.
+     */
+    public static CSRMatrixFloat load(String path) throws IOException {
+        return load(path, Boolean.parseBoolean(TornadoRuntime.getProperty("tornado.matrix.cache", "True")));
+    }
+
+    public static CSRMatrixFloat load(String path, boolean useCache) throws IOException {
+        File source = new File(path);
+        File cache = new File(path + CACHE_EXTENSION);
+        if (useCache) {
+            CSRMatrixFloat matrix = readCache(cache, source);
+            if (matrix != null) {
+                return matrix;
+            }
+        }
+        CSRMatrixFloat matrix = parse(source);
+        if (useCache) {
+            try {
+                writeCache(cache, source, matrix);
+            } catch (IOException e) {
+                err.printf("unable to write matrix cache: %s (%s)\n", cache, e.getMessage());
+            }
+        }
+        return matrix;
+    }
+
+    /**
+     * Parses a Matrix Market file, in parallel. The values of pattern matrices
+     * are derived from the coordinates of every element, so they do not depend
+     * on how the file is split.
+     */
+    public static CSRMatrixFloat parse(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            final Header header = readHeader(channel);
+            final long[] boundaries = splitLines(channel, header.dataOffset);
+            final int numChunks = boundaries.length - 1;
+            final long dataSize = channel.size() - header.dataOffset;
+            final int entriesFactor = (header.symmetry == Symmetry.GENERAL) ? 1 : 2;
+
+            Chunk[] chunks;
+            try {
+                chunks = IntStream.range(0, numChunks).parallel().mapToObj(i -> {
+                    long start = boundaries[i];
+                    long end = boundaries[i + 1];
+                    int capacity = (int) Math.min(Integer.MAX_VALUE - 8, (double) header.numEntries * entriesFactor * (end - start) / Math.max(dataSize, 1) * 1.1 + 16);
+                    Chunk chunk = new Chunk(capacity);
+                    try {
+                        parseChunk(channel.map(FileChannel.MapMode.READ_ONLY, start, end - start), header, chunk);
+                    } catch (IOException e) {
+                        throw new RuntimeException(e);
+                    }
+                    return chunk;
+                }).toArray(Chunk[]::new);
+            } catch (RuntimeException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw e;
+            }
+
+            long numElements = 0;
+            for (Chunk chunk : chunks) {
+                numElements += chunk.size;
+            }
+            if (numElements > Integer.MAX_VALUE - 8) {
+                throw new IOException("Matrix has too many elements: " + numElements);
+            }
+            int[] rows = new int[(int) numElements];
+            int[] columns = new int[(int) numElements];
+            float[] values = new float[(int) numElements];
+            int offset = 0;
+            for (Chunk chunk : chunks) {
+                System.arraycopy(chunk.rows, 0, rows, offset, chunk.size);
+                System.arraycopy(chunk.columns, 0, columns, offset, chunk.size);
+                System.arraycopy(chunk.values, 0, values, offset, chunk.size);
+                offset += chunk.size;
+            }
+
+            // Matrix Market files are usually sorted by column, so the elements of
+            // every row are already sorted when they are placed in file order
+            return new COOMatrixFloat(header.numRows, header.numColumns, rows, columns, values).toCSR();
+        }
+    }
+
+    private static Header readHeader(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        long position = 0;
+        Header header = new Header();
+        String line = readLine(channel, position, buffer);
+        if (line == null) {
+            throw new IOException("Empty matrix file");
+        }
+        position += line.getBytes(StandardCharsets.US_ASCII).length + 1;
+
+        String[] banner = line.trim().toLowerCase().split("\\s+");
+        if (banner.length < 5 || !banner[0].equals("%%matrixmarket") || !banner[1].equals("matrix")) {
+            throw new IOException("Matrix file does not contain a matrix");
+        }
+        if (!banner[2].equals("coordinate")) {
+            throw new IOException("Matrix representation is dense");
+        }
+        switch (banner[3]) {
+            case "pattern":
+                header.pattern = true;
+                break;
+            case "real":
+            case "double":
+            case "integer":
+                break;
+            default:
+                throw new IOException("Unsupported matrix field: " + banner[3]);
+        }
+        switch (banner[4]) {
+            case "general":
+                header.symmetry = Symmetry.GENERAL;
+                break;
+            case "symmetric":
+                header.symmetry = Symmetry.SYMMETRIC;
+                break;
+            case "skew-symmetric":
+                header.symmetry = Symmetry.SKEW_SYMMETRIC;
+                break;
+            default:
+                throw new IOException("Unsupported matrix symmetry: " + banner[4]);
+        }
+
+        while ((line = readLine(channel, position, buffer)) != null) {
+            position += line.getBytes(StandardCharsets.US_ASCII).length + 1;
+            if (!line.startsWith("%") && !line.trim().isEmpty()) {
+                break;
+            }
+        }
+        if (line == null) {
+            throw new IOException("Matrix file does not contain the size of the matrix");
+        }
+        String[] size = line.trim().split("\\s+");
+        header.numRows = Integer.parseInt(size[0]);
+        header.numColumns = Integer.parseInt(size[1]);
+        header.numEntries = Long.parseLong(size[2]);
+        header.dataOffset = Math.min(position, channel.size());
+        return header;
+    }
+
+    /**
+     * Reads the line that starts at the given position, without its line
+     * terminator. Returns null at the end of the file.
+     */
+    private static String readLine(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+        if (position >= channel.size()) {
+            return null;
+        }
+        buffer.clear();
+        int read = channel.read(buffer, position);
+        for (int i = 0; i < read; i++) {
+            if (buffer.get(i) == '\n') {
+                return new String(buffer.array(), 0, i, StandardCharsets.US_ASCII);
+            }
+        }
+        if (read < buffer.capacity()) {
+            return new String(buffer.array(), 0, Math.max(read, 0), StandardCharsets.US_ASCII);
+        }
+        throw new IOException("Line too long in the header of the matrix file");
+    }
+
+    /**
+     * Splits the data of the file into byte ranges of whole lines, a few per
+     * available processor. Returns the first byte of every range, followed by
+     * the size of the file.
+     */
+    private static long[] splitLines(FileChannel channel, long dataOffset) throws IOException {
+        final long fileSize = channel.size();
+        final long dataSize = fileSize - dataOffset;
+        long numChunks = Math.max(1, Math.min(4L * Runtime.getRuntime().availableProcessors(), dataSize / MIN_CHUNK_SIZE));
+        numChunks = Math.max(numChunks, (dataSize + MAX_MAPPING_SIZE - 1) / MAX_MAPPING_SIZE);
+
+        long[] boundaries = new long[(int) numChunks + 1];
+        boundaries[0] = dataOffset;
+        boundaries[(int) numChunks] = fileSize;
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        for (int i = 1; i < numChunks; i++) {
+            // Move every boundary to the beginning of the next line
+            long position = Math.max(dataOffset + dataSize * i / numChunks, boundaries[i - 1]);
+            long boundary = fileSize;
+            while (position < fileSize && boundary == fileSize) {
+                buffer.clear();
+                int read = channel.read(buffer, position);
+                for (int j = 0; j < read; j++) {
+                    if (buffer.get(j) == '\n') {
+                        boundary = position + j + 1;
+                        break;
+                    }
+                }
+                position += read;
+            }
+            boundaries[i] = boundary;
+        }
+        return boundaries;
+    }
+
+    private static void parseChunk(MappedByteBuffer buffer, Header header, Chunk chunk) throws IOException {
+        final int limit = buffer.limit();
+        int position = 0;
+        while (position < limit) {
+            position = skipWhitespace(buffer, position, limit);
+            if (position >= limit) {
+                break;
+            }
+            if (buffer.get(position) == '%') {
+                position = skipLine(buffer, position, limit);
+                continue;
+            }
+
+            int end = tokenEnd(buffer, position, limit);
+            int row = parseIndex(buffer, position, end) - 1;
+            position = skipBlanks(buffer, end, limit);
+            end = tokenEnd(buffer, position, limit);
+            int column = parseIndex(buffer, position, end) - 1;
+            float value;
+            if (header.pattern) {
+                value = patternValue(row, column);
+            } else {
+                position = skipBlanks(buffer, end, limit);
+                end = tokenEnd(buffer, position, limit);
+                value = parseFloat(buffer, position, end);
+            }
+            position = skipLine(buffer, end, limit);
+
+            if (row < 0 || row >= header.numRows || column < 0 || column >= header.numColumns) {
+                throw new IOException(String.format("Element out of bounds: (%d, %d)", row + 1, column + 1));
+            }
+            chunk.add(row, column, value);
+            if (header.symmetry != Symmetry.GENERAL && row != column) {
+                chunk.add(column, row, (header.symmetry == Symmetry.SYMMETRIC) ? value : -value);
+            }
+        }
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\r' || b == '\n';
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static int skipWhitespace(ByteBuffer buffer, int position, int limit) {
+        while (position < limit && isWhitespace(buffer.get(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int skipBlanks(ByteBuffer buffer, int position, int limit) {
+        byte b;
+        while (position < limit && ((b = buffer.get(position)) == ' ' || b == '\t')) {
+            position++;
+        }
+        return position;
+    }
+
+    private static int skipLine(ByteBuffer buffer, int position, int limit) {
+        while (position < limit && buffer.get(position) != '\n') {
+            position++;
+        }
+        return position + 1;
+    }
+
+    private static int tokenEnd(ByteBuffer buffer, int position, int limit) {
+        while (position < limit && !isWhitespace(buffer.get(position))) {
+            position++;
+        }
+        return position;
+    }
+
+    private static String token(ByteBuffer buffer, int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get(start + i);
+        }
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static int parseIndex(ByteBuffer buffer, int start, int end) throws IOException {
+        if (start == end || end - start > 10) {
+            throw new IOException("Invalid index: '" + token(buffer, start, end) + "'");
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9) {
+                throw new IOException("Invalid index: '" + token(buffer, start, end) + "'");
+            }
+            value = value * 10 + digit;
+        }
+        return (int) Math.min(value, Integer.MAX_VALUE);
+    }
+
+    private static final double[] POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private static final long FLOAT_DROPPED_BITS = (1L << 29) - 1;
+    private static final long FLOAT_HALF_ULP = 1L << 28;
+
+    /**
+     * Parses a decimal number into the nearest float. Numbers whose mantissa and
+     * power of ten are exact doubles are computed with a single rounded double
+     * operation. Rounding that double to a float gives the nearest float unless
+     * the double falls exactly halfway between two floats, since no other double
+     * lies between the number and its nearest double. Those ties, subnormal
+     * floats and the rest (long mantissas, large exponents, infinities or NaNs)
+     * fall back to {@link Float#parseFloat(String)}.
+     */
+    private static float parseFloat(ByteBuffer buffer, int start, int end) throws IOException {
+        int position = start;
+        boolean negative = false;
+        if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+            negative = buffer.get(position) == '-';
+            position++;
+        }
+        long mantissa = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean valid = false;
+        while (position < end && isDigit(buffer.get(position))) {
+            valid = true;
+            if (digits < 18) {
+                mantissa = mantissa * 10 + (buffer.get(position) - '0');
+                if (mantissa != 0) {
+                    digits++;
+                }
+            } else {
+                exponent++;
+            }
+            position++;
+        }
+        if (position < end && buffer.get(position) == '.') {
+            position++;
+            while (position < end && isDigit(buffer.get(position))) {
+                valid = true;
+                if (digits < 18) {
+                    mantissa = mantissa * 10 + (buffer.get(position) - '0');
+                    exponent--;
+                    if (mantissa != 0) {
+                        digits++;
+                    }
+                }
+                position++;
+            }
+        }
+        if (valid && position < end && (buffer.get(position) == 'e' || buffer.get(position) == 'E')) {
+            position++;
+            boolean negativeExponent = false;
+            if (position < end && (buffer.get(position) == '-' || buffer.get(position) == '+')) {
+                negativeExponent = buffer.get(position) == '-';
+                position++;
+            }
+            int value = 0;
+            valid = position < end;
+            while (position < end && isDigit(buffer.get(position)) && value < 100000) {
+                value = value * 10 + (buffer.get(position) - '0');
+                position++;
+            }
+            exponent += negativeExponent ? -value : value;
+        }
+
+        if (valid && position == end && mantissa == 0) {
+            return negative ? -0.0f : 0.0f;
+        }
+        if (valid && position == end && mantissa < (1L << 53) && Math.abs(exponent) < POWERS_OF_TEN.length) {
+            double value = (exponent >= 0) ? mantissa * POWERS_OF_TEN[exponent] : mantissa / POWERS_OF_TEN[-exponent];
+            if (value >= Float.MIN_NORMAL && value <= Float.MAX_VALUE && !isFloatTie(value)) {
+                return (float) (negative ? -value : value);
+            }
+        }
+        try {
+            return Float.parseFloat(token(buffer, start, end));
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid value: '" + token(buffer, start, end) + "'");
+        }
+    }
+
+    /**
+     * Checks whether a double in the range of normal floats is exactly halfway
+     * between two floats: the 29 mantissa bits that a float drops are 1 followed
+     * by zeros.
+     */
+    private static boolean isFloatTie(double value) {
+        return (Double.doubleToRawLongBits(value) & FLOAT_DROPPED_BITS) == FLOAT_HALF_ULP;
+    }
+
+    /**
+     * Value in [0, 256) of an element of a pattern matrix.
+     */
+    private static float patternValue(int row, int column) {
+        int hash = (row + 1) * 0x9E3779B1 ^ (column + 1) * 0x85EBCA77;
+        hash ^= hash >>> 15;
+        hash *= 0x2C1B3C6D;
+        hash ^= hash >>> 12;
+        return (hash >>> 8) * (256.0f / (1 << 24));
+    }
+
+    /**
+     * Reads a matrix from its cache file. Returns null when there is no cache or
+     * it does not belong to the current version of the source.
+     */
+    private static CSRMatrixFloat readCache(File cache, File source) {
+        if (!cache.isFile()) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(cache.toPath(), StandardOpenOption.READ)) {
+            if (channel.size() < CACHE_HEADER_SIZE) {
+                return null;
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, CACHE_HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            int numRows = header.getInt(8);
+            int numColumns = header.getInt(12);
+            int numNonZeros = header.getInt(16);
+            if (header.getInt(0) != CACHE_MAGIC || header.getInt(4) != CACHE_VERSION || numRows < 0 || numNonZeros < 0) {
+                return null;
+            }
+            if (header.getLong(24) != source.length() || header.getLong(32) != source.lastModified()) {
+                return null;
+            }
+            long expectedSize = CACHE_HEADER_SIZE + 4L * (numRows + 1) + 8L * numNonZeros;
+            if (channel.size() != expectedSize) {
+                return null;
+            }
+
+            int[] rowPointers = new int[numRows + 1];
+            int[] columnIndices = new int[numNonZeros];
+            float[] values = new float[numNonZeros];
+            long position = CACHE_HEADER_SIZE;
+            position = readInts(channel, position, rowPointers);
+            position = readInts(channel, position, columnIndices);
+            readFloats(channel, position, values);
+            return new CSRMatrixFloat(numRows, numColumns, rowPointers, columnIndices, values);
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static long readInts(FileChannel channel, long position, int[] array) throws IOException {
+        for (int offset = 0; offset < array.length;) {
+            int length = (int) Math.min(array.length - offset, MAX_MAPPING_SIZE / 4);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * length).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer().get(array, offset, length);
+            position += 4L * length;
+            offset += length;
+        }
+        return position;
+    }
+
+    private static long readFloats(FileChannel channel, long position, float[] array) throws IOException {
+        for (int offset = 0; offset < array.length;) {
+            int length = (int) Math.min(array.length - offset, MAX_MAPPING_SIZE / 4);
+            channel.map(FileChannel.MapMode.READ_ONLY, position, 4L * length).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(array, offset, length);
+            position += 4L * length;
+            offset += length;
+        }
+        return position;
+    }
+
+    /**
+     * Writes the cache of a matrix. The file is written under a temporary name
+     * and then renamed, so concurrent loads never read a partial cache.
+     */
+    private static void writeCache(File cache, File source, CSRMatrixFloat matrix) throws IOException {
+        Path target = cache.toPath().toAbsolutePath();
+        Path temporary = Files.createTempFile(target.getParent(), cache.getName(), ".tmp");
+        try {
+            // Temporary files are only readable by their owner, but the cache is
+            // shared by every user that loads the matrix
+            temporary.toFile().setReadable(true, false);
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20).order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putInt(CACHE_MAGIC);
+                buffer.putInt(CACHE_VERSION);
+                buffer.putInt(matrix.getNumRows());
+                buffer.putInt(matrix.getNumColumns());
+                buffer.putInt(matrix.getNumNonZeros());
+                buffer.putInt(0);
+                buffer.putLong(source.length());
+                buffer.putLong(source.lastModified());
+                buffer.position(CACHE_HEADER_SIZE);
+                for (int value : matrix.getRowPointers()) {
+                    putInt(channel, buffer, value);
+                }
+                for (int value : matrix.getColumnIndices()) {
+                    putInt(channel, buffer, value);
+                }
+                for (float value : matrix.getValues()) {
+                    putInt(channel, buffer, Float.floatToRawIntBits(value));
+                }
+                flush(channel, buffer);
+            }
+            try {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private static void putInt(FileChannel channel, ByteBuffer buffer, int value) throws IOException {
+        if (buffer.remaining() < 4) {
+            flush(channel, buffer);
+        }
+        buffer.putInt(value);
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
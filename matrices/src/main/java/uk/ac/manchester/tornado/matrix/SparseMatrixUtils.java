@@ -26,8 +26,6 @@ import static java.lang.System.out;
 import static java.util.Collections.sort;
 
 import java.io.BufferedReader;
-import java.io.FileNotFoundException;
-import java.io.FileReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -35,6 +33,8 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.Random;
 
+import uk.ac.manchester.tornado.api.collections.types.CSRMatrixFloat;
+
 public class SparseMatrixUtils {
 
     private static final boolean VERBOSE = false;
@@ -43,157 +43,70 @@ public class SparseMatrixUtils {
 
         public int n;
         public int size;
+        public int numColumns;
         public T vals;
         public int[] rows;
         public int[] cols;
     }
 
-    public static CSRMatrix<double[]> loadMatrixD(final String path) {
-        boolean pattern = false;
-        boolean symmetric = false;
-
-        final CSRMatrix<double[]> mat = new CSRMatrix<>();
-
-        Random rand = null;
-        try (BufferedReader br = new BufferedReader(new FileReader(path))) {
-
-            String line = br.readLine();
-
-            String[] opts = line.split(" ");
-            // id object format field symmetry
-
-            if (!opts[1].equalsIgnoreCase("matrix")) {
-                System.out.printf("Matrix file doesnot contain matrix\n");
-                br.close();
-                return null;
-            }
-
-            if (!opts[2].equalsIgnoreCase("coordinate")) {
-                System.out.printf("Matrix representation is dense\n");
-                br.close();
-                return null;
-            }
-
-            if (opts[3].equalsIgnoreCase("pattern")) {
-                pattern = true;
-                rand = new Random();
-                // System.out.printf("Matrix pattern unimplemented\n");
-                // return;
-            }
-
-            if (opts[4].equalsIgnoreCase("symmetric")) {
-                symmetric = true;
-            }
-
-            while ((line = br.readLine()) != null) {
-                if (!line.startsWith("%")) {
-                    break;
-                }
-            }
-
-            opts = line.split(" ");
-
-            final int nRows = Integer.parseInt(opts[0]);
-            final int nCols = Integer.parseInt(opts[1]);
-            int nElements = Integer.parseInt(opts[2]);
-
-            class Coordinate implements Comparable<Coordinate> {
-
-                int x;
-                int y;
-                float val;
-
-                public Coordinate(final int a, final int b, final float c) {
-                    x = a;
-                    y = b;
-                    val = c;
-                }
-
-                public Coordinate(final String[] opts) {
-                    x = parseInt(opts[0]) - 1;
-                    y = parseInt(opts[1]) - 1;
-                    val = parseFloat(opts[2]);
-                }
-
-                @Override
-                public int compareTo(final Coordinate c) {
-                    int val = 0;
-                    if (x != c.x) {
-                        val = x - c.x;
-                    } else {
-                        val = y - c.y;
-                    }
-
-                    return val;
-                }
-
-                @Override
-                public String toString() {
-                    return String.format("[ %d, %d, %10.2f ]", x, y, val);
-                }
-            }
-
-            if (VERBOSE) {
-                System.out.printf("Matrix: rows=%d, cols=%d, elements=%d\n", nRows, nCols, nElements);
-            }
-
-            List<Coordinate> coords;
-            if (symmetric) {
-                coords = new ArrayList<>(2 * nElements);
-            } else {
-                coords = new ArrayList<>(nElements);
-            }
-
-            int index = 0;
-            while ((line = br.readLine()) != null) {
-                opts = line.split(" ");
-                if (pattern) {
-                    final Coordinate c = new Coordinate(parseInt(opts[0]) - 1, parseInt(opts[1]) - 1, rand.nextFloat() * 256.0f);
-                    coords.add(c);
-                } else {
-                    coords.add(new Coordinate(opts));
-                }
-
-                index++;
-
-                if (symmetric) {
-                    final Coordinate last = coords.get(index - 1);
-                    if (last.x != last.y) {
-                        coords.add(new Coordinate(last.y, last.x, last.val));
-                        index++;
-                    }
-                }
-            }
+    /**
+     * Wraps the arrays of a loaded matrix, without copying them, in a
+     * {@link CSRMatrixFloat} for the kernels of
+     * {@link uk.ac.manchester.tornado.api.collections.math.SparseMath}.
+     */
+    public static CSRMatrixFloat toCSRMatrixFloat(CSRMatrix<float[]> matrix) {
+        return new CSRMatrixFloat(matrix.size, getNumColumns(matrix), matrix.rows, matrix.cols, matrix.vals);
+    }
 
-            sort(coords);
-            nElements = index;
-            mat.n = nElements;
-            mat.size = nRows;
-            mat.vals = new double[nElements];
-            mat.cols = new int[nElements];
-            mat.rows = new int[nRows + 1];
-            mat.rows[0] = 0;
-            mat.rows[nRows] = nElements;
-            int r = 0;
-            for (int i = 0; i < nElements; i++) {
-
-                final Coordinate c = coords.get(i);
-
-                while (c.x != r) {
-                    mat.rows[++r] = i;
-                }
-                mat.vals[i] = c.val;
-                mat.cols[i] = c.y;
-            }
-            coords.clear();
-        } catch (final FileNotFoundException e) {
-            System.out.printf("Unable to open matrix %s\n", path);
-        } catch (final IOException e) {
-            e.printStackTrace();
+    /**
+     * Number of columns of the matrix. Matrices built without it are given the
+     * smallest number of columns that holds their elements.
+     */
+    private static int getNumColumns(CSRMatrix<?> matrix) {
+        if (matrix.numColumns > 0) {
+            return matrix.numColumns;
+        }
+        int numColumns = 0;
+        for (int i = 0; i < matrix.n; i++) {
+            numColumns = Math.max(numColumns, matrix.cols[i] + 1);
         }
+        return numColumns;
+    }
 
+    /**
+     * Wraps the arrays of a {@link CSRMatrixFloat}, without copying them.
+     */
+    public static CSRMatrix<float[]> fromCSRMatrixFloat(CSRMatrixFloat matrix) {
+        final CSRMatrix<float[]> mat = new CSRMatrix<>();
+        mat.n = matrix.getNumNonZeros();
+        mat.size = matrix.getNumRows();
+        mat.numColumns = matrix.getNumColumns();
+        mat.rows = matrix.getRowPointers();
+        mat.cols = matrix.getColumnIndices();
+        mat.vals = matrix.getValues();
         return mat;
+    }
 
+    /**
+     * Loads a Matrix Market file with {@link MatrixMarket}, which parses the
+     * file in parallel and caches the CSR arrays next to it.
+     */
+    public static CSRMatrix<double[]> loadMatrixD(final String path) {
+        final CSRMatrix<float[]> matrix = loadMatrixF(path);
+        if (matrix == null) {
+            return null;
+        }
+        final CSRMatrix<double[]> mat = new CSRMatrix<>();
+        mat.n = matrix.n;
+        mat.size = matrix.size;
+        mat.numColumns = matrix.numColumns;
+        mat.rows = matrix.rows;
+        mat.cols = matrix.cols;
+        mat.vals = new double[matrix.vals.length];
+        for (int i = 0; i < matrix.vals.length; i++) {
+            mat.vals[i] = matrix.vals[i];
+        }
+        return mat;
     }
 
     public static CSRMatrix<float[]> loadMatrixF(InputStream inStream) {
@@ -206,9 +119,13 @@ public class SparseMatrixUtils {
         return null;
     }
 
+    /**
+     * Loads a Matrix Market file with {@link MatrixMarket}, which parses the
+     * file in parallel and caches the CSR arrays next to it.
+     */
     public static CSRMatrix<float[]> loadMatrixF(final String path) {
-        try (final BufferedReader br = new BufferedReader(new FileReader(path))) {
-            return loadMatrixF(br);
+        try {
+            return fromCSRMatrixFloat(MatrixMarket.load(path));
         } catch (IOException e) {
             err.printf("unable to read matrix from file: %s (%s)\n", path, e.getMessage());
             e.printStackTrace();
@@ -339,6 +256,7 @@ public class SparseMatrixUtils {
 
         mat.n = nElements;
         mat.size = nRows;
+        mat.numColumns = nCols;
         mat.vals = new float[nElements];
         mat.cols = new int[nElements];
         mat.rows = new int[nRows + 1];
@@ -209,6 +209,10 @@ public class JVMMapping implements TornadoAcceleratorDevice {
         return null;
     }
 
+    @Override
+    public void invalidateCode(SchedulableTask task) {
+    }
+
     @Override
     public long getMaxAllocMemory() {
         return Runtime.getRuntime().maxMemory();
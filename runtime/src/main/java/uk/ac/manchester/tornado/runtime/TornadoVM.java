@@ -30,6 +30,7 @@ import static uk.ac.manchester.tornado.runtime.common.Tornado.ENABLE_PROFILING;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.USE_VM_FLUSH;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.VM_USE_DEPS;
 
+import java.lang.reflect.Array;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.util.Arrays;
@@ -49,6 +50,7 @@ import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
 import uk.ac.manchester.tornado.runtime.common.CallStack;
 import uk.ac.manchester.tornado.runtime.common.DeviceObjectState;
+import uk.ac.manchester.tornado.runtime.common.KernelVersionCache;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
 import uk.ac.manchester.tornado.runtime.common.TornadoInstalledCode;
@@ -86,6 +88,7 @@ public class TornadoVM extends TornadoLogger {
     private final int[] eventsIndicies;
     private final List<TornadoAcceleratorDevice> contexts;
     private final TornadoInstalledCode[] installedCodes;
+    private final KernelVersionCache[] kernelVersions;
 
     private final List<Object> constants;
     private final List<SchedulableTask> tasks;
@@ -121,6 +124,7 @@ public class TornadoVM extends TornadoLogger {
         eventsIndicies = new int[events.length];
 
         installedCodes = new TornadoInstalledCode[taskCount];
+        kernelVersions = new KernelVersionCache[taskCount];
 
         for (int i = 0; i < events.length; i++) {
             Arrays.fill(events[i], -1);
@@ -168,6 +172,29 @@ public class TornadoVM extends TornadoLogger {
         return globalStates[index].getDeviceState(contexts.get(device));
     }
 
+    /**
+     * If another device holds a modified copy of the object, the copy is read
+     * back to the host before the object is transferred to the given device, so
+     * task-schedules mapped to different devices can be chained.
+     */
+    private void syncFromOwner(int index, TornadoAcceleratorDevice device) {
+        final GlobalObjectState globalState = globalStates[index];
+        final TornadoAcceleratorDevice owner = globalState.getOwner();
+        if (owner == null || owner == device) {
+            return;
+        }
+        final DeviceObjectState ownerState = globalState.getDeviceState(owner);
+        if (ownerState.isValid() && ownerState.isModified()) {
+            owner.streamOutBlocking(objects.get(index), 0, ownerState, null);
+            ownerState.setModified(false);
+            globalState.getDeviceState(device).setContents(false);
+        }
+    }
+
+    private boolean isKeptOnDevice(int index, TornadoAcceleratorDevice device) {
+        return graphContext.getObjectStates().get(index).isDeviceResident() && globalStates[index].isResidentOn(device);
+    }
+
     private CallStack resolveStack(int index, int numArgs, CallStack[] stacks, TornadoAcceleratorDevice device, boolean setNewDevice) {
         if (graphContext.meta().isDebug() && setNewDevice) {
             debug("Recompiling task on device " + device);
@@ -178,6 +205,43 @@ public class TornadoVM extends TornadoLogger {
         return stacks[index];
     }
 
+    /**
+     * Resolves the state of an object again after it has been replaced in the
+     * task-schedule. The device buffers of the old object are released, since the
+     * TornadoVM no longer references it.
+     */
+    public void rebindObject(int index) {
+        globalStates[index].releaseDeviceBuffers();
+        globalStates[index] = TornadoCoreRuntime.getTornadoRuntime().resolveObject(objects.get(index));
+        resetStacks();
+    }
+
+    /**
+     * Discards the installed code of a task, so it is compiled again in the next
+     * execution.
+     */
+    public void invalidateInstalledCode(int taskIndex) {
+        if (installedCodes[taskIndex] != null) {
+            graphContext.getDeviceForTask(taskIndex).invalidateCode(tasks.get(taskIndex));
+            installedCodes[taskIndex] = null;
+        }
+        if (kernelVersions[taskIndex] != null) {
+            kernelVersions[taskIndex].clear();
+        }
+        resetStacks();
+    }
+
+    /**
+     * The arguments are pushed again to the call stacks in the next execution.
+     */
+    public void resetStacks() {
+        for (CallStack stack : stacks) {
+            if (stack != null) {
+                stack.reset();
+            }
+        }
+    }
+
     public void invalidateObjects() {
         for (GlobalObjectState globalState : globalStates) {
             globalState.invalidate();
@@ -197,6 +261,66 @@ public class TornadoVM extends TornadoLogger {
         return execute(false);
     }
 
+    /**
+     * Builds the key of a specialised version from the lengths of the arrays and
+     * the values of the scalars the generic version reads at runtime.
+     */
+    private static String buildVersionKey(Object[] args, TaskMetaData metadata) {
+        final StringBuilder key = new StringBuilder("v");
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == null) {
+                continue;
+            }
+            if (args[i].getClass().isArray()) {
+                key.append("-").append(Array.getLength(args[i]));
+            } else if (metadata.isRuntimeScalar(i)) {
+                key.append("-").append(i).append("=").append(args[i]);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Selects the code to launch a polymorphic task. When the same array sizes and
+     * scalar values are used in several launches, the task is compiled again with
+     * them folded into constants, and that version is used while they match.
+     * Otherwise, the generic version is launched.
+     */
+    private TornadoInstalledCode selectVersion(int taskIndex, SchedulableTask task, TaskMetaData metadata, TornadoAcceleratorDevice device, TornadoInstalledCode genericCode) {
+        if (TornadoOptions.SPECIALISATION_THRESHOLD <= 0 || device.getDeviceContext().isPlatformFPGA()) {
+            return genericCode;
+        }
+        if (kernelVersions[taskIndex] == null) {
+            kernelVersions[taskIndex] = new KernelVersionCache(TornadoOptions.MAX_KERNEL_VERSIONS, TornadoOptions.SPECIALISATION_THRESHOLD);
+        }
+        final KernelVersionCache versions = kernelVersions[taskIndex];
+        final String key = buildVersionKey(task.getArguments(), metadata);
+        TornadoInstalledCode code = versions.lookup(key);
+        if (code != null) {
+            return code;
+        }
+        if (!versions.isHot(key)) {
+            return genericCode;
+        }
+
+        metadata.setSpecialisation(key);
+        try {
+            code = device.installCode(task);
+        } catch (Exception e) {
+            warn("unable to specialise task %s for %s: %s", task.getFullName(), key, e.getMessage());
+            code = null;
+        } finally {
+            metadata.setSpecialisation(null);
+        }
+
+        if (code == null) {
+            return genericCode;
+        }
+        debug("specialised task %s for %s", task.getFullName(), key);
+        versions.insert(key, code);
+        return code;
+    }
+
     private final String MESSAGE_ERROR = "object is not valid: %s %s";
 
     private void initWaitEventList() {
@@ -261,8 +385,13 @@ public class TornadoVM extends TornadoLogger {
                     bytecodesList.append(verbose + "\n");
                 }
 
+                syncFromOwner(objectIndex, device);
+
                 List<Integer> allEvents;
-                if (sizeBatch > 0) {
+                if (sizeBatch == 0 && isKeptOnDevice(objectIndex, device)) {
+                    // The device already holds an up-to-date copy
+                    allEvents = null;
+                } else if (sizeBatch > 0) {
                     // We need to stream-in when using batches, because the
                     // whole data is not copied yet.
                     allEvents = device.streamIn(object, sizeBatch, offset, objectState, waitList);
@@ -306,6 +435,7 @@ public class TornadoVM extends TornadoLogger {
 
                 final DeviceObjectState objectState = resolveObjectState(objectIndex, contextIndex);
 
+                syncFromOwner(objectIndex, device);
                 List<Integer> allEvents = device.streamIn(object, sizeBatch, offset, objectState, waitList);
                 if (eventList != -1) {
                     eventsIndicies[eventList] = 0;
@@ -452,20 +582,45 @@ public class TornadoVM extends TornadoLogger {
                     installedCodes[taskIndex] = device.getCodeFromCache(task);
                 }
 
-                final TornadoInstalledCode installedCode = installedCodes[taskIndex];
+                TornadoInstalledCode installedCode = installedCodes[taskIndex];
                 if (installedCode == null) {
                     // There was an error during compilation -> bailout
                     throw new TornadoBailoutRuntimeException("Code generator Failed");
                 }
 
+                TaskMetaData metadata = null;
+                if (task.meta() instanceof TaskMetaData) {
+                    metadata = (TaskMetaData) task.meta();
+                } else {
+                    throw new RuntimeException("task.meta is not instanceof TaskMetada");
+                }
+
+                if (metadata.isPolymorphic()) {
+                    // The kernel reads array lengths or scalar values at runtime
+                    if (metadata.hasDynamicDomain()) {
+                        metadata.updateDomain(task.getArguments());
+                    }
+                    installedCode = selectVersion(taskIndex, task, metadata, device, installedCode);
+                }
+
                 final Access[] accesses = task.getArgumentsAccess();
 
+                final byte[] argTypes = new byte[numArgs];
+                final int[] argIndices = new int[numArgs];
+                for (int i = 0; i < numArgs; i++) {
+                    argTypes[i] = buffer.get();
+                    argIndices[i] = buffer.getInt();
+                }
+                if (batchThreads == 0) {
+                    restoreSpilledArguments(device, contextIndex, argTypes, argIndices);
+                }
+
                 if (redeployOnDevice || !stack.isOnDevice()) {
                     stack.reset();
                 }
                 for (int i = 0; i < numArgs; i++) {
-                    final byte argType = buffer.get();
-                    final int argIndex = buffer.getInt();
+                    final byte argType = argTypes[i];
+                    final int argIndex = argIndices[i];
 
                     if (stack.isOnDevice()) {
                         continue;
@@ -490,13 +645,6 @@ public class TornadoVM extends TornadoLogger {
                     }
                 }
 
-                TaskMetaData metadata = null;
-                if (task.meta() instanceof TaskMetaData) {
-                    metadata = (TaskMetaData) task.meta();
-                } else {
-                    throw new RuntimeException("task.meta is not instanceof TaskMetada");
-                }
-
                 // We attach the profiler
                 metadata.attachProfiler(timeProfiler);
 
@@ -603,6 +751,31 @@ public class TornadoVM extends TornadoLogger {
         return barrier;
     }
 
+    /**
+     * Arguments that no transfer of the task uses, e.g. arrays written by a
+     * previous task, may have been spilled by the transfers of the task when the
+     * device heap is full. They are allocated and copied to the device again
+     * before the launch. A restored argument is the most recently used buffer of
+     * the device, so restoring the rest of the arguments cannot spill it again.
+     */
+    private void restoreSpilledArguments(TornadoAcceleratorDevice device, int contextIndex, byte[] argTypes, int[] argIndices) {
+        boolean restored = true;
+        while (restored) {
+            restored = false;
+            for (int i = 0; i < argTypes.length; i++) {
+                if (argTypes[i] != TornadoVMBytecodes.REFERENCE_ARGUMENT.value()) {
+                    continue;
+                }
+                final DeviceObjectState objectState = resolveObjectState(argIndices[i], contextIndex);
+                if (objectState.hasBuffer() && !objectState.isValid()) {
+                    device.ensurePresent(objects.get(argIndices[i]), objectState, null, 0, 0);
+                    // If the buffer does not fit, the launch fails on the invalid argument
+                    restored |= objectState.isValid();
+                }
+            }
+        }
+    }
+
     private void popArgumentsFromStack(int numArgs) {
         for (int i = 0; i < numArgs; i++) {
             buffer.get();
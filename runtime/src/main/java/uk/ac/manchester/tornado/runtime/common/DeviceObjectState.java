@@ -35,6 +35,7 @@ public class DeviceObjectState implements TornadoDeviceObjectState {
     private boolean valid;
     private boolean modified;
     private boolean contents;
+    private long lastUse;
 
     private ObjectBuffer buffer;
 
@@ -42,6 +43,7 @@ public class DeviceObjectState implements TornadoDeviceObjectState {
         valid = false;
         modified = false;
         contents = false;
+        lastUse = 0;
         buffer = null;
     }
 
@@ -108,4 +110,12 @@ public class DeviceObjectState implements TornadoDeviceObjectState {
         return buffer.toRelativeAddress();
     }
 
+    public long getLastUse() {
+        return lastUse;
+    }
+
+    public void setLastUse(long value) {
+        lastUse = value;
+    }
+
 }
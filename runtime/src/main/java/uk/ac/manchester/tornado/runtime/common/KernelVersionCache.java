@@ -0,0 +1,92 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.common;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Specialised versions of the code of a task, indexed by a key that describes
+ * the values they were specialised for (e.g., the sizes of the arrays).
+ * <p>
+ * A version is only worth compiling when the same key is seen several times,
+ * so the cache counts the launches of every key and reports a key as hot when
+ * it reaches the threshold. At most {@code maxVersions} versions are kept; the
+ * least-recently-used one is dropped when the cache is full.
+ * </p>
+ */
+public class KernelVersionCache {
+
+    private static final int MAX_PROFILED_KEYS = 64;
+
+    private final int threshold;
+    private final Map<String, TornadoInstalledCode> versions;
+    private final Map<String, Integer> invocations;
+
+    public KernelVersionCache(final int maxVersions, final int threshold) {
+        this.threshold = threshold;
+        this.invocations = new HashMap<>();
+        this.versions = new LinkedHashMap<String, TornadoInstalledCode>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TornadoInstalledCode> eldest) {
+                return size() > maxVersions;
+            }
+        };
+    }
+
+    public TornadoInstalledCode lookup(String key) {
+        return versions.get(key);
+    }
+
+    /**
+     * Counts a launch with the given key.
+     *
+     * @return true when the key has just become hot and a version should be
+     *         compiled for it.
+     */
+    public boolean isHot(String key) {
+        if (threshold <= 0) {
+            return false;
+        }
+        if (invocations.size() > MAX_PROFILED_KEYS && !invocations.containsKey(key)) {
+            // The values are not stable: start profiling again
+            invocations.clear();
+        }
+        final int count = invocations.merge(key, 1, Integer::sum);
+        return count == threshold;
+    }
+
+    public void insert(String key, TornadoInstalledCode code) {
+        versions.put(key, code);
+        invocations.remove(key);
+    }
+
+    public void clear() {
+        versions.clear();
+        invocations.clear();
+    }
+}
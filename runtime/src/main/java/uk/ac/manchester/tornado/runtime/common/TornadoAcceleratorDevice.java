@@ -40,4 +40,10 @@ public interface TornadoAcceleratorDevice extends TornadoDevice {
 
     TornadoInstalledCode getCodeFromCache(SchedulableTask task);
 
+    /**
+     * Removes the code of the task from the code cache, so the task is compiled
+     * again the next time it is installed.
+     */
+    void invalidateCode(SchedulableTask task);
+
 }
@@ -53,6 +53,73 @@ public class TornadoOptions {
      */
     public static final boolean EXPERIMENTAL_REDUCE_STREAM_ALL_IN = getBooleanValue("tornado.experimental.reduce.stream.all.in", "False");
 
+    /**
+     * Option to combine the partial results of the work-groups of a reduction on
+     * the device, within the same kernel. The last work-group to finish, detected
+     * with an atomic counter, reduces the partial results of the rest, so no
+     * additional task is launched for the final reduction. It applies to
+     * reductions that do not run on CPUs.
+     */
+    public static final boolean REDUCE_SINGLE_PASS = getBooleanValue("tornado.reduce.singlepass", "False");
+
+    /**
+     * Option to let the TornadoVM bytecode compiler split the execution of a
+     * task-schedule in batches when its data does not fit in the device heap. The
+     * batch size is computed from the remaining heap, the maximum allocation size
+     * of the device and the footprint of every argument. If the schedule runs out
+     * of memory, it is recompiled and executed in batches.
+     *
+     * Batches are only valid for tasks that process every element independently.
+     */
+    public static final boolean AUTO_BATCH = getBooleanValue("tornado.batch.auto", "False");
+
+    /**
+     * Option to fuse consecutive producer/consumer tasks of a task-schedule into a
+     * single kernel. Tasks are fused when they run on the same device, share the
+     * same 1D iteration space, and every array they share is accessed only at the
+     * index of the parallel loop.
+     */
+    public static final boolean TASK_FUSION = getBooleanValue("tornado.fusion", "False");
+
+    /**
+     * Option to remove redundant data transfers from the TornadoVM bytecode of a
+     * task-schedule: transfers of objects that no task reads afterwards, and
+     * repeated transfers of objects whose host copy has not changed.
+     */
+    public static final boolean OPTIMISE_TRANSFERS = getBooleanValue("tornado.tvm.optimise.transfers", "True");
+
+    /**
+     * Option to share the TornadoVM bytecode between task-schedules with the same
+     * tasks, argument types and sizes, devices and batch size.
+     */
+    public static final boolean TVM_BYTECODE_CACHE = getBooleanValue("tornado.tvm.cache", "True");
+
+    /**
+     * Option to compile kernels that read the length of their array parameters at
+     * runtime, instead of folding the lengths into constants. The same kernel can
+     * then be launched with arrays of different sizes.
+     */
+    public static final boolean SHAPE_POLYMORPHIC = getBooleanValue("tornado.shape.polymorphic", "True");
+
+    /**
+     * Option to compile kernels that read the value of their int, long, float and
+     * double parameters at runtime, instead of folding the values into constants.
+     * The same kernel can then be launched with different values.
+     */
+    public static final boolean SCALAR_POLYMORPHIC = getBooleanValue("tornado.scalar.polymorphic", "True");
+
+    /**
+     * Number of launches with the same array sizes and scalar values after which a
+     * polymorphic task is compiled again with them folded into constants. Use 0
+     * to disable the specialisation.
+     */
+    public static final int SPECIALISATION_THRESHOLD = getIntValue("tornado.specialise.threshold", "8");
+
+    /**
+     * Maximum number of specialised versions kept per task.
+     */
+    public static final int MAX_KERNEL_VERSIONS = getIntValue("tornado.kernel.versions", "4");
+
     /**
      * Option to load FPGA pre-compiled binaries.
      */
@@ -96,4 +163,8 @@ public class TornadoOptions {
         return Boolean.parseBoolean(Tornado.getProperty(property, defaultValue));
     }
 
+    private static int getIntValue(String property, String defaultValue) {
+        return Integer.parseInt(Tornado.getProperty(property, defaultValue));
+    }
+
 }
@@ -41,7 +41,9 @@ public class TornadoLocalMemoryAllocation extends BasePhase<TornadoHighTierConte
     @Override
     protected void run(StructuredGraph graph, TornadoHighTierContext context) {
 
-        if (!context.hasMeta()) {
+        // Tiles of kernels tiled in local memory, and local arrays of kernels
+        // with a worker grid, keep their size
+        if (!context.hasMeta() || context.getMeta().isTiled() || context.getMeta().isWorkerGridDefined()) {
             return;
         }
 
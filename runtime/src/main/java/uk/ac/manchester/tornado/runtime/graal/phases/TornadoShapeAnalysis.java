@@ -23,6 +23,8 @@
  */
 package uk.ac.manchester.tornado.runtime.graal.phases;
 
+import java.lang.reflect.Array;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
 
@@ -32,8 +34,11 @@ import org.graalvm.compiler.loop.LoopFragmentInside;
 import org.graalvm.compiler.loop.LoopsData;
 import org.graalvm.compiler.nodes.ConstantNode;
 import org.graalvm.compiler.nodes.LoopBeginNode;
+import org.graalvm.compiler.nodes.ParameterNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
 import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.util.GraphUtil;
 import org.graalvm.compiler.phases.BasePhase;
 
 import uk.ac.manchester.tornado.runtime.common.Tornado;
@@ -56,6 +61,37 @@ public class TornadoShapeAnalysis extends BasePhase<TornadoHighTierContext> {
         }
     }
 
+    /**
+     * Returns the index of the parameter that bounds the parallel loop, either an
+     * array whose length is read at runtime or an int parameter, or -1 if the bound
+     * is not given by a parameter.
+     */
+    private static int resolveDomainArgument(ValueNode value, TornadoHighTierContext context) {
+        if (!context.hasArgs()) {
+            return -1;
+        }
+        if (value instanceof ArrayLengthNode) {
+            ValueNode array = GraphUtil.unproxify(((ArrayLengthNode) value).array());
+            if (array instanceof ParameterNode) {
+                final int index = ((ParameterNode) array).index();
+                final Object arg = context.getArg(index);
+                if (arg != null && arg.getClass().isArray()) {
+                    return index;
+                }
+            }
+        } else if (value instanceof ParameterNode) {
+            final int index = ((ParameterNode) value).index();
+            if (context.getArg(index) instanceof Integer) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private static int resolveDomainLength(Object arg) {
+        return (arg instanceof Integer) ? (Integer) arg : Array.getLength(arg);
+    }
+
     private int getMaxLevelNestedLoops(StructuredGraph graph) {
         int dimensions = 1;
 
@@ -82,14 +118,27 @@ public class TornadoShapeAnalysis extends BasePhase<TornadoHighTierContext> {
     private void setDomainTree(int dimensions, List<ParallelRangeNode> ranges, TornadoHighTierContext context) {
         final DomainTree domainTree = new DomainTree(dimensions);
 
+        final int[] domainArguments = new int[dimensions];
+        Arrays.fill(domainArguments, -1);
+        boolean dynamic = false;
+
         int lastIndex = -1;
         boolean valid = true;
         for (int i = 0; i < dimensions; i++) {
             final ParallelRangeNode range = ranges.get(i);
             final int index = range.index();
-            if (index != lastIndex && resolveInt(range.offset().value()) != Integer.MIN_VALUE && resolveInt(range.stride().value()) != Integer.MIN_VALUE
-                    && resolveInt(range.value()) != Integer.MIN_VALUE) {
-                domainTree.set(index, new IntDomain(resolveInt(range.offset().value()), resolveInt(range.stride().value()), resolveInt(range.value())));
+            int length = resolveInt(range.value());
+            if (length == Integer.MIN_VALUE) {
+                // Polymorphic kernel: the bound is read at runtime
+                final int argument = resolveDomainArgument(range.value(), context);
+                if (argument != -1) {
+                    length = resolveDomainLength(context.getArg(argument));
+                    domainArguments[index] = argument;
+                    dynamic = true;
+                }
+            }
+            if (index != lastIndex && resolveInt(range.offset().value()) != Integer.MIN_VALUE && resolveInt(range.stride().value()) != Integer.MIN_VALUE && length != Integer.MIN_VALUE) {
+                domainTree.set(index, new IntDomain(resolveInt(range.offset().value()), resolveInt(range.stride().value()), length));
             } else {
                 valid = false;
                 Tornado.info("unsupported multiple parallel loops");
@@ -102,6 +151,9 @@ public class TornadoShapeAnalysis extends BasePhase<TornadoHighTierContext> {
             Tornado.trace("loop nest depth = %d", domainTree.getDepth());
             Tornado.debug("discovered parallel domain: %s", domainTree);
             context.getMeta().setDomain(domainTree);
+            if (context.getMeta().getSpecialisation() == null) {
+                context.getMeta().setDomainArguments(dynamic ? domainArguments : null);
+            }
         }
     }
 
@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.function.Consumer;
 
+import uk.ac.manchester.tornado.api.KernelContext;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
@@ -59,6 +60,7 @@ public class TornadoExecutionContext {
     private final List<TornadoAcceleratorDevice> devices;
     private CallStack[] stacks;
     private final int[] taskToDevice;
+    private final int[][] argumentVariables;
     private int nextTask;
 
     private HashSet<TornadoAcceleratorDevice> lastDevices;
@@ -77,6 +79,7 @@ public class TornadoExecutionContext {
         stacks = new CallStack[MAX_TASKS];
         taskToDevice = new int[MAX_TASKS];
         Arrays.fill(taskToDevice, -1);
+        argumentVariables = new int[MAX_TASKS][];
         nextTask = 0;
         lastDevices = new HashSet<>();
     }
@@ -87,7 +90,8 @@ public class TornadoExecutionContext {
 
     public int insertVariable(Object var) {
         int index = -1;
-        if (var.getClass().isPrimitive() || RuntimeUtilities.isBoxedPrimitiveClass(var.getClass())) {
+        // The kernel context is not copied to the device, it is passed by value
+        if (var.getClass().isPrimitive() || RuntimeUtilities.isBoxedPrimitiveClass(var.getClass()) || var instanceof KernelContext) {
             index = constants.indexOf(var);
             if (index == -1) {
                 index = constants.size();
@@ -104,6 +108,49 @@ public class TornadoExecutionContext {
         return index;
     }
 
+    /**
+     * Records the indices of the variables passed as arguments to a task, in the
+     * order of its parameters.
+     */
+    public void setArgumentVariables(int taskIndex, int[] variables) {
+        argumentVariables[taskIndex] = variables;
+    }
+
+    /**
+     * Replaces an object of the task-schedule. The new object takes the index of
+     * the old one, so the TornadoVM bytecode remains valid.
+     *
+     * @return the index of the object, or -1 if it is not an object of the
+     *         task-schedule.
+     */
+    public int replaceVariable(Object oldVar, Object newVar) {
+        final Integer index = objectMap.get(oldVar.hashCode());
+        if (index == null || objects.get(index) != oldVar) {
+            return -1;
+        }
+        objectMap.remove(oldVar.hashCode());
+        objectMap.put(newVar.hashCode(), index);
+        objects.set(index, newVar);
+        objectState.set(index, objectState.get(index).rebind(newVar));
+        return index;
+    }
+
+    /**
+     * Replaces the scalar passed to a task at the given parameter position. The
+     * constant is found through the position rather than its value, since
+     * several arguments can hold equal values in different slots.
+     *
+     * @return the index of the constant, or -1 if the task has no such argument.
+     */
+    public int replaceConstant(int taskIndex, int position, Object newVar) {
+        final int[] variables = argumentVariables[taskIndex];
+        if (variables == null || position >= variables.length) {
+            return -1;
+        }
+        constants.set(variables[position], newVar);
+        return variables[position];
+    }
+
     public int getTaskCount() {
         return nextTask;
     }
@@ -125,6 +172,17 @@ public class TornadoExecutionContext {
         return index;
     }
 
+    /**
+     * Replaces the tasks of the task-schedule, e.g., after fusing tasks. The
+     * assignment of tasks to devices has to be computed again.
+     */
+    public void replaceTasks(List<SchedulableTask> newTasks) {
+        tasks.clear();
+        tasks.addAll(newTasks);
+        nextTask = 0;
+        Arrays.fill(taskToDevice, -1);
+    }
+
     public List<Object> getConstants() {
         return constants;
     }
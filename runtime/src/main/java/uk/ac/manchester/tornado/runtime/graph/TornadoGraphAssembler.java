@@ -76,6 +76,10 @@ public class TornadoGraphAssembler {
         return buffer.position();
     }
 
+    void position(int newPosition) {
+        buffer.position(newPosition);
+    }
+
     void begin() {
         buffer.put(TornadoVMBytecodes.BEGIN.value);
     }
@@ -29,11 +29,9 @@ import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Objects;
 
-import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
 import uk.ac.manchester.tornado.api.exceptions.TornadoInternalError;
-import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AbstractNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AllocateNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ConstantNode;
@@ -46,7 +44,6 @@ import uk.ac.manchester.tornado.runtime.graph.nodes.ObjectNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.StreamInNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.TaskNode;
 import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
-import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
 import uk.ac.manchester.tornado.runtime.tasks.LocalObjectState;
 import uk.ac.manchester.tornado.runtime.tasks.TornadoGraphBitcodes;
@@ -123,7 +120,7 @@ public class TornadoGraphBuilder {
                     } else {
                         final ObjectNode objectNode = (ObjectNode) arg;
                         final LocalObjectState state = states.get(objectNode.getIndex());
-                        if (state.isStreamIn()) {
+                        if (state.isStreamIn() && !state.isDeviceResident()) {
                             createStreamInNode(context, graph, objectNode, args, argIndex);
                         } else {
                             createCopyInNode(context, graph, arg, args, argIndex);
@@ -141,7 +138,7 @@ public class TornadoGraphBuilder {
                         value = (ObjectNode) objectNodes[variableIndex];
                     } else if (objectNodes[variableIndex] instanceof DependentReadNode) {
                         value = ((DependentReadNode) objectNodes[variableIndex]).getValue();
-                        if (states.get(variableIndex).isForcedStreamIn()) {
+                        if (states.get(variableIndex).isForcedStreamIn() && !states.get(variableIndex).isDeviceResident()) {
                             createStreamInNode(context, graph, value, args, argIndex);
                         }
                     } else if (objectNodes[variableIndex] instanceof CopyInNode) {
@@ -179,8 +176,7 @@ public class TornadoGraphBuilder {
                 context = graph.addUnique(new ContextNode(graphContext.getDeviceIndexForTask(globalTaskId)));
 
                 if (task instanceof CompilableTask) {
-                    final ResolvedJavaMethod resolvedMethod = TornadoCoreRuntime.getTornadoRuntime().resolveMethod(((CompilableTask) task).getMethod());
-                    Sketch sketch = TornadoSketcher.lookup(resolvedMethod);
+                    Sketch sketch = ((CompilableTask) task).getSketch();
                     accesses = sketch.getMeta().getArgumentsAccess();
                 } else {
                     accesses = task.getArgumentsAccess();
@@ -191,6 +187,10 @@ public class TornadoGraphBuilder {
         }
 
         for (int i = 0; i < states.size(); i++) {
+            if (states.get(i).isDeviceResident()) {
+                // The host copy is only updated through syncObject()
+                continue;
+            }
             if (states.get(i).isStreamOut()) {
                 if (objectNodes[i] instanceof DependentReadNode) {
                     final DependentReadNode readNode = (DependentReadNode) objectNodes[i];
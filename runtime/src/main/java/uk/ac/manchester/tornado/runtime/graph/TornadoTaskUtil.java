@@ -25,46 +25,321 @@
  */
 package uk.ac.manchester.tornado.runtime.graph;
 
+import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getDebugContext;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
 import java.util.List;
+
+import org.graalvm.collections.EconomicMap;
+import org.graalvm.collections.Equivalence;
+import org.graalvm.collections.UnmodifiableEconomicMap;
+import org.graalvm.compiler.core.common.type.StampPair;
+import org.graalvm.compiler.debug.DebugContext;
+import org.graalvm.compiler.graph.CachedGraph;
 import org.graalvm.compiler.graph.Node;
-import org.graalvm.compiler.loop.BasicInductionVariable;
-import org.graalvm.compiler.loop.LoopEx;
-import org.graalvm.compiler.loop.LoopsData;
+import org.graalvm.compiler.nodes.ConstantNode;
+import org.graalvm.compiler.nodes.FixedNode;
+import org.graalvm.compiler.nodes.FrameState;
+import org.graalvm.compiler.nodes.NodeView;
+import org.graalvm.compiler.nodes.ParameterNode;
+import org.graalvm.compiler.nodes.PiNode;
+import org.graalvm.compiler.nodes.ReturnNode;
 import org.graalvm.compiler.nodes.StructuredGraph;
+import org.graalvm.compiler.nodes.ValueNode;
+import org.graalvm.compiler.nodes.ValuePhiNode;
+import org.graalvm.compiler.nodes.calc.IsNullNode;
+import org.graalvm.compiler.nodes.java.ArrayLengthNode;
+import org.graalvm.compiler.nodes.java.LoadIndexedNode;
+import org.graalvm.compiler.nodes.java.StoreIndexedNode;
+import org.graalvm.compiler.nodes.util.GraphUtil;
 
+import jdk.vm.ci.meta.JavaConstant;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.runtime.common.RuntimeUtilities;
+import uk.ac.manchester.tornado.runtime.common.Tornado;
 import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.FusedTask;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 /**
+ * Fusion of producer/consumer tasks.
+ * <p>
+ * Two consecutive tasks are fused when the consumer reads an array written by
+ * the producer, both tasks run on the same device, both have a single parallel
+ * loop with the same iteration space, and every array shared by the two tasks
+ * (and written by any of them) is only accessed at the index of the parallel
+ * loop. Each thread of the fused kernel then reads exactly the elements it
+ * wrote, so no synchronisation is needed between the two loops.
+ *
  * @author James Clarkson
  */
-class TornadoTaskUtil {
-
-    private static LoopEx findParallelLoop(StructuredGraph graph) {
-        final LoopsData data = new LoopsData(graph);
-        data.detectedCountedLoops();
-
-        final List<LoopEx> loops = data.outerFirst();
-
-        List<ParallelRangeNode> parRanges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
-        for (LoopEx loop : loops) {
-            for (ParallelRangeNode parRange : parRanges) {
-                for (Node n : parRange.offset().usages()) {
-                    if (loop.getInductionVariables().containsKey(n)) {
-                        BasicInductionVariable iv = (BasicInductionVariable) loop.getInductionVariables().get(n);
-                        System.out.printf("[%d] parallel loop: %s -> init=%s, cond=%s, stride=%s, op=%s\n", parRange.index(), loop.loopBegin(), parRange.offset().value(), parRange.value(),
-                                parRange.stride(), iv.getOp());
-                        return loop;
+public class TornadoTaskUtil {
+
+    private static final long UNKNOWN = Long.MIN_VALUE;
+
+    private static ParallelRangeNode findParallelRange(StructuredGraph graph) {
+        final List<ParallelRangeNode> ranges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
+        return (ranges.size() == 1) ? ranges.get(0) : null;
+    }
+
+    private static ValuePhiNode findParallelIndex(ParallelRangeNode range) {
+        for (Node usage : range.offset().usages()) {
+            if (usage instanceof ValuePhiNode) {
+                return (ValuePhiNode) usage;
+            }
+        }
+        return null;
+    }
+
+    private static ReturnNode findReturn(StructuredGraph graph) {
+        final List<ReturnNode> returns = graph.getNodes(ReturnNode.TYPE).snapshot();
+        if (returns.size() != 1 || returns.get(0).result() != null) {
+            return null;
+        }
+        return returns.get(0);
+    }
+
+    private static long resolveValue(ValueNode value, Object[] args) {
+        final ValueNode node = GraphUtil.unproxify(value);
+        if (node instanceof ConstantNode) {
+            final JavaConstant constant = ((ConstantNode) node).asJavaConstant();
+            return (constant != null && constant.getJavaKind().isNumericInteger()) ? constant.asLong() : UNKNOWN;
+        } else if (node instanceof ParameterNode) {
+            final Object arg = args[((ParameterNode) node).index()];
+            return (arg instanceof Integer || arg instanceof Long) ? ((Number) arg).longValue() : UNKNOWN;
+        } else if (node instanceof ArrayLengthNode) {
+            final ValueNode array = GraphUtil.unproxify(((ArrayLengthNode) node).array());
+            if (array instanceof ParameterNode) {
+                final Object arg = args[((ParameterNode) array).index()];
+                return (arg != null && arg.getClass().isArray()) ? Array.getLength(arg) : UNKNOWN;
+            }
+        }
+        return UNKNOWN;
+    }
+
+    private static boolean sameIterationSpace(ParallelRangeNode r1, Object[] args1, ParallelRangeNode r2, Object[] args2) {
+        final ValueNode[] values1 = { r1.offset().value(), r1.stride().value(), r1.value() };
+        final ValueNode[] values2 = { r2.offset().value(), r2.stride().value(), r2.value() };
+        for (int i = 0; i < values1.length; i++) {
+            final long v1 = resolveValue(values1[i], args1);
+            if (v1 == UNKNOWN || v1 != resolveValue(values2[i], args2)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks that the array is only read and written at the given index.
+     */
+    private static boolean isAccessedAtIndex(ValueNode array, ValueNode index) {
+        if (array == null) {
+            return true;
+        }
+        for (Node usage : array.usages()) {
+            if (usage instanceof LoadIndexedNode) {
+                if (((LoadIndexedNode) usage).index() != index) {
+                    return false;
+                }
+            } else if (usage instanceof StoreIndexedNode) {
+                final StoreIndexedNode store = (StoreIndexedNode) usage;
+                if (store.array() != array || store.index() != index) {
+                    return false;
+                }
+            } else if (usage instanceof PiNode) {
+                if (!isAccessedAtIndex((PiNode) usage, index)) {
+                    return false;
+                }
+            } else if (!(usage instanceof ArrayLengthNode || usage instanceof IsNullNode || usage instanceof FrameState)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isRead(Access access) {
+        return access == Access.READ || access == Access.READ_WRITE || access == Access.UNKNOWN;
+    }
+
+    private static boolean isWrite(Access access) {
+        return access == Access.WRITE || access == Access.READ_WRITE || access == Access.UNKNOWN;
+    }
+
+    /**
+     * Access of an argument used by a producer and then by a consumer. The
+     * argument is read from the host only if the first task that uses it reads
+     * it.
+     */
+    private static Access combine(Access first, Access second) {
+        final boolean read = isRead(first) || (first == Access.NONE && isRead(second));
+        final boolean write = isWrite(first) || isWrite(second);
+        if (read && write) {
+            return Access.READ_WRITE;
+        } else if (write) {
+            return Access.WRITE;
+        } else if (read) {
+            return Access.READ;
+        }
+        return Access.NONE;
+    }
+
+    private static boolean isReference(Object arg) {
+        return arg != null && !RuntimeUtilities.isBoxedPrimitiveClass(arg.getClass());
+    }
+
+    /**
+     * Appends the graph of the consumer after the graph of the producer. The
+     * parameters of the consumer are replaced by the parameters of the fused
+     * graph given by parameterMap.
+     */
+    static StructuredGraph merge(StructuredGraph g1, StructuredGraph g2, int[] parameterMap) {
+        final StructuredGraph fused = (StructuredGraph) g1.copy(getDebugContext());
+        final ReturnNode producerReturn = findReturn(fused);
+        final ReturnNode consumerReturn = findReturn(g2);
+        if (producerReturn == null || consumerReturn == null) {
+            return null;
+        }
+
+        final EconomicMap<Node, Node> replacements = EconomicMap.create(Equivalence.IDENTITY);
+        replacements.put(g2.start(), fused.start());
+        for (ParameterNode parameter : g2.getNodes(ParameterNode.TYPE)) {
+            final int index = parameterMap[parameter.index()];
+            ParameterNode fusedParameter = fused.getParameter(index);
+            if (fusedParameter == null) {
+                fusedParameter = fused.addWithoutUnique(new ParameterNode(index, StampPair.createSingle(parameter.stamp(NodeView.DEFAULT))));
+            }
+            replacements.put(parameter, fusedParameter);
+        }
+
+        final List<Node> nodes = new ArrayList<>();
+        for (Node node : g2.getNodes()) {
+            if (node != g2.start() && !(node instanceof ParameterNode)) {
+                nodes.add(node);
+            }
+        }
+
+        final UnmodifiableEconomicMap<Node, Node> duplicates = fused.addDuplicates(nodes, g2, nodes.size(), replacements);
+        final FixedNode consumerEntry = (FixedNode) duplicates.get(g2.start().next());
+        producerReturn.replaceAtPredecessor(consumerEntry);
+        GraphUtil.killCFG(producerReturn);
+        getDebugContext().dump(DebugContext.BASIC_LEVEL, fused, "after fusing " + g2.method().getName());
+        return fused;
+    }
+
+    private static String getLocalId(String scheduleId, SchedulableTask task) {
+        final String id = task.getId();
+        return id.startsWith(scheduleId + ".") ? id.substring(scheduleId.length() + 1) : id;
+    }
+
+    private static FusedTask fuse(TornadoExecutionContext context, SchedulableTask producerTask, SchedulableTask consumerTask) {
+        if (!(producerTask instanceof CompilableTask) || !(consumerTask instanceof CompilableTask) || !producerTask.getDevice().equals(consumerTask.getDevice())) {
+            return null;
+        }
+        final CompilableTask producer = (CompilableTask) producerTask;
+        final CompilableTask consumer = (CompilableTask) consumerTask;
+        if (!Modifier.isStatic(producer.getMethod().getModifiers()) || !Modifier.isStatic(consumer.getMethod().getModifiers())) {
+            return null;
+        }
+
+        final Sketch producerSketch = producer.getSketch();
+        final Sketch consumerSketch = consumer.getSketch();
+        final StructuredGraph g1 = (StructuredGraph) producerSketch.getGraph().getReadonlyCopy();
+        final StructuredGraph g2 = (StructuredGraph) consumerSketch.getGraph().getReadonlyCopy();
+        final ParallelRangeNode r1 = findParallelRange(g1);
+        final ParallelRangeNode r2 = findParallelRange(g2);
+        if (r1 == null || r2 == null) {
+            return null;
+        }
+        final ValuePhiNode index1 = findParallelIndex(r1);
+        final ValuePhiNode index2 = findParallelIndex(r2);
+        final Object[] args1 = producer.getArguments();
+        final Object[] args2 = consumer.getArguments();
+        if (index1 == null || index2 == null || !sameIterationSpace(r1, args1, r2, args2)) {
+            return null;
+        }
+
+        final Access[] accesses1 = producerSketch.getMeta().getArgumentsAccess();
+        final Access[] accesses2 = consumerSketch.getMeta().getArgumentsAccess();
+
+        final List<Object> args = new ArrayList<>();
+        final List<Access> accesses = new ArrayList<>();
+        for (int i = 0; i < args1.length; i++) {
+            args.add(args1[i]);
+            accesses.add(accesses1[i]);
+        }
+
+        final int[] parameterMap = new int[args2.length];
+        boolean dependent = false;
+        for (int i = 0; i < args2.length; i++) {
+            parameterMap[i] = -1;
+            if (isReference(args2[i])) {
+                for (int j = 0; j < args1.length; j++) {
+                    if (args1[j] != args2[i]) {
+                        continue;
+                    }
+                    if (isWrite(accesses1[j]) || isWrite(accesses2[i])) {
+                        if (!isAccessedAtIndex(g1.getParameter(j), index1) || !isAccessedAtIndex(g2.getParameter(i), index2)) {
+                            return null;
+                        }
+                    }
+                    dependent |= isWrite(accesses1[j]) && isRead(accesses2[i]);
+                    if (parameterMap[i] == -1) {
+                        parameterMap[i] = j;
+                        accesses.set(j, combine(accesses.get(j), accesses2[i]));
                     }
                 }
             }
+            if (parameterMap[i] == -1) {
+                parameterMap[i] = args.size();
+                args.add(args2[i]);
+                accesses.add(accesses2[i]);
+            }
         }
-        return null;
+
+        if (!dependent) {
+            return null;
+        }
+
+        final StructuredGraph fusedGraph = merge(g1, g2, parameterMap);
+        if (fusedGraph == null) {
+            return null;
+        }
+
+        final String id = getLocalId(context.getId(), producer) + "_" + getLocalId(context.getId(), consumer);
+        final TaskMetaData sketchMeta = new TaskMetaData(context.meta(), id, args.size());
+        for (int i = 0; i < accesses.size(); i++) {
+            sketchMeta.getArgumentsAccess()[i] = accesses.get(i);
+        }
+        final Sketch sketch = new Sketch(CachedGraph.fromReadonlyCopy(fusedGraph), sketchMeta);
+
+        final FusedTask fusedTask = new FusedTask(context.meta(), id, producer, consumer, sketch, args.toArray());
+        fusedTask.mapTo(producer.getDevice());
+        Tornado.info("fused tasks %s and %s into %s", producer.getId(), consumer.getId(), fusedTask.getId());
+        return fusedTask;
     }
 
-    public static StructuredGraph merge(CompilableTask t1, CompilableTask t2, StructuredGraph g1, StructuredGraph g2, int[] merges) {
-        LoopEx l1 = findParallelLoop(g1);
-        LoopEx l2 = findParallelLoop(g2);
-        return null;
+    /**
+     * Fuses consecutive producer/consumer tasks of the task-schedule.
+     *
+     * @return list of tasks after fusion, in execution order.
+     */
+    public static List<SchedulableTask> fuseTasks(TornadoExecutionContext context) {
+        final List<SchedulableTask> tasks = new ArrayList<>();
+        for (SchedulableTask task : context.getTasks()) {
+            if (!tasks.isEmpty()) {
+                final FusedTask fusedTask = fuse(context, tasks.get(tasks.size() - 1), task);
+                if (fusedTask != null) {
+                    tasks.set(tasks.size() - 1, fusedTask);
+                    continue;
+                }
+            }
+            tasks.add(task);
+        }
+        return tasks;
     }
 }
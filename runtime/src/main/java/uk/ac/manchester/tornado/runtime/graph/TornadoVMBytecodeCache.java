@@ -0,0 +1,137 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.graph;
+
+import static uk.ac.manchester.tornado.runtime.common.Tornado.getProperty;
+
+import java.lang.reflect.Array;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
+import uk.ac.manchester.tornado.runtime.tasks.FusedTask;
+import uk.ac.manchester.tornado.runtime.tasks.LocalObjectState;
+
+/**
+ * Cache of TornadoVM bytecode shared by all task-schedules.
+ * <p>
+ * The bytecode refers to tasks, objects and constants by their index in the
+ * {@link TornadoExecutionContext}, so it can be reused by any task-schedule
+ * with the same structure. The key of an entry contains the high-level code of
+ * the task-schedule (which captures the kind of every argument and the
+ * arguments shared between tasks), the method, access of the arguments and
+ * device of every task, the type, length and transfer mode of every object, the
+ * type of every constant and the batch size. A fused task is also identified by
+ * the method of its consumer, and with {@code tornado.batch.auto} the key
+ * contains the batch size computed for the device, not -1. A task-schedule that hits the
+ * cache only has to bind its own objects to a new TornadoVM.
+ * </p>
+ */
+public class TornadoVMBytecodeCache {
+
+    private static final int MAX_ENTRIES = Integer.parseInt(getProperty("tornado.tvm.cache.size", "256"));
+
+    private static final Map<List<Object>, TornadoVMGraphCompilationResult> cache = new LinkedHashMap<List<Object>, TornadoVMGraphCompilationResult>(16, 0.75f, true) {
+        private static final long serialVersionUID = 1L;
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<Object>, TornadoVMGraphCompilationResult> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private TornadoVMBytecodeCache() {
+    }
+
+    /**
+     * Builds the key of a task-schedule.
+     *
+     * @param context
+     *            execution context of the task-schedule, with the tasks assigned
+     *            to devices.
+     * @param highLevelCode
+     *            high-level code of the task-schedule.
+     * @param highLevelCodeSize
+     *            bytes in use of the high-level code.
+     * @param batchSize
+     *            batch size in bytes, or -1.
+     * @return the key of the task-schedule.
+     */
+    public static List<Object> buildKey(TornadoExecutionContext context, byte[] highLevelCode, int highLevelCodeSize, long batchSize) {
+        final List<Object> key = new ArrayList<>();
+        final List<SchedulableTask> tasks = context.getTasks();
+        if (batchSize == -1 && TornadoOptions.AUTO_BATCH && !tasks.isEmpty()) {
+            batchSize = TornadoVMGraphCompiler.computeAutoBatchSize(context, context.getDeviceForTask(0));
+        }
+        key.add(ByteBuffer.wrap(Arrays.copyOf(highLevelCode, highLevelCodeSize)));
+        key.add(batchSize);
+
+        for (int i = 0; i < tasks.size(); i++) {
+            final SchedulableTask task = tasks.get(i);
+            key.add(task.getClass());
+            key.add((task instanceof CompilableTask) ? ((CompilableTask) task).getMethod() : null);
+            key.add((task instanceof FusedTask) ? ((FusedTask) task).getConsumer().getMethod() : null);
+            key.add(task.getTaskName());
+            key.add(Arrays.asList(TornadoVMGraphCompiler.getArgumentsAccess(task)));
+            key.add(context.getDeviceIndexForTask(i));
+            key.add(context.getDeviceForTask(i));
+        }
+
+        final List<Object> objects = context.getObjects();
+        final List<LocalObjectState> states = context.getObjectStates();
+        for (int i = 0; i < objects.size(); i++) {
+            final Object object = objects.get(i);
+            final LocalObjectState state = states.get(i);
+            key.add(object.getClass());
+            key.add(object.getClass().isArray() ? Array.getLength(object) : -1);
+            key.add(state.isStreamIn());
+            key.add(state.isForcedStreamIn());
+            key.add(state.isStreamOut());
+            key.add(state.isDeviceResident());
+        }
+
+        for (Object constant : context.getConstants()) {
+            key.add(constant.getClass());
+        }
+        return key;
+    }
+
+    public static TornadoVMGraphCompilationResult lookup(List<Object> key) {
+        synchronized (cache) {
+            return cache.get(key);
+        }
+    }
+
+    public static void insert(List<Object> key, TornadoVMGraphCompilationResult result) {
+        synchronized (cache) {
+            cache.put(key, result);
+        }
+    }
+}
@@ -63,21 +63,24 @@ public class TornadoVMGraphCompilationResult {
         globalTaskID++;
     }
 
-    void emitAsyncNode(AbstractNode node, int contextID, int dependencyBC, long offset, long batchSize, long nThreads) {
+    void emitAsyncNode(AbstractNode node, int contextID, int dependencyBC, long[] offsets, long[] batchSizes, long launchOffset, long nThreads) {
         if (node instanceof CopyInNode) {
-            bitcodeASM.copyToContext(((CopyInNode) node).getValue().getIndex(), contextID, dependencyBC, offset, batchSize);
+            final int index = ((CopyInNode) node).getValue().getIndex();
+            bitcodeASM.copyToContext(index, contextID, dependencyBC, offsets[index], batchSizes[index]);
         } else if (node instanceof AllocateNode) {
-            bitcodeASM.allocate(((AllocateNode) node).getValue().getIndex(), contextID, batchSize);
+            final int index = ((AllocateNode) node).getValue().getIndex();
+            bitcodeASM.allocate(index, contextID, batchSizes[index]);
         } else if (node instanceof CopyOutNode) {
             ObjectNode value = ((CopyOutNode) node).getValue().getValue();
             if (value != null) {
-                bitcodeASM.streamOutOfContext(value.getIndex(), contextID, dependencyBC, offset, batchSize);
+                bitcodeASM.streamOutOfContext(value.getIndex(), contextID, dependencyBC, offsets[value.getIndex()], batchSizes[value.getIndex()]);
             }
         } else if (node instanceof StreamInNode) {
-            bitcodeASM.streamInToContext(((StreamInNode) node).getValue().getIndex(), contextID, dependencyBC, offset, batchSize);
+            final int index = ((StreamInNode) node).getValue().getIndex();
+            bitcodeASM.streamInToContext(index, contextID, dependencyBC, offsets[index], batchSizes[index]);
         } else if (node instanceof TaskNode) {
             final TaskNode taskNode = (TaskNode) node;
-            bitcodeASM.launch(globalTaskID, taskNode.getContext().getDeviceIndex(), taskNode.getTaskIndex(), taskNode.getNumArgs(), dependencyBC, offset, nThreads);
+            bitcodeASM.launch(globalTaskID, taskNode.getContext().getDeviceIndex(), taskNode.getTaskIndex(), taskNode.getNumArgs(), dependencyBC, launchOffset, nThreads);
             emitArgList(taskNode);
             incTaskID();
         }
@@ -119,4 +122,11 @@ public class TornadoVMGraphCompilationResult {
         return bitcodeASM.position();
     }
 
+    /**
+     * Truncates the code after it has been rewritten in place.
+     */
+    void setCodeSize(int size) {
+        bitcodeASM.position(size);
+    }
+
 }
@@ -27,31 +27,29 @@ package uk.ac.manchester.tornado.runtime.graph;
 
 import java.lang.reflect.Array;
 import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
-import org.graalvm.compiler.graph.Node;
-import org.graalvm.compiler.loop.BasicInductionVariable;
-import org.graalvm.compiler.loop.LoopEx;
-import org.graalvm.compiler.loop.LoopsData;
-import org.graalvm.compiler.nodes.StructuredGraph;
-
-import jdk.vm.ci.meta.ResolvedJavaMethod;
+import uk.ac.manchester.tornado.api.common.Access;
+import uk.ac.manchester.tornado.api.common.SchedulableTask;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
-import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.Tornado;
-import uk.ac.manchester.tornado.runtime.graal.nodes.ParallelRangeNode;
+import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
+import uk.ac.manchester.tornado.runtime.graal.backend.TornadoBackend;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraphAssembler.TornadoVMBytecodes;
 import uk.ac.manchester.tornado.runtime.graph.nodes.AbstractNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ContextNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ContextOpNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.DependentReadNode;
 import uk.ac.manchester.tornado.runtime.graph.nodes.TaskNode;
-import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
-import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.CompilableTask;
 
 public class TornadoVMGraphCompiler {
@@ -68,6 +66,12 @@ public class TornadoVMGraphCompiler {
         dataTypesSize.put(double.class, (byte) 8);
     }
 
+    /**
+     * Bytes reserved per array for the array header and the alignment of the
+     * device buffer.
+     */
+    private static final long ARRAY_HEADER_RESERVE = 128;
+
     /**
      * Generate TornadoVM byte-code from a Tornado Task Graph.
      * 
@@ -80,6 +84,9 @@ public class TornadoVMGraphCompiler {
         if (deviceContexts.cardinality() == 1) {
             final ContextNode contextNode = (ContextNode) graph.getNode(deviceContexts.nextSetBit(0));
             int deviceIndex = contextNode.getDeviceIndex();
+            if (batchSize == -1 && TornadoOptions.AUTO_BATCH) {
+                batchSize = computeAutoBatchSize(context, context.getDevice(deviceIndex));
+            }
             return compileSingleContext(graph, context, batchSize);
         } else {
             throw new TornadoRuntimeException("Multiple-Contexts are not currently supported");
@@ -88,69 +95,199 @@ public class TornadoVMGraphCompiler {
 
     private static class BatchSizeMetaData {
 
-        private int totalChunks;
-        private int remainingChunkSize;
-        private short numBytesType;
+        private long totalChunks;
+        private long elementsPerChunk;
+        private long remainingElements;
+        private long[] strides;
 
-        BatchSizeMetaData(int totalChunks, int remainingChunkSize, short numBytesType) {
+        BatchSizeMetaData(long totalChunks, long elementsPerChunk, long remainingElements, long[] strides) {
             this.totalChunks = totalChunks;
-            this.remainingChunkSize = remainingChunkSize;
-            this.numBytesType = numBytesType;
+            this.elementsPerChunk = elementsPerChunk;
+            this.remainingElements = remainingElements;
+            this.strides = strides;
         }
 
-        private int getTotalChunks() {
+        private long getTotalChunks() {
             return totalChunks;
         }
 
-        private int getRemainingChunkSize() {
-            return remainingChunkSize;
+        private long getElementsPerChunk() {
+            return elementsPerChunk;
         }
 
-        private short getNumBytesType() {
-            return numBytesType;
+        private long getRemainingElements() {
+            return remainingElements;
         }
-    }
 
-    private static BatchSizeMetaData computeChunkSizes(TornadoExecutionContext context, long batchSize) {
-        // Get the size of the batch
-        List<Object> inputObjects = context.getObjects();
-        long totalSize = 0;
-        byte typeSize = 1;
+        /**
+         * Offset in bytes of every object for the given chunk.
+         */
+        private long[] getOffsets(long chunk) {
+            final long[] offsets = new long[strides.length];
+            for (int i = 0; i < strides.length; i++) {
+                offsets[i] = chunk * elementsPerChunk * strides[i];
+            }
+            return offsets;
+        }
 
-        HashSet<Class<?>> classObjects = new HashSet<>();
-        HashSet<Long> inputSizes = new HashSet<>();
+        /**
+         * Size in bytes of every object for a chunk of the given number of elements.
+         */
+        private long[] getBatchSizes(long numElements) {
+            final long[] sizes = new long[strides.length];
+            for (int i = 0; i < strides.length; i++) {
+                sizes[i] = numElements * strides[i];
+            }
+            return sizes;
+        }
+    }
 
-        // XXX: Get a list for all objects
-        for (Object o : inputObjects) {
+    /**
+     * Returns the size in bytes of one element of the array, or -1 if the type is
+     * not supported for processing in batches.
+     */
+    private static long getElementSize(Object object) {
+        final Byte size = dataTypesSize.get(object.getClass().getComponentType());
+        return (size == null) ? -1 : size;
+    }
+
+    /**
+     * The iteration space of a batched schedule is given by the shortest array.
+     * Every other array must hold a whole number of elements per iteration, which
+     * gives its stride.
+     *
+     * @return the number of iterations, or -1 if an array is not supported for
+     *         processing in batches.
+     */
+    private static long getIterationSpace(List<Object> objects) {
+        long numElements = Long.MAX_VALUE;
+        for (Object o : objects) {
             if (o.getClass().isArray()) {
-                Class<?> componentType = o.getClass().getComponentType();
-                if (dataTypesSize.get(componentType) == null) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Data type not supported for processing in batches");
-                }
-                long size = Array.getLength(o);
-                typeSize = dataTypesSize.get(componentType);
-                totalSize = size * typeSize;
-
-                classObjects.add(componentType);
-                inputSizes.add(totalSize);
-                if (classObjects.size() > 1) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Input objects with different data types not currently supported");
-                }
-                if (inputSizes.size() > 1) {
-                    throw new TornadoRuntimeException("[UNSUPPORTED] Input objects with different sizes not currently supported");
+                if (getElementSize(o) == -1) {
+                    return -1;
                 }
+                numElements = Math.min(numElements, Array.getLength(o));
+            }
+        }
+        if (numElements == Long.MAX_VALUE || numElements == 0) {
+            return -1;
+        }
+        for (Object o : objects) {
+            if (o.getClass().isArray() && Array.getLength(o) % numElements != 0) {
+                return -1;
+            }
+        }
+        return numElements;
+    }
+
+    /**
+     * Bytes of every object that are processed per iteration (0 for non-array
+     * objects).
+     */
+    private static long[] computeStrides(List<Object> objects, long numElements) {
+        final long[] strides = new long[objects.size()];
+        for (int i = 0; i < objects.size(); i++) {
+            final Object o = objects.get(i);
+            if (o.getClass().isArray()) {
+                strides[i] = (Array.getLength(o) / numElements) * getElementSize(o);
+            }
+        }
+        return strides;
+    }
+
+    private static long getDeviceHeapBudget(TornadoAcceleratorDevice device) {
+        long budget = device.getMemoryProvider().getHeapRemaining();
+        if (budget <= 0) {
+            // The heap has not been allocated yet
+            budget = Math.min(TornadoBackend.DEFAULT_HEAP_ALLOCATION, device.getMaxAllocMemory());
+        }
+        return budget;
+    }
+
+    /**
+     * Computes a batch size so that the data of the task-schedule fits in the
+     * remaining device heap and every chunk fits in a single device allocation.
+     *
+     * @param context
+     *            execution context of the task-schedule.
+     * @param device
+     *            target device.
+     * @return the batch size in bytes, or -1 if the data fits on the device or it
+     *         cannot be processed in batches.
+     */
+    public static long computeAutoBatchSize(TornadoExecutionContext context, TornadoAcceleratorDevice device) {
+        final List<Object> objects = context.getObjects();
+        final long numElements = getIterationSpace(objects);
+        if (numElements == -1) {
+            return -1;
+        }
+
+        final long[] strides = computeStrides(objects, numElements);
+        long bytesPerElement = 0;
+        long maxStride = 0;
+        long headers = 0;
+        for (long stride : strides) {
+            if (stride > 0) {
+                bytesPerElement += stride;
+                maxStride = Math.max(maxStride, stride);
+                headers += ARRAY_HEADER_RESERVE;
+            }
+        }
+
+        final long budget = getDeviceHeapBudget(device) - headers;
+        final long maxAllocation = device.getMaxAllocMemory() - ARRAY_HEADER_RESERVE;
+        if (bytesPerElement * numElements <= budget && maxStride * numElements <= maxAllocation) {
+            return -1;
+        }
+
+        final long elementsPerChunk = Math.min(budget / bytesPerElement, maxAllocation / maxStride);
+        if (elementsPerChunk <= 0) {
+            return -1;
+        }
+
+        if (Tornado.DEBUG) {
+            System.out.println("Automatic batch: " + elementsPerChunk + " elements per chunk (" + (elementsPerChunk * maxStride) + " bytes) on " + device);
+        }
+        return elementsPerChunk * maxStride;
+    }
+
+    private static BatchSizeMetaData computeChunkSizes(TornadoExecutionContext context, long batchSize) {
+        final List<Object> inputObjects = context.getObjects();
+
+        for (Object o : inputObjects) {
+            if (o.getClass().isArray() && getElementSize(o) == -1) {
+                throw new TornadoRuntimeException("[UNSUPPORTED] Data type not supported for processing in batches");
             }
         }
 
-        int totalChunks = (int) (totalSize / batchSize);
-        int remainingChunkSize = (int) (totalSize % batchSize);
+        final long numElements = getIterationSpace(inputObjects);
+        if (numElements == -1) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] The length of every input array must be a multiple of the shortest array for processing in batches");
+        }
+
+        // The batch size bounds the chunk of the array with the largest stride
+        final long[] strides = computeStrides(inputObjects, numElements);
+        long maxStride = 1;
+        for (long stride : strides) {
+            maxStride = Math.max(maxStride, stride);
+        }
+
+        final long elementsPerChunk = batchSize / maxStride;
+        if (elementsPerChunk == 0) {
+            throw new TornadoRuntimeException("[ERROR] Batch size (" + batchSize + " bytes) is smaller than one element of the input data (" + maxStride + " bytes)");
+        }
+
+        final long totalChunks = numElements / elementsPerChunk;
+        final long remainingElements = numElements % elementsPerChunk;
+        context.meta().setBatchElements(numElements);
 
         if (Tornado.DEBUG) {
             System.out.println("Batch Size: " + batchSize);
+            System.out.println("Elements per chunk: " + elementsPerChunk);
             System.out.println("Total chunks: " + totalChunks);
-            System.out.println("remainingChunkSize: " + remainingChunkSize);
+            System.out.println("remainingElements: " + remainingElements);
         }
-        return new BatchSizeMetaData(totalChunks, remainingChunkSize, typeSize);
+        return new BatchSizeMetaData(totalChunks, elementsPerChunk, remainingElements, strides);
     }
 
     /*
@@ -190,24 +327,30 @@ public class TornadoVMGraphCompiler {
 
         if (batchSize != -1) {
             // compute in batches
-            long offset = 0;
-            long nthreads = batchSize / sizeBatch.getNumBytesType();
-            for (int i = 0; i < sizeBatch.getTotalChunks(); i++) {
-                offset = (batchSize * i);
-                scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies, offset, batchSize, nthreads);
+            final long elementsPerChunk = sizeBatch.getElementsPerChunk();
+            for (long i = 0; i < sizeBatch.getTotalChunks(); i++) {
+                scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies, sizeBatch.getOffsets(i), sizeBatch.getBatchSizes(elementsPerChunk), i * elementsPerChunk, elementsPerChunk);
             }
             // Last chunk
-            if (sizeBatch.getRemainingChunkSize() != 0) {
-                offset += (batchSize);
-                nthreads = sizeBatch.getRemainingChunkSize() / sizeBatch.getNumBytesType();
-                long realBatchSize = sizeBatch.getTotalChunks() == 0 ? 0 : sizeBatch.getRemainingChunkSize();
-                long realOffsetSize = sizeBatch.getTotalChunks() == 0 ? 0 : offset;
-                scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies, realOffsetSize, realBatchSize, nthreads);
+            if (sizeBatch.getRemainingElements() != 0) {
+                final long remaining = sizeBatch.getRemainingElements();
+                final int numObjects = context.getObjects().size();
+                long[] offsets = sizeBatch.getOffsets(sizeBatch.getTotalChunks());
+                long[] batchSizes = sizeBatch.getBatchSizes(remaining);
+                if (sizeBatch.getTotalChunks() == 0) {
+                    offsets = new long[numObjects];
+                    batchSizes = new long[numObjects];
+                }
+                scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies, offsets, batchSizes, sizeBatch.getTotalChunks() * elementsPerChunk, remaining);
             }
 
         } else {
             // Generate bytecodes with no batches
-            scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies);
+            scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, dependencies, context.getObjects().size());
+        }
+
+        if (TornadoOptions.OPTIMISE_TRANSFERS) {
+            optimise(result, context);
         }
 
         // Last operation -> perform synchronisation
@@ -219,6 +362,223 @@ public class TornadoVMGraphCompiler {
         return result;
     }
 
+    private static class Instruction {
+
+        private final int position;
+        private int length;
+        private byte op;
+        private int object;
+        private int dependency;
+        private long offset;
+        private long size;
+        private int task;
+        private int[] references;
+        private boolean removed;
+
+        Instruction(int position, byte op) {
+            this.position = position;
+            this.op = op;
+            this.object = -1;
+            this.dependency = -1;
+        }
+
+        private boolean isTransferIn() {
+            return op == TornadoVMBytecodes.COPY_IN.value() || op == TornadoVMBytecodes.STREAM_IN.value();
+        }
+
+        private boolean isLaunch() {
+            return op == TornadoVMBytecodes.LAUNCH.value();
+        }
+    }
+
+    private static List<Instruction> decode(byte[] code, int codeSize) {
+        final ByteBuffer buffer = ByteBuffer.wrap(code, 0, codeSize);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+        final List<Instruction> instructions = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            final Instruction instruction = new Instruction(buffer.position(), buffer.get());
+            final byte op = instruction.op;
+            if (op == TornadoVMBytecodes.ALLOCATE.value()) {
+                instruction.object = buffer.getInt();
+                buffer.getInt();
+                instruction.size = buffer.getLong();
+            } else if (op == TornadoVMBytecodes.COPY_IN.value() || op == TornadoVMBytecodes.STREAM_IN.value() || op == TornadoVMBytecodes.STREAM_OUT.value()
+                    || op == TornadoVMBytecodes.STREAM_OUT_BLOCKING.value()) {
+                instruction.object = buffer.getInt();
+                buffer.getInt();
+                instruction.dependency = buffer.getInt();
+                instruction.offset = buffer.getLong();
+                instruction.size = buffer.getLong();
+            } else if (op == TornadoVMBytecodes.LAUNCH.value()) {
+                buffer.getInt();
+                buffer.getInt();
+                instruction.task = buffer.getInt();
+                final int numArgs = buffer.getInt();
+                instruction.dependency = buffer.getInt();
+                instruction.offset = buffer.getLong();
+                instruction.size = buffer.getLong();
+                instruction.references = new int[numArgs];
+                for (int i = 0; i < numArgs; i++) {
+                    final byte argType = buffer.get();
+                    final int argIndex = buffer.getInt();
+                    instruction.references[i] = (argType == TornadoVMBytecodes.REFERENCE_ARGUMENT.value()) ? argIndex : -1;
+                }
+            } else if (op == TornadoVMBytecodes.SETUP.value()) {
+                buffer.getInt();
+                buffer.getInt();
+                buffer.getInt();
+            } else if (op == TornadoVMBytecodes.BARRIER.value() || op == TornadoVMBytecodes.ADD_DEP.value() || op == TornadoVMBytecodes.CONTEXT.value()) {
+                buffer.getInt();
+            } else if (op != TornadoVMBytecodes.BEGIN.value() && op != TornadoVMBytecodes.END.value()) {
+                throw new TornadoRuntimeException("[ERROR] Invalid TornadoVM bytecode: " + op);
+            }
+            instruction.length = buffer.position() - instruction.position;
+            instructions.add(instruction);
+        }
+        return instructions;
+    }
+
+    /**
+     * Bytes moved by a transfer: the size of the chunk when processing in
+     * batches, or the size of the whole array otherwise.
+     */
+    private static long getTransferSize(TornadoExecutionContext context, Instruction transfer) {
+        if (transfer.size > 0) {
+            return transfer.size;
+        }
+        final Object object = context.getObjects().get(transfer.object);
+        if (object.getClass().isArray() && getElementSize(object) != -1) {
+            return Array.getLength(object) * getElementSize(object);
+        }
+        return 0;
+    }
+
+    /**
+     * Accesses of the arguments of a task. The accesses of a compilable task are
+     * in the meta-data of its sketch, since the task itself does not have them
+     * until it is compiled.
+     */
+    public static Access[] getArgumentsAccess(SchedulableTask task) {
+        if (task instanceof CompilableTask) {
+            return ((CompilableTask) task).getSketch().getMeta().getArgumentsAccess();
+        }
+        return task.getArgumentsAccess();
+    }
+
+    /**
+     * Removes redundant data transfers from the TornadoVM bytecode of a
+     * single-context task-schedule:
+     * <ul>
+     * <li>A COPY_IN or STREAM_IN of an object that no later task uses is dead and
+     * it is removed.</li>
+     * <li>A STREAM_IN that repeats a previous transfer of the same chunk of an
+     * object, which no task has written since, is downgraded to COPY_IN. The host
+     * copy cannot change while the bytecode executes, so the device copy is still
+     * up-to-date.</li>
+     * <li>A COPY_IN that repeats a previous transfer with no task launched in
+     * between is merged with it.</li>
+     * </ul>
+     * Transfers that wait on an event list are only downgraded, never removed, so
+     * the event lists are consumed as before. COPY_IN and STREAM_IN do not update
+     * the last event, so the ADD_DEP that follow a removed transfer are kept.
+     *
+     * @param result
+     *            bytecode of the task-schedule, rewritten in place.
+     * @param context
+     *            execution context of the task-schedule.
+     */
+    private static void optimise(TornadoVMGraphCompilationResult result, TornadoExecutionContext context) {
+        final byte[] code = result.getCode();
+        final List<Instruction> instructions = decode(code, result.getCodeSize());
+
+        // Backwards pass: an input transfer is dead if no task uses the object
+        // afterwards
+        final boolean[] dead = new boolean[instructions.size()];
+        final Set<Integer> used = new HashSet<>();
+        for (int i = instructions.size() - 1; i >= 0; i--) {
+            final Instruction instruction = instructions.get(i);
+            if (instruction.isLaunch()) {
+                for (int reference : instruction.references) {
+                    if (reference != -1) {
+                        used.add(reference);
+                    }
+                }
+            } else if (instruction.isTransferIn()) {
+                dead[i] = !used.contains(instruction.object);
+            }
+        }
+
+        // Forward pass: last transfer of every object that is still up-to-date on
+        // the device, and the number of tasks launched before it
+        final int numObjects = context.getObjects().size();
+        final Instruction[] lastTransfer = new Instruction[numObjects];
+        final int[] launchesAtTransfer = new int[numObjects];
+        int launches = 0;
+        int removed = 0;
+        int downgraded = 0;
+        long savedBytes = 0;
+        for (int i = 0; i < instructions.size(); i++) {
+            final Instruction instruction = instructions.get(i);
+            if (instruction.isLaunch()) {
+                launches++;
+                final Access[] accesses = getArgumentsAccess(context.getTask(instruction.task));
+                for (int j = 0; j < instruction.references.length; j++) {
+                    final int reference = instruction.references[j];
+                    if (reference != -1 && (accesses[j] == Access.WRITE || accesses[j] == Access.READ_WRITE)) {
+                        lastTransfer[reference] = null;
+                    }
+                }
+            } else if (instruction.isTransferIn()) {
+                final int object = instruction.object;
+                if (dead[i] && instruction.dependency == -1) {
+                    instruction.removed = true;
+                    removed++;
+                    savedBytes += getTransferSize(context, instruction);
+                    continue;
+                }
+
+                final Instruction previous = lastTransfer[object];
+                if (previous != null && previous.offset == instruction.offset && previous.size == instruction.size) {
+                    boolean saved = false;
+                    // COPY_IN only skips the transfer when the whole object is present
+                    if (instruction.op == TornadoVMBytecodes.STREAM_IN.value() && instruction.size == 0) {
+                        instruction.op = TornadoVMBytecodes.COPY_IN.value();
+                        code[instruction.position] = instruction.op;
+                        downgraded++;
+                        savedBytes += getTransferSize(context, instruction);
+                        saved = true;
+                    }
+                    if (instruction.op == TornadoVMBytecodes.COPY_IN.value() && instruction.dependency == -1 && launchesAtTransfer[object] == launches) {
+                        instruction.removed = true;
+                        removed++;
+                        if (!saved) {
+                            savedBytes += getTransferSize(context, instruction);
+                        }
+                        continue;
+                    }
+                }
+                lastTransfer[object] = instruction;
+                launchesAtTransfer[object] = launches;
+            }
+        }
+
+        if (removed > 0) {
+            int position = 0;
+            for (Instruction instruction : instructions) {
+                if (!instruction.removed) {
+                    System.arraycopy(code, instruction.position, code, position, instruction.length);
+                    position += instruction.length;
+                }
+            }
+            result.setCodeSize(position);
+        }
+
+        if (TornadoOptions.printBytecodes && (removed > 0 || downgraded > 0)) {
+            System.out.println(String.format("vm: transfer elimination: %d transfers removed, %d STREAM_IN downgraded to COPY_IN, %d bytes saved per execution", removed, downgraded, savedBytes));
+        }
+    }
+
     /**
      * It replaces the last STREAM_OUT for STREAM_OUT_BLOCKING byte-code. Otherwise,
      * it adds a barrier
@@ -238,70 +598,12 @@ public class TornadoVMGraphCompiler {
         }
     }
 
-    @SuppressWarnings("unused")
-    private static void optimise(TornadoVMGraphCompilationResult result, TornadoGraph graph, TornadoExecutionContext context, int[] nodeIds, BitSet[] deps, BitSet tasks) {
-        printMatrix(nodeIds, deps, tasks);
-        for (int i = tasks.nextSetBit(0); i >= 0; i = tasks.nextSetBit(i + 1)) {
-            BitSet dependents = new BitSet(deps[i].length());
-            for (int j = deps[i].nextSetBit(0); j >= 0; j = deps[i].nextSetBit(j + 1)) {
-                if (graph.getNode(j) instanceof TaskNode) {
-                    dependents.set(j);
-                }
-            }
-            if (!dependents.isEmpty()) {
-                TaskNode dependentTask = (TaskNode) graph.getNode(nodeIds[i]);
-                int firstDepId = dependents.nextSetBit(0);
-                TaskNode firstTask = (TaskNode) graph.getNode(firstDepId);
-                int[] argMerges = new int[dependentTask.getNumArgs()];
-                Arrays.fill(argMerges, -1);
-                for (int arg = 0; arg < dependentTask.getInputs().size(); arg++) {
-                    AbstractNode n = dependentTask.getInputs().get(arg);
-                    if (n instanceof DependentReadNode && ((DependentReadNode) n).getDependent() == firstTask) {
-                        argMerges[arg] = 1;
-                    }
-                }
-
-                CompilableTask t1 = (CompilableTask) context.getTask(firstTask.getTaskIndex());
-                CompilableTask t2 = (CompilableTask) context.getTask(dependentTask.getTaskIndex());
-                ResolvedJavaMethod rm1 = TornadoCoreRuntime.getTornadoRuntime().getMetaAccess().lookupJavaMethod(t1.getMethod());
-                ResolvedJavaMethod rm2 = TornadoCoreRuntime.getTornadoRuntime().getMetaAccess().lookupJavaMethod(t1.getMethod());
-                Sketch sketch1 = TornadoSketcher.lookup(rm1);
-                Sketch sketch2 = TornadoSketcher.lookup(rm2);
-                StructuredGraph g1 = (StructuredGraph) sketch1.getGraph().getReadonlyCopy();
-                StructuredGraph g2 = (StructuredGraph) sketch2.getGraph().getReadonlyCopy();
-                System.out.printf("dependent task: %s on %s merges = %d\n", t1.getId(), t2.getId(), Arrays.toString(argMerges));
-                printIvs(g1);
-                printIvs(g2);
-                StructuredGraph g3 = TornadoTaskUtil.merge(t1, t2, g1, g2, argMerges);
-            }
-        }
+    private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] deps, int numObjects) {
+        scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, deps, new long[numObjects], new long[numObjects], 0, 0);
     }
 
-    private static void printIvs(StructuredGraph graph) {
-        final LoopsData data = new LoopsData(graph);
-        data.detectedCountedLoops();
-
-        final List<LoopEx> loops = data.outerFirst();
-
-        List<ParallelRangeNode> parRanges = graph.getNodes().filter(ParallelRangeNode.class).snapshot();
-        for (LoopEx loop : loops) {
-            for (ParallelRangeNode parRange : parRanges) {
-                for (Node n : parRange.offset().usages()) {
-                    if (loop.getInductionVariables().containsKey(n)) {
-                        BasicInductionVariable iv = (BasicInductionVariable) loop.getInductionVariables().get(n);
-                        System.out.printf("[%d] parallel loop: %s -> init=%s, cond=%s, stride=%s, op=%s\n", parRange.index(), loop.loopBegin(), parRange.offset().value(), parRange.value(),
-                                parRange.stride(), iv.getOp());
-                    }
-                }
-            }
-        }
-    }
-
-    private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] deps) {
-        scheduleAndEmitTornadoVMBytecodes(result, graph, nodeIds, deps, 0, 0, 0);
-    }
-
-    private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] deps, long offset, long bufferBatchSize, long nThreads) {
+    private static void scheduleAndEmitTornadoVMBytecodes(TornadoVMGraphCompilationResult result, TornadoGraph graph, int[] nodeIds, BitSet[] deps, long[] offsets, long[] bufferBatchSizes, long launchOffset,
+            long nThreads) {
 
         final BitSet scheduled = new BitSet(deps.length);
         scheduled.clear();
@@ -331,7 +633,7 @@ public class TornadoVMGraphCompiler {
                         final ContextOpNode asyncNode = (ContextOpNode) graph.getNode(nodeIds[i]);
 
                         try {
-                            result.emitAsyncNode(asyncNode, asyncNode.getContext().getDeviceIndex(), (deps[i].isEmpty()) ? -1 : depLists[i], offset, bufferBatchSize, nThreads);
+                            result.emitAsyncNode(asyncNode, asyncNode.getContext().getDeviceIndex(), (deps[i].isEmpty()) ? -1 : depLists[i], offsets, bufferBatchSizes, launchOffset, nThreads);
                         } catch (BufferOverflowException e) {
                             throw new TornadoRuntimeException("[ERROR] Buffer Overflow exception. Use -Dtornado.tvm.maxbytecodesize=<value> with value > "
                                     + TornadoVMGraphCompilationResult.MAX_TORNADO_VM_BYTECODE_SIZE + " to increase the buffer code size");
@@ -353,26 +655,6 @@ public class TornadoVMGraphCompiler {
         }
     }
 
-    private static String toString(BitSet set) {
-        if (set.isEmpty()) {
-            return "<none>";
-        }
-
-        StringBuilder sb = new StringBuilder();
-        for (int i = set.nextSetBit(0); i != -1 && i < set.length(); i = set.nextSetBit(i + 1)) {
-            sb.append("" + i + " ");
-        }
-        return sb.toString();
-    }
-
-    private static void printMatrix(int[] nodeIds, BitSet[] deps, BitSet tasks) {
-        System.out.println("dependency matrix...");
-        for (int i = 0; i < nodeIds.length; i++) {
-            final int nodeId = nodeIds[i];
-            System.out.printf("%d [%s]| %s\n", nodeId, (tasks.get(i)) ? "task" : "data", toString(deps[i]));
-        }
-    }
-
     private static BitSet calculateDeps(TornadoGraph graph, int i) {
         final BitSet deps = new BitSet(graph.getValid().length());
         final AbstractNode node = graph.getNode(i);
@@ -32,7 +32,10 @@ import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.TornadoDevice;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
+import uk.ac.manchester.tornado.runtime.TornadoCoreRuntime;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.meta.ScheduleMetaData;
 import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
@@ -109,6 +112,13 @@ public class CompilableTask implements SchedulableTask {
         return method;
     }
 
+    /**
+     * Sketch of the task, built when the task is added to the task-schedule.
+     */
+    public Sketch getSketch() {
+        return TornadoSketcher.lookup(TornadoCoreRuntime.getTornadoRuntime().resolveMethod(method));
+    }
+
     @Override
     public String getId() {
         return meta.getId();
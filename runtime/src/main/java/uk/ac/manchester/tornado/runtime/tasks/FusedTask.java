@@ -0,0 +1,80 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * This code is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU General Public License version 2 only, as
+ * published by the Free Software Foundation.
+ *
+ * This code is distributed in the hope that it will be useful, but WITHOUT
+ * ANY WARRANTY; without even the implied warranty of MERCHANTABILITY or
+ * FITNESS FOR A PARTICULAR PURPOSE.  See the GNU General Public License
+ * version 2 for more details (a copy is included in the LICENSE file that
+ * accompanied this code).
+ *
+ * You should have received a copy of the GNU General Public License version
+ * 2 along with this work; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin St, Fifth Floor, Boston, MA 02110-1301 USA.
+ *
+ */
+package uk.ac.manchester.tornado.runtime.tasks;
+
+import java.util.Objects;
+
+import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
+import uk.ac.manchester.tornado.runtime.tasks.meta.ScheduleMetaData;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
+
+/**
+ * Task that runs a sequence of producer/consumer tasks as a single kernel. The
+ * sketch of the fused task is the composition of the sketches of the original
+ * tasks and its arguments are the union of their arguments.
+ */
+public class FusedTask extends CompilableTask {
+
+    private final Sketch sketch;
+    private final String taskName;
+    private final CompilableTask consumer;
+
+    public FusedTask(ScheduleMetaData scheduleMeta, String id, CompilableTask producer, CompilableTask consumer, Sketch sketch, Object... args) {
+        super(scheduleMeta, id, producer.getMethod(), args);
+        this.meta = new TaskMetaData(scheduleMeta, id, args.length);
+        this.sketch = sketch;
+        this.taskName = producer.getTaskName() + "_" + consumer.getTaskName();
+        this.consumer = consumer;
+    }
+
+    public CompilableTask getConsumer() {
+        return consumer;
+    }
+
+    @Override
+    public Sketch getSketch() {
+        return sketch;
+    }
+
+    @Override
+    public String getFullName() {
+        return "task " + meta.getId() + " - " + taskName;
+    }
+
+    /**
+     * The fused task shares its method with the producer, so it is named after
+     * both tasks. The name is also the name of the generated kernel, which keeps
+     * it apart from the kernel of the producer in the code caches.
+     */
+    @Override
+    public String getTaskName() {
+        return taskName;
+    }
+
+    @Override
+    public int hashCode() {
+        return 71 * super.hashCode() + Objects.hashCode(consumer.getMethod());
+    }
+
+}
@@ -74,6 +74,16 @@ public class GlobalObjectState implements TornadoGlobalObjectState {
         return deviceStates.get(device);
     }
 
+    /**
+     * Checks whether the device holds an up-to-date copy of the object: its
+     * buffer is valid, it has been copied in or written by a task, and no other
+     * device has written the object.
+     */
+    public boolean isResidentOn(TornadoDevice device) {
+        final DeviceObjectState deviceState = deviceStates.get(device);
+        return deviceState != null && deviceState.isValid() && deviceState.hasContents() && (owner == null || owner == device);
+    }
+
     public void setOwner(TornadoDevice device) {
         if (!(device instanceof TornadoAcceleratorDevice)) {
             throw new RuntimeException("Device not compatible");
@@ -91,6 +101,23 @@ public class GlobalObjectState implements TornadoGlobalObjectState {
         }
     }
 
+    /**
+     * Releases the buffers of the object on every device. The contents of the
+     * buffers are discarded; the next use of the object on a device allocates and
+     * copies it in again.
+     */
+    public void releaseDeviceBuffers() {
+        for (DeviceObjectState deviceState : deviceStates.values()) {
+            if (deviceState.hasBuffer()) {
+                deviceState.getBuffer().deallocate();
+                deviceState.setBuffer(null);
+            }
+            deviceState.setValid(false);
+            deviceState.setContents(false);
+            deviceState.setModified(false);
+        }
+    }
+
     public void clear() {
         deviceStates.clear();
     }
@@ -37,6 +37,7 @@ public class LocalObjectState {
     private boolean streamIn;
     private boolean forceStreamIn;
     private boolean streamOut;
+    private boolean deviceResident;
 
     private GlobalObjectState global;
     private DeviceObjectState device;
@@ -64,6 +65,27 @@ public class LocalObjectState {
         return this.forceStreamIn;
     }
 
+    public boolean isDeviceResident() {
+        return deviceResident;
+    }
+
+    void setDeviceResident(boolean deviceResident) {
+        this.deviceResident = deviceResident;
+    }
+
+    /**
+     * Creates the state of an object that replaces this one in the
+     * task-schedule, with the same transfer mode.
+     */
+    public LocalObjectState rebind(Object object) {
+        final LocalObjectState state = new LocalObjectState(object);
+        state.streamIn = streamIn;
+        state.forceStreamIn = forceStreamIn;
+        state.streamOut = streamOut;
+        state.deviceResident = deviceResident;
+        return state;
+    }
+
     public boolean isStreamOut() {
         return streamOut;
     }
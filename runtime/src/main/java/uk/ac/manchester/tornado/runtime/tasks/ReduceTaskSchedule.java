@@ -30,6 +30,7 @@ import static uk.ac.manchester.tornado.runtime.TornadoCoreRuntime.getDebugContex
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -72,6 +73,7 @@ class ReduceTaskSchedule {
     private ArrayList<Thread> threadSequentialExecution;
     private HashMap<Object, Object> neutralElementsNew = new HashMap<>();
     private HashMap<Object, Object> neutralElementsOriginal = new HashMap<>();
+    private HashSet<Object> singlePassReduceArrays = new HashSet<>();
     private TaskSchedule rewrittenTaskSchedule;
     private HashMap<Object, LinkedList<Integer>> reduceOperandTable;
     private CachedGraph<?> sketchGraph;
@@ -167,6 +169,28 @@ class ReduceTaskSchedule {
         return newArray;
     }
 
+    /**
+     * Clears the partial results and the counter of a single-pass reduction. The
+     * first position keeps the neutral element.
+     */
+    private void resetPartialResults(Object reduceArray) {
+        if (reduceArray instanceof int[]) {
+            int[] array = (int[]) reduceArray;
+            Arrays.fill(array, 1, array.length, 0);
+        } else if (reduceArray instanceof float[]) {
+            float[] array = (float[]) reduceArray;
+            Arrays.fill(array, 1, array.length, 0.0f);
+        } else if (reduceArray instanceof double[]) {
+            double[] array = (double[]) reduceArray;
+            Arrays.fill(array, 1, array.length, 0.0);
+        } else if (reduceArray instanceof long[]) {
+            long[] array = (long[]) reduceArray;
+            Arrays.fill(array, 1, array.length, 0L);
+        } else {
+            throw new TornadoRuntimeException("[ERROR] reduce type not supported yet: " + reduceArray.getClass());
+        }
+    }
+
     private Object getNeutralElement(Object originalArray) {
         if (originalArray instanceof int[]) {
             return ((int[]) originalArray)[0];
@@ -231,12 +255,36 @@ class ReduceTaskSchedule {
         return false;
     }
 
+    /**
+     * Returns true if the partial results of the work-groups are combined on the
+     * device by the last work-group, instead of by an additional sequential task.
+     * The reductions on CPUs keep one partial result per thread and always use the
+     * sequential task.
+     *
+     * @param targetDeviceToRun
+     *            index of the target device within the Tornado device list.
+     * @return boolean
+     */
+    private boolean isSinglePassReduction(final int targetDeviceToRun) {
+        if (!TornadoOptions.REDUCE_SINGLE_PASS) {
+            return false;
+        }
+        TornadoDeviceType deviceType = TornadoCoreRuntime.getTornadoRuntime().getDriver(DEFAULT_DRIVER_INDEX).getDevice(targetDeviceToRun).getDeviceType();
+        return deviceType != TornadoDeviceType.CPU;
+    }
+
     private void runHostThreads() {
         if (threadSequentialExecution != null && !threadSequentialExecution.isEmpty()) {
+            // The host parts of different reductions write different arrays, so they
+            // run concurrently. Each execution needs new threads because a thread
+            // cannot be started twice.
+            ArrayList<Thread> hostThreads = new ArrayList<>();
             for (Thread t : threadSequentialExecution) {
-                t.run();
+                Thread hostThread = new Thread(t);
+                hostThread.start();
+                hostThreads.add(hostThread);
             }
-            for (Thread t : threadSequentialExecution) {
+            for (Thread t : hostThreads) {
                 try {
                     t.join();
                 } catch (InterruptedException ie) {
@@ -365,7 +413,9 @@ class ReduceTaskSchedule {
     /**
      * Compose and execute the new reduction. It dynamically creates a new
      * task-schedule expression that contains: a) the parallel reduction; b) the
-     * final sequential reduction.
+     * final sequential reduction. With single-pass reductions
+     * (-Dtornado.reduce.singlepass=True) the final reduction is performed by the
+     * parallel task on the device, and only the first task is created.
      *
      * It also creates a new thread in the case the input size for the reduction is
      * not power of two and the target device is either the FPGA or the GPU. In this
@@ -386,7 +436,8 @@ class ReduceTaskSchedule {
         String tsName = idTaskSchedule;
 
         HashMap<Integer, ArrayList<Object>> streamReduceTable = new HashMap<>();
-        ArrayList<Integer> sizesReductionArray = new ArrayList<>();
+        HashMap<Object, Integer> sizesReductionArray = new HashMap<>();
+        HashMap<Object, Integer> reduceParameterIndexes = new HashMap<>();
         if (originalReduceVariables == null) {
             originalReduceVariables = new HashMap<>();
         }
@@ -416,6 +467,10 @@ class ReduceTaskSchedule {
                 metaReduceTasks = tableReduce.get(taskNumber);
                 listOfReduceIndexParameters = metaReduceTasks.getListOfReduceParameters(taskNumber);
 
+                // A task with multiple reduce variables runs as a single kernel, so its
+                // host part only has to be created once
+                boolean hostPartCreated = false;
+
                 for (Integer paramIndex : listOfReduceIndexParameters) {
 
                     Object originalReduceArray = taskPackage.getTaskParameters()[paramIndex + 1];
@@ -440,17 +495,24 @@ class ReduceTaskSchedule {
                         inputSize -= elementsReductionLeftOver;
 
                         final int sizeTargetDevice = inputSize;
-                        if (isTaskEligibleSplitHostAndDevice(targetDeviceToRun, elementsReductionLeftOver, false)) {
+                        if (!hostPartCreated && isTaskEligibleSplitHostAndDevice(targetDeviceToRun, elementsReductionLeftOver, false)) {
                             Object codeTask = taskPackage.getTaskParameters()[0];
                             createThreads(codeTask, taskPackage, sizeTargetDevice);
+                            hostPartCreated = true;
                         }
                     }
 
-                    // Set the new array size
+                    // Set the new array size. Single-pass reductions use one more
+                    // position for the counter of work-groups that have finished.
                     int sizeReductionArray = obtainSizeArrayResult(DEFAULT_DRIVER_INDEX, deviceToRun, inputSize);
-                    Object newArray = createNewReduceArray(originalReduceArray, sizeReductionArray);
+                    boolean singlePass = isSinglePassReduction(targetDeviceToRun);
+                    Object newArray = createNewReduceArray(originalReduceArray, singlePass ? sizeReductionArray + 1 : sizeReductionArray);
                     Object neutralElement = getNeutralElement(originalReduceArray);
                     fillOutputArrayWithNeutral(newArray, neutralElement);
+                    if (singlePass) {
+                        resetPartialResults(newArray);
+                        singlePassReduceArrays.add(newArray);
+                    }
 
                     neutralElementsNew.put(newArray, neutralElement);
                     neutralElementsOriginal.put(originalReduceArray, neutralElement);
@@ -459,7 +521,8 @@ class ReduceTaskSchedule {
 
                     // Store metadata
                     streamReduceList.add(newArray);
-                    sizesReductionArray.add(sizeReductionArray);
+                    sizesReductionArray.put(newArray, sizeReductionArray);
+                    reduceParameterIndexes.put(newArray, paramIndex);
                     originalReduceVariables.put(originalReduceArray, newArray);
                 }
                 streamReduceTable.put(taskNumber, streamReduceList);
@@ -506,20 +569,28 @@ class ReduceTaskSchedule {
             if (tableReduce.containsKey(taskNumber)) {
 
                 MetaReduceTasks metaReduceTasks = tableReduce.get(taskNumber);
-                ArrayList<Integer> listOfReduceParameters = metaReduceTasks.getListOfReduceParameters(taskNumber);
                 StructuredGraph graph = metaReduceTasks.getGraph();
-                ArrayList<REDUCE_OPERATION> operations = ReduceCodeAnalysis.getReduceOperation(graph, listOfReduceParameters);
-
-                if (operations.isEmpty()) {
-                    // perform analysis with cached graph (after sketch phase)
-                    operations = ReduceCodeAnalysis.getReduceOperatorFromSketch(sketchGraph, listOfReduceParameters);
-                }
 
                 ArrayList<Object> streamUpdateList = streamReduceTable.get(taskNumber);
 
                 for (int i = 0; i < streamUpdateList.size(); i++) {
                     Object newArray = streamUpdateList.get(i);
-                    int sizeReduceArray = sizesReductionArray.get(i);
+                    int sizeReduceArray = sizesReductionArray.get(newArray);
+                    if (singlePassReduceArrays.contains(newArray)) {
+                        // The final reduction is performed by the parallel task
+                        continue;
+                    }
+
+                    // Each reduce variable of a task is combined with its own operation
+                    ArrayList<Integer> reduceParameter = new ArrayList<>();
+                    reduceParameter.add(reduceParameterIndexes.get(newArray));
+                    ArrayList<REDUCE_OPERATION> operations = ReduceCodeAnalysis.getReduceOperation(graph, reduceParameter);
+
+                    if (operations.isEmpty()) {
+                        // perform analysis with cached graph (after sketch phase)
+                        operations = ReduceCodeAnalysis.getReduceOperatorFromSketch(sketchGraph, reduceParameter);
+                    }
+
                     for (REDUCE_OPERATION operation : operations) {
                         final String newTaskSequentialName = SEQUENTIAL_TASK_REDUCE_NAME + counterSeqName.get();
                         String fullName = rewrittenTaskSchedule.getTaskScheduleName() + "." + newTaskSequentialName;
@@ -564,6 +635,9 @@ class ReduceTaskSchedule {
             Object newArray = pair.getKey();
             Object neutralElement = pair.getValue();
             fillOutputArrayWithNeutral(newArray, neutralElement);
+            if (singlePassReduceArrays.contains(newArray)) {
+                resetPartialResults(newArray);
+            }
         }
 
         for (Entry<Object, Object> pair : neutralElementsOriginal.entrySet()) {
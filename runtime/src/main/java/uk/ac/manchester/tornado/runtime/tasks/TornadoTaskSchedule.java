@@ -41,7 +41,9 @@ import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Objects;
 import java.util.Set;
 import java.util.TreeMap;
@@ -56,9 +58,11 @@ import org.graalvm.compiler.phases.util.Providers;
 
 import jdk.vm.ci.meta.ResolvedJavaMethod;
 import uk.ac.manchester.tornado.api.AbstractTaskGraph;
+import uk.ac.manchester.tornado.api.KernelContext;
 import uk.ac.manchester.tornado.api.Policy;
 import uk.ac.manchester.tornado.api.TaskSchedule;
 import uk.ac.manchester.tornado.api.TornadoDriver;
+import uk.ac.manchester.tornado.api.WorkerGrid;
 import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.Event;
 import uk.ac.manchester.tornado.api.common.SchedulableTask;
@@ -78,6 +82,7 @@ import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task8;
 import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task9;
 import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
 import uk.ac.manchester.tornado.api.exceptions.TornadoBailoutRuntimeException;
+import uk.ac.manchester.tornado.api.exceptions.TornadoOutOfMemoryException;
 import uk.ac.manchester.tornado.api.exceptions.TornadoRuntimeException;
 import uk.ac.manchester.tornado.api.profiler.ProfilerType;
 import uk.ac.manchester.tornado.api.profiler.TornadoProfiler;
@@ -96,6 +101,8 @@ import uk.ac.manchester.tornado.runtime.graph.TornadoExecutionContext;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraph;
 import uk.ac.manchester.tornado.runtime.graph.TornadoGraphBuilder;
 import uk.ac.manchester.tornado.runtime.graph.TornadoVMGraphCompilationResult;
+import uk.ac.manchester.tornado.runtime.graph.TornadoTaskUtil;
+import uk.ac.manchester.tornado.runtime.graph.TornadoVMBytecodeCache;
 import uk.ac.manchester.tornado.runtime.graph.TornadoVMGraphCompiler;
 import uk.ac.manchester.tornado.runtime.graph.nodes.ContextNode;
 import uk.ac.manchester.tornado.runtime.profiler.EmptyProfiler;
@@ -104,6 +111,7 @@ import uk.ac.manchester.tornado.runtime.sketcher.Sketch;
 import uk.ac.manchester.tornado.runtime.sketcher.SketchRequest;
 import uk.ac.manchester.tornado.runtime.sketcher.TornadoSketcher;
 import uk.ac.manchester.tornado.runtime.tasks.meta.ScheduleMetaData;
+import uk.ac.manchester.tornado.runtime.tasks.meta.TaskMetaData;
 
 /**
  * Implementation of the Tornado API for running on heterogeneous devices.
@@ -112,11 +120,15 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
     private TornadoExecutionContext graphContext;
 
+    private static final int HIGH_LEVEL_TASK_SIZE = 15;
+    private static final int HIGH_LEVEL_ARG_SIZE = 5;
+
     private byte[] highLevelCode = new byte[2048];
     private ByteBuffer hlBuffer;
     private TornadoVMGraphCompilationResult result;
     private long batchSizeBytes = -1;
     private boolean bailout = false;
+    private boolean tasksFused = false;
 
     // One TornadoVM instance per TaskSchedule
     private TornadoVM vm;
@@ -229,6 +241,26 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
             this.graph = lookup.getGraph();
         }
 
+        emitTaskBitcodes(index, task);
+    }
+
+    /**
+     * Grows the high-level code so it fits a task with the given number of
+     * arguments.
+     */
+    private void ensureHighLevelCodeCapacity(int numArgs) {
+        final int required = HIGH_LEVEL_TASK_SIZE + numArgs * HIGH_LEVEL_ARG_SIZE;
+        if (hlBuffer.remaining() < required) {
+            final int position = hlBuffer.position();
+            highLevelCode = Arrays.copyOf(highLevelCode, Math.max(highLevelCode.length * 2, position + required));
+            hlBuffer = ByteBuffer.wrap(highLevelCode);
+            hlBuffer.order(ByteOrder.LITTLE_ENDIAN);
+            hlBuffer.position(position);
+        }
+    }
+
+    private void emitTaskBitcodes(int index, SchedulableTask task) {
+        ensureHighLevelCodeCapacity(task.getArguments().length);
         hlBuffer.put(TornadoGraphBitcodes.CONTEXT.index());
         int globalTaskId = graphContext.getTaskCount();
         hlBuffer.putInt(globalTaskId);
@@ -240,9 +272,13 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         hlBuffer.put(TornadoGraphBitcodes.ARG_LIST.index());
         hlBuffer.putInt(args.length);
 
-        for (final Object arg : args) {
+        final int[] variables = new int[args.length];
+        graphContext.setArgumentVariables(index, variables);
+        for (int i = 0; i < args.length; i++) {
+            final Object arg = args[i];
             index = graphContext.insertVariable(arg);
-            if (arg.getClass().isPrimitive() || isBoxedPrimitiveClass(arg.getClass())) {
+            variables[i] = index;
+            if (arg.getClass().isPrimitive() || isBoxedPrimitiveClass(arg.getClass()) || arg instanceof KernelContext) {
                 hlBuffer.put(TornadoGraphBitcodes.LOAD_PRIM.index());
             } else {
                 hlBuffer.put(TornadoGraphBitcodes.LOAD_REF.index());
@@ -280,6 +316,24 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         graphContext.addDevice(meta().getDevice());
     }
 
+    /**
+     * Replaces consecutive producer/consumer tasks by fused tasks and emits the
+     * high-level code of the task-schedule again.
+     */
+    private void fuseTasks() {
+        tasksFused = true;
+        final List<SchedulableTask> tasks = TornadoTaskUtil.fuseTasks(graphContext);
+        if (tasks.size() == graphContext.getTasks().size()) {
+            return;
+        }
+        graphContext.replaceTasks(tasks);
+        hlBuffer.clear();
+        for (int i = 0; i < tasks.size(); i++) {
+            emitTaskBitcodes(i, tasks.get(i));
+        }
+        graphContext.assignToDevices();
+    }
+
     /**
      * Compile a task-schedule into TornadoVM byte-code
      *
@@ -287,6 +341,27 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
      *            boolean that specifies if set a new device or not.
      */
     private void compile(boolean setNewDevice) {
+        if (TornadoOptions.TASK_FUSION && !tasksFused) {
+            fuseTasks();
+        }
+
+        // A task-schedule with the same structure as a previous one reuses its
+        // bytecode and only binds its own objects to a new TornadoVM
+        List<Object> cacheKey = null;
+        if (TornadoOptions.TVM_BYTECODE_CACHE && !setNewDevice) {
+            cacheKey = TornadoVMBytecodeCache.buildKey(graphContext, highLevelCode, hlBuffer.position(), batchSizeBytes);
+            final TornadoVMGraphCompilationResult cachedResult = TornadoVMBytecodeCache.lookup(cacheKey);
+            if (cachedResult != null) {
+                result = cachedResult;
+                vm = new TornadoVM(graphContext, result.getCode(), result.getCodeSize(), timeProfiler);
+                if (meta().shouldDumpSchedule()) {
+                    graphContext.print();
+                    result.dump();
+                }
+                return;
+            }
+        }
+
         final ByteBuffer buffer = ByteBuffer.wrap(highLevelCode);
         buffer.order(ByteOrder.LITTLE_ENDIAN);
         buffer.limit(hlBuffer.position());
@@ -301,6 +376,9 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
 
         // TornadoVM byte-code generation
         result = TornadoVMGraphCompiler.compile(graph, graphContext, batchSizeBytes);
+        if (cacheKey != null) {
+            TornadoVMBytecodeCache.insert(cacheKey, result);
+        }
 
         vm = new TornadoVM(graphContext, result.getCode(), result.getCodeSize(), timeProfiler);
 
@@ -433,7 +511,7 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         }
 
         try {
-            event = vm.execute();
+            event = executeOrFallbackToBatches();
             timeProfiler.stop(ProfilerType.TOTAL_TASK_SCHEDULE_TIME);
             updateProfiler();
         } catch (TornadoBailoutRuntimeException e) {
@@ -441,6 +519,92 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         }
     }
 
+    /**
+     * Checks whether the task-schedule can be executed again from the start after
+     * some of its tasks have run. This is not the case if a task reads an object
+     * that a previous execution has already written on the device, since the
+     * tasks would run on the partially updated values.
+     */
+    private boolean canReplayInBatches() {
+        final Set<Object> written = new HashSet<>();
+        for (SchedulableTask task : graphContext.getTasks()) {
+            final Object[] arguments = task.getArguments();
+            final Access[] accesses = TornadoVMGraphCompiler.getArgumentsAccess(task);
+            for (int i = 0; i < arguments.length; i++) {
+                final Object argument = arguments[i];
+                if (argument == null || isBoxedPrimitiveClass(argument.getClass()) || written.contains(argument)) {
+                    continue;
+                }
+                if (accesses[i] == Access.WRITE) {
+                    written.add(argument);
+                } else if (isModifiedOnDevice(argument)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private boolean isModifiedOnDevice(Object object) {
+        final int index = graphContext.getObjects().indexOf(object);
+        if (index == -1) {
+            return false;
+        }
+        final GlobalObjectState globalState = graphContext.getObjectStates().get(index).getGlobalState();
+        return globalState.getOwner() != null && globalState.getDeviceState().isModified();
+    }
+
+    /**
+     * Copies the objects written on the device back to the host, so their
+     * contents are not lost when the device buffers are released.
+     */
+    private void syncModifiedObjects() {
+        final List<Object> objects = graphContext.getObjects();
+        final List<LocalObjectState> objectStates = graphContext.getObjectStates();
+        final List<Event> events = new ArrayList<>();
+        for (int i = 0; i < objects.size(); i++) {
+            final GlobalObjectState globalState = objectStates.get(i).getGlobalState();
+            if (objects.get(i) != null && globalState.getOwner() != null && globalState.getDeviceState().hasBuffer()) {
+                events.add(objectStates.get(i).sync(objects.get(i)));
+            }
+        }
+        for (Event event : events) {
+            event.waitOn();
+        }
+    }
+
+    /**
+     * Executes the TornadoVM bytecodes. If the task-schedule runs out of device
+     * memory and automatic batching is enabled, the objects written on the device
+     * are copied back to the host, the device buffers of the task-schedule are
+     * released and the task-schedule is recompiled to process the data in
+     * batches. The fallback is refused if the tasks that already ran have updated
+     * objects that the task-schedule reads.
+     */
+    private Event executeOrFallbackToBatches() {
+        try {
+            return vm.execute();
+        } catch (TornadoOutOfMemoryException e) {
+            if (!TornadoOptions.AUTO_BATCH || batchSizeBytes != -1 || !canReplayInBatches()) {
+                throw e;
+            }
+            syncModifiedObjects();
+            for (LocalObjectState objectState : graphContext.getObjectStates()) {
+                objectState.getGlobalState().releaseDeviceBuffers();
+            }
+            final long autoBatchSize = TornadoVMGraphCompiler.computeAutoBatchSize(graphContext, graphContext.getDeviceForTask(0));
+            if (autoBatchSize == -1) {
+                throw e;
+            }
+            if (Tornado.DEBUG) {
+                System.out.println("[WARNING] Out of memory on " + graphContext.getDeviceForTask(0) + ". Running task-schedule " + getId() + " in batches of " + autoBatchSize + " bytes");
+            }
+            batchSizeBytes = autoBatchSize;
+            compile(false);
+            return vm.execute();
+        }
+    }
+
     @Override
     public void apply(Consumer<SchedulableTask> consumer) {
         graphContext.apply(consumer);
@@ -504,6 +668,125 @@ public class TornadoTaskSchedule implements AbstractTaskGraph {
         }
     }
 
+    @Override
+    public void keepOnDeviceInner(Object... objects) {
+        for (Object object : objects) {
+            if (object == null) {
+                warn("null object passed into keepOnDevice() in schedule %s", graphContext.getId());
+                continue;
+            }
+            graphContext.getObjectState(object).setDeviceResident(true);
+        }
+    }
+
+    @Override
+    public void replaceParameterInner(Object oldParameter, Object newParameter) {
+        if (oldParameter == null || newParameter == null) {
+            throw new TornadoRuntimeException("[ERROR] null parameter passed into replaceParameter() in schedule " + graphContext.getId());
+        }
+        if (oldParameter.getClass() != newParameter.getClass()) {
+            throw new TornadoRuntimeException("[ERROR] A parameter of type " + oldParameter.getClass().getName() + " cannot be replaced by a parameter of type " + newParameter.getClass().getName());
+        }
+        final boolean isScalar = isBoxedPrimitiveClass(oldParameter.getClass());
+        if (!isScalar && !oldParameter.getClass().isArray()) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] Only arrays and scalars can be replaced in a task-schedule");
+        }
+        // The batches are computed from the length of the arrays
+        final boolean resized = !isScalar && Array.getLength(oldParameter) != Array.getLength(newParameter);
+        if (resized && batchSizeBytes != -1) {
+            throw new TornadoRuntimeException("[ERROR] The new array must have the same length as the old one (" + Array.getLength(oldParameter) + " elements) when the schedule runs in batches");
+        }
+
+        final int index = isScalar ? replaceConstant(oldParameter, newParameter) : graphContext.replaceVariable(oldParameter, newParameter);
+        if (index == -1) {
+            throw new TornadoRuntimeException("[ERROR] " + oldParameter + " is not a parameter of the schedule " + graphContext.getId());
+        }
+
+        // Tasks are compiled again if they have folded the value of the scalar, or
+        // the length of the array, into constants
+        final boolean changed = resized || (isScalar && !oldParameter.equals(newParameter));
+        final List<SchedulableTask> tasks = graphContext.getTasks();
+        for (int i = 0; i < tasks.size(); i++) {
+            final boolean recompile = changed && isArgumentSpecialised(tasks.get(i), oldParameter, isScalar);
+            if (replaceArgument(tasks.get(i).getArguments(), oldParameter, newParameter, isScalar) && recompile && vm != null) {
+                vm.invalidateInstalledCode(i);
+            }
+        }
+        for (TaskPackage taskPackage : taskPackages) {
+            replaceArgument(taskPackage.getTaskParameters(), oldParameter, newParameter, isScalar);
+        }
+        Collections.replaceAll(streamInObjects, oldParameter, newParameter);
+        Collections.replaceAll(streamOutObjects, oldParameter, newParameter);
+
+        if (vm != null) {
+            if (isScalar) {
+                vm.resetStacks();
+            } else {
+                vm.rebindObject(index);
+            }
+        }
+    }
+
+    @Override
+    public void setWorkerGridInner(String taskName, WorkerGrid grid) {
+        final SchedulableTask task = getTask(taskName);
+        if (task == null) {
+            throw new TornadoRuntimeException("[ERROR] " + taskName + " is not a task of the schedule " + graphContext.getId());
+        }
+        if (!(task.meta() instanceof TaskMetaData)) {
+            throw new TornadoRuntimeException("[UNSUPPORTED] A worker grid cannot be set for the task " + task.getId());
+        }
+        ((TaskMetaData) task.meta()).setWorkerGrid(grid.getGlobalWork(), grid.getLocalWork());
+    }
+
+    private static boolean isArgumentSpecialised(SchedulableTask task, Object parameter, boolean isScalar) {
+        if (!(task.meta() instanceof TaskMetaData)) {
+            return true;
+        }
+        final TaskMetaData meta = (TaskMetaData) task.meta();
+        final Object[] args = task.getArguments();
+        for (int i = 0; i < args.length; i++) {
+            if ((args[i] == parameter || (isScalar && parameter.equals(args[i]))) && meta.isArgumentSpecialised(i)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Replaces the constants of the arguments that hold the old scalar. The
+     * constants are found by the position of the arguments in the tasks, so
+     * every argument is updated even if its value is held in its own slot.
+     *
+     * @return the index of the first constant replaced, or -1 if no argument
+     *         holds the old scalar.
+     */
+    private int replaceConstant(Object oldParameter, Object newParameter) {
+        int index = -1;
+        final List<SchedulableTask> tasks = graphContext.getTasks();
+        for (int i = 0; i < tasks.size(); i++) {
+            final Object[] args = tasks.get(i).getArguments();
+            for (int j = 0; j < args.length; j++) {
+                if (oldParameter.equals(args[j])) {
+                    final int constant = graphContext.replaceConstant(i, j, newParameter);
+                    index = (index == -1) ? constant : index;
+                }
+            }
+        }
+        return index;
+    }
+
+    private static boolean replaceArgument(Object[] args, Object oldParameter, Object newParameter, boolean isScalar) {
+        boolean replaced = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i] == oldParameter || (isScalar && oldParameter.equals(args[i]))) {
+                args[i] = newParameter;
+                replaced = true;
+            }
+        }
+        return replaced;
+    }
+
     @Override
     public void streamOutInner(Object... objects) {
         for (Object object : objects) {
@@ -38,7 +38,7 @@ public class Coarseness {
 
     public void applyConfig(String config) {
         String str[] = config.split(",");
-        for (int i = 0; i < values.length; i++) {
+        for (int i = 0; i < values.length && i < str.length; i++) {
             values[i] = Integer.parseInt(str[i]);
         }
     }
@@ -27,7 +27,21 @@ package uk.ac.manchester.tornado.runtime.tasks.meta;
 
 public class ScheduleMetaData extends AbstractMetaData {
 
+    private long batchElements;
+
     public ScheduleMetaData(String id) {
         super(id);
     }
+
+    /**
+     * Sets the number of iterations of a task-schedule processed in batches,
+     * i.e., the length of its shortest array.
+     */
+    public void setBatchElements(long numElements) {
+        this.batchElements = numElements;
+    }
+
+    public long getBatchElements() {
+        return batchElements;
+    }
 }
@@ -28,6 +28,7 @@ package uk.ac.manchester.tornado.runtime.tasks.meta;
 import static uk.ac.manchester.tornado.api.exceptions.TornadoInternalError.guarantee;
 import static uk.ac.manchester.tornado.runtime.common.Tornado.EVENT_WINDOW;
 
+import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
 import java.util.ArrayList;
@@ -41,7 +42,9 @@ import uk.ac.manchester.tornado.api.common.Access;
 import uk.ac.manchester.tornado.api.common.TornadoEvents;
 import uk.ac.manchester.tornado.runtime.EventSet;
 import uk.ac.manchester.tornado.runtime.common.TornadoAcceleratorDevice;
+import uk.ac.manchester.tornado.runtime.common.TornadoOptions;
 import uk.ac.manchester.tornado.runtime.domain.DomainTree;
+import uk.ac.manchester.tornado.runtime.domain.IntDomain;
 
 public class TaskMetaData extends AbstractMetaData {
 
@@ -59,7 +62,15 @@ public class TaskMetaData extends AbstractMetaData {
     protected final Map<TornadoAcceleratorDevice, BitSet> profiles;
     private boolean localWorkDefined;
     private boolean globalWorkDefined;
+    private boolean workerGrid;
     private boolean canAssumeExact;
+    private String specialisation;
+    private final BitSet specialisedArguments;
+    private final BitSet runtimeScalars;
+    private int[] domainArguments;
+    private Coarseness coarseness;
+    private int[] coarseningFactors;
+    private int tileSize;
 
     public TaskMetaData(ScheduleMetaData scheduleMetaData, String taskID, int numParameters) {
         super(scheduleMetaData.getId() + "." + taskID);
@@ -70,6 +81,8 @@ public class TaskMetaData extends AbstractMetaData {
         this.privateSize = 0;
         this.constantData = null;
         profiles = new HashMap<>();
+        specialisedArguments = new BitSet(numParameters);
+        runtimeScalars = new BitSet(numParameters);
         argumentsAccess = new Access[numParameters];
         Arrays.fill(argumentsAccess, Access.NONE);
 
@@ -150,6 +163,32 @@ public class TaskMetaData extends AbstractMetaData {
         localWorkDefined = true;
     }
 
+    /**
+     * Sets the global and local work sizes given with a {@code WorkerGrid}. The
+     * sizes defined with the {@code <id>.global.dims} and {@code <id>.local.dims}
+     * properties are kept. A null local work size lets the scheduler or the
+     * OpenCL driver choose it.
+     */
+    public void setWorkerGrid(long[] global, long[] local) {
+        if (getProperty(getId() + ".global.dims") == null) {
+            globalWork = global.clone();
+            globalWorkDefined = true;
+        }
+        if (getProperty(getId() + ".local.dims") == null) {
+            localWork = (local == null) ? new long[] { 1, 1, 1 } : local.clone();
+            localWorkDefined = local != null;
+        }
+        workerGrid = true;
+    }
+
+    /**
+     * @return true if the work sizes of the task have been set with a
+     *         {@code WorkerGrid}.
+     */
+    public boolean isWorkerGridDefined() {
+        return workerGrid;
+    }
+
     public void setLocalWorkToNull() {
         localWork = null;
     }
@@ -252,12 +291,16 @@ public class TaskMetaData extends AbstractMetaData {
     public void setDomain(final DomainTree value) {
 
         domain = value;
-        Coarseness coarseness = new Coarseness(domain.getDepth());
 
         final String config = getProperty(getId() + ".coarseness");
         if (config != null && !config.isEmpty()) {
+            coarseness = new Coarseness(domain.getDepth());
             coarseness.applyConfig(config);
+        } else {
+            coarseness = null;
         }
+        coarseningFactors = null;
+        tileSize = 0;
 
         final int dims = domain.getDepth();
         globalOffset = new long[dims];
@@ -321,6 +364,162 @@ public class TaskMetaData extends AbstractMetaData {
         return domain != null;
     }
 
+    /**
+     * @return the number of iterations per thread set for this task with
+     *         {@code <task>.coarseness=X,Y,Z}, or null if it is not set.
+     */
+    public Coarseness getCoarseness() {
+        return coarseness;
+    }
+
+    /**
+     * Records the number of iterations of every parallel loop that each thread
+     * of the compiled kernel executes. A factor of 0 means that the loop has not
+     * been coarsened.
+     */
+    public void setCoarseningFactors(int[] factors) {
+        this.coarseningFactors = factors;
+    }
+
+    public boolean isCoarsened() {
+        return coarseningFactors != null;
+    }
+
+    public int getCoarseningFactor(int index) {
+        return (coarseningFactors == null || index >= coarseningFactors.length) ? 0 : coarseningFactors[index];
+    }
+
+    /**
+     * Records the size of the square work-groups that a kernel that loads tiles
+     * of its arrays into local memory has to be launched with.
+     */
+    public void setTileSize(int size) {
+        this.tileSize = size;
+    }
+
+    public boolean isTiled() {
+        return tileSize > 0;
+    }
+
+    public int getTileSize() {
+        return tileSize;
+    }
+
+    /**
+     * @return the number of iterations of the task-schedule when it is processed
+     *         in batches, or 0 if it has not been split.
+     */
+    public long getBatchElements() {
+        return scheduleMetaData.getBatchElements();
+    }
+
+    /**
+     * Sets the key of the array sizes and scalar values the task is being compiled
+     * for, or null to compile the generic version of the task.
+     */
+    public void setSpecialisation(String key) {
+        this.specialisation = key;
+    }
+
+    public String getSpecialisation() {
+        return specialisation;
+    }
+
+    /**
+     * @return true if the lengths of the array parameters have to be folded into
+     *         constants by the compiler.
+     */
+    public boolean shouldSpecialiseLengths() {
+        return specialisation != null || !TornadoOptions.SHAPE_POLYMORPHIC;
+    }
+
+    /**
+     * @return true if the values of the scalar parameters have to be folded into
+     *         constants by the compiler.
+     */
+    public boolean shouldSpecialiseScalars() {
+        return specialisation != null || !TornadoOptions.SCALAR_POLYMORPHIC;
+    }
+
+    /**
+     * Identifier used to install the code of the task. Specialised versions of a
+     * task are installed under a different identifier than the generic one.
+     */
+    public String getCompilationId() {
+        return (specialisation == null) ? getId() : getId() + "-" + specialisation;
+    }
+
+    /**
+     * Records that the value of a scalar parameter, or the length of an array
+     * parameter, has been folded into the generic version of the task.
+     */
+    public void setArgumentSpecialised(int index) {
+        specialisedArguments.set(index);
+    }
+
+    public boolean isArgumentSpecialised(int index) {
+        return specialisedArguments.get(index);
+    }
+
+    /**
+     * Records that a scalar parameter is read at runtime by the generic version of
+     * the task.
+     */
+    public void setRuntimeScalar(int index) {
+        runtimeScalars.set(index);
+    }
+
+    public boolean isRuntimeScalar(int index) {
+        return runtimeScalars.get(index);
+    }
+
+    public boolean hasRuntimeScalars() {
+        return !runtimeScalars.isEmpty();
+    }
+
+    public void clearSpecialisation() {
+        specialisedArguments.clear();
+        runtimeScalars.clear();
+    }
+
+    /**
+     * Sets, for every dimension of the domain, the index of the parameter that
+     * gives the number of iterations (the length of an array or the value of an
+     * int), or -1 if it is a constant.
+     */
+    public void setDomainArguments(int[] indices) {
+        this.domainArguments = indices;
+    }
+
+    public boolean hasDynamicDomain() {
+        return domainArguments != null && hasDomain();
+    }
+
+    /**
+     * @return true if the generic version of the task reads array lengths or
+     *         scalar values at runtime.
+     */
+    public boolean isPolymorphic() {
+        return hasDynamicDomain() || hasRuntimeScalars();
+    }
+
+    /**
+     * Updates the domain with the arguments passed to the task.
+     */
+    public void updateDomain(Object[] args) {
+        for (int i = 0; i < domainArguments.length && i < domain.getDepth(); i++) {
+            final int index = domainArguments[i];
+            if (index == -1 || args[index] == null || !(domain.get(i) instanceof IntDomain)) {
+                continue;
+            }
+            if (args[index] instanceof Integer) {
+                ((IntDomain) domain.get(i)).setLength((Integer) args[index]);
+            } else if (args[index].getClass().isArray()) {
+                ((IntDomain) domain.get(i)).setLength(Array.getLength(args[index]));
+            }
+        }
+    }
+
     @Override
     public boolean isDebug() {
         return super.isDebug() || scheduleMetaData.isDebug();
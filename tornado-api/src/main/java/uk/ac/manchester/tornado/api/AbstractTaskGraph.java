@@ -90,6 +90,12 @@ public interface AbstractTaskGraph extends ProfileInterface {
 
     void streamOutInner(Object... objects);
 
+    void keepOnDeviceInner(Object... objects);
+
+    void replaceParameterInner(Object oldParameter, Object newParameter);
+
+    void setWorkerGridInner(String taskName, WorkerGrid grid);
+
     void dump();
 
     void warmup();
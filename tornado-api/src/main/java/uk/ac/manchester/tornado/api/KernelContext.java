@@ -0,0 +1,156 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api;
+
+/**
+ * Context of the OpenCL execution model, passed as a parameter to a task that
+ * is written as an explicit kernel instead of with {@code @Parallel} loops.
+ * Each call is compiled into the corresponding OpenCL built-in, e.g.,
+ * {@code localId(0)} into {@code get_local_id(0)} and {@link #localBarrier()}
+ * into {@code barrier(CLK_LOCAL_MEM_FENCE)}.
+ * <p>
+ * The number of work-items and the size of the work-groups of the task are set
+ * with {@link TornadoAPI#setWorkerGrid}. The dimensions and the sizes of the
+ * local arrays must be constants known at compile time.
+ * </p>
+ * <p>
+ * When the task runs in Java, e.g., after a bailout, the context represents a
+ * single work-item: all indices are 0, all sizes are 1 and barriers do
+ * nothing.
+ * </p>
+ *
+ * <pre>
+ * {@code
+ * public static void add(KernelContext context, float[] a, float[] b, float[] c) {
+ *     int idx = context.globalId(0);
+ *     c[idx] = a[idx] + b[idx];
+ * }
+ * }
+ * </pre>
+ */
+public class KernelContext {
+
+    /**
+     * @return index of the work-item in the NDRange for the dimension
+     *         ({@code get_global_id}).
+     */
+    public int globalId(int dimension) {
+        return 0;
+    }
+
+    /**
+     * @return index of the work-item in its work-group for the dimension
+     *         ({@code get_local_id}).
+     */
+    public int localId(int dimension) {
+        return 0;
+    }
+
+    /**
+     * @return index of the work-group for the dimension ({@code get_group_id}).
+     */
+    public int groupId(int dimension) {
+        return 0;
+    }
+
+    /**
+     * @return number of work-items of the NDRange for the dimension
+     *         ({@code get_global_size}).
+     */
+    public int globalSize(int dimension) {
+        return 1;
+    }
+
+    /**
+     * @return number of work-items of a work-group for the dimension
+     *         ({@code get_local_size}).
+     */
+    public int localSize(int dimension) {
+        return 1;
+    }
+
+    /**
+     * Waits until every work-item of the work-group reaches the barrier, and
+     * makes the writes to local memory visible to the work-group.
+     */
+    public void localBarrier() {
+    }
+
+    /**
+     * Waits until every work-item of the work-group reaches the barrier, and
+     * makes the writes to global memory visible to the work-group.
+     */
+    public void globalBarrier() {
+    }
+
+    /**
+     * Allocates an array in local memory, shared by the work-items of a
+     * work-group.
+     *
+     * @param size
+     *            number of elements, known at compile time.
+     */
+    public int[] allocateIntLocalArray(int size) {
+        return new int[size];
+    }
+
+    /**
+     * @see #allocateIntLocalArray(int)
+     */
+    public long[] allocateLongLocalArray(int size) {
+        return new long[size];
+    }
+
+    /**
+     * @see #allocateIntLocalArray(int)
+     */
+    public float[] allocateFloatLocalArray(int size) {
+        return new float[size];
+    }
+
+    /**
+     * @see #allocateIntLocalArray(int)
+     */
+    public double[] allocateDoubleLocalArray(int size) {
+        return new double[size];
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.common.TornadoFunctions.Task2;
+
+/**
+ * Out-of-core execution of element-wise tasks over files.
+ *
+ * <p>
+ * The input file is read one window at a time into a direct buffer, so only a
+ * window of the data lives in the Java heap. Each window is copied to the
+ * device, processed by the task and the result is written to the output file.
+ * This allows processing files that are larger than the Java heap and larger
+ * than the device memory. The files are accessed by a background thread: while
+ * the device processes a window, the next one is read and the result of the
+ * previous one is written.
+ * </p>
+ *
+ * <p>
+ * The task receives an input and an output array of the window size. For the
+ * last window, only the first elements of the arrays hold data and the rest of
+ * the input array is filled with zeros.
+ * </p>
+ *
+ * <pre>
+ * new OutOfCoreSchedule("s0", 1 << 24).mapFloats(input, output, Kernels::scale);
+ * </pre>
+ */
+public class OutOfCoreSchedule {
+
+    private final String name;
+    private final int windowSize;
+    private ByteOrder byteOrder;
+    private TornadoDevice device;
+
+    /**
+     * @param name
+     *            name of the task-schedule used to process every window.
+     * @param windowSize
+     *            number of elements processed per window.
+     */
+    public OutOfCoreSchedule(String name, int windowSize) {
+        if (windowSize <= 0) {
+            throw new IllegalArgumentException("Window size must be greater than 0: " + windowSize);
+        }
+        this.name = name;
+        this.windowSize = windowSize;
+        this.byteOrder = ByteOrder.LITTLE_ENDIAN;
+    }
+
+    /**
+     * Sets the byte order of the elements in the files. By default, files are
+     * read and written in little-endian order.
+     */
+    public OutOfCoreSchedule order(ByteOrder order) {
+        this.byteOrder = order;
+        return this;
+    }
+
+    public OutOfCoreSchedule mapTo(TornadoDevice device) {
+        this.device = device;
+        return this;
+    }
+
+    @FunctionalInterface
+    private interface WindowCopy<T> {
+        void copy(ByteBuffer buffer, T array, int length);
+    }
+
+    public void mapFloats(Path input, Path output, Task2<float[], float[]> code) throws IOException {
+        run(input, output, Float.BYTES, new float[windowSize], new float[windowSize], code, (buffer, array, length) -> {
+            buffer.asFloatBuffer().get(array, 0, length);
+            Arrays.fill(array, length, array.length, 0);
+        }, (buffer, array, length) -> buffer.asFloatBuffer().put(array, 0, length));
+    }
+
+    public void mapDoubles(Path input, Path output, Task2<double[], double[]> code) throws IOException {
+        run(input, output, Double.BYTES, new double[windowSize], new double[windowSize], code, (buffer, array, length) -> {
+            buffer.asDoubleBuffer().get(array, 0, length);
+            Arrays.fill(array, length, array.length, 0);
+        }, (buffer, array, length) -> buffer.asDoubleBuffer().put(array, 0, length));
+    }
+
+    public void mapInts(Path input, Path output, Task2<int[], int[]> code) throws IOException {
+        run(input, output, Integer.BYTES, new int[windowSize], new int[windowSize], code, (buffer, array, length) -> {
+            buffer.asIntBuffer().get(array, 0, length);
+            Arrays.fill(array, length, array.length, 0);
+        }, (buffer, array, length) -> buffer.asIntBuffer().put(array, 0, length));
+    }
+
+    public void mapLongs(Path input, Path output, Task2<long[], long[]> code) throws IOException {
+        run(input, output, Long.BYTES, new long[windowSize], new long[windowSize], code, (buffer, array, length) -> {
+            buffer.asLongBuffer().get(array, 0, length);
+            Arrays.fill(array, length, array.length, 0);
+        }, (buffer, array, length) -> buffer.asLongBuffer().put(array, 0, length));
+    }
+
+    private static void read(FileChannel channel, ByteBuffer buffer, long position, int bytes) throws IOException {
+        buffer.clear().limit(bytes);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of file at byte " + (position + buffer.position()));
+            }
+        }
+        buffer.flip();
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * Waits for a read or a write of the background thread and rethrows its
+     * exception.
+     */
+    private static void await(Future<?> operation) throws IOException {
+        try {
+            operation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while accessing the files of the out-of-core schedule");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    private <T> void run(Path input, Path output, int elementSize, T inputWindow, T outputWindow, Task2<T, T> code, WindowCopy<T> reader, WindowCopy<T> writer) throws IOException {
+        final ExecutorService io = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, name + "-io");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        try (FileChannel in = FileChannel.open(input, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(output, StandardOpenOption.WRITE, StandardOpenOption.CREATE)) {
+
+            if (in.size() % elementSize != 0) {
+                throw new IOException("Size of " + input + " (" + in.size() + " bytes) is not a multiple of the element size (" + elementSize + " bytes)");
+            }
+            final long numElements = in.size() / elementSize;
+            out.truncate(numElements * elementSize);
+
+            final TaskSchedule ts = new TaskSchedule(name);
+            ts.streamIn(inputWindow).task("t0", code, inputWindow, outputWindow).streamOut(outputWindow);
+            if (device != null) {
+                ts.mapAllTo(device);
+            }
+
+            // The input buffer is filled with the next window while the device
+            // processes the current one, and the output buffer is written while
+            // the device processes the next one
+            final int windowBytes = Math.multiplyExact(windowSize, elementSize);
+            final ByteBuffer inputBuffer = ByteBuffer.allocateDirect(windowBytes).order(byteOrder);
+            final ByteBuffer outputBuffer = ByteBuffer.allocateDirect(windowBytes).order(byteOrder);
+
+            Future<?> pendingRead = null;
+            Future<?> pendingWrite = null;
+            if (numElements > 0) {
+                final int bytes = (int) Math.min(windowSize, numElements) * elementSize;
+                pendingRead = io.submit(() -> {
+                    read(in, inputBuffer, 0, bytes);
+                    return null;
+                });
+            }
+
+            for (long first = 0; first < numElements; first += windowSize) {
+                final int length = (int) Math.min(windowSize, numElements - first);
+                final long position = first * elementSize;
+
+                await(pendingRead);
+                reader.copy(inputBuffer, inputWindow, length);
+
+                final long next = first + windowSize;
+                if (next < numElements) {
+                    final int bytes = (int) Math.min(windowSize, numElements - next) * elementSize;
+                    pendingRead = io.submit(() -> {
+                        read(in, inputBuffer, next * elementSize, bytes);
+                        return null;
+                    });
+                }
+
+                ts.execute();
+
+                if (pendingWrite != null) {
+                    await(pendingWrite);
+                }
+                outputBuffer.clear().limit(length * elementSize);
+                writer.copy(outputBuffer, outputWindow, length);
+                pendingWrite = io.submit(() -> {
+                    write(out, outputBuffer, position);
+                    return null;
+                });
+            }
+            if (pendingWrite != null) {
+                await(pendingWrite);
+            }
+        } finally {
+            io.shutdownNow();
+        }
+    }
+}
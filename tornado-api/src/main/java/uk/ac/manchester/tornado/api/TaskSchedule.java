@@ -207,6 +207,24 @@ public class TaskSchedule implements TornadoAPI, ProfileInterface {
         return this;
     }
 
+    @Override
+    public TaskSchedule keepOnDevice(Object... objects) {
+        taskScheduleImpl.keepOnDeviceInner(objects);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule replaceParameter(Object oldParameter, Object newParameter) {
+        taskScheduleImpl.replaceParameterInner(oldParameter, newParameter);
+        return this;
+    }
+
+    @Override
+    public TaskSchedule setWorkerGrid(String taskName, WorkerGrid grid) {
+        taskScheduleImpl.setWorkerGridInner(taskName, grid);
+        return this;
+    }
+
     @Override
     public TaskSchedule streamOut(Object... objects) {
         taskScheduleImpl.streamOutInner(objects);
@@ -407,6 +407,52 @@ public interface TornadoAPI {
      */
     TornadoAPI streamOut(Object... objects);
 
+    /**
+     * Keep objects on the device across task-schedules. When the device already
+     * holds an up-to-date copy of an object (e.g., written by a previous
+     * task-schedule mapped to the same device), the copy from the host is
+     * skipped, even if the object is also passed to {@link #streamIn}. Objects
+     * kept on the device are not copied back to the host at the end of the
+     * execution; the host copy is updated with {@link #syncObject} or
+     * {@link #syncObjects}.
+     *
+     * @param objects
+     *            list of objects that stay on the device.
+     * @return link to the {@TornadoAPI} to allow function composition.
+     */
+    TornadoAPI keepOnDevice(Object... objects);
+
+    /**
+     * Replaces a parameter of the tasks of the task-schedule without building the
+     * task-schedule again. Every task that receives the old parameter receives the
+     * new one. An array can be replaced by another array of the same type, and
+     * the TornadoVM bytecode and the compiled kernels are reused. Arrays of a
+     * different length are supported unless the task-schedule runs in batches;
+     * tasks that fold the length of the array into constants are compiled again.
+     * A scalar can be replaced by a scalar of the same type; the tasks that fold
+     * its value into constants are compiled again when its value changes.
+     *
+     * @param oldParameter
+     *            parameter passed to the tasks of the task-schedule.
+     * @param newParameter
+     *            parameter that replaces it.
+     * @return link to the {@TornadoAPI} to allow function composition.
+     */
+    TornadoAPI replaceParameter(Object oldParameter, Object newParameter);
+
+    /**
+     * Sets the number of work-items and the size of the work-groups of a task.
+     * Sizes given with the {@code <task>.global.dims} and
+     * {@code <task>.local.dims} properties take precedence.
+     *
+     * @param taskName
+     *            name of the task, e.g., {@code "t0"} or {@code "s0.t0"}.
+     * @param grid
+     *            {@link WorkerGrid} of the task.
+     * @return link to the {@TornadoAPI} to allow function composition.
+     */
+    TornadoAPI setWorkerGrid(String taskName, WorkerGrid grid);
+
     /**
      * Internal call to run the task-schedule
      * 
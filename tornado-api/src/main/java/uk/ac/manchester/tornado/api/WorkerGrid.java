@@ -0,0 +1,107 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api;
+
+import java.util.Arrays;
+
+/**
+ * Number of work-items (global work size) and, optionally, size of the
+ * work-groups (local work size) a task is launched with. It is set per task
+ * with {@link TornadoAPI#setWorkerGrid}, and it is mandatory for tasks written
+ * with a {@link KernelContext}. For tasks with {@code @Parallel} loops it
+ * replaces the sizes computed by the TornadoVM, and it must have as many
+ * dimensions as parallel loops.
+ */
+public class WorkerGrid {
+
+    private final long[] globalWork;
+    private long[] localWork;
+
+    /**
+     * @param globalWork
+     *            number of work-items of each dimension, from 1 to 3
+     *            dimensions.
+     */
+    public WorkerGrid(long... globalWork) {
+        if (globalWork.length < 1 || globalWork.length > 3) {
+            throw new IllegalArgumentException("A worker grid has 1, 2 or 3 dimensions");
+        }
+        this.globalWork = globalWork.clone();
+    }
+
+    /**
+     * Sets the size of the work-groups. When it is not set, the size is chosen by
+     * the TornadoVM for tasks with {@code @Parallel} loops, and by the OpenCL
+     * driver for the rest.
+     *
+     * @param localWork
+     *            number of work-items of each dimension of a work-group.
+     * @return this grid.
+     */
+    public WorkerGrid setLocalWork(long... localWork) {
+        if (localWork.length != globalWork.length) {
+            throw new IllegalArgumentException("The local work size must have " + globalWork.length + " dimensions");
+        }
+        this.localWork = localWork.clone();
+        return this;
+    }
+
+    public int getDimensions() {
+        return globalWork.length;
+    }
+
+    public long[] getGlobalWork() {
+        return globalWork;
+    }
+
+    /**
+     * @return the size of the work-groups, or null if it is not set.
+     */
+    public long[] getLocalWork() {
+        return localWork;
+    }
+
+    @Override
+    public String toString() {
+        return "WorkerGrid [global=" + Arrays.toString(globalWork) + ", local=" + (localWork == null ? "null" : Arrays.toString(localWork)) + "]";
+    }
+}
@@ -0,0 +1,405 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.algorithms;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+
+/**
+ * Keyed (GROUP BY) and segmented reductions expressed as pairs of tasks.
+ *
+ * <p>
+ * Keyed reductions aggregate the values of every key of a small key space
+ * (keys in [0, numKeys)). The first task splits the input into partitions
+ * and each thread aggregates its partition into its own row of a partial
+ * table, so no atomics are needed. The second task merges the rows of every
+ * key.
+ * </p>
+ *
+ * <p>
+ * Segmented reductions reduce every segment of an array delimited by a CSR
+ * style offsets array (segment s spans [offsets[s], offsets[s + 1])). The
+ * first task splits the values in chunks of the same size, so long segments
+ * do not unbalance the threads. Segments contained in a chunk are written
+ * directly, and the parts of the segments that cross chunk boundaries are
+ * written as carries, which the second task combines.
+ * </p>
+ *
+ * <p>
+ * All methods are plain Java, so they run sequentially on the host when the
+ * task-schedule cannot be executed on a device.
+ * </p>
+ */
+public class KeyedReductions {
+
+    public static final int SUM = 0;
+    public static final int MIN = 1;
+    public static final int MAX = 2;
+
+    /**
+     * Upper bound for the number of elements of a partial table created with
+     * {@link #numPartitions(int, int)}.
+     */
+    public static final int MAX_PARTIAL_ELEMENTS = 1 << 20;
+
+    public static final int MAX_PARTITIONS = 4096;
+
+    private KeyedReductions() {
+    }
+
+    /**
+     * Number of partitions (rows of the partial table) for a keyed reduction
+     * of {@code size} elements over {@code numKeys} keys. The partial table
+     * must have {@code numPartitions * numKeys} elements.
+     */
+    public static int numPartitions(int size, int numKeys) {
+        int partitions = Math.min(size, MAX_PARTITIONS);
+        partitions = Math.min(partitions, MAX_PARTIAL_ELEMENTS / Math.max(numKeys, 1));
+        return Math.max(partitions, 1);
+    }
+
+    /**
+     * Number of chunks of a segmented reduction of {@code size} elements. The
+     * carries array must have {@code 2 * numChunks} elements.
+     */
+    public static int numChunks(int size, int chunkSize) {
+        return Math.max((size + chunkSize - 1) / chunkSize, 1);
+    }
+
+    private static float floatIdentity(int operation) {
+        if (operation == MIN) {
+            return Float.MAX_VALUE;
+        } else if (operation == MAX) {
+            return -Float.MAX_VALUE;
+        }
+        return 0.0f;
+    }
+
+    private static int intIdentity(int operation) {
+        if (operation == MIN) {
+            return Integer.MAX_VALUE;
+        } else if (operation == MAX) {
+            return Integer.MIN_VALUE;
+        }
+        return 0;
+    }
+
+    private static float combine(float a, float b, int operation) {
+        if (operation == MIN) {
+            return Math.min(a, b);
+        } else if (operation == MAX) {
+            return Math.max(a, b);
+        }
+        return a + b;
+    }
+
+    private static int combine(int a, int b, int operation) {
+        if (operation == MIN) {
+            return Math.min(a, b);
+        } else if (operation == MAX) {
+            return Math.max(a, b);
+        }
+        return a + b;
+    }
+
+    /**
+     * Aggregates the values of every partition into its row of
+     * {@code partials}. Partition p processes the elements p, p + numPartitions,
+     * p + 2 * numPartitions, etc., so the reads of neighbour threads are
+     * contiguous. Keys outside [0, numKeys) are ignored.
+     */
+    public static void partialByKey(int[] keys, float[] values, float[] partials, int numKeys, int operation) {
+        int numPartitions = partials.length / numKeys;
+        for (@Parallel int p = 0; p < numPartitions; p++) {
+            int base = p * numKeys;
+            for (int k = 0; k < numKeys; k++) {
+                partials[base + k] = floatIdentity(operation);
+            }
+            for (int i = p; i < keys.length; i += numPartitions) {
+                int key = keys[i];
+                if (key >= 0 && key < numKeys) {
+                    partials[base + key] = combine(partials[base + key], values[i], operation);
+                }
+            }
+        }
+    }
+
+    public static void partialByKey(int[] keys, int[] values, int[] partials, int numKeys, int operation) {
+        int numPartitions = partials.length / numKeys;
+        for (@Parallel int p = 0; p < numPartitions; p++) {
+            int base = p * numKeys;
+            for (int k = 0; k < numKeys; k++) {
+                partials[base + k] = intIdentity(operation);
+            }
+            for (int i = p; i < keys.length; i += numPartitions) {
+                int key = keys[i];
+                if (key >= 0 && key < numKeys) {
+                    partials[base + key] = combine(partials[base + key], values[i], operation);
+                }
+            }
+        }
+    }
+
+    public static void partialCountByKey(int[] keys, int[] partials, int numKeys) {
+        int numPartitions = partials.length / numKeys;
+        for (@Parallel int p = 0; p < numPartitions; p++) {
+            int base = p * numKeys;
+            for (int k = 0; k < numKeys; k++) {
+                partials[base + k] = 0;
+            }
+            for (int i = p; i < keys.length; i += numPartitions) {
+                int key = keys[i];
+                if (key >= 0 && key < numKeys) {
+                    partials[base + key] = partials[base + key] + 1;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges the rows of {@code partials} into {@code result}, one thread per
+     * key.
+     */
+    public static void mergeByKey(float[] partials, float[] result, int operation) {
+        int numKeys = result.length;
+        int numPartitions = partials.length / numKeys;
+        for (@Parallel int k = 0; k < result.length; k++) {
+            float acc = floatIdentity(operation);
+            for (int p = 0; p < numPartitions; p++) {
+                acc = combine(acc, partials[p * numKeys + k], operation);
+            }
+            result[k] = acc;
+        }
+    }
+
+    public static void mergeByKey(int[] partials, int[] result, int operation) {
+        int numKeys = result.length;
+        int numPartitions = partials.length / numKeys;
+        for (@Parallel int k = 0; k < result.length; k++) {
+            int acc = intIdentity(operation);
+            for (int p = 0; p < numPartitions; p++) {
+                acc = combine(acc, partials[p * numKeys + k], operation);
+            }
+            result[k] = acc;
+        }
+    }
+
+    /**
+     * Finds the last segment that starts at or before {@code position}.
+     */
+    private static int findSegment(int[] offsets, int numSegments, int position) {
+        int low = 0;
+        int high = numSegments - 1;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Reduces the segments of every chunk of {@code values}. Segments fully
+     * contained in the chunk are written to {@code result}. The part of the
+     * segment that starts before the chunk is written to carries[c] (head), and
+     * the part of the segment that ends after it to carries[numChunks + c]
+     * (tail).
+     */
+    public static void reduceSegmentChunks(float[] values, int[] offsets, float[] result, float[] carries, int chunkSize, int operation) {
+        int numChunks = carries.length / 2;
+        int numSegments = result.length;
+        for (@Parallel int c = 0; c < numChunks; c++) {
+            int start = c * chunkSize;
+            int end = Math.min(start + chunkSize, values.length);
+            float head = floatIdentity(operation);
+            float tail = floatIdentity(operation);
+            if (start < end) {
+                int s = findSegment(offsets, numSegments, start);
+                int i = start;
+                while (i < end && s < numSegments) {
+                    int segmentStart = offsets[s];
+                    int segmentEnd = offsets[s + 1];
+                    int stop = Math.min(segmentEnd, end);
+                    float acc = floatIdentity(operation);
+                    for (int j = i; j < stop; j++) {
+                        acc = combine(acc, values[j], operation);
+                    }
+                    if (segmentStart < start) {
+                        head = acc;
+                    } else if (segmentEnd > end) {
+                        tail = acc;
+                    } else {
+                        result[s] = acc;
+                    }
+                    i = stop;
+                    s++;
+                }
+            }
+            carries[c] = head;
+            carries[numChunks + c] = tail;
+        }
+    }
+
+    public static void reduceSegmentChunks(int[] values, int[] offsets, int[] result, int[] carries, int chunkSize, int operation) {
+        int numChunks = carries.length / 2;
+        int numSegments = result.length;
+        for (@Parallel int c = 0; c < numChunks; c++) {
+            int start = c * chunkSize;
+            int end = Math.min(start + chunkSize, values.length);
+            int head = intIdentity(operation);
+            int tail = intIdentity(operation);
+            if (start < end) {
+                int s = findSegment(offsets, numSegments, start);
+                int i = start;
+                while (i < end && s < numSegments) {
+                    int segmentStart = offsets[s];
+                    int segmentEnd = offsets[s + 1];
+                    int stop = Math.min(segmentEnd, end);
+                    int acc = intIdentity(operation);
+                    for (int j = i; j < stop; j++) {
+                        acc = combine(acc, values[j], operation);
+                    }
+                    if (segmentStart < start) {
+                        head = acc;
+                    } else if (segmentEnd > end) {
+                        tail = acc;
+                    } else {
+                        result[s] = acc;
+                    }
+                    i = stop;
+                    s++;
+                }
+            }
+            carries[c] = head;
+            carries[numChunks + c] = tail;
+        }
+    }
+
+    /**
+     * Combines the carries of the segments that cross chunk boundaries, and
+     * writes the identity of the operation for empty segments.
+     */
+    public static void mergeSegmentChunks(int[] offsets, float[] result, float[] carries, int chunkSize, int operation) {
+        int numChunks = carries.length / 2;
+        for (@Parallel int s = 0; s < result.length; s++) {
+            int segmentStart = offsets[s];
+            int segmentEnd = offsets[s + 1];
+            if (segmentStart == segmentEnd) {
+                result[s] = floatIdentity(operation);
+            } else {
+                int first = segmentStart / chunkSize;
+                int last = (segmentEnd - 1) / chunkSize;
+                if (first != last) {
+                    float acc = carries[numChunks + first];
+                    for (int c = first + 1; c <= last; c++) {
+                        acc = combine(acc, carries[c], operation);
+                    }
+                    result[s] = acc;
+                }
+            }
+        }
+    }
+
+    public static void mergeSegmentChunks(int[] offsets, int[] result, int[] carries, int chunkSize, int operation) {
+        int numChunks = carries.length / 2;
+        for (@Parallel int s = 0; s < result.length; s++) {
+            int segmentStart = offsets[s];
+            int segmentEnd = offsets[s + 1];
+            if (segmentStart == segmentEnd) {
+                result[s] = intIdentity(operation);
+            } else {
+                int first = segmentStart / chunkSize;
+                int last = (segmentEnd - 1) / chunkSize;
+                if (first != last) {
+                    int acc = carries[numChunks + first];
+                    for (int c = first + 1; c <= last; c++) {
+                        acc = combine(acc, carries[c], operation);
+                    }
+                    result[s] = acc;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds the tasks {@code taskName + "Partial"} and {@code taskName + "Merge"}
+     * that aggregate {@code values} by key into {@code result}, which has one
+     * element per key.
+     */
+    public static TaskSchedule reduceByKey(TaskSchedule schedule, String taskName, int[] keys, float[] values, float[] partials, float[] result, int operation) {
+        return schedule //
+                .task(taskName + "Partial", KeyedReductions::partialByKey, keys, values, partials, result.length, operation) //
+                .task(taskName + "Merge", KeyedReductions::mergeByKey, partials, result, operation);
+    }
+
+    public static TaskSchedule reduceByKey(TaskSchedule schedule, String taskName, int[] keys, int[] values, int[] partials, int[] result, int operation) {
+        return schedule //
+                .task(taskName + "Partial", KeyedReductions::partialByKey, keys, values, partials, result.length, operation) //
+                .task(taskName + "Merge", KeyedReductions::mergeByKey, partials, result, operation);
+    }
+
+    public static TaskSchedule countByKey(TaskSchedule schedule, String taskName, int[] keys, int[] partials, int[] result) {
+        return schedule //
+                .task(taskName + "Partial", KeyedReductions::partialCountByKey, keys, partials, result.length) //
+                .task(taskName + "Merge", KeyedReductions::mergeByKey, partials, result, SUM);
+    }
+
+    /**
+     * Adds the tasks {@code taskName + "Chunks"} and {@code taskName + "Merge"}
+     * that reduce every segment of {@code values} into {@code result}, which has
+     * {@code offsets.length - 1} elements.
+     */
+    public static TaskSchedule reduceSegments(TaskSchedule schedule, String taskName, float[] values, int[] offsets, float[] carries, float[] result, int chunkSize, int operation) {
+        return schedule //
+                .task(taskName + "Chunks", KeyedReductions::reduceSegmentChunks, values, offsets, result, carries, chunkSize, operation) //
+                .task(taskName + "Merge", KeyedReductions::mergeSegmentChunks, offsets, result, carries, chunkSize, operation);
+    }
+
+    public static TaskSchedule reduceSegments(TaskSchedule schedule, String taskName, int[] values, int[] offsets, int[] carries, int[] result, int chunkSize, int operation) {
+        return schedule //
+                .task(taskName + "Chunks", KeyedReductions::reduceSegmentChunks, values, offsets, result, carries, chunkSize, operation) //
+                .task(taskName + "Merge", KeyedReductions::mergeSegmentChunks, offsets, result, carries, chunkSize, operation);
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.algorithms;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+
+/**
+ * Least-significant-digit radix sort of int, long and float keys, with an
+ * optional int payload (e.g., the indices of the keys, to permute other
+ * arrays), expressed as tasks of a {@link TaskSchedule}.
+ *
+ * <p>
+ * Every pass sorts the keys by a digit of {@link #RADIX_BITS} bits with three
+ * steps:
+ * <ol>
+ * <li>{@code histogram}: every thread counts the digits of a block of
+ * {@link #BLOCK_SIZE} keys. The counts are stored digit-major,
+ * {@code counts[digit * numBlocks + block]}.</li>
+ * <li>An exclusive {@link Scan} of the counts, which gives the position of
+ * the first key of every digit and block in the output.</li>
+ * <li>{@code scatter}: every thread moves the keys of its block to their
+ * positions, in order, so every pass is stable.</li>
+ * </ol>
+ * Every thread owns its counts, so no atomics are needed. The keys are
+ * moved between the input array and a buffer of the same size, and the number
+ * of passes is always even, so the sorted keys end up in the input array.
+ * The {@code counts} array must have {@link #numCounts(int)} elements and
+ * {@code tileSums} {@code Scan.numTiles(numCounts(size))} elements.
+ * </p>
+ */
+public class RadixSort {
+
+    public static final int RADIX_BITS = 8;
+    public static final int RADIX = 1 << RADIX_BITS;
+    public static final int BLOCK_SIZE = 256;
+
+    private RadixSort() {
+    }
+
+    public static int numBlocks(int size) {
+        return Math.max((size + BLOCK_SIZE - 1) / BLOCK_SIZE, 1);
+    }
+
+    public static int numCounts(int size) {
+        return RADIX * numBlocks(size);
+    }
+
+    private static int digit(int key, int shift) {
+        return ((key ^ Integer.MIN_VALUE) >>> shift) & (RADIX - 1);
+    }
+
+    private static int digit(long key, int shift) {
+        return (int) (((key ^ Long.MIN_VALUE) >>> shift) & (RADIX - 1));
+    }
+
+    /**
+     * Flips the sign bit of positive floats and all the bits of negative floats,
+     * so the bits of the keys are ordered as unsigned integers.
+     */
+    private static int digit(float key, int shift) {
+        int bits = Float.floatToRawIntBits(key);
+        int mask = (bits >> 31) | Integer.MIN_VALUE;
+        return ((bits ^ mask) >>> shift) & (RADIX - 1);
+    }
+
+    public static void histogram(int[] keys, int[] counts, int shift) {
+        int numBlocks = counts.length / RADIX;
+        for (@Parallel int b = 0; b < numBlocks; b++) {
+            for (int d = 0; d < RADIX; d++) {
+                counts[d * numBlocks + b] = 0;
+            }
+            int end = Math.min((b + 1) * BLOCK_SIZE, keys.length);
+            for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int index = digit(keys[i], shift) * numBlocks + b;
+                counts[index] = counts[index] + 1;
+            }
+        }
+    }
+
+    public static void histogram(long[] keys, int[] counts, int shift) {
+        int numBlocks = counts.length / RADIX;
+        for (@Parallel int b = 0; b < numBlocks; b++) {
+            for (int d = 0; d < RADIX; d++) {
+                counts[d * numBlocks + b] = 0;
+            }
+            int end = Math.min((b + 1) * BLOCK_SIZE, keys.length);
+            for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int index = digit(keys[i], shift) * numBlocks + b;
+                counts[index] = counts[index] + 1;
+            }
+        }
+    }
+
+    public static void histogram(float[] keys, int[] counts, int shift) {
+        int numBlocks = counts.length / RADIX;
+        for (@Parallel int b = 0; b < numBlocks; b++) {
+            for (int d = 0; d < RADIX; d++) {
+                counts[d * numBlocks + b] = 0;
+            }
+            int end = Math.min((b + 1) * BLOCK_SIZE, keys.length);
+            for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int index = digit(keys[i], shift) * numBlocks + b;
+                counts[index] = counts[index] + 1;
+            }
+        }
+    }
+
+    /**
+     * Moves the keys of every block to the positions given by the scanned
+     * counts. The offsets of the block are incremented as the keys are moved.
+     */
+    public static void scatter(int[] keysIn, int[] keysOut, int[] offsets, int shift) {
+        int numBlocks = offsets.length / RADIX;
+        for (@Parallel int b = 0; b < numBlocks; b++) {
+            int end = Math.min((b + 1) * BLOCK_SIZE, keysIn.length);
+            for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int index = digit(keysIn[i], shift) * numBlocks + b;
+                int position = offsets[index];
+                keysOut[position] = keysIn[i];
+                offsets[index] = position + 1;
+            }
+        }
+    }
+
+    public static void scatter(long[] keysIn, long[] keysOut, int[] offsets, int shift) {
+        int numBlocks = offsets.length / RADIX;
+        for (@Parallel int b = 0; b < numBlocks; b++) {
+            int end = Math.min((b + 1) * BLOCK_SIZE, keysIn.length);
+            for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int index = digit(keysIn[i], shift) * numBlocks + b;
+                int position = offsets[index];
+                keysOut[position] = keysIn[i];
+                offsets[index] = position + 1;
+            }
+        }
+    }
+
+    public static void scatter(float[] keysIn, float[] keysOut, int[] offsets, int shift) {
+        int numBlocks = offsets.length / RADIX;
+        for (@Parallel int b = 0; b < numBlocks; b++) {
+            int end = Math.min((b + 1) * BLOCK_SIZE, keysIn.length);
+            for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int index = digit(keysIn[i], shift) * numBlocks + b;
+                int position = offsets[index];
+                keysOut[position] = keysIn[i];
+                offsets[index] = position + 1;
+            }
+        }
+    }
+
+    public static void scatter(int[] keysIn, int[] keysOut, int[] valuesIn, int[] valuesOut, int[] offsets, int shift) {
+        int numBlocks = offsets.length / RADIX;
+        for (@Parallel int b = 0; b < numBlocks; b++) {
+            int end = Math.min((b + 1) * BLOCK_SIZE, keysIn.length);
+            for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int index = digit(keysIn[i], shift) * numBlocks + b;
+                int position = offsets[index];
+                keysOut[position] = keysIn[i];
+                valuesOut[position] = valuesIn[i];
+                offsets[index] = position + 1;
+            }
+        }
+    }
+
+    public static void scatter(long[] keysIn, long[] keysOut, int[] valuesIn, int[] valuesOut, int[] offsets, int shift) {
+        int numBlocks = offsets.length / RADIX;
+        for (@Parallel int b = 0; b < numBlocks; b++) {
+            int end = Math.min((b + 1) * BLOCK_SIZE, keysIn.length);
+            for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int index = digit(keysIn[i], shift) * numBlocks + b;
+                int position = offsets[index];
+                keysOut[position] = keysIn[i];
+                valuesOut[position] = valuesIn[i];
+                offsets[index] = position + 1;
+            }
+        }
+    }
+
+    public static void scatter(float[] keysIn, float[] keysOut, int[] valuesIn, int[] valuesOut, int[] offsets, int shift) {
+        int numBlocks = offsets.length / RADIX;
+        for (@Parallel int b = 0; b < numBlocks; b++) {
+            int end = Math.min((b + 1) * BLOCK_SIZE, keysIn.length);
+            for (int i = b * BLOCK_SIZE; i < end; i++) {
+                int index = digit(keysIn[i], shift) * numBlocks + b;
+                int position = offsets[index];
+                keysOut[position] = keysIn[i];
+                valuesOut[position] = valuesIn[i];
+                offsets[index] = position + 1;
+            }
+        }
+    }
+
+    private static int findSegment(int[] offsets, int position) {
+        int low = 0;
+        int high = offsets.length - 2;
+        while (low < high) {
+            int middle = (low + high + 1) >>> 1;
+            if (offsets[middle] <= position) {
+                low = middle;
+            } else {
+                high = middle - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Combines the segment of every key (upper 32 bits) and the key (lower 32
+     * bits, ordered as unsigned) into a long key, so sorting the long keys sorts
+     * every segment independently.
+     */
+    public static void encodeSegments(int[] keys, int[] offsets, long[] segmentedKeys) {
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            long segment = findSegment(offsets, i);
+            segmentedKeys[i] = (segment << 32) | ((keys[i] ^ Integer.MIN_VALUE) & 0xFFFFFFFFL);
+        }
+    }
+
+    public static void decodeSegments(long[] segmentedKeys, int[] keys) {
+        for (@Parallel int i = 0; i < keys.length; i++) {
+            keys[i] = ((int) segmentedKeys[i]) ^ Integer.MIN_VALUE;
+        }
+    }
+
+    private static TaskSchedule addPasses(TaskSchedule schedule, String taskName, KernelContext context, int passes, int[] counts, int[] tileSums, Object keys, Object buffer,
+            int[] values, int[] valuesBuffer) {
+        for (int pass = 0; pass < passes; pass++) {
+            boolean even = (pass % 2) == 0;
+            Object keysIn = even ? keys : buffer;
+            Object keysOut = even ? buffer : keys;
+            int shift = pass * RADIX_BITS;
+            String histogram = taskName + "Histogram" + pass;
+            String scatter = taskName + "Scatter" + pass;
+            if (keys instanceof int[]) {
+                schedule.task(histogram, RadixSort::histogram, (int[]) keysIn, counts, shift);
+            } else if (keys instanceof long[]) {
+                schedule.task(histogram, RadixSort::histogram, (long[]) keysIn, counts, shift);
+            } else {
+                schedule.task(histogram, RadixSort::histogram, (float[]) keysIn, counts, shift);
+            }
+            Scan.scan(schedule, taskName + "Scan" + pass, context, counts, counts, tileSums, false);
+            if (values == null) {
+                if (keys instanceof int[]) {
+                    schedule.task(scatter, RadixSort::scatter, (int[]) keysIn, (int[]) keysOut, counts, shift);
+                } else if (keys instanceof long[]) {
+                    schedule.task(scatter, RadixSort::scatter, (long[]) keysIn, (long[]) keysOut, counts, shift);
+                } else {
+                    schedule.task(scatter, RadixSort::scatter, (float[]) keysIn, (float[]) keysOut, counts, shift);
+                }
+            } else {
+                int[] valuesIn = even ? values : valuesBuffer;
+                int[] valuesOut = even ? valuesBuffer : values;
+                if (keys instanceof int[]) {
+                    schedule.task(scatter, RadixSort::scatter, (int[]) keysIn, (int[]) keysOut, valuesIn, valuesOut, counts, shift);
+                } else if (keys instanceof long[]) {
+                    schedule.task(scatter, RadixSort::scatter, (long[]) keysIn, (long[]) keysOut, valuesIn, valuesOut, counts, shift);
+                } else {
+                    schedule.task(scatter, RadixSort::scatter, (float[]) keysIn, (float[]) keysOut, valuesIn, valuesOut, counts, shift);
+                }
+            }
+        }
+        return schedule;
+    }
+
+    /**
+     * Adds the tasks that sort {@code keys} in ascending order.
+     * {@code buffer} has the size of the keys.
+     */
+    public static TaskSchedule sort(TaskSchedule schedule, String taskName, KernelContext context, int[] keys, int[] buffer, int[] counts, int[] tileSums) {
+        return addPasses(schedule, taskName, context, Integer.SIZE / RADIX_BITS, counts, tileSums, keys, buffer, null, null);
+    }
+
+    public static TaskSchedule sort(TaskSchedule schedule, String taskName, KernelContext context, long[] keys, long[] buffer, int[] counts, int[] tileSums) {
+        return addPasses(schedule, taskName, context, Long.SIZE / RADIX_BITS, counts, tileSums, keys, buffer, null, null);
+    }
+
+    public static TaskSchedule sort(TaskSchedule schedule, String taskName, KernelContext context, float[] keys, float[] buffer, int[] counts, int[] tileSums) {
+        return addPasses(schedule, taskName, context, Float.SIZE / RADIX_BITS, counts, tileSums, keys, buffer, null, null);
+    }
+
+    /**
+     * Adds the tasks that sort {@code keys} in ascending order, and move every
+     * element of {@code values} with its key.
+     */
+    public static TaskSchedule sort(TaskSchedule schedule, String taskName, KernelContext context, int[] keys, int[] values, int[] buffer, int[] valuesBuffer, int[] counts, int[] tileSums) {
+        return addPasses(schedule, taskName, context, Integer.SIZE / RADIX_BITS, counts, tileSums, keys, buffer, values, valuesBuffer);
+    }
+
+    public static TaskSchedule sort(TaskSchedule schedule, String taskName, KernelContext context, long[] keys, int[] values, long[] buffer, int[] valuesBuffer, int[] counts, int[] tileSums) {
+        return addPasses(schedule, taskName, context, Long.SIZE / RADIX_BITS, counts, tileSums, keys, buffer, values, valuesBuffer);
+    }
+
+    public static TaskSchedule sort(TaskSchedule schedule, String taskName, KernelContext context, float[] keys, int[] values, float[] buffer, int[] valuesBuffer, int[] counts, int[] tileSums) {
+        return addPasses(schedule, taskName, context, Float.SIZE / RADIX_BITS, counts, tileSums, keys, buffer, values, valuesBuffer);
+    }
+
+    /**
+     * Number of passes of a segmented sort: the 32 bits of the keys and the bits
+     * of the segment index, rounded to an even number of passes.
+     */
+    private static int segmentedPasses(int numSegments) {
+        int segmentBits = Integer.SIZE - Integer.numberOfLeadingZeros(Math.max(numSegments - 1, 1));
+        int passes = (Integer.SIZE + segmentBits + RADIX_BITS - 1) / RADIX_BITS;
+        return passes + (passes % 2);
+    }
+
+    /**
+     * Adds the tasks that sort every segment of {@code keys}, delimited by a
+     * CSR-style {@code offsets} array that covers all the keys. The keys are
+     * combined with their segment into {@code segmentedKeys}, which are sorted
+     * only with the passes needed for the number of segments. The three long
+     * arrays have the size of the keys.
+     */
+    public static TaskSchedule segmentedSort(TaskSchedule schedule, String taskName, KernelContext context, int[] keys, int[] offsets, long[] segmentedKeys, long[] buffer, int[] counts,
+            int[] tileSums) {
+        schedule.task(taskName + "Encode", RadixSort::encodeSegments, keys, offsets, segmentedKeys);
+        addPasses(schedule, taskName, context, segmentedPasses(offsets.length - 1), counts, tileSums, segmentedKeys, buffer, null, null);
+        return schedule.task(taskName + "Decode", RadixSort::decodeSegments, segmentedKeys, keys);
+    }
+
+    public static TaskSchedule segmentedSort(TaskSchedule schedule, String taskName, KernelContext context, int[] keys, int[] values, int[] offsets, long[] segmentedKeys, long[] buffer,
+            int[] valuesBuffer, int[] counts, int[] tileSums) {
+        schedule.task(taskName + "Encode", RadixSort::encodeSegments, keys, offsets, segmentedKeys);
+        addPasses(schedule, taskName, context, segmentedPasses(offsets.length - 1), counts, tileSums, segmentedKeys, buffer, values, valuesBuffer);
+        return schedule.task(taskName + "Decode", RadixSort::decodeSegments, segmentedKeys, keys);
+    }
+}
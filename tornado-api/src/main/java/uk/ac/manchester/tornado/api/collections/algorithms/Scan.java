@@ -0,0 +1,468 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.algorithms;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.WorkerGrid;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+
+/**
+ * Parallel prefix sums (scans) and stream compaction, expressed as tasks that
+ * are added to a {@link TaskSchedule}, so their inputs and results stay on the
+ * device between the tasks of the user.
+ *
+ * <p>
+ * A scan runs in three tasks:
+ * <ol>
+ * <li>{@code scanTiles}: every work-group scans tiles of {@link #TILE_SIZE}
+ * elements in local memory with the work-efficient (Blelloch) up-sweep and
+ * down-sweep, and writes the sum of every tile to {@code tileSums}.</li>
+ * <li>{@code scanTileSums}: a single work-group scans the tile sums, in blocks
+ * of {@link #TILE_SIZE} with a running carry, so any number of tiles is
+ * supported.</li>
+ * <li>{@code addTileOffsets}: adds the scanned sum of the previous tiles to
+ * every element.</li>
+ * </ol>
+ * The {@code tileSums} array must have {@link #numTiles(int)} elements.
+ * </p>
+ *
+ * <p>
+ * The kernels loop over the tiles and the elements of a tile with the number
+ * of work-groups and work-items, so they are also correct when the tasks run
+ * in Java, where the {@link KernelContext} represents a single work-item.
+ * </p>
+ */
+public class Scan {
+
+    /**
+     * Number of elements scanned in local memory by a work-group. It must be a
+     * power of two.
+     */
+    public static final int TILE_SIZE = 512;
+
+    /**
+     * Number of work-items of each work-group.
+     */
+    public static final int GROUP_SIZE = TILE_SIZE / 2;
+
+    /**
+     * Maximum number of work-groups of {@code scanTiles}. The work-groups loop
+     * over the tiles when there are more.
+     */
+    public static final int MAX_GROUPS = 1024;
+
+    private Scan() {
+    }
+
+    public static int numTiles(int size) {
+        return Math.max((size + TILE_SIZE - 1) / TILE_SIZE, 1);
+    }
+
+    /**
+     * Replaces every element of the tile with the sum of the elements before it,
+     * and returns the sum of the whole tile to every work-item.
+     */
+    private static int exclusiveScanTile(KernelContext context, int[] tile) {
+        int localId = context.localId(0);
+        int localSize = context.localSize(0);
+        for (int stride = 1; stride < TILE_SIZE; stride <<= 1) {
+            int step = stride << 1;
+            for (int k = localId; k < TILE_SIZE / step; k += localSize) {
+                int right = (k + 1) * step - 1;
+                tile[right] += tile[right - stride];
+            }
+            context.localBarrier();
+        }
+        int total = tile[TILE_SIZE - 1];
+        context.localBarrier();
+        if (localId == 0) {
+            tile[TILE_SIZE - 1] = 0;
+        }
+        context.localBarrier();
+        for (int stride = TILE_SIZE >> 1; stride > 0; stride >>= 1) {
+            int step = stride << 1;
+            for (int k = localId; k < TILE_SIZE / step; k += localSize) {
+                int right = (k + 1) * step - 1;
+                int left = right - stride;
+                int value = tile[left];
+                tile[left] = tile[right];
+                tile[right] += value;
+            }
+            context.localBarrier();
+        }
+        return total;
+    }
+
+    private static long exclusiveScanTile(KernelContext context, long[] tile) {
+        int localId = context.localId(0);
+        int localSize = context.localSize(0);
+        for (int stride = 1; stride < TILE_SIZE; stride <<= 1) {
+            int step = stride << 1;
+            for (int k = localId; k < TILE_SIZE / step; k += localSize) {
+                int right = (k + 1) * step - 1;
+                tile[right] += tile[right - stride];
+            }
+            context.localBarrier();
+        }
+        long total = tile[TILE_SIZE - 1];
+        context.localBarrier();
+        if (localId == 0) {
+            tile[TILE_SIZE - 1] = 0;
+        }
+        context.localBarrier();
+        for (int stride = TILE_SIZE >> 1; stride > 0; stride >>= 1) {
+            int step = stride << 1;
+            for (int k = localId; k < TILE_SIZE / step; k += localSize) {
+                int right = (k + 1) * step - 1;
+                int left = right - stride;
+                long value = tile[left];
+                tile[left] = tile[right];
+                tile[right] += value;
+            }
+            context.localBarrier();
+        }
+        return total;
+    }
+
+    private static float exclusiveScanTile(KernelContext context, float[] tile) {
+        int localId = context.localId(0);
+        int localSize = context.localSize(0);
+        for (int stride = 1; stride < TILE_SIZE; stride <<= 1) {
+            int step = stride << 1;
+            for (int k = localId; k < TILE_SIZE / step; k += localSize) {
+                int right = (k + 1) * step - 1;
+                tile[right] += tile[right - stride];
+            }
+            context.localBarrier();
+        }
+        float total = tile[TILE_SIZE - 1];
+        context.localBarrier();
+        if (localId == 0) {
+            tile[TILE_SIZE - 1] = 0;
+        }
+        context.localBarrier();
+        for (int stride = TILE_SIZE >> 1; stride > 0; stride >>= 1) {
+            int step = stride << 1;
+            for (int k = localId; k < TILE_SIZE / step; k += localSize) {
+                int right = (k + 1) * step - 1;
+                int left = right - stride;
+                float value = tile[left];
+                tile[left] = tile[right];
+                tile[right] += value;
+            }
+            context.localBarrier();
+        }
+        return total;
+    }
+
+    /**
+     * Scans every tile of {@code input} into {@code output}, and writes the sum
+     * of every tile to {@code tileSums}. The scan is inclusive when
+     * {@code inclusive} is not 0. {@code input} and {@code output} can be the
+     * same array.
+     */
+    public static void scanTiles(KernelContext context, int[] input, int[] output, int[] tileSums, int inclusive) {
+        int[] tile = context.allocateIntLocalArray(TILE_SIZE);
+        int localId = context.localId(0);
+        int localSize = context.localSize(0);
+        int numGroups = context.globalSize(0) / localSize;
+        for (int t = context.groupId(0); t < tileSums.length; t += numGroups) {
+            int base = t * TILE_SIZE;
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                tile[k] = (base + k < input.length) ? input[base + k] : 0;
+            }
+            context.localBarrier();
+            int total = exclusiveScanTile(context, tile);
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                int i = base + k;
+                if (i < input.length) {
+                    output[i] = (inclusive != 0) ? tile[k] + input[i] : tile[k];
+                }
+            }
+            if (localId == 0) {
+                tileSums[t] = total;
+            }
+            context.localBarrier();
+        }
+    }
+
+    public static void scanTiles(KernelContext context, long[] input, long[] output, long[] tileSums, int inclusive) {
+        long[] tile = context.allocateLongLocalArray(TILE_SIZE);
+        int localId = context.localId(0);
+        int localSize = context.localSize(0);
+        int numGroups = context.globalSize(0) / localSize;
+        for (int t = context.groupId(0); t < tileSums.length; t += numGroups) {
+            int base = t * TILE_SIZE;
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                tile[k] = (base + k < input.length) ? input[base + k] : 0;
+            }
+            context.localBarrier();
+            long total = exclusiveScanTile(context, tile);
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                int i = base + k;
+                if (i < input.length) {
+                    output[i] = (inclusive != 0) ? tile[k] + input[i] : tile[k];
+                }
+            }
+            if (localId == 0) {
+                tileSums[t] = total;
+            }
+            context.localBarrier();
+        }
+    }
+
+    public static void scanTiles(KernelContext context, float[] input, float[] output, float[] tileSums, int inclusive) {
+        float[] tile = context.allocateFloatLocalArray(TILE_SIZE);
+        int localId = context.localId(0);
+        int localSize = context.localSize(0);
+        int numGroups = context.globalSize(0) / localSize;
+        for (int t = context.groupId(0); t < tileSums.length; t += numGroups) {
+            int base = t * TILE_SIZE;
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                tile[k] = (base + k < input.length) ? input[base + k] : 0;
+            }
+            context.localBarrier();
+            float total = exclusiveScanTile(context, tile);
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                int i = base + k;
+                if (i < input.length) {
+                    output[i] = (inclusive != 0) ? tile[k] + input[i] : tile[k];
+                }
+            }
+            if (localId == 0) {
+                tileSums[t] = total;
+            }
+            context.localBarrier();
+        }
+    }
+
+    /**
+     * Exclusive scan of the tile sums in place. It is launched with a single
+     * work-group.
+     */
+    public static void scanTileSums(KernelContext context, int[] tileSums) {
+        int[] tile = context.allocateIntLocalArray(TILE_SIZE);
+        int localId = context.localId(0);
+        int localSize = context.localSize(0);
+        int carry = 0;
+        for (int base = 0; base < tileSums.length; base += TILE_SIZE) {
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                tile[k] = (base + k < tileSums.length) ? tileSums[base + k] : 0;
+            }
+            context.localBarrier();
+            int total = exclusiveScanTile(context, tile);
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                if (base + k < tileSums.length) {
+                    tileSums[base + k] = tile[k] + carry;
+                }
+            }
+            carry += total;
+            context.localBarrier();
+        }
+    }
+
+    public static void scanTileSums(KernelContext context, long[] tileSums) {
+        long[] tile = context.allocateLongLocalArray(TILE_SIZE);
+        int localId = context.localId(0);
+        int localSize = context.localSize(0);
+        long carry = 0;
+        for (int base = 0; base < tileSums.length; base += TILE_SIZE) {
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                tile[k] = (base + k < tileSums.length) ? tileSums[base + k] : 0;
+            }
+            context.localBarrier();
+            long total = exclusiveScanTile(context, tile);
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                if (base + k < tileSums.length) {
+                    tileSums[base + k] = tile[k] + carry;
+                }
+            }
+            carry += total;
+            context.localBarrier();
+        }
+    }
+
+    public static void scanTileSums(KernelContext context, float[] tileSums) {
+        float[] tile = context.allocateFloatLocalArray(TILE_SIZE);
+        int localId = context.localId(0);
+        int localSize = context.localSize(0);
+        float carry = 0;
+        for (int base = 0; base < tileSums.length; base += TILE_SIZE) {
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                tile[k] = (base + k < tileSums.length) ? tileSums[base + k] : 0;
+            }
+            context.localBarrier();
+            float total = exclusiveScanTile(context, tile);
+            for (int k = localId; k < TILE_SIZE; k += localSize) {
+                if (base + k < tileSums.length) {
+                    tileSums[base + k] = tile[k] + carry;
+                }
+            }
+            carry += total;
+            context.localBarrier();
+        }
+    }
+
+    public static void addTileOffsets(int[] output, int[] tileSums) {
+        for (@Parallel int i = 0; i < output.length; i++) {
+            output[i] += tileSums[i / TILE_SIZE];
+        }
+    }
+
+    public static void addTileOffsets(long[] output, long[] tileSums) {
+        for (@Parallel int i = 0; i < output.length; i++) {
+            output[i] += tileSums[i / TILE_SIZE];
+        }
+    }
+
+    public static void addTileOffsets(float[] output, float[] tileSums) {
+        for (@Parallel int i = 0; i < output.length; i++) {
+            output[i] += tileSums[i / TILE_SIZE];
+        }
+    }
+
+    /**
+     * Writes every element of {@code input} whose flag is not 0 to
+     * {@code output}, at the position given by the exclusive scan of the flags,
+     * and the number of elements written to {@code count[0]}.
+     */
+    public static void scatter(int[] input, int[] flags, int[] positions, int[] output, int[] count) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            if (flags[i] != 0) {
+                output[positions[i]] = input[i];
+            }
+            if (i == input.length - 1) {
+                count[0] = positions[i] + flags[i];
+            }
+        }
+    }
+
+    public static void scatter(long[] input, int[] flags, int[] positions, long[] output, int[] count) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            if (flags[i] != 0) {
+                output[positions[i]] = input[i];
+            }
+            if (i == input.length - 1) {
+                count[0] = positions[i] + flags[i];
+            }
+        }
+    }
+
+    public static void scatter(float[] input, int[] flags, int[] positions, float[] output, int[] count) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            if (flags[i] != 0) {
+                output[positions[i]] = input[i];
+            }
+            if (i == input.length - 1) {
+                count[0] = positions[i] + flags[i];
+            }
+        }
+    }
+
+    private static WorkerGrid tilesGrid(int numTiles) {
+        int numGroups = Math.min(numTiles, MAX_GROUPS);
+        return new WorkerGrid((long) numGroups * GROUP_SIZE).setLocalWork(GROUP_SIZE);
+    }
+
+    private static WorkerGrid tileSumsGrid() {
+        return new WorkerGrid(GROUP_SIZE).setLocalWork(GROUP_SIZE);
+    }
+
+    /**
+     * Adds the tasks {@code taskName + "Tiles"}, {@code taskName + "Sums"} and
+     * {@code taskName + "Offsets"} that scan {@code input} into
+     * {@code output}.
+     *
+     * @param inclusive
+     *            whether every element of the output includes the
+     *            corresponding element of the input.
+     */
+    public static TaskSchedule scan(TaskSchedule schedule, String taskName, KernelContext context, int[] input, int[] output, int[] tileSums, boolean inclusive) {
+        return schedule //
+                .task(taskName + "Tiles", Scan::scanTiles, context, input, output, tileSums, inclusive ? 1 : 0) //
+                .setWorkerGrid(taskName + "Tiles", tilesGrid(tileSums.length)) //
+                .task(taskName + "Sums", Scan::scanTileSums, context, tileSums) //
+                .setWorkerGrid(taskName + "Sums", tileSumsGrid()) //
+                .task(taskName + "Offsets", Scan::addTileOffsets, output, tileSums);
+    }
+
+    public static TaskSchedule scan(TaskSchedule schedule, String taskName, KernelContext context, long[] input, long[] output, long[] tileSums, boolean inclusive) {
+        return schedule //
+                .task(taskName + "Tiles", Scan::scanTiles, context, input, output, tileSums, inclusive ? 1 : 0) //
+                .setWorkerGrid(taskName + "Tiles", tilesGrid(tileSums.length)) //
+                .task(taskName + "Sums", Scan::scanTileSums, context, tileSums) //
+                .setWorkerGrid(taskName + "Sums", tileSumsGrid()) //
+                .task(taskName + "Offsets", Scan::addTileOffsets, output, tileSums);
+    }
+
+    public static TaskSchedule scan(TaskSchedule schedule, String taskName, KernelContext context, float[] input, float[] output, float[] tileSums, boolean inclusive) {
+        return schedule //
+                .task(taskName + "Tiles", Scan::scanTiles, context, input, output, tileSums, inclusive ? 1 : 0) //
+                .setWorkerGrid(taskName + "Tiles", tilesGrid(tileSums.length)) //
+                .task(taskName + "Sums", Scan::scanTileSums, context, tileSums) //
+                .setWorkerGrid(taskName + "Sums", tileSumsGrid()) //
+                .task(taskName + "Offsets", Scan::addTileOffsets, output, tileSums);
+    }
+
+    /**
+     * Adds the tasks that compact (filter) {@code input}: the elements whose
+     * flag is not 0 are written, in order, to the first {@code count[0]}
+     * elements of {@code output}. The flags (0 or 1) are usually computed by a
+     * previous task of the schedule. {@code positions} has the size of the
+     * input, and {@code tileSums} has {@link #numTiles(int)} elements.
+     */
+    public static TaskSchedule compact(TaskSchedule schedule, String taskName, KernelContext context, int[] input, int[] flags, int[] positions, int[] tileSums, int[] output, int[] count) {
+        return scan(schedule, taskName, context, flags, positions, tileSums, false) //
+                .task(taskName + "Scatter", Scan::scatter, input, flags, positions, output, count);
+    }
+
+    public static TaskSchedule compact(TaskSchedule schedule, String taskName, KernelContext context, long[] input, int[] flags, int[] positions, int[] tileSums, long[] output, int[] count) {
+        return scan(schedule, taskName, context, flags, positions, tileSums, false) //
+                .task(taskName + "Scatter", Scan::scatter, input, flags, positions, output, count);
+    }
+
+    public static TaskSchedule compact(TaskSchedule schedule, String taskName, KernelContext context, float[] input, int[] flags, int[] positions, int[] tileSums, float[] output, int[] count) {
+        return scan(schedule, taskName, context, flags, positions, tileSums, false) //
+                .task(taskName + "Scatter", Scan::scatter, input, flags, positions, output, count);
+    }
+}
@@ -0,0 +1,436 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.math;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.collections.types.VectorFloat2;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+
+/**
+ * Complex fast Fourier transforms (FFT) as Tornado tasks.
+ *
+ * <p>
+ * The data is complex and interleaved: element {@code i} of transform
+ * {@code b} is stored at {@code data[2 * (b * size + i)]} (real part) and
+ * {@code data[2 * (b * size + i) + 1]} (imaginary part), which is also the
+ * layout of a {@link VectorFloat2}. The transforms are computed in place,
+ * with a second array of the same length as scratch space, so the data can
+ * stay on the device between the tasks of a schedule.
+ * </p>
+ *
+ * <p>
+ * Every transform is a sequence of Stockham passes: each pass reads one array
+ * and writes the other, and the result is already in natural order, so no
+ * bit-reversal permutation is needed. The size is factorised into radix-4 and
+ * radix-2 passes, and the odd prime factors are computed with a generic
+ * radix pass, whose cost grows with the factor. The forward transform uses
+ * {@code exp(-2 * pi * i * j * k / n)}, and the inverse transform is not
+ * scaled by {@code 1 / n}.
+ * </p>
+ *
+ * <p>
+ * A {@link Plan} holds the factors of a size and its table of twiddle
+ * factors. Plans are cached by size and device, so all the schedules of a
+ * device share the same twiddle table, which is copied to the device once.
+ * </p>
+ */
+public class FFT {
+
+    public enum Direction {
+        FORWARD(1.0f), INVERSE(-1.0f);
+
+        private final float sign;
+
+        Direction(float sign) {
+            this.sign = sign;
+        }
+
+        /**
+         * @return the factor applied to the imaginary part of the twiddle
+         *         factors.
+         */
+        public float getSign() {
+            return sign;
+        }
+    }
+
+    /**
+     * Factors and twiddle factors of the transforms of one size.
+     */
+    public static final class Plan {
+
+        private final int size;
+        private final int[] radices;
+        private final float[] twiddles;
+
+        private Plan(int size) {
+            this.size = size;
+            this.radices = factorise(size);
+            this.twiddles = new float[2 * size];
+            for (int k = 0; k < size; k++) {
+                double angle = -2.0 * Math.PI * k / size;
+                twiddles[2 * k] = (float) Math.cos(angle);
+                twiddles[2 * k + 1] = (float) Math.sin(angle);
+            }
+        }
+
+        public int getSize() {
+            return size;
+        }
+
+        /**
+         * @return the radix of every pass, in the order they run.
+         */
+        public int[] getRadices() {
+            return radices;
+        }
+
+        /**
+         * @return {@code exp(-2 * pi * i * k / size)} for every {@code k},
+         *         interleaved.
+         */
+        public float[] getTwiddles() {
+            return twiddles;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("FFT plan <%d> radices=%s", size, Arrays.toString(radices));
+        }
+    }
+
+    private static final Map<String, Plan> PLANS = new ConcurrentHashMap<>();
+
+    private static int[] factorise(int size) {
+        if (size < 1) {
+            throw new IllegalArgumentException("The size of the transform must be positive: " + size);
+        }
+        int[] factors = new int[32];
+        int numFactors = 0;
+        int remaining = size;
+        while (remaining % 4 == 0) {
+            factors[numFactors++] = 4;
+            remaining /= 4;
+        }
+        if (remaining % 2 == 0) {
+            factors[numFactors++] = 2;
+            remaining /= 2;
+        }
+        for (int factor = 3; remaining > 1; factor += 2) {
+            if ((long) factor * factor > remaining) {
+                factor = remaining;
+            }
+            while (remaining % factor == 0) {
+                factors[numFactors++] = factor;
+                remaining /= factor;
+            }
+        }
+        return Arrays.copyOf(factors, numFactors);
+    }
+
+    /**
+     * @return the plan of the transforms of the given size on the device.
+     */
+    public static Plan plan(int size, TornadoDevice device) {
+        return PLANS.computeIfAbsent(size + ":" + device.getPlatformName() + ":" + device.getDeviceName(), key -> new Plan(size));
+    }
+
+    /**
+     * @return the plan of the transforms of the given size on the default
+     *         device.
+     */
+    public static Plan plan(int size) {
+        return plan(size, TornadoRuntime.getTornadoRuntime().getDefaultDevice());
+    }
+
+    // Kernels. In every pass, span is the size of the sub-transforms computed
+    // by the previous passes, and every thread combines radix elements that are
+    // size / radix apart into an output of radix elements that are span apart.
+
+    public static void radix2(float[] input, float[] output, float[] twiddles, int size, int span, int batch, float sign) {
+        final int m = size / 2;
+        final int step = size / (2 * span);
+        for (@Parallel int b = 0; b < batch; b++) {
+            for (@Parallel int j = 0; j < m; j++) {
+                int k = j % span;
+                int base = 2 * b * size;
+                int source = base + 2 * j;
+                int target = base + 2 * ((j - k) * 2 + k);
+
+                float wr = twiddles[2 * k * step];
+                float wi = sign * twiddles[2 * k * step + 1];
+
+                float x0r = input[source];
+                float x0i = input[source + 1];
+                float ar = input[source + 2 * m];
+                float ai = input[source + 2 * m + 1];
+                float x1r = ar * wr - ai * wi;
+                float x1i = ar * wi + ai * wr;
+
+                output[target] = x0r + x1r;
+                output[target + 1] = x0i + x1i;
+                output[target + 2 * span] = x0r - x1r;
+                output[target + 2 * span + 1] = x0i - x1i;
+            }
+        }
+    }
+
+    public static void radix4(float[] input, float[] output, float[] twiddles, int size, int span, int batch, float sign) {
+        final int m = size / 4;
+        final int step = size / (4 * span);
+        for (@Parallel int b = 0; b < batch; b++) {
+            for (@Parallel int j = 0; j < m; j++) {
+                int k = j % span;
+                int base = 2 * b * size;
+                int source = base + 2 * j;
+                int target = base + 2 * ((j - k) * 4 + k);
+
+                float x0r = input[source];
+                float x0i = input[source + 1];
+
+                int t = 2 * k * step;
+                float wr = twiddles[t];
+                float wi = sign * twiddles[t + 1];
+                float ar = input[source + 2 * m];
+                float ai = input[source + 2 * m + 1];
+                float x1r = ar * wr - ai * wi;
+                float x1i = ar * wi + ai * wr;
+
+                t = 2 * t;
+                wr = twiddles[t];
+                wi = sign * twiddles[t + 1];
+                ar = input[source + 4 * m];
+                ai = input[source + 4 * m + 1];
+                float x2r = ar * wr - ai * wi;
+                float x2i = ar * wi + ai * wr;
+
+                t = 6 * k * step;
+                wr = twiddles[t];
+                wi = sign * twiddles[t + 1];
+                ar = input[source + 6 * m];
+                ai = input[source + 6 * m + 1];
+                float x3r = ar * wr - ai * wi;
+                float x3i = ar * wi + ai * wr;
+
+                float a0r = x0r + x2r;
+                float a0i = x0i + x2i;
+                float a1r = x0r - x2r;
+                float a1i = x0i - x2i;
+                float a2r = x1r + x3r;
+                float a2i = x1i + x3i;
+                // (x1 - x3) * -i for the forward transform, * i for the inverse
+                float a3r = sign * (x1i - x3i);
+                float a3i = -sign * (x1r - x3r);
+
+                output[target] = a0r + a2r;
+                output[target + 1] = a0i + a2i;
+                output[target + 2 * span] = a1r + a3r;
+                output[target + 2 * span + 1] = a1i + a3i;
+                output[target + 4 * span] = a0r - a2r;
+                output[target + 4 * span + 1] = a0i - a2i;
+                output[target + 6 * span] = a1r - a3r;
+                output[target + 6 * span + 1] = a1i - a3i;
+            }
+        }
+    }
+
+    /**
+     * Pass of any radix. Every output element is a sum over the radix inputs,
+     * so the cost of the pass is proportional to the radix.
+     */
+    public static void radixN(float[] input, float[] output, float[] twiddles, int size, int span, int radix, int batch, float sign) {
+        final int m = size / radix;
+        final int step = size / (radix * span);
+        for (@Parallel int b = 0; b < batch; b++) {
+            for (@Parallel int j = 0; j < m; j++) {
+                int k = j % span;
+                int base = 2 * b * size;
+                int source = base + 2 * j;
+                int target = base + 2 * ((j - k) * radix + k);
+                for (int s = 0; s < radix; s++) {
+                    float sumr = 0.0f;
+                    float sumi = 0.0f;
+                    for (int r = 0; r < radix; r++) {
+                        int t = 2 * r * k * step;
+                        float wr = twiddles[t];
+                        float wi = sign * twiddles[t + 1];
+                        float ar = input[source + 2 * r * m];
+                        float ai = input[source + 2 * r * m + 1];
+                        float xr = ar * wr - ai * wi;
+                        float xi = ar * wi + ai * wr;
+
+                        int root = 2 * ((r * s) % radix) * m;
+                        float rr = twiddles[root];
+                        float ri = sign * twiddles[root + 1];
+                        sumr += xr * rr - xi * ri;
+                        sumi += xr * ri + xi * rr;
+                    }
+                    output[target + 2 * s * span] = sumr;
+                    output[target + 2 * s * span + 1] = sumi;
+                }
+            }
+        }
+    }
+
+    public static void copy(float[] input, float[] output, int length) {
+        for (@Parallel int i = 0; i < length; i++) {
+            output[i] = input[i];
+        }
+    }
+
+    /**
+     * Transposes every matrix of complex elements of a batch.
+     */
+    public static void transpose(float[] input, float[] output, int rows, int columns, int batch) {
+        for (@Parallel int b = 0; b < batch; b++) {
+            for (@Parallel int i = 0; i < rows; i++) {
+                for (@Parallel int j = 0; j < columns; j++) {
+                    int source = 2 * ((b * rows + i) * columns + j);
+                    int target = 2 * ((b * columns + j) * rows + i);
+                    output[target] = input[source];
+                    output[target + 1] = input[source + 1];
+                }
+            }
+        }
+    }
+
+    // Schedule builders
+
+    private static void checkLength(float[] array, long length, String name) {
+        if (array.length < length) {
+            throw new IllegalArgumentException(String.format("The %s array has %d elements, but the transform needs %d", name, array.length, length));
+        }
+    }
+
+    /**
+     * Adds the tasks that compute a batch of 1D transforms of the data in place,
+     * with the given plan. The tasks are called {@code taskName + "Pass" + i},
+     * and {@code taskName + "Copy"} when the result of the last pass is in the
+     * buffer.
+     */
+    public static TaskSchedule fft(TaskSchedule schedule, String taskName, Plan plan, float[] data, float[] buffer, int batch, Direction direction) {
+        final int size = plan.getSize();
+        final long length = 2L * size * batch;
+        checkLength(data, length, "data");
+        checkLength(buffer, length, "buffer");
+
+        final float sign = direction.getSign();
+        final float[] twiddles = plan.getTwiddles();
+        final int[] radices = plan.getRadices();
+        float[] input = data;
+        float[] output = buffer;
+        int span = 1;
+        for (int pass = 0; pass < radices.length; pass++) {
+            String name = taskName + "Pass" + pass;
+            switch (radices[pass]) {
+                case 4:
+                    schedule.task(name, FFT::radix4, input, output, twiddles, size, span, batch, sign);
+                    break;
+                case 2:
+                    schedule.task(name, FFT::radix2, input, output, twiddles, size, span, batch, sign);
+                    break;
+                default:
+                    schedule.task(name, FFT::radixN, input, output, twiddles, size, span, radices[pass], batch, sign);
+                    break;
+            }
+            span *= radices[pass];
+            float[] swap = input;
+            input = output;
+            output = swap;
+        }
+        if (input != data) {
+            schedule.task(taskName + "Copy", FFT::copy, input, data, (int) length);
+        }
+        return schedule;
+    }
+
+    /**
+     * Adds the tasks that compute a batch of 1D transforms of the given size,
+     * with the plan of the default device.
+     */
+    public static TaskSchedule fft(TaskSchedule schedule, String taskName, float[] data, float[] buffer, int size, int batch, Direction direction) {
+        return fft(schedule, taskName, plan(size), data, buffer, batch, direction);
+    }
+
+    public static TaskSchedule fft(TaskSchedule schedule, String taskName, float[] data, float[] buffer, int size, Direction direction) {
+        return fft(schedule, taskName, data, buffer, size, 1, direction);
+    }
+
+    /**
+     * Adds the tasks that compute a batch of 1D transforms of vectors of
+     * {@code Float2} elements. The tasks use the backing arrays of the
+     * vectors, which are the arrays that the schedule must stream in and out.
+     */
+    public static TaskSchedule fft(TaskSchedule schedule, String taskName, VectorFloat2 data, VectorFloat2 buffer, int size, int batch, Direction direction) {
+        return fft(schedule, taskName, data.asBuffer().array(), buffer.asBuffer().array(), size, batch, direction);
+    }
+
+    /**
+     * Adds the tasks that compute a batch of 2D transforms of row-major
+     * matrices of {@code rows x columns} elements in place. The rows are
+     * transformed first, and then the columns, after transposing the matrices
+     * into the buffer. The names of the tasks start with
+     * {@code taskName + "Rows"}, {@code taskName + "Transpose"},
+     * {@code taskName + "Columns"} and {@code taskName + "TransposeBack"}.
+     */
+    public static TaskSchedule fft2D(TaskSchedule schedule, String taskName, float[] data, float[] buffer, int rows, int columns, int batch, Direction direction) {
+        TornadoDevice device = TornadoRuntime.getTornadoRuntime().getDefaultDevice();
+        fft(schedule, taskName + "Rows", plan(columns, device), data, buffer, rows * batch, direction);
+        schedule.task(taskName + "Transpose", FFT::transpose, data, buffer, rows, columns, batch);
+        fft(schedule, taskName + "Columns", plan(rows, device), buffer, data, columns * batch, direction);
+        return schedule.task(taskName + "TransposeBack", FFT::transpose, buffer, data, columns, rows, batch);
+    }
+
+    public static TaskSchedule fft2D(TaskSchedule schedule, String taskName, float[] data, float[] buffer, int rows, int columns, Direction direction) {
+        return fft2D(schedule, taskName, data, buffer, rows, columns, 1, direction);
+    }
+
+    public static TaskSchedule fft2D(TaskSchedule schedule, String taskName, VectorFloat2 data, VectorFloat2 buffer, int rows, int columns, int batch, Direction direction) {
+        return fft2D(schedule, taskName, data.asBuffer().array(), buffer.asBuffer().array(), rows, columns, batch, direction);
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.math;
+
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+
+/**
+ * Counter-based random number generator Philox4x32-10 (Salmon et al., "Parallel
+ * Random Numbers: As Easy as 1, 2, 3", SC'11).
+ *
+ * <p>
+ * Every value is a pure function of a 64-bit {@code seed}, an {@code id}
+ * (e.g., the index of the parallel loop) and a 64-bit {@code counter} (e.g.,
+ * the iteration of a loop in the kernel): the counter block
+ * {@code (counter, id, 0)} is encrypted with the seed as key, which gives four
+ * 32-bit words. There is no state per thread, so nothing has to be allocated
+ * or copied to the device, and the Java and device versions of a task produce
+ * the same integers and uniform values. Normal values use {@code log},
+ * {@code sqrt} and {@code cos}, so they agree up to the accuracy of those
+ * functions on the device.
+ * </p>
+ *
+ * <p>
+ * Different ids or counters give independent values. The {@code word}
+ * parameters select one of the four words of a block (0 to 3), so a thread can
+ * draw up to four values per counter.
+ * </p>
+ */
+public class Philox {
+
+    public static final int ROUNDS = 10;
+
+    private static final long M0 = 0xD2511F53L;
+    private static final long M1 = 0xCD9E8D57L;
+    private static final int W0 = 0x9E3779B9;
+    private static final int W1 = 0xBB67AE85;
+
+    private static final float FLOAT_UNIT = 1.0f / (1 << 24);
+    private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+    /**
+     * @return word {@code word} of the Philox4x32-10 block of the counter
+     *         {@code (counter, id, 0)} and key {@code seed}.
+     */
+    public static int nextInt(long seed, int id, long counter, int word) {
+        int c0 = (int) counter;
+        int c1 = (int) (counter >>> 32);
+        int c2 = id;
+        int c3 = 0;
+        int k0 = (int) seed;
+        int k1 = (int) (seed >>> 32);
+        for (int round = 0; round < ROUNDS; round++) {
+            long p0 = (c0 & 0xFFFFFFFFL) * M0;
+            long p1 = (c2 & 0xFFFFFFFFL) * M1;
+            int n0 = ((int) (p1 >>> 32)) ^ c1 ^ k0;
+            int n2 = ((int) (p0 >>> 32)) ^ c3 ^ k1;
+            c1 = (int) p1;
+            c3 = (int) p0;
+            c0 = n0;
+            c2 = n2;
+            k0 += W0;
+            k1 += W1;
+        }
+        if (word == 0) {
+            return c0;
+        } else if (word == 1) {
+            return c1;
+        } else if (word == 2) {
+            return c2;
+        }
+        return c3;
+    }
+
+    public static int nextInt(long seed, int id, long counter) {
+        return nextInt(seed, id, counter, 0);
+    }
+
+    /**
+     * @return a uniform value in [0, 1), from the 24 high bits of a word.
+     */
+    public static float uniform(long seed, int id, long counter, int word) {
+        return (nextInt(seed, id, counter, word) >>> 8) * FLOAT_UNIT;
+    }
+
+    public static float uniform(long seed, int id, long counter) {
+        return uniform(seed, id, counter, 0);
+    }
+
+    /**
+     * @return a uniform value in [0, 1), from words 0 and 1 (53 bits).
+     */
+    public static double uniformDouble(long seed, int id, long counter) {
+        long high = nextInt(seed, id, counter, 0) & 0xFFFFFFFFL;
+        long low = nextInt(seed, id, counter, 1) & 0xFFFFFFFFL;
+        return ((high << 21) ^ (low >>> 11)) * DOUBLE_UNIT;
+    }
+
+    /**
+     * @return a standard normal value, computed with the Box-Muller transform
+     *         of words {@code 2 * pair} and {@code 2 * pair + 1}. The pair is 0
+     *         or 1.
+     */
+    public static float normal(long seed, int id, long counter, int pair) {
+        // u1 is in (0, 1], so its logarithm is finite
+        float u1 = ((nextInt(seed, id, counter, 2 * pair) >>> 8) + 1) * FLOAT_UNIT;
+        float u2 = uniform(seed, id, counter, 2 * pair + 1);
+        float radius = TornadoMath.sqrt(-2.0f * TornadoMath.log(u1));
+        return radius * TornadoMath.floatCos(2.0f * TornadoMath.floatPI() * u2);
+    }
+
+    public static float normal(long seed, int id, long counter) {
+        return normal(seed, id, counter, 0);
+    }
+
+    /**
+     * Fills the array with uniform values in [0, 1): element {@code i} is
+     * {@code uniform(seed, i, counter)}.
+     */
+    public static void fillUniform(float[] output, long seed, long counter) {
+        for (@Parallel int i = 0; i < output.length; i++) {
+            output[i] = uniform(seed, i, counter);
+        }
+    }
+
+    /**
+     * Fills the array with standard normal values: element {@code i} is
+     * {@code normal(seed, i, counter)}.
+     */
+    public static void fillNormal(float[] output, long seed, long counter) {
+        for (@Parallel int i = 0; i < output.length; i++) {
+            output[i] = normal(seed, i, counter);
+        }
+    }
+}
@@ -0,0 +1,313 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.math;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.WorkerGrid;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.collections.types.CSRMatrixFloat;
+import uk.ac.manchester.tornado.api.collections.types.ELLMatrixFloat;
+import uk.ac.manchester.tornado.api.collections.types.SELLMatrixFloat;
+import uk.ac.manchester.tornado.api.common.TornadoDevice;
+import uk.ac.manchester.tornado.api.enums.TornadoDeviceType;
+import uk.ac.manchester.tornado.api.runtime.TornadoRuntime;
+
+/**
+ * Sparse matrix-vector (SpMV) and sparse matrix-dense matrix (SpMM) kernels
+ * for {@link CSRMatrixFloat}, {@link ELLMatrixFloat} and
+ * {@link SELLMatrixFloat}.
+ *
+ * <p>
+ * There are three kernels for CSR:
+ * <ul>
+ * <li>{@link Strategy#SCALAR}: one thread per row. It is the fastest for short
+ * rows of similar length.</li>
+ * <li>{@link Strategy#VECTOR}: {@link #VECTOR_WIDTH} work-items per row, which
+ * read the row with coalesced accesses and add their partial sums in local
+ * memory.</li>
+ * <li>{@link Strategy#MERGE}: merge-based SpMV. Every thread processes the same
+ * number of rows plus non-zero elements, found with a binary search over the
+ * row pointers, so the work is balanced whatever the length of the rows. The
+ * sums of the rows shared by two threads are added by a fix-up task.</li>
+ * </ul>
+ * {@link #chooseStrategy(CSRMatrixFloat, TornadoDevice)} picks a kernel from
+ * the type of device and the distribution of the row lengths.
+ * </p>
+ */
+public class SparseMath {
+
+    public enum Strategy {
+        SCALAR, VECTOR, MERGE
+    }
+
+    public static final int VECTOR_WIDTH = 32;
+    public static final int GROUP_SIZE = 128;
+    public static final int MAX_GROUPS = 4096;
+    public static final int MERGE_ITEMS_PER_THREAD = 128;
+
+    private SparseMath() {
+    }
+
+    public static void spmvCSR(int[] rowPointers, int[] columnIndices, float[] values, float[] x, float[] y) {
+        for (@Parallel int row = 0; row < y.length; row++) {
+            float sum = 0.0f;
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                sum += values[i] * x[columnIndices[i]];
+            }
+            y[row] = sum;
+        }
+    }
+
+    /**
+     * Vector-per-row CSR SpMV. The work-groups loop over the rows, so the kernel
+     * is also correct with a single work-item.
+     */
+    public static void spmvCSRVector(KernelContext context, int[] rowPointers, int[] columnIndices, float[] values, float[] x, float[] y) {
+        float[] partial = context.allocateFloatLocalArray(GROUP_SIZE);
+        int localId = context.localId(0);
+        int localSize = context.localSize(0);
+        int lanes = Math.min(VECTOR_WIDTH, localSize);
+        int lane = localId % lanes;
+        int rowsPerGroup = localSize / lanes;
+        int numGroups = context.globalSize(0) / localSize;
+        int rowsPerRound = rowsPerGroup * numGroups;
+        int rounds = (y.length + rowsPerRound - 1) / rowsPerRound;
+
+        for (int round = 0; round < rounds; round++) {
+            int row = (round * numGroups + context.groupId(0)) * rowsPerGroup + localId / lanes;
+            float sum = 0.0f;
+            if (row < y.length) {
+                for (int i = rowPointers[row] + lane; i < rowPointers[row + 1]; i += lanes) {
+                    sum += values[i] * x[columnIndices[i]];
+                }
+            }
+            partial[localId] = sum;
+            context.localBarrier();
+            for (int offset = lanes >> 1; offset > 0; offset >>= 1) {
+                if (lane < offset) {
+                    partial[localId] += partial[localId + offset];
+                }
+                context.localBarrier();
+            }
+            if (lane == 0 && row < y.length) {
+                y[row] = partial[localId];
+            }
+            context.localBarrier();
+        }
+    }
+
+    /**
+     * Finds the row where the merge path of the row ends and the non-zero
+     * indices crosses the diagonal.
+     */
+    private static int mergePathRow(int[] rowPointers, int numRows, int numNonZeros, int diagonal) {
+        int low = Math.max(diagonal - numNonZeros, 0);
+        int high = Math.min(diagonal, numRows);
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (rowPointers[middle + 1] <= diagonal - middle - 1) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Merge-based CSR SpMV. Thread t writes the rows that end in its range of
+     * the merge path, and the partial sum of the row it stops in to
+     * {@code carryRows[t]} and {@code carryValues[t]}.
+     */
+    public static void spmvCSRMerge(int[] rowPointers, int[] columnIndices, float[] values, float[] x, float[] y, int[] carryRows, float[] carryValues) {
+        int numRows = y.length;
+        int numNonZeros = values.length;
+        int total = numRows + numNonZeros;
+        int itemsPerThread = (total + carryRows.length - 1) / carryRows.length;
+        for (@Parallel int t = 0; t < carryRows.length; t++) {
+            int start = Math.min(t * itemsPerThread, total);
+            int end = Math.min(start + itemsPerThread, total);
+            int row = mergePathRow(rowPointers, numRows, numNonZeros, start);
+            int i = start - row;
+            int endRow = mergePathRow(rowPointers, numRows, numNonZeros, end);
+            int endIndex = end - endRow;
+
+            float sum = 0.0f;
+            while (row < endRow) {
+                for (; i < rowPointers[row + 1]; i++) {
+                    sum += values[i] * x[columnIndices[i]];
+                }
+                y[row] = sum;
+                sum = 0.0f;
+                row++;
+            }
+            for (; i < endIndex; i++) {
+                sum += values[i] * x[columnIndices[i]];
+            }
+            carryRows[t] = endRow;
+            carryValues[t] = sum;
+        }
+    }
+
+    /**
+     * Adds the partial sums of the rows shared by several threads of
+     * {@link #spmvCSRMerge}. It runs in a single thread, over one carry per
+     * thread of the merge kernel.
+     */
+    public static void spmvCSRMergeFixup(float[] y, int[] carryRows, float[] carryValues) {
+        for (int t = 0; t < carryRows.length; t++) {
+            if (carryRows[t] < y.length) {
+                y[carryRows[t]] += carryValues[t];
+            }
+        }
+    }
+
+    public static void spmvELL(int width, int[] columnIndices, float[] values, float[] x, float[] y) {
+        for (@Parallel int row = 0; row < y.length; row++) {
+            float sum = 0.0f;
+            for (int k = 0; k < width; k++) {
+                int index = k * y.length + row;
+                sum += values[index] * x[columnIndices[index]];
+            }
+            y[row] = sum;
+        }
+    }
+
+    public static void spmvSELL(int sliceHeight, int[] slicePointers, int[] columnIndices, float[] values, int[] rowPermutation, float[] x, float[] y) {
+        for (@Parallel int position = 0; position < rowPermutation.length; position++) {
+            int slice = position / sliceHeight;
+            int base = slicePointers[slice] + position % sliceHeight;
+            int width = (slicePointers[slice + 1] - slicePointers[slice]) / sliceHeight;
+            float sum = 0.0f;
+            for (int k = 0; k < width; k++) {
+                sum += values[base + k * sliceHeight] * x[columnIndices[base + k * sliceHeight]];
+            }
+            y[rowPermutation[position]] = sum;
+        }
+    }
+
+    /**
+     * C = A * B, with B a dense row-major matrix of {@code numColumns} columns
+     * and C a dense row-major matrix with the rows of A. Consecutive threads
+     * compute consecutive columns of a row, so the reads of B are coalesced.
+     */
+    public static void spmmCSR(int[] rowPointers, int[] columnIndices, float[] values, float[] b, float[] c, int numColumns) {
+        for (@Parallel int row = 0; row < rowPointers.length - 1; row++) {
+            for (@Parallel int column = 0; column < numColumns; column++) {
+                float sum = 0.0f;
+                for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                    sum += values[i] * b[columnIndices[i] * numColumns + column];
+                }
+                c[row * numColumns + column] = sum;
+            }
+        }
+    }
+
+    /**
+     * Merge-based SpMV on CPUs, where every core processes a contiguous and
+     * balanced part of the matrix. On other devices, merge-based SpMV when the
+     * longest row is much longer than the mean, vector-per-row SpMV when the
+     * rows are long enough to fill the lanes, and one thread per row
+     * otherwise.
+     */
+    public static Strategy chooseStrategy(CSRMatrixFloat matrix, TornadoDevice device) {
+        if (device.getDeviceType() == TornadoDeviceType.CPU) {
+            return Strategy.MERGE;
+        }
+        float mean = matrix.getMeanRowLength();
+        if (matrix.getMaxRowLength() > 4 * mean + VECTOR_WIDTH) {
+            return Strategy.MERGE;
+        } else if (mean >= VECTOR_WIDTH / 4) {
+            return Strategy.VECTOR;
+        }
+        return Strategy.SCALAR;
+    }
+
+    /**
+     * Adds the tasks that compute y = A * x with the given strategy. The merge
+     * strategy adds a second task, {@code taskName + "Fixup"}.
+     */
+    public static TaskSchedule spmv(TaskSchedule schedule, String taskName, CSRMatrixFloat matrix, float[] x, float[] y, Strategy strategy) {
+        int[] rowPointers = matrix.getRowPointers();
+        int[] columnIndices = matrix.getColumnIndices();
+        float[] values = matrix.getValues();
+        switch (strategy) {
+            case VECTOR:
+                int rowsPerGroup = GROUP_SIZE / VECTOR_WIDTH;
+                long numGroups = Math.min((matrix.getNumRows() + rowsPerGroup - 1) / rowsPerGroup, MAX_GROUPS);
+                return schedule //
+                        .task(taskName, SparseMath::spmvCSRVector, new KernelContext(), rowPointers, columnIndices, values, x, y) //
+                        .setWorkerGrid(taskName, new WorkerGrid(Math.max(numGroups, 1) * GROUP_SIZE).setLocalWork(GROUP_SIZE));
+            case MERGE:
+                int total = matrix.getNumRows() + matrix.getNumNonZeros();
+                int numThreads = Math.max((total + MERGE_ITEMS_PER_THREAD - 1) / MERGE_ITEMS_PER_THREAD, 1);
+                int[] carryRows = new int[numThreads];
+                float[] carryValues = new float[numThreads];
+                return schedule //
+                        .task(taskName, SparseMath::spmvCSRMerge, rowPointers, columnIndices, values, x, y, carryRows, carryValues) //
+                        .task(taskName + "Fixup", SparseMath::spmvCSRMergeFixup, y, carryRows, carryValues);
+            default:
+                return schedule.task(taskName, SparseMath::spmvCSR, rowPointers, columnIndices, values, x, y);
+        }
+    }
+
+    /**
+     * Adds the tasks that compute y = A * x with the strategy chosen for the
+     * default device.
+     */
+    public static TaskSchedule spmv(TaskSchedule schedule, String taskName, CSRMatrixFloat matrix, float[] x, float[] y) {
+        return spmv(schedule, taskName, matrix, x, y, chooseStrategy(matrix, TornadoRuntime.getTornadoRuntime().getDefaultDevice()));
+    }
+
+    public static TaskSchedule spmv(TaskSchedule schedule, String taskName, ELLMatrixFloat matrix, float[] x, float[] y) {
+        return schedule.task(taskName, SparseMath::spmvELL, matrix.getWidth(), matrix.getColumnIndices(), matrix.getValues(), x, y);
+    }
+
+    public static TaskSchedule spmv(TaskSchedule schedule, String taskName, SELLMatrixFloat matrix, float[] x, float[] y) {
+        return schedule.task(taskName, SparseMath::spmvSELL, matrix.getSliceHeight(), matrix.getSlicePointers(), matrix.getColumnIndices(), matrix.getValues(), matrix.getRowPermutation(), x, y);
+    }
+
+    public static TaskSchedule spmm(TaskSchedule schedule, String taskName, CSRMatrixFloat matrix, float[] b, float[] c, int numColumns) {
+        return schedule.task(taskName, SparseMath::spmmCSR, matrix.getRowPointers(), matrix.getColumnIndices(), matrix.getValues(), b, c, numColumns);
+    }
+}
@@ -0,0 +1,154 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+import java.util.Arrays;
+
+/**
+ * Sparse matrix in coordinate (COO) format: one (row, column, value) triplet
+ * per non-zero element, in any order. It is the usual format to build a
+ * matrix, and it is converted to {@link CSRMatrixFloat} for the kernels.
+ */
+public class COOMatrixFloat {
+
+    private final int numRows;
+    private final int numColumns;
+    private final int[] rowIndices;
+    private final int[] columnIndices;
+    private final float[] values;
+
+    public COOMatrixFloat(int numRows, int numColumns, int[] rowIndices, int[] columnIndices, float[] values) {
+        if (rowIndices.length != values.length || columnIndices.length != values.length) {
+            throw new IllegalArgumentException("The row indices, column indices and values must have the same length");
+        }
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.rowIndices = rowIndices;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public int getNumNonZeros() {
+        return values.length;
+    }
+
+    public int[] getRowIndices() {
+        return rowIndices;
+    }
+
+    public int[] getColumnIndices() {
+        return columnIndices;
+    }
+
+    public float[] getValues() {
+        return values;
+    }
+
+    /**
+     * Converts the matrix to CSR, with the elements of every row sorted by
+     * column. Duplicated coordinates are kept as separate elements.
+     */
+    public CSRMatrixFloat toCSR() {
+        final int numNonZeros = values.length;
+        int[] rowPointers = new int[numRows + 1];
+        for (int i = 0; i < numNonZeros; i++) {
+            rowPointers[rowIndices[i] + 1]++;
+        }
+        for (int row = 0; row < numRows; row++) {
+            rowPointers[row + 1] += rowPointers[row];
+        }
+
+        int[] next = new int[numRows];
+        System.arraycopy(rowPointers, 0, next, 0, numRows);
+        int[] columns = new int[numNonZeros];
+        float[] csrValues = new float[numNonZeros];
+        for (int i = 0; i < numNonZeros; i++) {
+            int position = next[rowIndices[i]]++;
+            columns[position] = columnIndices[i];
+            csrValues[position] = values[i];
+        }
+
+        // Sort every row by column. The keys hold the column in the upper half and
+        // the position of the element in the row in the lower half, so the values
+        // follow their columns and duplicated coordinates keep their order.
+        long[] keys = new long[0];
+        float[] rowValues = new float[0];
+        for (int row = 0; row < numRows; row++) {
+            final int start = rowPointers[row];
+            final int length = rowPointers[row + 1] - start;
+            if (isSorted(columns, start, start + length)) {
+                continue;
+            }
+            if (keys.length < length) {
+                keys = new long[length];
+                rowValues = new float[length];
+            }
+            for (int i = 0; i < length; i++) {
+                keys[i] = ((long) columns[start + i] << 32) | i;
+                rowValues[i] = csrValues[start + i];
+            }
+            Arrays.sort(keys, 0, length);
+            for (int i = 0; i < length; i++) {
+                columns[start + i] = (int) (keys[i] >>> 32);
+                csrValues[start + i] = rowValues[(int) keys[i]];
+            }
+        }
+        return new CSRMatrixFloat(numRows, numColumns, rowPointers, columns, csrValues);
+    }
+
+    private static boolean isSorted(int[] columns, int start, int end) {
+        for (int i = start + 1; i < end; i++) {
+            if (columns[i - 1] > columns[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,244 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+import java.util.Arrays;
+
+/**
+ * Sparse matrix in compressed sparse row (CSR) format. The non-zero elements
+ * of row r are stored in [rowPointers[r], rowPointers[r + 1]) of
+ * {@code columnIndices} and {@code values}. The arrays are passed directly to
+ * the kernels of {@link uk.ac.manchester.tornado.api.collections.math.SparseMath}.
+ */
+public class CSRMatrixFloat {
+
+    private final int numRows;
+    private final int numColumns;
+    private final int[] rowPointers;
+    private final int[] columnIndices;
+    private final float[] values;
+
+    public CSRMatrixFloat(int numRows, int numColumns, int[] rowPointers, int[] columnIndices, float[] values) {
+        if (rowPointers.length != numRows + 1) {
+            throw new IllegalArgumentException("The row pointers must have " + (numRows + 1) + " elements");
+        }
+        if (columnIndices.length != values.length || rowPointers[numRows] != values.length) {
+            throw new IllegalArgumentException("The column indices and values must have " + rowPointers[numRows] + " elements");
+        }
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.rowPointers = rowPointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public int getNumNonZeros() {
+        return values.length;
+    }
+
+    public int[] getRowPointers() {
+        return rowPointers;
+    }
+
+    public int[] getColumnIndices() {
+        return columnIndices;
+    }
+
+    public float[] getValues() {
+        return values;
+    }
+
+    public int getRowLength(int row) {
+        return rowPointers[row + 1] - rowPointers[row];
+    }
+
+    public int getMaxRowLength() {
+        int max = 0;
+        for (int row = 0; row < numRows; row++) {
+            max = Math.max(max, getRowLength(row));
+        }
+        return max;
+    }
+
+    public float getMeanRowLength() {
+        return (numRows == 0) ? 0 : (float) values.length / numRows;
+    }
+
+    public float get(int row, int column) {
+        for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+            if (columnIndices[i] == column) {
+                return values[i];
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * y = A * x, computed sequentially. It is the reference for the kernels.
+     */
+    public void multiply(float[] x, float[] y) {
+        for (int row = 0; row < numRows; row++) {
+            float sum = 0;
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                sum += values[i] * x[columnIndices[i]];
+            }
+            y[row] = sum;
+        }
+    }
+
+    public static CSRMatrixFloat fromDense(Matrix2DFloat matrix) {
+        int numNonZeros = 0;
+        for (int i = 0; i < matrix.M(); i++) {
+            for (int j = 0; j < matrix.N(); j++) {
+                if (matrix.get(i, j) != 0) {
+                    numNonZeros++;
+                }
+            }
+        }
+        int[] rowPointers = new int[matrix.M() + 1];
+        int[] columnIndices = new int[numNonZeros];
+        float[] values = new float[numNonZeros];
+        int index = 0;
+        for (int i = 0; i < matrix.M(); i++) {
+            for (int j = 0; j < matrix.N(); j++) {
+                if (matrix.get(i, j) != 0) {
+                    columnIndices[index] = j;
+                    values[index] = matrix.get(i, j);
+                    index++;
+                }
+            }
+            rowPointers[i + 1] = index;
+        }
+        return new CSRMatrixFloat(matrix.M(), matrix.N(), rowPointers, columnIndices, values);
+    }
+
+    public Matrix2DFloat toDense() {
+        Matrix2DFloat matrix = new Matrix2DFloat(numRows, numColumns);
+        for (int row = 0; row < numRows; row++) {
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                matrix.set(row, columnIndices[i], matrix.get(row, columnIndices[i]) + values[i]);
+            }
+        }
+        return matrix;
+    }
+
+    public COOMatrixFloat toCOO() {
+        int[] rowIndices = new int[values.length];
+        for (int row = 0; row < numRows; row++) {
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                rowIndices[i] = row;
+            }
+        }
+        return new COOMatrixFloat(numRows, numColumns, rowIndices, columnIndices.clone(), values.clone());
+    }
+
+    public ELLMatrixFloat toELL() {
+        final int width = getMaxRowLength();
+        int[] ellColumns = new int[width * numRows];
+        float[] ellValues = new float[width * numRows];
+        for (int row = 0; row < numRows; row++) {
+            int k = 0;
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++, k++) {
+                ellColumns[k * numRows + row] = columnIndices[i];
+                ellValues[k * numRows + row] = values[i];
+            }
+        }
+        return new ELLMatrixFloat(numRows, numColumns, width, ellColumns, ellValues);
+    }
+
+    /**
+     * Converts the matrix to SELL-C-sigma.
+     *
+     * @param sliceHeight
+     *            number of rows of every slice (C).
+     * @param sortingWindow
+     *            number of consecutive rows sorted by length (sigma). Use 1 to
+     *            keep the order of the rows.
+     */
+    public SELLMatrixFloat toSELL(int sliceHeight, int sortingWindow) {
+        Integer[] order = new Integer[numRows];
+        for (int row = 0; row < numRows; row++) {
+            order[row] = row;
+        }
+        for (int start = 0; start < numRows; start += sortingWindow) {
+            int end = Math.min(start + sortingWindow, numRows);
+            Arrays.sort(order, start, end, (a, b) -> getRowLength(b) - getRowLength(a));
+        }
+        int[] permutation = new int[numRows];
+        for (int i = 0; i < numRows; i++) {
+            permutation[i] = order[i];
+        }
+
+        final int numSlices = (numRows + sliceHeight - 1) / sliceHeight;
+        int[] slicePointers = new int[numSlices + 1];
+        for (int slice = 0; slice < numSlices; slice++) {
+            int width = 0;
+            for (int i = slice * sliceHeight; i < Math.min((slice + 1) * sliceHeight, numRows); i++) {
+                width = Math.max(width, getRowLength(permutation[i]));
+            }
+            slicePointers[slice + 1] = slicePointers[slice] + width * sliceHeight;
+        }
+
+        int[] sellColumns = new int[slicePointers[numSlices]];
+        float[] sellValues = new float[slicePointers[numSlices]];
+        for (int i = 0; i < numRows; i++) {
+            int slice = i / sliceHeight;
+            int localRow = i % sliceHeight;
+            int row = permutation[i];
+            int k = 0;
+            for (int j = rowPointers[row]; j < rowPointers[row + 1]; j++, k++) {
+                int index = slicePointers[slice] + k * sliceHeight + localRow;
+                sellColumns[index] = columnIndices[j];
+                sellValues[index] = values[j];
+            }
+        }
+        return new SELLMatrixFloat(numRows, numColumns, sliceHeight, slicePointers, sellColumns, sellValues, permutation);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * This file is part of Tornado: A heterogeneous programming framework: 
+ * https://github.com/beehive-lab/tornadovm
+ *
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester. All rights reserved.
+ * DO NOT ALTER OR REMOVE COPYRIGHT NOTICES OR THIS FILE HEADER.
+ *
+ * GNU Classpath is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2, or (at your option)
+ * any later version.
+ * 
+ * GNU Classpath is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * General Public License for more details.
+ * 
+ * You should have received a copy of the GNU General Public License
+ * along with GNU Classpath; see the file COPYING.  If not, write to the
+ * Free Software Foundation, Inc., 51 Franklin Street, Fifth Floor, Boston, MA
+ * 02110-1301 USA.
+ *
+ * Linking this library statically or dynamically with other modules is
+ * making a combined work based on this library.  Thus, the terms and
+ * conditions of the GNU General Public License cover the whole
+ * combination.
+ * 
+ * As a special exception, the copyright holders of this library give you
+ * permission to link this library with independent modules to produce an
+ * executable, regardless of the license terms of these independent
+ * modules, and to copy and distribute the resulting executable under
+ * terms of your choice, provided that you also meet, for each linked
+ * independent module, the terms and conditions of the license of that
+ * module.  An independent module is a module which is not derived from
+ * or based on this library.  If you modify this library, you may extend
+ * this exception to your version of the library, but you are not
+ * obligated to do so.  If you do not wish to do so, delete this
+ * exception statement from your version.
+ *
+ */
+package uk.ac.manchester.tornado.api.collections.types;
+
+/**
+ * Sparse matrix in sliced ELLPACK (SELL-C-sigma) format. The rows, sorted by
+ * length within windows of sigma rows, are grouped in slices of
+ * {@code sliceHeight} (C) rows, and every slice is stored as a small ELL
+ * matrix padded to the length of its longest row. Element k of the row at
+ * position i of the slice s is at
+ * {@code slicePointers[s] + k * sliceHeight + i}. {@code rowPermutation[p]}
+ * is the original row stored at position p. Compared with ELL, the padding
+ * only depends on the rows of each slice.
+ */
+public class SELLMatrixFloat {
+
+    private final int numRows;
+    private final int numColumns;
+    private final int sliceHeight;
+    private final int[] slicePointers;
+    private final int[] columnIndices;
+    private final float[] values;
+    private final int[] rowPermutation;
+
+    public SELLMatrixFloat(int numRows, int numColumns, int sliceHeight, int[] slicePointers, int[] columnIndices, float[] values, int[] rowPermutation) {
+        if (slicePointers.length != (numRows + sliceHeight - 1) / sliceHeight + 1) {
+            throw new IllegalArgumentException("The slice pointers must have one element per slice plus one");
+        }
+        if (rowPermutation.length != numRows) {
+            throw new IllegalArgumentException("The row permutation must have " + numRows + " elements");
+        }
+        this.numRows = numRows;
+        this.numColumns = numColumns;
+        this.sliceHeight = sliceHeight;
+        this.slicePointers = slicePointers;
+        this.columnIndices = columnIndices;
+        this.values = values;
+        this.rowPermutation = rowPermutation;
+    }
+
+    public int getNumRows() {
+        return numRows;
+    }
+
+    public int getNumColumns() {
+        return numColumns;
+    }
+
+    public int getSliceHeight() {
+        return sliceHeight;
+    }
+
+    public int[] getSlicePointers() {
+        return slicePointers;
+    }
+
+    public int[] getColumnIndices() {
+        return columnIndices;
+    }
+
+    public float[] getValues() {
+        return values;
+    }
+
+    public int[] getRowPermutation() {
+        return rowPermutation;
+    }
+
+    public void multiply(float[] x, float[] y) {
+        for (int position = 0; position < numRows; position++) {
+            int slice = position / sliceHeight;
+            int base = slicePointers[slice] + position % sliceHeight;
+            int width = (slicePointers[slice + 1] - slicePointers[slice]) / sliceHeight;
+            float sum = 0;
+            for (int k = 0; k < width; k++) {
+                sum += values[base + k * sliceHeight] * x[columnIndices[base + k * sliceHeight]];
+            }
+            y[rowPermutation[position]] = sum;
+        }
+    }
+}
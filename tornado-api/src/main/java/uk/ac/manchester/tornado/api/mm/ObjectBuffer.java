@@ -68,6 +68,8 @@ public interface ObjectBuffer {
 
     void allocate(Object reference, long batchSize) throws TornadoOutOfMemoryException, TornadoMemoryException;
 
+    void deallocate();
+
     int getAlignment();
 
     boolean isValid();
@@ -66,4 +66,8 @@ public interface TornadoDeviceObjectState {
     long getAddress();
 
     long getOffset();
+
+    long getLastUse();
+
+    void setLastUse(long value);
 }
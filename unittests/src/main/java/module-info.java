@@ -1,9 +1,11 @@
 open module tornado.unittests {
     requires transitive junit;
     requires transitive tornado.api;
+    requires tornado.matrices;
     requires lucene.core;
 
     exports uk.ac.manchester.tornado.unittests;
+    exports uk.ac.manchester.tornado.unittests.algorithms;
     exports uk.ac.manchester.tornado.unittests.api;
     exports uk.ac.manchester.tornado.unittests.arrays;
     exports uk.ac.manchester.tornado.unittests.atomics;
@@ -17,6 +19,7 @@ open module tornado.unittests {
     exports uk.ac.manchester.tornado.unittests.functional;
     exports uk.ac.manchester.tornado.unittests.images;
     exports uk.ac.manchester.tornado.unittests.instances;
+    exports uk.ac.manchester.tornado.unittests.kernelcontext;
     exports uk.ac.manchester.tornado.unittests.lambdas;
     exports uk.ac.manchester.tornado.unittests.logic;
     exports uk.ac.manchester.tornado.unittests.loops;
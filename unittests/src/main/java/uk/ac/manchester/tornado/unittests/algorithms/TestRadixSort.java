@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.algorithms;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.collections.algorithms.RadixSort;
+import uk.ac.manchester.tornado.api.collections.algorithms.Scan;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestRadixSort extends TornadoTestBase {
+
+    private static final int SIZE = 100000;
+
+    @Test
+    public void testSortInt() {
+        int[] keys = new int[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = r.nextInt();
+        }
+        int[] sequential = keys.clone();
+        Arrays.sort(sequential);
+
+        int[] counts = new int[RadixSort.numCounts(SIZE)];
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(keys);
+        RadixSort.sort(s0, "t0", new KernelContext(), keys, new int[SIZE], counts, new int[Scan.numTiles(counts.length)]) //
+                .streamOut(keys) //
+                .execute();
+
+        assertArrayEquals(sequential, keys);
+    }
+
+    @Test
+    public void testSortFloatWithPayload() {
+        float[] keys = new float[SIZE];
+        int[] indices = new int[SIZE];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = (r.nextFloat() - 0.5f) * 1000;
+            indices[i] = i;
+        }
+        float[] original = keys.clone();
+        float[] sequential = keys.clone();
+        Arrays.sort(sequential);
+
+        int[] counts = new int[RadixSort.numCounts(SIZE)];
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(keys, indices);
+        RadixSort.sort(s0, "t0", new KernelContext(), keys, indices, new float[SIZE], new int[SIZE], counts, new int[Scan.numTiles(counts.length)]) //
+                .streamOut(keys, indices) //
+                .execute();
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(sequential[i], keys[i], 0.0f);
+            assertEquals(original[indices[i]], keys[i], 0.0f);
+        }
+    }
+
+    @Test
+    public void testSegmentedSort() {
+        final int numSegments = 512;
+        Random r = new Random();
+        int[] offsets = new int[numSegments + 1];
+        for (int s = 1; s <= numSegments; s++) {
+            offsets[s] = offsets[s - 1] + r.nextInt(200);
+        }
+        int size = offsets[numSegments];
+        int[] keys = new int[size];
+        for (int i = 0; i < size; i++) {
+            keys[i] = r.nextInt();
+        }
+        int[] sequential = keys.clone();
+        for (int s = 0; s < numSegments; s++) {
+            Arrays.sort(sequential, offsets[s], offsets[s + 1]);
+        }
+
+        int[] counts = new int[RadixSort.numCounts(size)];
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(keys, offsets);
+        RadixSort.segmentedSort(s0, "t0", new KernelContext(), keys, offsets, new long[size], new long[size], counts, new int[Scan.numTiles(counts.length)]) //
+                .streamOut(keys) //
+                .execute();
+
+        assertArrayEquals(sequential, keys);
+    }
+
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.algorithms;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.collections.algorithms.Scan;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestScan extends TornadoTestBase {
+
+    // Not a multiple of the tile size, and with more tiles than a tile of sums
+    private static final int SIZE = Scan.TILE_SIZE * Scan.TILE_SIZE + 123;
+
+    private static void selectGreaterThan(float[] input, int[] flags, float threshold) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            flags[i] = input[i] > threshold ? 1 : 0;
+        }
+    }
+
+    @Test
+    public void testExclusiveScanInt() {
+        int[] input = new int[SIZE];
+        int[] output = new int[SIZE];
+        int[] tileSums = new int[Scan.numTiles(SIZE)];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextInt(10);
+        }
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(input);
+        Scan.scan(s0, "t0", new KernelContext(), input, output, tileSums, false) //
+                .streamOut(output) //
+                .execute();
+
+        int sum = 0;
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(sum, output[i]);
+            sum += input[i];
+        }
+    }
+
+    @Test
+    public void testInclusiveScanLong() {
+        long[] input = new long[SIZE];
+        long[] output = new long[SIZE];
+        long[] tileSums = new long[Scan.numTiles(SIZE)];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextInt(1000);
+        }
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(input);
+        Scan.scan(s0, "t0", new KernelContext(), input, output, tileSums, true) //
+                .streamOut(output) //
+                .execute();
+
+        long sum = 0;
+        for (int i = 0; i < SIZE; i++) {
+            sum += input[i];
+            assertEquals(sum, output[i]);
+        }
+    }
+
+    @Test
+    public void testCompact() {
+        float[] input = new float[SIZE];
+        int[] flags = new int[SIZE];
+        int[] positions = new int[SIZE];
+        int[] tileSums = new int[Scan.numTiles(SIZE)];
+        float[] output = new float[SIZE];
+        int[] count = new int[1];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            input[i] = r.nextInt(100);
+        }
+
+        TaskSchedule s0 = new TaskSchedule("s0") //
+                .streamIn(input) //
+                .task("t0", TestScan::selectGreaterThan, input, flags, 90.0f);
+        Scan.compact(s0, "t1", new KernelContext(), input, flags, positions, tileSums, output, count) //
+                .streamOut(output, count) //
+                .execute();
+
+        int selected = 0;
+        for (int i = 0; i < SIZE; i++) {
+            if (input[i] > 90.0f) {
+                assertEquals(input[i], output[selected], 0.0f);
+                selected++;
+            }
+        }
+        assertEquals(selected, count[0]);
+    }
+
+}
@@ -21,6 +21,7 @@ package uk.ac.manchester.tornado.unittests.api;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 
+import java.util.Arrays;
 import java.util.stream.IntStream;
 
 import org.junit.Test;
@@ -99,4 +100,173 @@ public class TestAPI extends TornadoTestBase {
         }
     }
 
+    @Test
+    public void testKeepOnDevice() {
+        final int N = 128;
+        int size = 20;
+
+        int[] data = new int[N];
+
+        IntStream.range(0, N).parallel().forEach(idx -> {
+            data[idx] = size;
+        });
+
+        TaskSchedule s0 = new TaskSchedule("s0");
+        s0.streamIn(data).keepOnDevice(data);
+        s0.task("t0", TestArrays::addAccumulator, data, 1);
+
+        // The second schedule consumes the device copy written by s0
+        TaskSchedule s1 = new TaskSchedule("s1");
+        s1.streamIn(data).keepOnDevice(data);
+        s1.task("t1", TestArrays::addAccumulator, data, 1);
+
+        s0.execute();
+        s1.execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(20, data[i]);
+        }
+
+        s1.syncObject(data);
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(22, data[i]);
+        }
+    }
+
+    @Test
+    public void testSharedBytecode() {
+        final int N = 128;
+
+        int[] a = new int[N];
+        int[] b = new int[N];
+        Arrays.fill(a, 10);
+        Arrays.fill(b, 100);
+
+        // Both task-schedules have the same structure and share the same
+        // TornadoVM bytecode, but each one runs over its own arrays
+        TaskSchedule s0 = new TaskSchedule("s0");
+        s0.task("t0", TestArrays::addAccumulator, a, 1).streamOut(a);
+
+        TaskSchedule s1 = new TaskSchedule("s1");
+        s1.task("t0", TestArrays::addAccumulator, b, 2).streamOut(b);
+
+        s0.execute();
+        s1.execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(11, a[i]);
+            assertEquals(102, b[i]);
+        }
+    }
+
+    @Test
+    public void testReplaceParameter() {
+        final int N = 128;
+
+        int[] a = new int[N];
+        int[] b = new int[N];
+        Arrays.fill(a, 10);
+        Arrays.fill(b, 20);
+
+        TaskSchedule s0 = new TaskSchedule("s10");
+        s0.task("t0", TestArrays::addAccumulator, a, 1).streamOut(a);
+        s0.execute();
+
+        // Same kernel and bytecode over a new array, which is also streamed out
+        s0.replaceParameter(a, b).execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(11, a[i]);
+            assertEquals(21, b[i]);
+        }
+
+        // The kernel reads the new value of the scalar at runtime
+        s0.replaceParameter(1, 5);
+        s0.execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(11, a[i]);
+            assertEquals(26, b[i]);
+        }
+    }
+
+    @Test
+    public void testShapePolymorphic() {
+        final int N = 256;
+
+        int[] a = new int[N];
+        int[] b = new int[N * 2];
+        int[] c = new int[N / 2];
+        Arrays.fill(a, 10);
+        Arrays.fill(b, 20);
+        Arrays.fill(c, 30);
+
+        TaskSchedule s0 = new TaskSchedule("s11");
+        s0.task("t0", TestArrays::addAccumulator, a, 1).streamOut(a);
+        s0.execute();
+
+        // The kernel reads the length of the array at runtime
+        s0.replaceParameter(a, b).execute();
+        s0.replaceParameter(b, c).execute();
+
+        for (int i = 0; i < a.length; i++) {
+            assertEquals(11, a[i]);
+        }
+        for (int i = 0; i < b.length; i++) {
+            assertEquals(21, b[i]);
+        }
+        for (int i = 0; i < c.length; i++) {
+            assertEquals(31, c[i]);
+        }
+    }
+
+    @Test
+    public void testScalarSpecialisation() {
+        final int N = 256;
+
+        int[] a = new int[N];
+
+        TaskSchedule s0 = new TaskSchedule("s12");
+        s0.task("t0", TestArrays::addAccumulator, a, 2).streamOut(a);
+
+        // The value of the scalar is stable: a specialised version is compiled
+        for (int i = 0; i < 10; i++) {
+            s0.execute();
+        }
+
+        // A different value falls back to the generic kernel
+        s0.replaceParameter(2, 3).execute();
+
+        // The specialised version is used again
+        s0.replaceParameter(3, 2).execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(25, a[i]);
+        }
+    }
+
+    @Test
+    public void testReplaceScalarInSeveralTasks() {
+        final int N = 128;
+
+        int[] a = new int[N];
+        int[] b = new int[N];
+
+        TaskSchedule s0 = new TaskSchedule("s13");
+        s0.task("t0", TestArrays::addAccumulator, a, 1) //
+                .task("t1", TestArrays::addAccumulator, b, 2) //
+                .streamOut(a, b);
+        s0.execute();
+
+        // Both tasks pass 2 after the first replacement, but in different slots
+        s0.replaceParameter(1, 2).execute();
+        s0.replaceParameter(2, 4).execute();
+
+        for (int i = 0; i < N; i++) {
+            assertEquals(7, a[i]);
+            assertEquals(8, b[i]);
+        }
+    }
+
 }
@@ -0,0 +1,131 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.batches;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of the batch sizes computed by the TornadoVM when the arrays of a
+ * task-schedule do not fit in the device heap. The arrays have different
+ * element sizes, so every array moves by its own number of bytes per batch.
+ * The tests are meant to be run with automatic batching and a small heap:
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.batch.auto=True -Dtornado.heap.allocation=64MB" uk.ac.manchester.tornado.unittests.batches.TestAutoBatches
+ * </code>
+ */
+public class TestAutoBatches extends TornadoTestBase {
+
+    // 32MB for the int and float arrays and 64MB for the double arrays
+    private static final int SIZE = 8 * 1024 * 1024;
+
+    public static void mixedTypes(int[] a, float[] b, double[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] * 0.5 + b[i];
+        }
+    }
+
+    public static void widen(short[] input, long[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] * 3L;
+        }
+    }
+
+    public static void toFloat(short[] input, float[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] * 2.0f;
+        }
+    }
+
+    public static void toDouble(float[] input, double[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] + 1.0;
+        }
+    }
+
+    @Test
+    public void testMixedElementSizes() {
+        int[] a = new int[SIZE];
+        float[] b = new float[SIZE];
+        double[] c = new double[SIZE];
+        IntStream.range(0, SIZE).parallel().forEach(i -> {
+            a[i] = i;
+            b[i] = 1.0f;
+        });
+
+        new TaskSchedule("s0") //
+                .streamIn(a, b) //
+                .task("t0", TestAutoBatches::mixedTypes, a, b, c) //
+                .streamOut(c) //
+                .execute();
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(i * 0.5 + 1.0, c[i], 0.01);
+        }
+    }
+
+    @Test
+    public void testShortToLong() {
+        short[] input = new short[SIZE];
+        long[] output = new long[SIZE];
+        IntStream.range(0, SIZE).parallel().forEach(i -> input[i] = (short) i);
+
+        new TaskSchedule("s0") //
+                .streamIn(input) //
+                .task("t0", TestAutoBatches::widen, input, output) //
+                .streamOut(output) //
+                .execute();
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(((short) i) * 3L, output[i]);
+        }
+    }
+
+    /**
+     * The intermediate array is only written by t0 before t1 reads it, so the
+     * task-schedule can be executed again in batches if t1 runs out of memory
+     * after t0 has run.
+     */
+    @Test
+    public void testMixedElementSizesTwoTasks() {
+        short[] a = new short[SIZE];
+        float[] tmp = new float[SIZE];
+        double[] b = new double[SIZE];
+        IntStream.range(0, SIZE).parallel().forEach(i -> a[i] = (short) (i % 1000));
+
+        new TaskSchedule("s0") //
+                .streamIn(a) //
+                .task("t0", TestAutoBatches::toFloat, a, tmp) //
+                .task("t1", TestAutoBatches::toDouble, tmp, b) //
+                .streamOut(b) //
+                .execute();
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals((i % 1000) * 2.0 + 1.0, b[i], 0.01);
+        }
+    }
+
+}
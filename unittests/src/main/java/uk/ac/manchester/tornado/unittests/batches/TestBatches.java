@@ -74,6 +74,23 @@ public class TestBatches extends TornadoTestBase {
         }
     }
 
+    public static void computeMixed(float[] arrayA, double[] arrayB) {
+        for (@Parallel int i = 0; i < arrayA.length; i++) {
+            arrayB[i] = arrayA[i] * 2;
+        }
+    }
+
+    /**
+     * The output array holds two elements per iteration, so its length is folded
+     * to twice the number of iterations of each batch.
+     */
+    public static void computeInterleaved(float[] arrayA, float[] arrayB) {
+        for (@Parallel int i = 0; i < arrayB.length / 2; i++) {
+            arrayB[2 * i] = arrayA[i];
+            arrayB[2 * i + 1] = arrayA[i] * 2;
+        }
+    }
+
     @Test
     public void test100MB() {
 
@@ -334,6 +351,64 @@ public class TestBatches extends TornadoTestBase {
         }
     }
 
+    @Test
+    public void test50MBMixedTypes() {
+
+        long maxAllocMemory = checkMaxHeapAllocation(50, MemSize.MB);
+
+        int size = 20000000;
+        // or as much as we can
+        if (size * 12 > maxAllocMemory) {
+            size = (int) ((maxAllocMemory / 12) * 0.9);
+        }
+        float[] arrayA = new float[size];
+        double[] arrayB = new double[size];
+
+        IntStream.range(0, arrayA.length).sequential().forEach(idx -> arrayA[idx] = idx);
+
+        TaskSchedule ts = new TaskSchedule("s0");
+
+        // @formatter:off
+        ts.batch("50MB")   // Process Slots of 50 MB (double array), 25 MB (float array)
+                .task("t0", TestBatches::computeMixed, arrayA, arrayB)
+                .streamOut((Object) arrayB)
+                .execute();
+        // @formatter:on
+
+        for (int i = 0; i < arrayA.length; i++) {
+            assertEquals(arrayA[i] * 2, arrayB[i], 0.01);
+        }
+    }
+
+    @Test
+    public void test50MBDifferentLengths() {
+
+        long maxAllocMemory = checkMaxHeapAllocation(50, MemSize.MB);
+
+        int size = 20000000;
+        // or as much as we can
+        if (size * 12 > maxAllocMemory) {
+            size = (int) ((maxAllocMemory / 12) * 0.9);
+        }
+        float[] arrayA = new float[size];
+        float[] arrayB = new float[size * 2];
+
+        IntStream.range(0, arrayA.length).sequential().forEach(idx -> arrayA[idx] = idx);
+
+        TaskSchedule ts = new TaskSchedule("s0");
+
+        // @formatter:off
+        ts.batch("50MB")   // Process Slots of 50 MB (arrayB), 25 MB (arrayA)
+                .task("t0", TestBatches::computeInterleaved, arrayA, arrayB)
+                .streamOut((Object) arrayB)
+                .execute();
+        // @formatter:on
+
+        for (int i = 0; i < arrayA.length; i++) {
+            assertEquals(arrayA[i], arrayB[2 * i], 0.01f);
+            assertEquals(arrayA[i] * 2, arrayB[2 * i + 1], 0.01f);
+        }
+    }
 
     private long checkMaxHeapAllocation(int size, MemSize memSize) throws UnsupportedConfigurationException {
         long maxAllocMemory = getTornadoRuntime().getDefaultDevice().getDeviceContext().getMemoryManager().getHeapSize();
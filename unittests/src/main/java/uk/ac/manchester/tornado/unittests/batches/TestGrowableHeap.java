@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.batches;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of a device heap made of several regions. The tests are meant to be run
+ * with heap regions smaller than the data of the task-schedule:
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.opencl.heap.growable=True -Dtornado.opencl.heap.region.size=32MB" uk.ac.manchester.tornado.unittests.batches.TestGrowableHeap
+ * </code>
+ */
+public class TestGrowableHeap extends TornadoTestBase {
+
+    // 16MB per array: with 32MB regions every array after the first one is
+    // allocated in a new region
+    private static final int SIZE = 4 * 1024 * 1024;
+
+    public static void vectorAdd(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    @Test
+    public void testAllocateBeyondFirstRegion() {
+        float[] a = new float[SIZE];
+        float[] b = new float[SIZE];
+        float[] c = new float[SIZE];
+        IntStream.range(0, SIZE).parallel().forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        new TaskSchedule("s0") //
+                .streamIn(a, b) //
+                .task("t0", TestGrowableHeap::vectorAdd, a, b, c) //
+                .streamOut(c) //
+                .execute();
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(3.0f * i, c[i], 0.01f);
+        }
+    }
+
+    /**
+     * The second execution reuses the call stack of the first one, so the kernel
+     * arguments for the heap regions are bound again on every launch.
+     */
+    @Test
+    public void testAllocateBeyondFirstRegionTwice() {
+        float[] a = new float[SIZE];
+        float[] b = new float[SIZE];
+        float[] c = new float[SIZE];
+
+        TaskSchedule s0 = new TaskSchedule("s0") //
+                .streamIn(a, b) //
+                .task("t0", TestGrowableHeap::vectorAdd, a, b, c) //
+                .streamOut(c);
+
+        for (int iteration = 1; iteration <= 2; iteration++) {
+            final int value = iteration;
+            IntStream.range(0, SIZE).parallel().forEach(i -> {
+                a[i] = value;
+                b[i] = i;
+            });
+
+            s0.execute();
+
+            for (int i = 0; i < SIZE; i++) {
+                assertEquals(value + i, c[i], 0.01f);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.batches;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of the device heap when buffers are spilled. The tests are meant to be
+ * run with a heap that only fits the working set of one task:
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.opencl.heap.spill=True -Dtornado.heap.allocation=64MB" uk.ac.manchester.tornado.unittests.batches.TestHeapSpill
+ * </code>
+ */
+public class TestHeapSpill extends TornadoTestBase {
+
+    // 16MB per array: three arrays fit in a 64MB heap, four arrays do not
+    private static final int SIZE = 4 * 1024 * 1024;
+
+    public static void producer(float[] input, float[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] * 2;
+        }
+    }
+
+    public static void consumer(float[] input, float[] b, float[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] + b[i];
+        }
+    }
+
+    /**
+     * The intermediate array is written by t0 and read by t1 without any
+     * transfer in between, so the allocation of the arrays of t1 spills it.
+     * It has to be copied back to the device before t1 is launched.
+     */
+    @Test
+    public void testSpillProducerConsumer() {
+        float[] a = new float[SIZE];
+        float[] tmp = new float[SIZE];
+        float[] b = new float[SIZE];
+        float[] c = new float[SIZE];
+        IntStream.range(0, SIZE).parallel().forEach(i -> {
+            a[i] = i;
+            b[i] = 1;
+        });
+
+        new TaskSchedule("s0") //
+                .streamIn(a) //
+                .task("t0", TestHeapSpill::producer, a, tmp) //
+                .streamIn(b) //
+                .task("t1", TestHeapSpill::consumer, tmp, b, c) //
+                .streamOut(c) //
+                .execute();
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(i * 2.0f + 1, c[i], 0.01f);
+        }
+    }
+
+}
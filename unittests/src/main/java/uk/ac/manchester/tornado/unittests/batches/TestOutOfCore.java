@@ -0,0 +1,93 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.batches;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.OutOfCoreSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestOutOfCore extends TornadoTestBase {
+
+    public static void compute(float[] input, float[] output) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            output[i] = input[i] * 2;
+        }
+    }
+
+    @Test
+    public void testMappedFloats() throws IOException {
+        // Not a multiple of the window size to check the last window
+        final int size = 1_000_003;
+        final int windowSize = 65536;
+
+        Path input = Files.createTempFile("tornado-input", ".bin");
+        Path output = Files.createTempFile("tornado-output", ".bin");
+
+        try {
+            ByteBuffer data = ByteBuffer.allocate(size * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            for (int i = 0; i < size; i++) {
+                data.putFloat(i);
+            }
+            Files.write(input, data.array());
+
+            new OutOfCoreSchedule("s0", windowSize).mapFloats(input, output, TestOutOfCore::compute);
+
+            ByteBuffer result = ByteBuffer.wrap(Files.readAllBytes(output)).order(ByteOrder.LITTLE_ENDIAN);
+            assertEquals(size * Float.BYTES, result.capacity());
+            for (int i = 0; i < size; i++) {
+                assertEquals(i * 2.0f, result.getFloat(), 0.01f);
+            }
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+    @Test
+    public void testSizeNotMultipleOfElementSize() throws IOException {
+        Path input = Files.createTempFile("tornado-input", ".bin");
+        Path output = Files.createTempFile("tornado-output", ".bin");
+
+        try {
+            Files.write(input, new byte[Float.BYTES * 16 + 1]);
+
+            boolean rejected = false;
+            try {
+                new OutOfCoreSchedule("s0", 8).mapFloats(input, output, TestOutOfCore::compute);
+            } catch (IOException e) {
+                rejected = true;
+            }
+            assertTrue(rejected);
+        } finally {
+            Files.deleteIfExists(input);
+            Files.deleteIfExists(output);
+        }
+    }
+
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+
+package uk.ac.manchester.tornado.unittests.kernelcontext;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.WorkerGrid;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestKernelContext extends TornadoTestBase {
+
+    private static final int LOCAL_SIZE = 256;
+
+    public static void vectorAdd(KernelContext context, float[] a, float[] b, float[] c) {
+        int idx = context.globalId(0);
+        c[idx] = a[idx] + b[idx];
+    }
+
+    public static void matrixIndices(KernelContext context, int[] output, int width) {
+        int x = context.globalId(0);
+        int y = context.globalId(1);
+        output[y * width + x] = y * 1000 + x;
+    }
+
+    public static void reduceLocal(KernelContext context, float[] input, float[] output) {
+        int globalIdx = context.globalId(0);
+        int localIdx = context.localId(0);
+        int groupSize = context.localSize(0);
+        int groupId = context.groupId(0);
+
+        float[] localInput = context.allocateFloatLocalArray(LOCAL_SIZE);
+        localInput[localIdx] = input[globalIdx];
+        for (int stride = groupSize / 2; stride > 0; stride /= 2) {
+            context.localBarrier();
+            if (localIdx < stride) {
+                localInput[localIdx] += localInput[localIdx + stride];
+            }
+        }
+        if (localIdx == 0) {
+            output[groupId] = localInput[0];
+        }
+    }
+
+    @Test
+    public void testGlobalId() {
+        final int size = 1024;
+        float[] a = new float[size];
+        float[] b = new float[size];
+        float[] c = new float[size];
+
+        IntStream.range(0, size).forEach(i -> {
+            a[i] = i;
+            b[i] = 2 * i;
+        });
+
+        KernelContext context = new KernelContext();
+        TaskSchedule s0 = new TaskSchedule("s0") //
+                .task("t0", TestKernelContext::vectorAdd, context, a, b, c) //
+                .setWorkerGrid("t0", new WorkerGrid(size)) //
+                .streamOut(c);
+        s0.execute();
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(3 * i, c[i], 0.001f);
+        }
+    }
+
+    @Test
+    public void testGlobalId2D() {
+        final int width = 64;
+        final int height = 32;
+        int[] output = new int[width * height];
+
+        KernelContext context = new KernelContext();
+        TaskSchedule s0 = new TaskSchedule("s0") //
+                .task("t0", TestKernelContext::matrixIndices, context, output, width) //
+                .setWorkerGrid("t0", new WorkerGrid(width, height).setLocalWork(16, 16)) //
+                .streamOut(output);
+        s0.execute();
+
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                assertEquals(y * 1000 + x, output[y * width + x]);
+            }
+        }
+    }
+
+    @Test
+    public void testLocalMemoryReduction() {
+        final int size = 4096;
+        final int groups = size / LOCAL_SIZE;
+        float[] input = new float[size];
+        float[] output = new float[groups];
+
+        Random random = new Random();
+        IntStream.range(0, size).forEach(i -> input[i] = random.nextInt(100));
+
+        KernelContext context = new KernelContext();
+        TaskSchedule s0 = new TaskSchedule("s0") //
+                .task("t0", TestKernelContext::reduceLocal, context, input, output) //
+                .setWorkerGrid("t0", new WorkerGrid(size).setLocalWork(LOCAL_SIZE)) //
+                .streamOut(output);
+        s0.execute();
+
+        for (int group = 0; group < groups; group++) {
+            float expected = 0;
+            for (int i = group * LOCAL_SIZE; i < (group + 1) * LOCAL_SIZE; i++) {
+                expected += input[i];
+            }
+            assertEquals(expected, output[group], 0.01f);
+        }
+    }
+}
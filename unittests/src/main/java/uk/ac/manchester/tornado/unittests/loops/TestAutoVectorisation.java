@@ -0,0 +1,272 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.loops;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Parallel loops widened into OpenCL vector types. The sizes cover multiples
+ * of the width and sizes that also need the scalar tail loop, including sizes
+ * smaller than the width. The tests are meant to be run with the
+ * auto-vectoriser enabled, a width of 8 and the OpenCL source printed, which
+ * is used to check that the kernels have been widened:
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.opencl.vectorise=True -Dtornado.opencl.vectorise.width=8 -Dtornado.opencl.source.print=True" uk.ac.manchester.tornado.unittests.loops.TestAutoVectorisation
+ * </code>
+ */
+public class TestAutoVectorisation extends TornadoTestBase {
+
+    private static final int[] SIZES = { 1024, 1028, 1030, 1023, 7 };
+
+    public static void vectorAddFloat(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void vectorAddInt(int[] a, int[] b, int[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] + b[i];
+        }
+    }
+
+    public static void saxpy(float alpha, float[] x, float[] y) {
+        for (@Parallel int i = 0; i < y.length; i++) {
+            y[i] = alpha * x[i] + y[i];
+        }
+    }
+
+    public static void multiplySubtractInt(int[] a, int[] b, int[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] * b[i] - a[i];
+        }
+    }
+
+    public static void vectorMultiplyFloat(float[] a, float[] b, float[] c) {
+        for (@Parallel int i = 0; i < c.length; i++) {
+            c[i] = a[i] * b[i];
+        }
+    }
+
+    /**
+     * The index is part of the stored value, so the loop is never widened.
+     */
+    public static void addIndex(float[] a, float[] b) {
+        for (@Parallel int i = 0; i < b.length; i++) {
+            b[i] = a[i] + i;
+        }
+    }
+
+    /**
+     * Runs a task-schedule and returns the OpenCL kernels printed while it is
+     * compiled.
+     */
+    private static String getGeneratedSource(TaskSchedule schedule) {
+        final PrintStream out = System.out;
+        final ByteArrayOutputStream source = new ByteArrayOutputStream();
+        System.setOut(new PrintStream(source, true));
+        try {
+            schedule.execute();
+        } finally {
+            System.setOut(out);
+        }
+        return source.toString();
+    }
+
+    @Test
+    public void testVectorAddFloat() {
+        final Random random = new Random();
+        for (int size : SIZES) {
+            float[] a = new float[size];
+            float[] b = new float[size];
+            float[] c = new float[size];
+
+            IntStream.range(0, size).forEach(i -> {
+                a[i] = random.nextFloat();
+                b[i] = random.nextFloat();
+            });
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(a, b)
+                .task("t0", TestAutoVectorisation::vectorAddFloat, a, b, c)
+                .streamOut(c)
+                .execute();
+            //@formatter:on
+
+            for (int i = 0; i < size; i++) {
+                assertEquals(a[i] + b[i], c[i], 0.001f);
+            }
+        }
+    }
+
+    @Test
+    public void testVectorAddInt() {
+        final Random random = new Random();
+        for (int size : SIZES) {
+            int[] a = new int[size];
+            int[] b = new int[size];
+            int[] c = new int[size];
+
+            IntStream.range(0, size).forEach(i -> {
+                a[i] = random.nextInt(1000);
+                b[i] = random.nextInt(1000);
+            });
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(a, b)
+                .task("t0", TestAutoVectorisation::vectorAddInt, a, b, c)
+                .streamOut(c)
+                .execute();
+            //@formatter:on
+
+            for (int i = 0; i < size; i++) {
+                assertEquals(a[i] + b[i], c[i]);
+            }
+        }
+    }
+
+    @Test
+    public void testSaxpy() {
+        final Random random = new Random();
+        final float alpha = 2.5f;
+        for (int size : SIZES) {
+            float[] x = new float[size];
+            float[] y = new float[size];
+            float[] expected = new float[size];
+
+            IntStream.range(0, size).forEach(i -> {
+                x[i] = random.nextFloat();
+                y[i] = random.nextFloat();
+                expected[i] = alpha * x[i] + y[i];
+            });
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(x, y)
+                .task("t0", TestAutoVectorisation::saxpy, alpha, x, y)
+                .streamOut(y)
+                .execute();
+            //@formatter:on
+
+            for (int i = 0; i < size; i++) {
+                assertEquals(expected[i], y[i], 0.001f);
+            }
+        }
+    }
+
+    @Test
+    public void testMultiplySubtractInt() {
+        final Random random = new Random();
+        for (int size : SIZES) {
+            int[] a = new int[size];
+            int[] b = new int[size];
+            int[] c = new int[size];
+
+            IntStream.range(0, size).forEach(i -> {
+                a[i] = random.nextInt(100);
+                b[i] = random.nextInt(100);
+            });
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(a, b)
+                .task("t0", TestAutoVectorisation::multiplySubtractInt, a, b, c)
+                .streamOut(c)
+                .execute();
+            //@formatter:on
+
+            for (int i = 0; i < size; i++) {
+                assertEquals(a[i] * b[i] - a[i], c[i]);
+            }
+        }
+    }
+
+    /**
+     * The first execution compiles the generic kernel, whose number of
+     * iterations is only known at runtime. It is widened and the remaining
+     * iterations run in the scalar tail loop.
+     */
+    @Test
+    public void testGenericKernelIsVectorised() {
+        final int size = 1023;
+        final Random random = new Random();
+        float[] a = new float[size];
+        float[] b = new float[size];
+        float[] c = new float[size];
+
+        IntStream.range(0, size).forEach(i -> {
+            a[i] = random.nextFloat();
+            b[i] = random.nextFloat();
+        });
+
+        //@formatter:off
+        TaskSchedule s0 = new TaskSchedule("s0")
+            .streamIn(a, b)
+            .task("t0", TestAutoVectorisation::vectorMultiplyFloat, a, b, c)
+            .streamOut(c);
+        //@formatter:on
+
+        final String source = getGeneratedSource(s0);
+        assertTrue(source.contains("vload8"));
+        assertTrue(source.contains("vstore8"));
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(a[i] * b[i], c[i], 0.001f);
+        }
+    }
+
+    @Test
+    public void testScalarFallback() {
+        final Random random = new Random();
+        for (int size : SIZES) {
+            float[] a = new float[size];
+            float[] b = new float[size];
+
+            IntStream.range(0, size).forEach(i -> a[i] = random.nextFloat());
+
+            //@formatter:off
+            TaskSchedule s0 = new TaskSchedule("s0")
+                .streamIn(a)
+                .task("t0", TestAutoVectorisation::addIndex, a, b)
+                .streamOut(b);
+            //@formatter:on
+
+            assertFalse(getGeneratedSource(s0).contains("vload"));
+
+            for (int i = 0; i < size; i++) {
+                assertEquals(a[i] + i, b[i], 0.001f);
+            }
+        }
+    }
+}
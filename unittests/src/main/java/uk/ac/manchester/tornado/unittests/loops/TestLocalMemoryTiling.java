@@ -0,0 +1,146 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.loops;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * 2D stencils whose reads are tiled into local memory. The row length is
+ * either a constant or an int parameter, and the sizes include matrices that
+ * are not a multiple of the tile. The tests are meant to be run with tiling
+ * enabled:
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.opencl.tiling=True" uk.ac.manchester.tornado.unittests.loops.TestLocalMemoryTiling
+ * </code>
+ */
+public class TestLocalMemoryTiling extends TornadoTestBase {
+
+    private static final int CONSTANT_SIZE = 130;
+
+    private static final int[] SIZES = { 512, 501, 37 };
+
+    public static void jacobiConstant(float[] a, float[] b) {
+        for (@Parallel int i = 1; i < CONSTANT_SIZE - 1; i++) {
+            for (@Parallel int j = 1; j < CONSTANT_SIZE - 1; j++) {
+                b[i * CONSTANT_SIZE + j] = 0.2f * (a[i * CONSTANT_SIZE + j] + a[(i - 1) * CONSTANT_SIZE + j] + a[(i + 1) * CONSTANT_SIZE + j] + a[i * CONSTANT_SIZE + j - 1] + a[i * CONSTANT_SIZE + j + 1]);
+            }
+        }
+    }
+
+    public static void jacobi(float[] a, float[] b, int size) {
+        for (@Parallel int i = 1; i < size - 1; i++) {
+            for (@Parallel int j = 1; j < size - 1; j++) {
+                b[i * size + j] = 0.2f * (a[i * size + j] + a[(i - 1) * size + j] + a[(i + 1) * size + j] + a[i * size + j - 1] + a[i * size + j + 1]);
+            }
+        }
+    }
+
+    public static void laplacianInt(int[] a, int[] b, int rows, int columns) {
+        for (@Parallel int i = 1; i < rows - 1; i++) {
+            for (@Parallel int j = 1; j < columns - 1; j++) {
+                b[i * columns + j] = 4 * a[i * columns + j] - a[(i - 1) * columns + j] - a[(i + 1) * columns + j] - a[i * columns + j - 1] - a[i * columns + j + 1];
+            }
+        }
+    }
+
+    private static float[] randomFloats(int length) {
+        final Random random = new Random();
+        final float[] array = new float[length];
+        IntStream.range(0, length).forEach(i -> array[i] = random.nextFloat());
+        return array;
+    }
+
+    private static void checkJacobi(float[] a, float[] b, int size) {
+        for (int i = 1; i < size - 1; i++) {
+            for (int j = 1; j < size - 1; j++) {
+                float expected = 0.2f * (a[i * size + j] + a[(i - 1) * size + j] + a[(i + 1) * size + j] + a[i * size + j - 1] + a[i * size + j + 1]);
+                assertEquals(expected, b[i * size + j], 0.001f);
+            }
+        }
+    }
+
+    @Test
+    public void testJacobiConstantRowLength() {
+        float[] a = randomFloats(CONSTANT_SIZE * CONSTANT_SIZE);
+        float[] b = new float[CONSTANT_SIZE * CONSTANT_SIZE];
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .streamIn(a)
+            .task("t0", TestLocalMemoryTiling::jacobiConstant, a, b)
+            .streamOut(b)
+            .execute();
+        //@formatter:on
+
+        checkJacobi(a, b, CONSTANT_SIZE);
+    }
+
+    @Test
+    public void testJacobiRuntimeRowLength() {
+        for (int size : SIZES) {
+            float[] a = randomFloats(size * size);
+            float[] b = new float[size * size];
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(a)
+                .task("t0", TestLocalMemoryTiling::jacobi, a, b, size)
+                .streamOut(b)
+                .execute();
+            //@formatter:on
+
+            checkJacobi(a, b, size);
+        }
+    }
+
+    @Test
+    public void testLaplacianRectangular() {
+        final Random random = new Random();
+        final int rows = 67;
+        for (int columns : SIZES) {
+            int[] a = new int[rows * columns];
+            int[] b = new int[rows * columns];
+            IntStream.range(0, a.length).forEach(i -> a[i] = random.nextInt(1000));
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(a)
+                .task("t0", TestLocalMemoryTiling::laplacianInt, a, b, rows, columns)
+                .streamOut(b)
+                .execute();
+            //@formatter:on
+
+            for (int i = 1; i < rows - 1; i++) {
+                for (int j = 1; j < columns - 1; j++) {
+                    int expected = 4 * a[i * columns + j] - a[(i - 1) * columns + j] - a[(i + 1) * columns + j] - a[i * columns + j - 1] - a[i * columns + j + 1];
+                    assertEquals(expected, b[i * columns + j]);
+                }
+            }
+        }
+    }
+}
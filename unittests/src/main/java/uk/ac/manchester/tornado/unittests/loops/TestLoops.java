@@ -695,4 +695,36 @@ public class TestLoops extends TornadoTestBase {
             assertEquals(10, a[j]);
         }
     }
+
+    @Test
+    public void testCoarsenedLoops() {
+        final int size = 1001;
+
+        int[] a = new int[size];
+        int[] b = new int[size];
+
+        Arrays.fill(a, 1);
+        Arrays.fill(b, 75);
+
+        // Each thread runs 4 iterations of the parallel loops
+        System.setProperty("s20.t0.coarseness", "4");
+        System.setProperty("s20.t1.coarseness", "4");
+        try {
+            //@formatter:off
+            new TaskSchedule("s20")
+                    .task("t0", TestLoops::forLoopOneD, a)
+                    .task("t1", TestLoops::steppedLoop, b, size)
+                    .streamOut(a, b)
+                    .execute();
+            //@formatter:on
+        } finally {
+            System.clearProperty("s20.t0.coarseness");
+            System.clearProperty("s20.t1.coarseness");
+        }
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(10, a[i]);
+            assertEquals((i % 2 == 0) ? 200 : 75, b[i]);
+        }
+    }
 }
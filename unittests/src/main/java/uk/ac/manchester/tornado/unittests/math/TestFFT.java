@@ -0,0 +1,148 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.math;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.collections.math.FFT;
+import uk.ac.manchester.tornado.api.collections.math.FFT.Direction;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestFFT extends TornadoTestBase {
+
+    private static float[] createData(int length) {
+        Random r = new Random();
+        float[] data = new float[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = r.nextFloat() * 2 - 1;
+        }
+        return data;
+    }
+
+    /**
+     * Naive DFT of the transform {@code batch} of {@code data}.
+     */
+    private static double[] dft(float[] data, int size, int batch) {
+        double[] result = new double[2 * size];
+        int base = 2 * batch * size;
+        for (int k = 0; k < size; k++) {
+            for (int t = 0; t < size; t++) {
+                double angle = -2 * Math.PI * ((long) t * k % size) / size;
+                double re = data[base + 2 * t];
+                double im = data[base + 2 * t + 1];
+                result[2 * k] += re * Math.cos(angle) - im * Math.sin(angle);
+                result[2 * k + 1] += re * Math.sin(angle) + im * Math.cos(angle);
+            }
+        }
+        return result;
+    }
+
+    private void testFFT(int size, int batch) {
+        float[] input = createData(2 * size * batch);
+        float[] data = input.clone();
+        float[] buffer = new float[data.length];
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(data);
+        FFT.fft(s0, "t0", data, buffer, size, batch, Direction.FORWARD) //
+                .streamOut(data) //
+                .execute();
+
+        for (int b = 0; b < batch; b++) {
+            double[] expected = dft(input, size, b);
+            for (int i = 0; i < 2 * size; i++) {
+                assertEquals(expected[i], data[2 * b * size + i], 0.01 * Math.sqrt(size));
+            }
+        }
+    }
+
+    @Test
+    public void testFFTPowerOfFour() {
+        testFFT(1024, 1);
+    }
+
+    @Test
+    public void testFFTPowerOfTwo() {
+        testFFT(2048, 1);
+    }
+
+    @Test
+    public void testFFTMixedRadix() {
+        testFFT(2 * 3 * 5 * 7 * 4, 1);
+    }
+
+    @Test
+    public void testFFTBatched() {
+        testFFT(256, 16);
+    }
+
+    @Test
+    public void testInverseFFT() {
+        final int size = 4096;
+        float[] input = createData(2 * size);
+        float[] data = input.clone();
+        float[] buffer = new float[data.length];
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(data);
+        FFT.fft(s0, "forward", data, buffer, size, Direction.FORWARD);
+        FFT.fft(s0, "inverse", data, buffer, size, Direction.INVERSE) //
+                .streamOut(data) //
+                .execute();
+
+        for (int i = 0; i < input.length; i++) {
+            assertEquals(input[i], data[i] / size, 0.001f);
+        }
+    }
+
+    @Test
+    public void testFFT2D() {
+        final int rows = 32;
+        final int columns = 48;
+        float[] input = createData(2 * rows * columns);
+        float[] data = input.clone();
+        float[] buffer = new float[data.length];
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(data);
+        FFT.fft2D(s0, "t0", data, buffer, rows, columns, Direction.FORWARD) //
+                .streamOut(data) //
+                .execute();
+
+        for (int u = 0; u < rows; u++) {
+            for (int v = 0; v < columns; v++) {
+                double re = 0;
+                double im = 0;
+                for (int i = 0; i < rows; i++) {
+                    for (int j = 0; j < columns; j++) {
+                        double angle = -2 * Math.PI * ((double) (u * i % rows) / rows + (double) (v * j % columns) / columns);
+                        int index = 2 * (i * columns + j);
+                        re += input[index] * Math.cos(angle) - input[index + 1] * Math.sin(angle);
+                        im += input[index] * Math.sin(angle) + input[index + 1] * Math.cos(angle);
+                    }
+                }
+                int index = 2 * (u * columns + v);
+                assertEquals(re, data[index], 0.1);
+                assertEquals(im, data[index + 1], 0.1);
+            }
+        }
+    }
+
+}
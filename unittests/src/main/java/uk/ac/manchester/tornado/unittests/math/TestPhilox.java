@@ -0,0 +1,140 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.math;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.collections.math.Philox;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestPhilox extends TornadoTestBase {
+
+    private static final long SEED = 0x123456789ABCDEFL;
+
+    public static void randomInts(int[] output, long seed, long counter) {
+        for (@Parallel int i = 0; i < output.length; i++) {
+            output[i] = Philox.nextInt(seed, i, counter, i % 4);
+        }
+    }
+
+    public static void monteCarloPi(float[] output, long seed, int samples) {
+        for (@Parallel int i = 0; i < output.length; i++) {
+            float inside = 0.0f;
+            for (int j = 0; j < samples; j++) {
+                float x = Philox.uniform(seed, i, j, 0);
+                float y = Philox.uniform(seed, i, j, 1);
+                if (x * x + y * y <= 1.0f) {
+                    inside += 1.0f;
+                }
+            }
+            output[i] = 4.0f * inside / samples;
+        }
+    }
+
+    /**
+     * Known-answer tests of Philox4x32-10 from the Random123 distribution.
+     */
+    @Test
+    public void testKnownAnswers() {
+        assertEquals(0x6627e8d5, Philox.nextInt(0L, 0, 0L, 0));
+        assertEquals(0xe169c58d, Philox.nextInt(0L, 0, 0L, 1));
+        assertEquals(0xbc57ac4c, Philox.nextInt(0L, 0, 0L, 2));
+        assertEquals(0x9b00dbd8, Philox.nextInt(0L, 0, 0L, 3));
+    }
+
+    @Test
+    public void testIntegers() {
+        final int size = 8192;
+        int[] output = new int[size];
+
+        new TaskSchedule("s0") //
+                .task("t0", TestPhilox::randomInts, output, SEED, 42L) //
+                .streamOut(output) //
+                .execute();
+
+        for (int i = 0; i < size; i++) {
+            assertEquals(Philox.nextInt(SEED, i, 42L, i % 4), output[i]);
+        }
+    }
+
+    @Test
+    public void testUniform() {
+        final int size = 8192;
+        float[] output = new float[size];
+
+        new TaskSchedule("s0") //
+                .task("t0", Philox::fillUniform, output, SEED, 7L) //
+                .streamOut(output) //
+                .execute();
+
+        double mean = 0;
+        for (int i = 0; i < size; i++) {
+            assertEquals(Philox.uniform(SEED, i, 7L), output[i], 0.0f);
+            mean += output[i];
+        }
+        assertEquals(0.5, mean / size, 0.02);
+    }
+
+    @Test
+    public void testNormal() {
+        final int size = 8192;
+        float[] output = new float[size];
+
+        new TaskSchedule("s0") //
+                .task("t0", Philox::fillNormal, output, SEED, 7L) //
+                .streamOut(output) //
+                .execute();
+
+        double mean = 0;
+        double variance = 0;
+        for (int i = 0; i < size; i++) {
+            assertEquals(Philox.normal(SEED, i, 7L), output[i], 0.001f);
+            mean += output[i];
+            variance += output[i] * output[i];
+        }
+        assertEquals(0.0, mean / size, 0.05);
+        assertEquals(1.0, variance / size, 0.05);
+    }
+
+    @Test
+    public void testMonteCarloPi() {
+        final int size = 1024;
+        final int samples = 1000;
+        float[] output = new float[size];
+        float[] sequential = new float[size];
+
+        new TaskSchedule("s0") //
+                .task("t0", TestPhilox::monteCarloPi, output, SEED, samples) //
+                .streamOut(output) //
+                .execute();
+
+        monteCarloPi(sequential, SEED, samples);
+
+        double pi = 0;
+        for (int i = 0; i < size; i++) {
+            assertEquals(sequential[i], output[i], 0.0f);
+            pi += output[i];
+        }
+        assertEquals(Math.PI, pi / size, 0.01);
+    }
+
+}
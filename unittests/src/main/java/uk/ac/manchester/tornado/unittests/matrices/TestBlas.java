@@ -0,0 +1,184 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.matrices;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.ejml.simple.SimpleMatrix;
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.KernelContext;
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.collections.types.Matrix2DDouble;
+import uk.ac.manchester.tornado.api.collections.types.Matrix2DFloat;
+import uk.ac.manchester.tornado.api.collections.types.VectorFloat;
+import uk.ac.manchester.tornado.matrix.Blas;
+import uk.ac.manchester.tornado.matrix.EjmlUtil;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Tests of the BLAS kernels of the matrices module against EJML. The sizes are
+ * not multiples of the GEMM tiles.
+ */
+public class TestBlas extends TornadoTestBase {
+
+    private static final int M = 100;
+    private static final int N = 70;
+    private static final int K = 90;
+    private static final int SIZE = 10000;
+
+    private static final float ALPHA = 1.5f;
+    private static final float BETA = 0.5f;
+
+    private static Matrix2DFloat randomMatrix(int rows, int columns, Random random) {
+        Matrix2DFloat matrix = new Matrix2DFloat(rows, columns);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                matrix.set(i, j, random.nextFloat());
+            }
+        }
+        return matrix;
+    }
+
+    private static Matrix2DDouble randomMatrixDouble(int rows, int columns, Random random) {
+        Matrix2DDouble matrix = new Matrix2DDouble(rows, columns);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < columns; j++) {
+                matrix.set(i, j, random.nextDouble());
+            }
+        }
+        return matrix;
+    }
+
+    private static float[] randomVector(int size, Random random) {
+        float[] vector = new float[size];
+        for (int i = 0; i < size; i++) {
+            vector[i] = random.nextFloat();
+        }
+        return vector;
+    }
+
+    @Test
+    public void testSgemm() {
+        Random random = new Random(7);
+        Matrix2DFloat a = randomMatrix(M, K, random);
+        Matrix2DFloat b = randomMatrix(K, N, random);
+        Matrix2DFloat c = randomMatrix(M, N, random);
+        Matrix2DFloat expected = c.duplicate();
+        Blas.sgemmHost(ALPHA, a, b, BETA, expected);
+
+        for (int tile : Blas.TILE_SIZES) {
+            Matrix2DFloat result = c.duplicate();
+            float[] aArray = a.asBuffer().array();
+            float[] bArray = b.asBuffer().array();
+            float[] cArray = result.asBuffer().array();
+            TaskSchedule s0 = new TaskSchedule("s" + tile).streamIn(aArray, bArray, cArray);
+            Blas.sgemm(s0, "t0", new KernelContext(), M, N, K, ALPHA, aArray, bArray, BETA, cArray, tile).streamOut(cArray).execute();
+
+            for (int i = 0; i < M; i++) {
+                for (int j = 0; j < N; j++) {
+                    assertEquals(expected.get(i, j), result.get(i, j), 0.01f);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testDgemm() {
+        Random random = new Random(11);
+        Matrix2DDouble a = randomMatrixDouble(M, K, random);
+        Matrix2DDouble b = randomMatrixDouble(K, N, random);
+        Matrix2DDouble c = randomMatrixDouble(M, N, random);
+        Matrix2DDouble expected = c.duplicate();
+        Blas.dgemmHost(ALPHA, a, b, BETA, expected);
+
+        double[] aArray = a.asBuffer().array();
+        double[] bArray = b.asBuffer().array();
+        double[] cArray = c.asBuffer().array();
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(aArray, bArray, cArray);
+        Blas.dgemm(s0, "t0", new KernelContext(), M, N, K, ALPHA, aArray, bArray, BETA, cArray).streamOut(cArray).execute();
+
+        for (int i = 0; i < M; i++) {
+            for (int j = 0; j < N; j++) {
+                assertEquals(expected.get(i, j), c.get(i, j), 1e-9);
+            }
+        }
+    }
+
+    @Test
+    public void testSdot() {
+        Random random = new Random(13);
+        float[] x = randomVector(SIZE, random);
+        float[] y = randomVector(SIZE, random);
+
+        double expected = EjmlUtil.toMatrix(new VectorFloat(x)).dot(EjmlUtil.toMatrix(new VectorFloat(y)));
+
+        // The second call reuses the task-schedule of the first one
+        assertEquals(expected, Blas.sdot(x, y), expected * 1e-4);
+        assertEquals(expected, Blas.sdot(y, x), expected * 1e-4);
+    }
+
+    @Test
+    public void testSnrm2() {
+        Random random = new Random(17);
+        float[] x = randomVector(SIZE, random);
+
+        double expected = EjmlUtil.toMatrix(new VectorFloat(x)).normF();
+
+        assertEquals(expected, Blas.snrm2(x), expected * 1e-4);
+    }
+
+    @Test
+    public void testSaxpy() {
+        Random random = new Random(19);
+        float[] x = randomVector(SIZE, random);
+        float[] y = randomVector(SIZE, random);
+
+        SimpleMatrix expected = EjmlUtil.toMatrix(new VectorFloat(y)).plus(ALPHA, EjmlUtil.toMatrix(new VectorFloat(x)));
+
+        new TaskSchedule("s0") //
+                .streamIn(x, y) //
+                .task("t0", Blas::saxpy, ALPHA, x, y) //
+                .streamOut(y) //
+                .execute();
+
+        for (int i = 0; i < SIZE; i++) {
+            assertEquals(expected.get(i, 0), y[i], 0.001f);
+        }
+    }
+
+    @Test
+    public void testSgemv() {
+        Random random = new Random(23);
+        Matrix2DFloat a = randomMatrix(M, N, random);
+        VectorFloat x = new VectorFloat(randomVector(N, random));
+        VectorFloat y = new VectorFloat(randomVector(M, random));
+        VectorFloat expected = y.duplicate();
+        Blas.sgemvHost(ALPHA, a, x, BETA, expected);
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(a.asBuffer().array(), x.asBuffer().array(), y.asBuffer().array());
+        Blas.sgemv(s0, "t0", ALPHA, a, x, BETA, y).streamOut(y.asBuffer().array()).execute();
+
+        for (int i = 0; i < M; i++) {
+            assertEquals(expected.get(i), y.get(i), 0.01f);
+        }
+    }
+
+}
@@ -0,0 +1,332 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.matrices;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.collections.types.COOMatrixFloat;
+import uk.ac.manchester.tornado.api.collections.types.CSRMatrixFloat;
+import uk.ac.manchester.tornado.matrix.MatrixMarket;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestMatrixMarket extends TornadoTestBase {
+
+    /**
+     * Values that are parsed with a single double operation, and values that
+     * fall back to {@link Float#parseFloat(String)}: ties between two floats,
+     * subnormals, long mantissas, large exponents and infinities.
+     */
+    private static final String[] VALUES = { "1", "-2.5", "+0.125", "3.14159", "1e3", "2.5E-3", "-0.0", "0", "100.000", "16777217", "16777219", "1.00000005960464477539", "3.4028235e38",
+            "1e39", "-1e39", "1.4e-45", "1e-40", "1.17549435e-38", "123456789012345678901234567890", "0.000000000000000000000000000001", "7.038531e-26", "8.589973e9" };
+
+    private static Path createMatrixFile(String header, List<String> lines) throws IOException {
+        Path file = Files.createTempFile("tornado-matrix", ".mtx");
+        StringBuilder builder = new StringBuilder(header);
+        for (String line : lines) {
+            builder.append(line).append('\n');
+        }
+        Files.write(file, builder.toString().getBytes(StandardCharsets.US_ASCII));
+        return file;
+    }
+
+    private static void delete(Path file) throws IOException {
+        Files.deleteIfExists(file);
+        Files.deleteIfExists(new File(file + MatrixMarket.CACHE_EXTENSION).toPath());
+    }
+
+    private static void assertMatrixEquals(CSRMatrixFloat expected, CSRMatrixFloat matrix) {
+        assertEquals(expected.getNumRows(), matrix.getNumRows());
+        assertEquals(expected.getNumColumns(), matrix.getNumColumns());
+        assertArrayEquals(expected.getRowPointers(), matrix.getRowPointers());
+        assertArrayEquals(expected.getColumnIndices(), matrix.getColumnIndices());
+        assertArrayEquals(expected.getValues(), matrix.getValues(), 0.0f);
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static float[] toFloatArray(List<Float> list) {
+        float[] array = new float[list.size()];
+        for (int i = 0; i < array.length; i++) {
+            array[i] = list.get(i);
+        }
+        return array;
+    }
+
+    @Test
+    public void testGeneral() throws IOException {
+        final int numRows = 8;
+        final int numColumns = 5;
+        List<String> lines = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        List<Integer> columns = new ArrayList<>();
+        List<Float> values = new ArrayList<>();
+        for (int i = 0; i < VALUES.length; i++) {
+            int row = (i * 3) % numRows;
+            int column = i % numColumns;
+            lines.add((row + 1) + " " + (column + 1) + " " + VALUES[i]);
+            rows.add(row);
+            columns.add(column);
+            values.add(Float.parseFloat(VALUES[i]));
+        }
+        lines.add(3, "% comment between two elements");
+        lines.add(5, "");
+
+        Path file = createMatrixFile("%%MatrixMarket matrix coordinate real general\n% comment\n" + numRows + " " + numColumns + " " + VALUES.length + "\n", lines);
+        try {
+            CSRMatrixFloat expected = new COOMatrixFloat(numRows, numColumns, toArray(rows), toArray(columns), toFloatArray(values)).toCSR();
+            assertMatrixEquals(expected, MatrixMarket.load(file.toString(), false));
+        } finally {
+            delete(file);
+        }
+    }
+
+    /**
+     * Only the lower triangle is stored, and every element outside the diagonal
+     * is mirrored.
+     */
+    @Test
+    public void testSymmetric() throws IOException {
+        final int size = 6;
+        List<String> lines = new ArrayList<>();
+        List<Integer> rows = new ArrayList<>();
+        List<Integer> columns = new ArrayList<>();
+        List<Float> values = new ArrayList<>();
+        int index = 0;
+        for (int column = 0; column < size; column++) {
+            for (int row = column; row < size; row += 2) {
+                String value = VALUES[index++ % VALUES.length];
+                lines.add((row + 1) + " " + (column + 1) + " " + value);
+                rows.add(row);
+                columns.add(column);
+                values.add(Float.parseFloat(value));
+                if (row != column) {
+                    rows.add(column);
+                    columns.add(row);
+                    values.add(Float.parseFloat(value));
+                }
+            }
+        }
+
+        Path file = createMatrixFile("%%MatrixMarket matrix coordinate real symmetric\n" + size + " " + size + " " + lines.size() + "\n", lines);
+        try {
+            CSRMatrixFloat expected = new COOMatrixFloat(size, size, toArray(rows), toArray(columns), toFloatArray(values)).toCSR();
+            assertMatrixEquals(expected, MatrixMarket.load(file.toString(), false));
+        } finally {
+            delete(file);
+        }
+    }
+
+    /**
+     * The values of a pattern matrix only depend on the coordinates of every
+     * element, so the same elements in a different order give the same matrix.
+     */
+    @Test
+    public void testPattern() throws IOException {
+        final int numRows = 64;
+        final int numColumns = 32;
+        List<String> lines = new ArrayList<>();
+        for (int row = 0; row < numRows; row++) {
+            for (int column = row % 3; column < numColumns; column += 3) {
+                lines.add((row + 1) + " " + (column + 1));
+            }
+        }
+        final String header = "%%MatrixMarket matrix coordinate pattern general\n" + numRows + " " + numColumns + " " + lines.size() + "\n";
+
+        Path file = createMatrixFile(header, lines);
+        Collections.shuffle(lines, new Random(7));
+        Path shuffled = createMatrixFile(header, lines);
+        try {
+            CSRMatrixFloat matrix = MatrixMarket.load(file.toString(), false);
+            assertEquals(lines.size(), matrix.getNumNonZeros());
+            for (int row = 0; row < numRows; row++) {
+                for (int k = matrix.getRowPointers()[row]; k < matrix.getRowPointers()[row + 1]; k++) {
+                    assertEquals(row % 3, matrix.getColumnIndices()[k] % 3);
+                    assertTrue(matrix.getValues()[k] >= 0 && matrix.getValues()[k] < 256);
+                }
+            }
+            assertMatrixEquals(matrix, MatrixMarket.load(shuffled.toString(), false));
+        } finally {
+            delete(file);
+            delete(shuffled);
+        }
+    }
+
+    /**
+     * Every line has the same length and the data is 2 MB, which is split into
+     * two chunks whose edge is exactly the first byte of a line.
+     */
+    @Test
+    public void testLinesOnChunkEdges() throws IOException {
+        final int lineLength = 32;
+        final int numLines = (2 << 20) / lineLength;
+        final int numRows = 256;
+        final int numColumns = numLines / numRows;
+        final Random random = new Random(11);
+
+        List<String> lines = new ArrayList<>();
+        int[] rows = new int[numLines];
+        int[] columns = new int[numLines];
+        float[] values = new float[numLines];
+        for (int i = 0; i < numLines; i++) {
+            rows[i] = i / numColumns;
+            columns[i] = i % numColumns;
+            String value = (i % 16 == 0) ? VALUES[(i / 16) % VALUES.length] : Float.toString(random.nextFloat() * 1000 - 500);
+            String line = (rows[i] + 1) + " " + (columns[i] + 1) + " " + value;
+            if (line.length() >= lineLength) {
+                value = "0.5";
+                line = (rows[i] + 1) + " " + (columns[i] + 1) + " " + value;
+            }
+            StringBuilder padded = new StringBuilder(line);
+            while (padded.length() < lineLength - 1) {
+                padded.append(' ');
+            }
+            lines.add(padded.toString());
+            values[i] = Float.parseFloat(value);
+        }
+
+        Path file = createMatrixFile("%%MatrixMarket matrix coordinate real general\n" + numRows + " " + numColumns + " " + numLines + "\n", lines);
+        try {
+            CSRMatrixFloat expected = new COOMatrixFloat(numRows, numColumns, rows, columns, values).toCSR();
+            assertMatrixEquals(expected, MatrixMarket.load(file.toString(), false));
+        } finally {
+            delete(file);
+        }
+    }
+
+    private static Path createCachedMatrix(String value) throws IOException {
+        List<String> lines = new ArrayList<>();
+        lines.add("1 1 " + value);
+        lines.add("2 3 2.5");
+        lines.add("3 2 -4");
+        return createMatrixFile("%%MatrixMarket matrix coordinate real general\n3 3 3\n", lines);
+    }
+
+    /**
+     * Rewrites the first value of a matrix created by {@code createCachedMatrix}
+     * with a value of the same length, keeping the modification time.
+     */
+    private static void replaceFirstValue(Path file, String value, long lastModified) throws IOException {
+        byte[] bytes = new String(Files.readAllBytes(file), StandardCharsets.US_ASCII).replaceFirst("\n1 1 [^\n]*\n", "\n1 1 " + value + "\n").getBytes(StandardCharsets.US_ASCII);
+        Files.write(file, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+        assertTrue(file.toFile().setLastModified(lastModified));
+    }
+
+    @Test
+    public void testCacheHit() throws IOException {
+        Path file = createCachedMatrix("1.5");
+        File cache = new File(file + MatrixMarket.CACHE_EXTENSION);
+        try {
+            CSRMatrixFloat matrix = MatrixMarket.load(file.toString(), true);
+            assertTrue(cache.isFile());
+            assertEquals(1.5f, matrix.get(0, 0), 0.0f);
+
+            // Same length and modification time: the cache is used
+            replaceFirstValue(file, "7.5", file.toFile().lastModified());
+            assertMatrixEquals(matrix, MatrixMarket.load(file.toString(), true));
+        } finally {
+            delete(file);
+        }
+    }
+
+    @Test
+    public void testCacheInvalidatedByLength() throws IOException {
+        Path file = createCachedMatrix("1.5");
+        try {
+            MatrixMarket.load(file.toString(), true);
+
+            replaceFirstValue(file, "7.25", file.toFile().lastModified());
+            CSRMatrixFloat matrix = MatrixMarket.load(file.toString(), true);
+            assertEquals(7.25f, matrix.get(0, 0), 0.0f);
+
+            // The new cache is valid
+            assertMatrixEquals(matrix, MatrixMarket.load(file.toString(), true));
+        } finally {
+            delete(file);
+        }
+    }
+
+    @Test
+    public void testCacheInvalidatedByModificationTime() throws IOException {
+        Path file = createCachedMatrix("1.5");
+        try {
+            MatrixMarket.load(file.toString(), true);
+
+            replaceFirstValue(file, "7.5", file.toFile().lastModified() + 10000);
+            assertEquals(7.5f, MatrixMarket.load(file.toString(), true).get(0, 0), 0.0f);
+        } finally {
+            delete(file);
+        }
+    }
+
+    @Test
+    public void testStaleCacheVersion() throws IOException {
+        Path file = createCachedMatrix("1.5");
+        File cache = new File(file + MatrixMarket.CACHE_EXTENSION);
+        try {
+            MatrixMarket.load(file.toString(), true);
+            replaceFirstValue(file, "7.5", file.toFile().lastModified());
+
+            // The version is the second integer of the header
+            try (RandomAccessFile raf = new RandomAccessFile(cache, "rw")) {
+                raf.seek(4);
+                raf.writeInt(0);
+            }
+            assertEquals(7.5f, MatrixMarket.load(file.toString(), true).get(0, 0), 0.0f);
+        } finally {
+            delete(file);
+        }
+    }
+
+    @Test
+    public void testCacheDisabled() throws IOException {
+        Path file = createCachedMatrix("1.5");
+        File cache = new File(file + MatrixMarket.CACHE_EXTENSION);
+        String previous = System.getProperty("tornado.matrix.cache");
+        try {
+            System.setProperty("tornado.matrix.cache", "False");
+            assertEquals(1.5f, MatrixMarket.load(file.toString()).get(0, 0), 0.0f);
+            assertFalse(cache.exists());
+        } finally {
+            if (previous == null) {
+                System.clearProperty("tornado.matrix.cache");
+            } else {
+                System.setProperty("tornado.matrix.cache", previous);
+            }
+            delete(file);
+        }
+    }
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.matrices;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.collections.math.SparseMath;
+import uk.ac.manchester.tornado.api.collections.types.COOMatrixFloat;
+import uk.ac.manchester.tornado.api.collections.types.CSRMatrixFloat;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestSparseMatrices extends TornadoTestBase {
+
+    private static final int NUM_ROWS = 4096;
+    private static final int NUM_COLUMNS = 1024;
+
+    /**
+     * Builds a matrix with skewed rows: most rows have a few elements and some
+     * rows have hundreds.
+     */
+    private static CSRMatrixFloat createSkewedMatrix() {
+        Random r = new Random();
+        int[] lengths = new int[NUM_ROWS];
+        int numNonZeros = 0;
+        for (int row = 0; row < NUM_ROWS; row++) {
+            lengths[row] = (row % 64 == 0) ? 500 + r.nextInt(500) : r.nextInt(8);
+            numNonZeros += lengths[row];
+        }
+        int[] rows = new int[numNonZeros];
+        int[] columns = new int[numNonZeros];
+        float[] values = new float[numNonZeros];
+        int index = 0;
+        for (int row = 0; row < NUM_ROWS; row++) {
+            for (int k = 0; k < lengths[row]; k++) {
+                rows[index] = row;
+                columns[index] = (k * 7 + row) % NUM_COLUMNS;
+                values[index] = r.nextInt(10);
+                index++;
+            }
+        }
+        return new COOMatrixFloat(NUM_ROWS, NUM_COLUMNS, rows, columns, values).toCSR();
+    }
+
+    /**
+     * The triplets are in random order, so every row has to be sorted by column
+     * and every value has to move with its column.
+     */
+    @Test
+    public void testToCSRUnsortedRows() {
+        final int numNonZeros = NUM_ROWS * 16;
+        Random r = new Random();
+        int[] rows = new int[numNonZeros];
+        int[] columns = new int[numNonZeros];
+        float[] values = new float[numNonZeros];
+        for (int i = 0; i < numNonZeros; i++) {
+            rows[i] = r.nextInt(NUM_ROWS);
+            columns[i] = r.nextInt(NUM_COLUMNS);
+            values[i] = rows[i] * NUM_COLUMNS + columns[i];
+        }
+        CSRMatrixFloat matrix = new COOMatrixFloat(NUM_ROWS, NUM_COLUMNS, rows, columns, values).toCSR();
+
+        int[] rowPointers = matrix.getRowPointers();
+        int[] csrColumns = matrix.getColumnIndices();
+        float[] csrValues = matrix.getValues();
+        assertEquals(numNonZeros, rowPointers[NUM_ROWS]);
+        for (int row = 0; row < NUM_ROWS; row++) {
+            for (int i = rowPointers[row]; i < rowPointers[row + 1]; i++) {
+                assertEquals(row * NUM_COLUMNS + csrColumns[i], csrValues[i], 0.0f);
+                if (i > rowPointers[row]) {
+                    assertTrue(csrColumns[i - 1] <= csrColumns[i]);
+                }
+            }
+        }
+    }
+
+    private static float[] createVector(int size) {
+        float[] x = new float[size];
+        Random r = new Random();
+        for (int i = 0; i < size; i++) {
+            x[i] = r.nextInt(10);
+        }
+        return x;
+    }
+
+    private void testSpMV(SparseMath.Strategy strategy) {
+        CSRMatrixFloat matrix = createSkewedMatrix();
+        float[] x = createVector(NUM_COLUMNS);
+        float[] y = new float[NUM_ROWS];
+        float[] sequential = new float[NUM_ROWS];
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(x);
+        SparseMath.spmv(s0, "t0", matrix, x, y, strategy) //
+                .streamOut(y) //
+                .execute();
+
+        matrix.multiply(x, sequential);
+        for (int i = 0; i < NUM_ROWS; i++) {
+            assertEquals(sequential[i], y[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testSpMVScalar() {
+        testSpMV(SparseMath.Strategy.SCALAR);
+    }
+
+    @Test
+    public void testSpMVVector() {
+        testSpMV(SparseMath.Strategy.VECTOR);
+    }
+
+    @Test
+    public void testSpMVMerge() {
+        testSpMV(SparseMath.Strategy.MERGE);
+    }
+
+    @Test
+    public void testSpMVSELL() {
+        CSRMatrixFloat matrix = createSkewedMatrix();
+        float[] x = createVector(NUM_COLUMNS);
+        float[] y = new float[NUM_ROWS];
+        float[] sequential = new float[NUM_ROWS];
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(x);
+        SparseMath.spmv(s0, "t0", matrix.toSELL(32, 256), x, y) //
+                .streamOut(y) //
+                .execute();
+
+        matrix.multiply(x, sequential);
+        for (int i = 0; i < NUM_ROWS; i++) {
+            assertEquals(sequential[i], y[i], 0.01f);
+        }
+    }
+
+    @Test
+    public void testSpMM() {
+        final int numColumns = 16;
+        CSRMatrixFloat matrix = createSkewedMatrix();
+        float[] b = createVector(NUM_COLUMNS * numColumns);
+        float[] c = new float[NUM_ROWS * numColumns];
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(b);
+        SparseMath.spmm(s0, "t0", matrix, b, c, numColumns) //
+                .streamOut(c) //
+                .execute();
+
+        float[] column = new float[NUM_COLUMNS];
+        float[] sequential = new float[NUM_ROWS];
+        for (int j = 0; j < numColumns; j++) {
+            for (int k = 0; k < NUM_COLUMNS; k++) {
+                column[k] = b[k * numColumns + j];
+            }
+            matrix.multiply(column, sequential);
+            for (int i = 0; i < NUM_ROWS; i++) {
+                assertEquals(sequential[i], c[i * numColumns + j], 0.01f);
+            }
+        }
+    }
+
+}
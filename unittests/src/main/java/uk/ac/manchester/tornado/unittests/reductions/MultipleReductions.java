@@ -17,6 +17,8 @@
  */
 package uk.ac.manchester.tornado.unittests.reductions;
 
+import static org.junit.Assert.assertEquals;
+
 import org.junit.Test;
 import uk.ac.manchester.tornado.api.TaskSchedule;
 import uk.ac.manchester.tornado.api.annotations.Parallel;
@@ -46,8 +48,7 @@ public class MultipleReductions extends TornadoTestBase {
     }
 
     /**
-     * Check if TornadoVM can generate OpenCL code the the input expression. Note
-     * that fusion of multiple reductions is not supported yet.
+     * Check if TornadoVM can generate OpenCL code the the input expression.
      */
     @Test
     public void test() {
@@ -67,4 +68,121 @@ public class MultipleReductions extends TornadoTestBase {
 
         task.execute();
     }
+
+    /**
+     * Sum and maximum of the same input computed in a single kernel. Every
+     * reduce variable is combined with its own operation.
+     */
+    public static void sumAndMax(float[] input, @Reduce float[] sum, @Reduce float[] max) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            sum[0] += input[i];
+            max[0] = Math.max(max[0], input[i]);
+        }
+    }
+
+    @Test
+    public void testSumAndMax() {
+        final int size = 1024;
+        float[] input = new float[size];
+        float[] sum = new float[] { 0.0f };
+        float[] max = new float[] { Float.MIN_VALUE };
+
+        IntStream.range(0, size).forEach(i -> {
+            input[i] = i % 100;
+        });
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .streamIn(input)
+            .task("t0", MultipleReductions::sumAndMax, input, sum, max)
+            .streamOut(sum, max)
+            .execute();
+        //@formatter:on
+
+        float[] sequentialSum = new float[] { 0.0f };
+        float[] sequentialMax = new float[] { Float.MIN_VALUE };
+        sumAndMax(input, sequentialSum, sequentialMax);
+
+        assertEquals(sequentialSum[0], sum[0], 0.1f);
+        assertEquals(sequentialMax[0], max[0], 0.01f);
+    }
+
+    /**
+     * Sum and sum of squares of the same input, used to compute the mean and the
+     * variance with a single read of the input.
+     */
+    public static void sumAndSumOfSquares(long[] input, @Reduce long[] sum, @Reduce long[] sumOfSquares) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            sum[0] += input[i];
+            sumOfSquares[0] += input[i] * input[i];
+        }
+    }
+
+    @Test
+    public void testSumAndSumOfSquares() {
+        final int size = 1024;
+        long[] input = new long[size];
+        long[] sum = new long[] { 0 };
+        long[] sumOfSquares = new long[] { 0 };
+
+        IntStream.range(0, size).forEach(i -> {
+            input[i] = i;
+        });
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .streamIn(input)
+            .task("t0", MultipleReductions::sumAndSumOfSquares, input, sum, sumOfSquares)
+            .streamOut(sum, sumOfSquares)
+            .execute();
+        //@formatter:on
+
+        long[] sequentialSum = new long[] { 0 };
+        long[] sequentialSumOfSquares = new long[] { 0 };
+        sumAndSumOfSquares(input, sequentialSum, sequentialSumOfSquares);
+
+        assertEquals(sequentialSum[0], sum[0]);
+        assertEquals(sequentialSumOfSquares[0], sumOfSquares[0]);
+    }
+
+    public static void sumAndMin(int[] input, @Reduce int[] sum, @Reduce int[] min) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            sum[0] += input[i];
+            min[0] = Math.min(min[0], input[i]);
+        }
+    }
+
+    /**
+     * Two reduce variables with input sizes that are not a power of two. On GPUs,
+     * the elements beyond the largest power of two are reduced on the host and
+     * combined with the device result of each reduce variable.
+     */
+    @Test
+    public void testSumAndMinNonPowerOfTwo() {
+        final int[] sizes = { 1000, 2049 };
+        for (int size : sizes) {
+            int[] input = new int[size];
+            int[] sum = new int[] { 0 };
+            int[] min = new int[] { Integer.MAX_VALUE };
+
+            IntStream.range(0, size).forEach(i -> {
+                input[i] = (i * 7 + 13) % 1000 - 500;
+            });
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", MultipleReductions::sumAndMin, input, sum, min)
+                .streamOut(sum, min)
+                .execute();
+            //@formatter:on
+
+            int[] sequentialSum = new int[] { 0 };
+            int[] sequentialMin = new int[] { Integer.MAX_VALUE };
+            sumAndMin(input, sequentialSum, sequentialMin);
+
+            assertEquals(sequentialSum[0], sum[0]);
+            assertEquals(sequentialMin[0], min[0]);
+        }
+    }
 }
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.reductions;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.collections.algorithms.KeyedReductions;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+public class TestKeyedReductions extends TornadoTestBase {
+
+    private static final int SIZE = 8192;
+    private static final int NUM_KEYS = 16;
+
+    @Test
+    public void testSumByKey() {
+        int[] keys = new int[SIZE];
+        float[] values = new float[SIZE];
+        float[] sequential = new float[NUM_KEYS];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = r.nextInt(NUM_KEYS);
+            values[i] = r.nextInt(100);
+            sequential[keys[i]] += values[i];
+        }
+
+        float[] partials = new float[KeyedReductions.numPartitions(SIZE, NUM_KEYS) * NUM_KEYS];
+        float[] result = new float[NUM_KEYS];
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(keys, values);
+        KeyedReductions.reduceByKey(s0, "t0", keys, values, partials, result, KeyedReductions.SUM) //
+                .streamOut(result) //
+                .execute();
+
+        for (int k = 0; k < NUM_KEYS; k++) {
+            assertEquals(sequential[k], result[k], 0.01f);
+        }
+    }
+
+    @Test
+    public void testCountAndMaxByKey() {
+        int[] keys = new int[SIZE];
+        int[] values = new int[SIZE];
+        int[] counts = new int[NUM_KEYS];
+        int[] maximums = new int[NUM_KEYS];
+        Random r = new Random();
+        for (int i = 0; i < SIZE; i++) {
+            keys[i] = r.nextInt(NUM_KEYS);
+            values[i] = r.nextInt(1000);
+        }
+
+        int numPartitions = KeyedReductions.numPartitions(SIZE, NUM_KEYS);
+        int[] countPartials = new int[numPartitions * NUM_KEYS];
+        int[] maxPartials = new int[numPartitions * NUM_KEYS];
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(keys, values);
+        KeyedReductions.countByKey(s0, "t0", keys, countPartials, counts);
+        KeyedReductions.reduceByKey(s0, "t1", keys, values, maxPartials, maximums, KeyedReductions.MAX) //
+                .streamOut(counts, maximums) //
+                .execute();
+
+        int[] sequentialCounts = new int[NUM_KEYS];
+        int[] sequentialMaximums = new int[NUM_KEYS];
+        for (int k = 0; k < NUM_KEYS; k++) {
+            sequentialMaximums[k] = Integer.MIN_VALUE;
+        }
+        for (int i = 0; i < SIZE; i++) {
+            sequentialCounts[keys[i]]++;
+            sequentialMaximums[keys[i]] = Math.max(sequentialMaximums[keys[i]], values[i]);
+        }
+
+        for (int k = 0; k < NUM_KEYS; k++) {
+            assertEquals(sequentialCounts[k], counts[k]);
+            assertEquals(sequentialMaximums[k], maximums[k]);
+        }
+    }
+
+    @Test
+    public void testSegmentedSum() {
+        final int numSegments = 256;
+        final int chunkSize = 64;
+        Random r = new Random();
+        int[] offsets = new int[numSegments + 1];
+        for (int s = 1; s <= numSegments; s++) {
+            // Some segments are empty and some span several chunks
+            int length = (s % 7 == 0) ? 0 : r.nextInt(s % 5 == 0 ? 300 : 20);
+            offsets[s] = offsets[s - 1] + length;
+        }
+        int size = offsets[numSegments];
+        float[] values = new float[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = r.nextInt(100);
+        }
+
+        float[] carries = new float[2 * KeyedReductions.numChunks(size, chunkSize)];
+        float[] result = new float[numSegments];
+
+        TaskSchedule s0 = new TaskSchedule("s0").streamIn(values, offsets);
+        KeyedReductions.reduceSegments(s0, "t0", values, offsets, carries, result, chunkSize, KeyedReductions.SUM) //
+                .streamOut(result) //
+                .execute();
+
+        for (int s = 0; s < numSegments; s++) {
+            float sum = 0;
+            for (int i = offsets[s]; i < offsets[s + 1]; i++) {
+                sum += values[i];
+            }
+            assertEquals(sum, result[s], 0.01f);
+        }
+    }
+
+}
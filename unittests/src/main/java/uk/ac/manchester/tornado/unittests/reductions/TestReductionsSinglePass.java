@@ -0,0 +1,532 @@
+/*
+ * Copyright (c) 2013-2020, APT Group, Department of Computer Science,
+ * The University of Manchester.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *
+ */
+package uk.ac.manchester.tornado.unittests.reductions;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import uk.ac.manchester.tornado.api.TaskSchedule;
+import uk.ac.manchester.tornado.api.annotations.Parallel;
+import uk.ac.manchester.tornado.api.annotations.Reduce;
+import uk.ac.manchester.tornado.unittests.common.TornadoTestBase;
+
+/**
+ * Reductions in which the last work-group combines the partial results on the
+ * device. The tests cover every operation and type with power-of-two and
+ * non-power-of-two sizes. They are meant to be run with single-pass reductions
+ * enabled:
+ *
+ * <code>
+ *     tornado-test.py -V -J"-Dtornado.reduce.singlepass=True" uk.ac.manchester.tornado.unittests.reductions.TestReductionsSinglePass
+ * </code>
+ */
+public class TestReductionsSinglePass extends TornadoTestBase {
+
+    private static final int[] SIZES = { 8192, 6000 };
+
+    private static void reduceIntAdd(int[] input, @Reduce int[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] += input[i];
+        }
+    }
+
+    private static void reduceIntMul(int[] input, @Reduce int[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] *= input[i];
+        }
+    }
+
+    private static void reduceIntMax(int[] input, @Reduce int[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] = Math.max(result[0], input[i]);
+        }
+    }
+
+    private static void reduceIntMin(int[] input, @Reduce int[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] = Math.min(result[0], input[i]);
+        }
+    }
+
+    private static void reduceLongAdd(long[] input, @Reduce long[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] += input[i];
+        }
+    }
+
+    private static void reduceLongMul(long[] input, @Reduce long[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] *= input[i];
+        }
+    }
+
+    private static void reduceLongMax(long[] input, @Reduce long[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] = Math.max(result[0], input[i]);
+        }
+    }
+
+    private static void reduceLongMin(long[] input, @Reduce long[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] = Math.min(result[0], input[i]);
+        }
+    }
+
+    private static void reduceFloatAdd(float[] input, @Reduce float[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] += input[i];
+        }
+    }
+
+    private static void reduceFloatMul(float[] input, @Reduce float[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] *= input[i];
+        }
+    }
+
+    private static void reduceFloatMax(float[] input, @Reduce float[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] = Math.max(result[0], input[i]);
+        }
+    }
+
+    private static void reduceFloatMin(float[] input, @Reduce float[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] = Math.min(result[0], input[i]);
+        }
+    }
+
+    private static void reduceDoubleAdd(double[] input, @Reduce double[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] += input[i];
+        }
+    }
+
+    private static void reduceDoubleMul(double[] input, @Reduce double[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] *= input[i];
+        }
+    }
+
+    private static void reduceDoubleMax(double[] input, @Reduce double[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] = Math.max(result[0], input[i]);
+        }
+    }
+
+    private static void reduceDoubleMin(double[] input, @Reduce double[] result) {
+        for (@Parallel int i = 0; i < input.length; i++) {
+            result[0] = Math.min(result[0], input[i]);
+        }
+    }
+
+    @Test
+    public void testIntAdd() {
+        for (int size : SIZES) {
+            int[] input = new int[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = i % 100;
+            }
+            int[] result = new int[] { 0 };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceIntAdd, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            int[] sequential = new int[] { 0 };
+            reduceIntAdd(input, sequential);
+            assertEquals(sequential[0], result[0]);
+        }
+    }
+
+    @Test
+    public void testIntMul() {
+        for (int size : SIZES) {
+            int[] input = new int[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = 1;
+            }
+            // A few factors other than one, so the product does not overflow
+            input[10] = 2;
+            input[size - 1] = 3;
+            input[size / 2] = 5;
+            int[] result = new int[] { 1 };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceIntMul, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            int[] sequential = new int[] { 1 };
+            reduceIntMul(input, sequential);
+            assertEquals(sequential[0], result[0]);
+        }
+    }
+
+    @Test
+    public void testIntMax() {
+        Random r = new Random();
+        for (int size : SIZES) {
+            int[] input = new int[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = r.nextInt(10000);
+            }
+            int[] result = new int[] { Integer.MIN_VALUE + 1 };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceIntMax, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            int[] sequential = new int[] { Integer.MIN_VALUE + 1 };
+            reduceIntMax(input, sequential);
+            assertEquals(sequential[0], result[0]);
+        }
+    }
+
+    @Test
+    public void testIntMin() {
+        Random r = new Random();
+        for (int size : SIZES) {
+            int[] input = new int[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = r.nextInt(10000);
+            }
+            int[] result = new int[] { Integer.MAX_VALUE };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceIntMin, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            int[] sequential = new int[] { Integer.MAX_VALUE };
+            reduceIntMin(input, sequential);
+            assertEquals(sequential[0], result[0]);
+        }
+    }
+
+    @Test
+    public void testLongAdd() {
+        for (int size : SIZES) {
+            long[] input = new long[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = (long) (i % 100);
+            }
+            long[] result = new long[] { 0L };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceLongAdd, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            long[] sequential = new long[] { 0L };
+            reduceLongAdd(input, sequential);
+            assertEquals(sequential[0], result[0]);
+        }
+    }
+
+    @Test
+    public void testLongMul() {
+        for (int size : SIZES) {
+            long[] input = new long[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = 1L;
+            }
+            // A few factors other than one, so the product does not overflow
+            input[10] = 2;
+            input[size - 1] = 3;
+            input[size / 2] = 5;
+            long[] result = new long[] { 1L };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceLongMul, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            long[] sequential = new long[] { 1L };
+            reduceLongMul(input, sequential);
+            assertEquals(sequential[0], result[0]);
+        }
+    }
+
+    @Test
+    public void testLongMax() {
+        Random r = new Random();
+        for (int size : SIZES) {
+            long[] input = new long[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = (long) r.nextInt(10000);
+            }
+            long[] result = new long[] { Long.MIN_VALUE + 1 };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceLongMax, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            long[] sequential = new long[] { Long.MIN_VALUE + 1 };
+            reduceLongMax(input, sequential);
+            assertEquals(sequential[0], result[0]);
+        }
+    }
+
+    @Test
+    public void testLongMin() {
+        Random r = new Random();
+        for (int size : SIZES) {
+            long[] input = new long[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = (long) r.nextInt(10000);
+            }
+            long[] result = new long[] { Long.MAX_VALUE };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceLongMin, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            long[] sequential = new long[] { Long.MAX_VALUE };
+            reduceLongMin(input, sequential);
+            assertEquals(sequential[0], result[0]);
+        }
+    }
+
+    @Test
+    public void testFloatAdd() {
+        for (int size : SIZES) {
+            float[] input = new float[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = (float) (i % 100);
+            }
+            float[] result = new float[] { 0.0f };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceFloatAdd, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            float[] sequential = new float[] { 0.0f };
+            reduceFloatAdd(input, sequential);
+            assertEquals(sequential[0], result[0], 0.01f);
+        }
+    }
+
+    @Test
+    public void testFloatMul() {
+        for (int size : SIZES) {
+            float[] input = new float[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = 1.0f;
+            }
+            // A few factors other than one, so the product does not overflow
+            input[10] = 2;
+            input[size - 1] = 3;
+            input[size / 2] = 5;
+            float[] result = new float[] { 1.0f };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceFloatMul, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            float[] sequential = new float[] { 1.0f };
+            reduceFloatMul(input, sequential);
+            assertEquals(sequential[0], result[0], 0.01f);
+        }
+    }
+
+    @Test
+    public void testFloatMax() {
+        Random r = new Random();
+        for (int size : SIZES) {
+            float[] input = new float[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = (float) r.nextInt(10000);
+            }
+            float[] result = new float[] { -Float.MAX_VALUE };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceFloatMax, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            float[] sequential = new float[] { -Float.MAX_VALUE };
+            reduceFloatMax(input, sequential);
+            assertEquals(sequential[0], result[0], 0.01f);
+        }
+    }
+
+    @Test
+    public void testFloatMin() {
+        Random r = new Random();
+        for (int size : SIZES) {
+            float[] input = new float[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = (float) r.nextInt(10000);
+            }
+            float[] result = new float[] { Float.MAX_VALUE };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceFloatMin, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            float[] sequential = new float[] { Float.MAX_VALUE };
+            reduceFloatMin(input, sequential);
+            assertEquals(sequential[0], result[0], 0.01f);
+        }
+    }
+
+    @Test
+    public void testDoubleAdd() {
+        for (int size : SIZES) {
+            double[] input = new double[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = (double) (i % 100);
+            }
+            double[] result = new double[] { 0.0 };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceDoubleAdd, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            double[] sequential = new double[] { 0.0 };
+            reduceDoubleAdd(input, sequential);
+            assertEquals(sequential[0], result[0], 0.01);
+        }
+    }
+
+    @Test
+    public void testDoubleMul() {
+        for (int size : SIZES) {
+            double[] input = new double[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = 1.0;
+            }
+            // A few factors other than one, so the product does not overflow
+            input[10] = 2;
+            input[size - 1] = 3;
+            input[size / 2] = 5;
+            double[] result = new double[] { 1.0 };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceDoubleMul, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            double[] sequential = new double[] { 1.0 };
+            reduceDoubleMul(input, sequential);
+            assertEquals(sequential[0], result[0], 0.01);
+        }
+    }
+
+    @Test
+    public void testDoubleMax() {
+        Random r = new Random();
+        for (int size : SIZES) {
+            double[] input = new double[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = (double) r.nextInt(10000);
+            }
+            double[] result = new double[] { -Double.MAX_VALUE };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceDoubleMax, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            double[] sequential = new double[] { -Double.MAX_VALUE };
+            reduceDoubleMax(input, sequential);
+            assertEquals(sequential[0], result[0], 0.01);
+        }
+    }
+
+    @Test
+    public void testDoubleMin() {
+        Random r = new Random();
+        for (int size : SIZES) {
+            double[] input = new double[size];
+            for (int i = 0; i < size; i++) {
+                input[i] = (double) r.nextInt(10000);
+            }
+            double[] result = new double[] { Double.MAX_VALUE };
+
+            //@formatter:off
+            new TaskSchedule("s0")
+                .streamIn(input)
+                .task("t0", TestReductionsSinglePass::reduceDoubleMin, input, result)
+                .streamOut(result)
+                .execute();
+            //@formatter:on
+
+            double[] sequential = new double[] { Double.MAX_VALUE };
+            reduceDoubleMin(input, sequential);
+            assertEquals(sequential[0], result[0], 0.01);
+        }
+    }
+}
@@ -57,6 +57,12 @@ public class TestMultipleTasksSingleDevice extends TornadoTestBase {
         }
     }
 
+    public static void task4Square(int[] a, int[] b) {
+        for (@Parallel int i = 0; i < a.length; i++) {
+            b[i] = a[i] * a[i];
+        }
+    }
+
     @Test
     public void testTwoTasks() {
         final int numElements = 1024;
@@ -149,4 +155,107 @@ public class TestMultipleTasksSingleDevice extends TornadoTestBase {
         }
     }
 
+    /**
+     * Producer/consumer tasks over the same iteration space. The intermediate
+     * array is not copied out. With {@code -Dtornado.fusion=True} both tasks run
+     * as a single kernel.
+     */
+    @Test
+    public void testProducerConsumer() {
+        final int numElements = 1024;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+        int[] c = new int[numElements];
+
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i % 100;
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .streamIn(a)
+            .task("t0", TestMultipleTasksSingleDevice::task4Square, a, b)
+            .task("t1", TestMultipleTasksSingleDevice::task2Saxpy, b, a, c, 2)
+            .streamOut(c)
+            .execute();
+        //@formatter:on
+
+        for (int i = 0; i < a.length; i++) {
+            assertEquals(2 * a[i] * a[i] + a[i], c[i]);
+        }
+    }
+
+    /**
+     * The stream-in array is written on the device by the first task and read by
+     * the second one. The transfers of the array must not be removed, and the
+     * second task must not see the original host values.
+     */
+    @Test
+    public void testStreamInWrittenByPreviousTask() {
+        final int numElements = 1024;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+
+        //@formatter:off
+        TaskSchedule s0 = new TaskSchedule("s0")
+            .streamIn(a)
+            .task("t0", TestMultipleTasksSingleDevice::task1Multiplication, a, 12)
+            .task("t1", TestMultipleTasksSingleDevice::task4Square, a, b)
+            .streamOut(a, b);
+        //@formatter:on
+
+        for (int iteration = 1; iteration <= 3; iteration++) {
+            for (int i = 0; i < a.length; i++) {
+                a[i] = (i % 10) + iteration;
+            }
+
+            s0.execute();
+
+            for (int i = 0; i < a.length; i++) {
+                int value = ((i % 10) + iteration) * 12;
+                assertEquals(value, a[i]);
+                assertEquals(value * value, b[i]);
+            }
+        }
+    }
+
+    /**
+     * Two task-schedules with the same names fuse the same producer with
+     * different consumers. The fused kernels are named after both tasks, so the
+     * second schedule does not reuse the kernel of the first one.
+     */
+    @Test
+    public void testProducerDifferentConsumers() {
+        final int numElements = 1024;
+        int[] a = new int[numElements];
+        int[] b = new int[numElements];
+        int[] c = new int[numElements];
+        int[] d = new int[numElements];
+
+        for (int i = 0; i < a.length; i++) {
+            a[i] = i % 100;
+        }
+
+        //@formatter:off
+        new TaskSchedule("s0")
+            .streamIn(a)
+            .task("t0", TestMultipleTasksSingleDevice::task4Square, a, b)
+            .task("t1", TestMultipleTasksSingleDevice::task2Saxpy, b, a, c, 2)
+            .streamOut(c)
+            .execute();
+
+        new TaskSchedule("s0")
+            .streamIn(a)
+            .task("t0", TestMultipleTasksSingleDevice::task4Square, a, b)
+            .task("t1", TestMultipleTasksSingleDevice::task3Copy, b, d, 0)
+            .streamOut(d)
+            .execute();
+        //@formatter:on
+
+        for (int i = 0; i < a.length; i++) {
+            assertEquals(2 * a[i] * a[i] + a[i], c[i]);
+            assertEquals(a[i] * a[i], d[i]);
+        }
+    }
+
 }